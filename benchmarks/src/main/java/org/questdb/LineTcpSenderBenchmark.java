@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package org.questdb;
+
+import io.questdb.cutlass.line.LineProtoSender;
+import io.questdb.cutlass.line.tcp.AsyncLineTcpSender;
+import io.questdb.cutlass.line.tcp.LineTCPProtoSender;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.datetime.millitime.MillisecondClockImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares row throughput of synchronous and asynchronous ILP TCP senders. Server side is a plain
+ * socket, which discards everything it receives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineTcpSenderBenchmark {
+    private static final int BUFFER_CAPACITY = 256 * 1024;
+    private ServerSocket serverSocket;
+    private LineProtoSender syncSender;
+    private AsyncLineTcpSender asyncSender;
+    private long timestamp;
+    private long value;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LineTcpSenderBenchmark.class.getSimpleName())
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .addProfiler("gc")
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        serverSocket = new ServerSocket(0);
+        final Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    final Thread drain = new Thread(() -> drain(socket));
+                    drain.setDaemon(true);
+                    drain.start();
+                } catch (IOException ignore) {
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        final int address = Net.parseIPv4("127.0.0.1");
+        final int port = serverSocket.getLocalPort();
+        syncSender = new LineTCPProtoSender(address, port, BUFFER_CAPACITY);
+        asyncSender = new AsyncLineTcpSender(
+                NetworkFacadeImpl.INSTANCE,
+                address,
+                port,
+                BUFFER_CAPACITY,
+                BUFFER_CAPACITY / 2,
+                100,
+                MillisecondClockImpl.INSTANCE,
+                10,
+                100,
+                null,
+                null
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        syncSender.close();
+        asyncSender.close();
+        serverSocket.close();
+    }
+
+    @Benchmark
+    public void testAsyncSender() {
+        asyncSender.metric("weather")
+                .tag("location", "london")
+                .tag("by", "quest")
+                .field("temp", value++)
+                .field("humidity", 0.5 * value)
+                .atMicros(timestamp++);
+    }
+
+    @Benchmark
+    public void testSyncSender() {
+        syncSender.metric("weather")
+                .tag("location", "london")
+                .tag("by", "quest")
+                .field("temp", value++)
+                .field("humidity", 0.5 * value)
+                .$(1000 * timestamp++);
+    }
+
+    private static void drain(Socket socket) {
+        final byte[] buf = new byte[64 * 1024];
+        try (InputStream in = socket.getInputStream()) {
+            //noinspection StatementWithEmptyBody
+            while (in.read(buf) > -1) {
+            }
+        } catch (IOException ignore) {
+        }
+    }
+}
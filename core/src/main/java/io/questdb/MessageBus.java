@@ -105,4 +105,22 @@ public interface MessageBus extends Closeable {
     RingQueue<LatestByTask> getLatestByQueue();
 
     Sequence getLatestBySubSeq();
+
+    Sequence getLatestBySymbolScanPubSeq();
+
+    RingQueue<LatestBySymbolScanTask> getLatestBySymbolScanQueue();
+
+    Sequence getLatestBySymbolScanSubSeq();
+
+    Sequence getExchangePubSeq();
+
+    RingQueue<ExchangeTask> getExchangeQueue();
+
+    Sequence getExchangeSubSeq();
+
+    Sequence getTextImportPubSeq();
+
+    RingQueue<TextImportTask> getTextImportQueue();
+
+    Sequence getTextImportSubSeq();
 }
@@ -71,6 +71,18 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
 
+    private final RingQueue<LatestBySymbolScanTask> latestBySymbolScanQueue;
+    private final MPSequence latestBySymbolScanPubSeq;
+    private final MCSequence latestBySymbolScanSubSeq;
+
+    private final RingQueue<ExchangeTask> exchangeQueue;
+    private final MPSequence exchangePubSeq;
+    private final MCSequence exchangeSubSeq;
+
+    private final RingQueue<TextImportTask> textImportQueue;
+    private final MPSequence textImportPubSeq;
+    private final MCSequence textImportSubSeq;
+
     private final CairoConfiguration configuration;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
@@ -124,6 +136,21 @@ public class MessageBusImpl implements MessageBus {
         this.latestByPubSeq = new MPSequence(latestByQueue.getCapacity());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCapacity());
         latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
+
+        this.latestBySymbolScanQueue = new RingQueue<>(LatestBySymbolScanTask::new, configuration.getLatestByQueueCapacity());
+        this.latestBySymbolScanPubSeq = new MPSequence(latestBySymbolScanQueue.getCapacity());
+        this.latestBySymbolScanSubSeq = new MCSequence(latestBySymbolScanQueue.getCapacity());
+        latestBySymbolScanPubSeq.then(latestBySymbolScanSubSeq).then(latestBySymbolScanPubSeq);
+
+        this.exchangeQueue = new RingQueue<>(ExchangeTask::new, configuration.getExchangeQueueCapacity());
+        this.exchangePubSeq = new MPSequence(exchangeQueue.getCapacity());
+        this.exchangeSubSeq = new MCSequence(exchangeQueue.getCapacity());
+        exchangePubSeq.then(exchangeSubSeq).then(exchangePubSeq);
+
+        this.textImportQueue = new RingQueue<>(TextImportTask::new, configuration.getTextImportQueueCapacity());
+        this.textImportPubSeq = new MPSequence(textImportQueue.getCapacity());
+        this.textImportSubSeq = new MCSequence(textImportQueue.getCapacity());
+        textImportPubSeq.then(textImportSubSeq).then(textImportPubSeq);
     }
 
     @Override
@@ -280,4 +307,49 @@ public class MessageBusImpl implements MessageBus {
     public Sequence getLatestBySubSeq() {
         return latestBySubSeq;
     }
+
+    @Override
+    public Sequence getLatestBySymbolScanPubSeq() {
+        return latestBySymbolScanPubSeq;
+    }
+
+    @Override
+    public RingQueue<LatestBySymbolScanTask> getLatestBySymbolScanQueue() {
+        return latestBySymbolScanQueue;
+    }
+
+    @Override
+    public Sequence getLatestBySymbolScanSubSeq() {
+        return latestBySymbolScanSubSeq;
+    }
+
+    @Override
+    public Sequence getExchangePubSeq() {
+        return exchangePubSeq;
+    }
+
+    @Override
+    public RingQueue<ExchangeTask> getExchangeQueue() {
+        return exchangeQueue;
+    }
+
+    @Override
+    public Sequence getExchangeSubSeq() {
+        return exchangeSubSeq;
+    }
+
+    @Override
+    public Sequence getTextImportPubSeq() {
+        return textImportPubSeq;
+    }
+
+    @Override
+    public RingQueue<TextImportTask> getTextImportQueue() {
+        return textImportQueue;
+    }
+
+    @Override
+    public Sequence getTextImportSubSeq() {
+        return textImportSubSeq;
+    }
 }
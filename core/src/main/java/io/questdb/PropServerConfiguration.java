@@ -28,6 +28,7 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
@@ -71,6 +72,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final CairoConfiguration cairoConfiguration = new PropCairoConfiguration();
     private final LineUdpReceiverConfiguration lineUdpReceiverConfiguration = new PropLineUdpReceiverConfiguration();
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
+    private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new PropLineHttpProcessorConfiguration();
     private final TelemetryConfiguration telemetryConfiguration = new PropTelemetryConfiguration();
     private final int commitMode;
     private final boolean httpServerEnabled;
@@ -206,6 +208,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlDistinctTimestampKeyCapacity;
     private final double sqlDistinctTimestampLoadFactor;
     private boolean httpAllowDeflateBeforeSend;
+    private int httpCompressionMinSize;
     private int[] httpWorkerAffinity;
     private int[] httpMinWorkerAffinity;
     private int connectionPoolInitialCapacity;
@@ -237,6 +240,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private double maxRequiredDelimiterStdDev;
     private double maxRequiredLineLengthStdDev;
     private int metadataStringPoolCapacity;
+    private int parallelImportChunkCount;
+    private int parallelImportChunkSize;
     private int rollBufferLimit;
     private int rollBufferSize;
     private int textAnalysisMaxLines;
@@ -251,6 +256,13 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineUdpPort;
     private int jsonQueryFloatScale;
     private int jsonQueryDoubleScale;
+    private int httpExportBatchSize;
+    private int httpArrowBatchSize;
+    private int jsonQueryBatchSize;
+    private int httpIlpCommitMode;
+    private int httpIlpDefaultPartitionBy;
+    private int httpIlpMaxLineErrors;
+    private int httpIlpMaxMeasurementSize;
     private int jsonQueryConnectionCheckFrequency;
     private boolean httpFrozenClock;
     private boolean readOnlySecurityContext;
@@ -261,6 +273,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int pgNetActiveConnectionLimit;
     private int pgNetBindIPv4Address;
     private int pgNetBindPort;
+    private int pgNetDispatcherCount;
     private int pgNetEventCapacity;
     private int pgNetIOQueueCapacity;
     private long pgNetIdleConnectionTimeout;
@@ -297,6 +310,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineTcpNetActiveConnectionLimit;
     private int lineTcpNetBindIPv4Address;
     private int lineTcpNetBindPort;
+    private int lineTcpNetDispatcherCount;
     private int lineTcpNetEventCapacity;
     private int lineTcpNetIOQueueCapacity;
     private long lineTcpNetIdleConnectionTimeout;
@@ -342,6 +356,18 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int httpMinRcvBufSize;
     private int httpMinSndBufSize;
     private final int latestByQueueCapacity;
+    private final int exchangeQueueCapacity;
+    private final int textImportQueueCapacity;
+    private final long matViewRefreshInterval;
+    private final boolean columnMappingCacheEnabled;
+    private final boolean resultCacheEnabled;
+    private final long resultCacheSize;
+    private final int resultCachePageSize;
+    private final int resultCacheMaxPages;
+    private final int sqlJoinBuildSideRowRatio;
+    private final int sqlExchangePageSize;
+    private final int sqlExchangeMaxPages;
+    private final boolean sqlExchangeEnabled;
     private final int sampleByIndexSearchPageSize;
 
     public PropServerConfiguration(
@@ -430,6 +456,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.indexFileName = getString(properties, env, "http.static.index.file.name", "index.html");
                 this.httpFrozenClock = getBoolean(properties, env, "http.frozen.clock", false);
                 this.httpAllowDeflateBeforeSend = getBoolean(properties, env, "http.allow.deflate.before.send", false);
+                this.httpCompressionMinSize = getIntSize(properties, env, "http.compression.min.size", 1024);
                 this.httpServerKeepAlive = getBoolean(properties, env, "http.server.keep.alive", true);
                 this.httpVersion = getString(properties, env, "http.version", "HTTP/1.1");
                 if (!httpVersion.endsWith(" ")) {
@@ -470,6 +497,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.maxRequiredLineLengthStdDev = getDouble(properties, env, "http.text.max.required.line.length.stddev", 0.8);
                 this.metadataStringPoolCapacity = getInt(properties, env, "http.text.metadata.string.pool.capacity", 128);
 
+                this.parallelImportChunkCount = getInt(properties, env, "http.text.parallel.import.chunk.count", 4);
+                this.parallelImportChunkSize = getIntSize(properties, env, "http.text.parallel.import.chunk.size", 1024 * 1024);
                 this.rollBufferLimit = getIntSize(properties, env, "http.text.roll.buffer.limit", 1024 * 4096);
                 this.rollBufferSize = getIntSize(properties, env, "http.text.roll.buffer.size", 1024);
                 this.textAnalysisMaxLines = getInt(properties, env, "http.text.analysis.max.lines", 1000);
@@ -480,6 +509,21 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.jsonQueryConnectionCheckFrequency = getInt(properties, env, "http.json.query.connection.check.frequency", 1_000_000);
                 this.jsonQueryFloatScale = getInt(properties, env, "http.json.query.float.scale", 4);
                 this.jsonQueryDoubleScale = getInt(properties, env, "http.json.query.double.scale", 12);
+                this.httpExportBatchSize = getInt(properties, env, "http.export.batch.size", 1024);
+                this.httpArrowBatchSize = getInt(properties, env, "http.arrow.batch.size", 65536);
+                this.jsonQueryBatchSize = getInt(properties, env, "http.json.query.batch.size", 1024);
+                // requests to /write are acknowledged only after commit, hence "sync" default
+                this.httpIlpCommitMode = overrideWithEnv(properties, env, "http.ilp.commit.mode") == null
+                        ? CommitMode.SYNC
+                        : getCommitMode(properties, env, "http.ilp.commit.mode");
+                String httpIlpPartitionByProperty = getString(properties, env, "http.ilp.default.partition.by", "DAY");
+                this.httpIlpDefaultPartitionBy = PartitionBy.fromString(httpIlpPartitionByProperty);
+                if (this.httpIlpDefaultPartitionBy == -1) {
+                    log.info().$("invalid partition by ").$(httpIlpPartitionByProperty).$("), will use DAY").$();
+                    this.httpIlpDefaultPartitionBy = PartitionBy.DAY;
+                }
+                this.httpIlpMaxLineErrors = getInt(properties, env, "http.ilp.max.line.errors", 100);
+                this.httpIlpMaxMeasurementSize = getIntSize(properties, env, "http.ilp.max.measurement.size", 64 * 1024);
                 this.readOnlySecurityContext = getBoolean(properties, env, "http.security.readonly", false);
                 this.maxHttpQueryResponseRowLimit = getLong(properties, env, "http.security.max.response.rows", Long.MAX_VALUE);
                 this.interruptOnClosedConnection = getBoolean(properties, env, "http.security.interrupt.on.closed.connection", true);
@@ -509,6 +553,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                     pgNetBindPort = p;
                 });
 
+                this.pgNetDispatcherCount = getInt(properties, env, "pg.net.dispatcher.count", 1);
                 this.pgNetEventCapacity = getInt(properties, env, "pg.net.event.capacity", 1024);
                 this.pgNetIOQueueCapacity = getInt(properties, env, "pg.net.io.queue.capacity", 1024);
                 this.pgNetIdleConnectionTimeout = getLong(properties, env, "pg.net.idle.timeout", 300_000);
@@ -662,6 +707,18 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlAnalyticTreeKeyMaxPages = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.analytic.tree.max.pages", Integer.MAX_VALUE));
             this.sqlTxnScoreboardEntryCount = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.txn.scoreboard.entry.count", 16384));
             this.latestByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.latestby.queue.capacity", 32));
+            this.exchangeQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.exchange.queue.capacity", 32));
+            this.textImportQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.text.import.queue.capacity", 32));
+            this.matViewRefreshInterval = getLong(properties, env, "cairo.mat.view.refresh.interval", 1_000) * 1_000;
+            this.columnMappingCacheEnabled = getBoolean(properties, env, "cairo.reader.column.mapping.cache.enabled", true);
+            this.resultCacheEnabled = getBoolean(properties, env, "cairo.result.cache.enabled", false);
+            this.resultCacheSize = getLongSize(properties, env, "cairo.result.cache.size", 64 * 1024 * 1024);
+            this.resultCachePageSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.result.cache.page.size", 64 * 1024));
+            this.resultCacheMaxPages = getInt(properties, env, "cairo.result.cache.max.pages", 128);
+            this.sqlJoinBuildSideRowRatio = getInt(properties, env, "cairo.sql.join.build.side.row.ratio", 16);
+            this.sqlExchangePageSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.sql.exchange.page.size", 64 * 1024));
+            this.sqlExchangeMaxPages = getInt(properties, env, "cairo.sql.exchange.max.pages", 256);
+            this.sqlExchangeEnabled = getBoolean(properties, env, "cairo.sql.exchange.enabled", true);
             this.telemetryEnabled = getBoolean(properties, env, "telemetry.enabled", true);
             this.telemetryQueueCapacity = getInt(properties, env, "telemetry.queue.capacity", 512);
 
@@ -690,6 +747,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                     lineTcpNetBindPort = p;
                 });
 
+                this.lineTcpNetDispatcherCount = getInt(properties, env, "line.tcp.net.dispatcher.count", 1);
                 this.lineTcpNetEventCapacity = getInt(properties, env, "line.tcp.net.event.capacity", 1024);
                 this.lineTcpNetIOQueueCapacity = getInt(properties, env, "line.tcp.net.io.queue.capacity", 256);
                 this.lineTcpNetIdleConnectionTimeout = getLong(properties, env, "line.tcp.net.idle.timeout", 0);
@@ -1221,6 +1279,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return metadataStringPoolCapacity;
         }
 
+        @Override
+        public int getParallelImportChunkCount() {
+            return parallelImportChunkCount;
+        }
+
+        @Override
+        public int getParallelImportChunkSize() {
+            return parallelImportChunkSize;
+        }
+
         @Override
         public int getRollBufferLimit() {
             return rollBufferLimit;
@@ -1291,6 +1359,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpAllowDeflateBeforeSend;
         }
 
+        @Override
+        public int getCompressionMinSize() {
+            return httpCompressionMinSize;
+        }
+
         @Override
         public MillisecondClock getClock() {
             return httpFrozenClock ? StationaryMillisClock.INSTANCE : MillisecondClockImpl.INSTANCE;
@@ -1394,6 +1467,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return staticContentProcessorConfiguration;
         }
 
+        @Override
+        public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+            return lineHttpProcessorConfiguration;
+        }
+
         @Override
         public boolean isEnabled() {
             return httpServerEnabled;
@@ -1921,6 +1999,66 @@ public class PropServerConfiguration implements ServerConfiguration {
         public int getLatestByQueueCapacity() {
             return latestByQueueCapacity;
         }
+
+        @Override
+        public int getExchangeQueueCapacity() {
+            return exchangeQueueCapacity;
+        }
+
+        @Override
+        public int getTextImportQueueCapacity() {
+            return textImportQueueCapacity;
+        }
+
+        @Override
+        public long getMatViewRefreshInterval() {
+            return matViewRefreshInterval;
+        }
+
+        @Override
+        public boolean isColumnMappingCacheEnabled() {
+            return columnMappingCacheEnabled;
+        }
+
+        @Override
+        public int getResultCacheMaxPages() {
+            return resultCacheMaxPages;
+        }
+
+        @Override
+        public int getResultCachePageSize() {
+            return resultCachePageSize;
+        }
+
+        @Override
+        public long getResultCacheSize() {
+            return resultCacheSize;
+        }
+
+        @Override
+        public boolean isResultCacheEnabled() {
+            return resultCacheEnabled;
+        }
+
+        @Override
+        public int getSqlJoinBuildSideRowRatio() {
+            return sqlJoinBuildSideRowRatio;
+        }
+
+        @Override
+        public int getSqlExchangePageSize() {
+            return sqlExchangePageSize;
+        }
+
+        @Override
+        public int getSqlExchangeMaxPages() {
+            return sqlExchangeMaxPages;
+        }
+
+        @Override
+        public boolean isSqlExchangeEnabled() {
+            return sqlExchangeEnabled;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
@@ -2022,6 +2160,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return lineTcpNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "tcp-line-server";
@@ -2264,6 +2407,33 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private class PropLineHttpProcessorConfiguration implements LineHttpProcessorConfiguration {
+        @Override
+        public int getCommitMode() {
+            return httpIlpCommitMode;
+        }
+
+        @Override
+        public int getDefaultPartitionBy() {
+            return httpIlpDefaultPartitionBy;
+        }
+
+        @Override
+        public int getMaxLineErrors() {
+            return httpIlpMaxLineErrors;
+        }
+
+        @Override
+        public int getMaxMeasurementSize() {
+            return httpIlpMaxMeasurementSize;
+        }
+
+        @Override
+        public MicrosecondClock getMicrosecondClock() {
+            return MicrosecondClockImpl.INSTANCE;
+        }
+    }
+
     private class PropJsonQueryProcessorConfiguration implements JsonQueryProcessorConfiguration {
         @Override
         public MillisecondClock getClock() {
@@ -2300,6 +2470,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return maxHttpQueryResponseRowLimit;
         }
 
+        @Override
+        public int getExportBatchSize() {
+            return httpExportBatchSize;
+        }
+
+        @Override
+        public int getArrowBatchSize() {
+            return httpArrowBatchSize;
+        }
+
+        @Override
+        public int getJsonQueryBatchSize() {
+            return jsonQueryBatchSize;
+        }
+
         @Override
         public SqlInterruptorConfiguration getInterruptorConfiguration() {
             return interruptorConfiguration;
@@ -2383,6 +2568,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return pgNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "pg-server";
@@ -62,6 +62,7 @@ import io.questdb.cutlass.line.udp.LinuxMMLineProtoReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.mv.MatViewRefreshJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
@@ -168,6 +169,10 @@ public class ServerMain {
             workerPool.assign(telemetryJob);
         }
 
+        final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(cairoEngine, functionFactoryCache);
+        workerPool.assign(matViewRefreshJob);
+        instancesToClean.add(matViewRefreshJob);
+
         workerPool.assignCleaner(Path.CLEANER);
         workerPool.assign(new O3CallbackJob(cairoEngine.getMessageBus()));
         workerPool.assign(new O3PartitionJob(cairoEngine.getMessageBus()));
@@ -183,6 +188,9 @@ public class ServerMain {
         } else {
             metrics = Metrics.disabled();
         }
+        if (cairoEngine.getResultCache() != null) {
+            cairoEngine.getResultCache().setMetrics(metrics.resultCache());
+        }
 
         try {
             initQuestDb(workerPool, cairoEngine, log);
@@ -246,4 +246,73 @@ public interface CairoConfiguration {
     boolean isO3QuickSortEnabled();
 
     int getLatestByQueueCapacity();
+
+    int getExchangeQueueCapacity();
+
+    int getTextImportQueueCapacity();
+
+    /**
+     * Minimum interval between two refreshes of the same materialized view.
+     * Changes to base table made within the interval are merged into single refresh.
+     *
+     * @return refresh interval in microseconds
+     */
+    long getMatViewRefreshInterval();
+
+    /**
+     * When enabled, pooled table readers share read-only column mappings instead of mapping
+     * column files individually.
+     *
+     * @return true when readers use {@link ColumnMappingCache}
+     */
+    boolean isColumnMappingCacheEnabled();
+
+    /**
+     * @return maximum number of pages a single cached query result can use, larger results are not cached
+     */
+    int getResultCacheMaxPages();
+
+    int getResultCachePageSize();
+
+    /**
+     * @return memory size in bytes all cached query results can use together
+     */
+    long getResultCacheSize();
+
+    /**
+     * When enabled, results of deterministic queries over tables are kept in {@link ResultCache} and
+     * served until any of the tables commits.
+     *
+     * @return true when engine has {@link ResultCache}
+     */
+    boolean isResultCacheEnabled();
+
+    /**
+     * Inner hash join builds its hash table from the table estimated to be smaller when
+     * the written build side is estimated to have this many times more rows than the probe side.
+     *
+     * @return row count ratio that triggers build side swap, 0 disables the swap
+     */
+    int getSqlJoinBuildSideRowRatio();
+
+    /**
+     * @return page size of the buffer query branch output is prefetched into when branches run in parallel
+     */
+    int getSqlExchangePageSize();
+
+    /**
+     * Once prefetch buffer reaches this many pages, the rest of query branch output is read
+     * directly by the thread that consumes it.
+     *
+     * @return maximum number of pages prefetch buffer fills
+     */
+    int getSqlExchangeMaxPages();
+
+    /**
+     * When enabled, branches of UNION ALL and aggregated master of inner hash join are executed
+     * concurrently with the rest of the query on the worker pool. Output order does not change.
+     *
+     * @return true when independent parts of query run in parallel
+     */
+    boolean isSqlExchangeEnabled();
 }
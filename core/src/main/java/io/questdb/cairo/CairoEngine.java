@@ -58,6 +58,7 @@ public class CairoEngine implements Closeable, WriterSource {
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
     private final long tableIdMemSize;
+    private final ResultCache resultCache;
     private long tableIdFd = -1;
     private long tableIdMem = 0;
 
@@ -67,6 +68,7 @@ public class CairoEngine implements Closeable, WriterSource {
         this.writerPool = new WriterPool(configuration, messageBus);
         this.readerPool = new ReaderPool(configuration);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
+        this.resultCache = configuration.isResultCacheEnabled() ? new ResultCache(configuration.getResultCacheSize()) : null;
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
             this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
@@ -110,6 +112,9 @@ public class CairoEngine implements Closeable, WriterSource {
     public boolean clear() {
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
+        if (resultCache != null) {
+            resultCache.clear();
+        }
         return b1 & b2;
     }
 
@@ -117,6 +122,7 @@ public class CairoEngine implements Closeable, WriterSource {
     public void close() {
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(resultCache);
         freeTableId();
         Misc.free(messageBus);
     }
@@ -204,6 +210,24 @@ public class CairoEngine implements Closeable, WriterSource {
         return messageBus;
     }
 
+    /**
+     * Transactions published by pool writers. Lets callers find out whether table has changed, or wait
+     * for it to change, without acquiring table reader.
+     *
+     * @return engine's txn notifier
+     */
+    public TxnNotifier getTxnNotifier() {
+        return writerPool.getTxnNotifier();
+    }
+
+    /**
+     * @return engine-wide cache of query results or null when result cache is disabled
+     */
+    @Nullable
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
     public long getNextTableId() {
         long next;
         long x = Unsafe.getUnsafe().getLong(tableIdMem);
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * Read-only mappings of column files shared by readers of one table, each table has its own cache so that
+ * readers of different tables do not contend for the lock. Mapping is looked up by file path
+ * and is valid for readers that agree with it on table id, structure, data and partition table versions. These
+ * versions change whenever the same path could start pointing to a different file, e.g. on truncate, column
+ * drop and re-add or partition drop and re-create.
+ * <p>
+ * Mappings are never moved once created. When reader needs more of the file than cached mapping covers, new
+ * mapping is created and replaces cached one. Readers that hold previous mapping keep using it until they
+ * release it. Mapping is unmapped when the last reader releases it, which keeps file lifetime tied to readers
+ * and therefore to their transactions in {@link TxnScoreboard}, exactly as it is with private mappings.
+ */
+public class ColumnMappingCache {
+    private static final Log LOG = LogFactory.getLog(ColumnMappingCache.class);
+    private final CharSequenceObjHashMap<Mapping> mappings = new CharSequenceObjHashMap<>();
+
+    public synchronized Mapping acquire(
+            FilesFacade ff,
+            LPSZ path,
+            int tableId,
+            long structureVersion,
+            long dataVersion,
+            long partitionTableVersion,
+            long minSize
+    ) {
+        final int index = mappings.keyIndex(path);
+        if (index < 0) {
+            final Mapping mapping = mappings.valueAtQuick(index);
+            if (mapping.isOf(tableId, structureVersion, dataVersion, partitionTableVersion) && mapping.size >= minSize) {
+                mapping.refCount++;
+                return mapping;
+            }
+        }
+
+        final Mapping mapping = new Mapping(
+                ff,
+                path,
+                tableId,
+                structureVersion,
+                dataVersion,
+                partitionTableVersion,
+                minSize
+        );
+        if (index < 0) {
+            // key belongs to the mapping being replaced, which can be unmapped before this one
+            mappings.removeAt(index);
+            mappings.put(mapping.path, mapping);
+        } else {
+            mappings.putAt(index, mapping.path, mapping);
+        }
+        return mapping;
+    }
+
+    public synchronized void release(Mapping mapping) {
+        assert mapping.refCount > 0;
+        if (--mapping.refCount == 0) {
+            final int index = mappings.keyIndex(mapping.path);
+            if (index < 0 && mappings.valueAtQuick(index) == mapping) {
+                mappings.removeAt(index);
+            }
+            mapping.unmap();
+        }
+    }
+
+    public synchronized int size() {
+        return mappings.size();
+    }
+
+    public static class Mapping {
+        private final FilesFacade ff;
+        // native copy of file path, map key and argument for acquiring larger mapping
+        private final Path path;
+        private final int tableId;
+        private final long structureVersion;
+        private final long dataVersion;
+        private final long partitionTableVersion;
+        private final long fd;
+        private final long page;
+        private final long size;
+        private int refCount = 1;
+
+        private Mapping(
+                FilesFacade ff,
+                LPSZ name,
+                int tableId,
+                long structureVersion,
+                long dataVersion,
+                long partitionTableVersion,
+                long minSize
+        ) {
+            this.ff = ff;
+            this.tableId = tableId;
+            this.structureVersion = structureVersion;
+            this.dataVersion = dataVersion;
+            this.partitionTableVersion = partitionTableVersion;
+            this.fd = TableUtils.openRO(ff, name, LOG);
+            final long size = Math.max(ff.length(fd), minSize);
+            if (size > 0) {
+                final long page = ff.mmap(fd, size, 0, Files.MAP_RO);
+                if (page == FilesFacade.MAP_FAILED) {
+                    ff.close(fd);
+                    throw CairoException.instance(ff.errno())
+                            .put("Could not mmap ").put(name)
+                            .put(" [size=").put(size)
+                            .put(", fd=").put(fd)
+                            .put(']');
+                }
+                this.page = page;
+            } else {
+                this.page = -1;
+            }
+            this.size = size;
+            this.path = new Path().of(name).$();
+            LOG.debug().$("mapped ").$(name).$(" [fd=").$(fd).$(", size=").$(size).$(']').$();
+        }
+
+        public long getFd() {
+            return fd;
+        }
+
+        public long getPage() {
+            return page;
+        }
+
+        public LPSZ getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getTableId() {
+            return tableId;
+        }
+
+        public long getStructureVersion() {
+            return structureVersion;
+        }
+
+        public long getDataVersion() {
+            return dataVersion;
+        }
+
+        public long getPartitionTableVersion() {
+            return partitionTableVersion;
+        }
+
+        private boolean isOf(int tableId, long structureVersion, long dataVersion, long partitionTableVersion) {
+            return this.tableId == tableId
+                    && this.structureVersion == structureVersion
+                    && this.dataVersion == dataVersion
+                    && this.partitionTableVersion == partitionTableVersion;
+        }
+
+        private void unmap() {
+            if (page != -1) {
+                ff.munmap(page, size);
+            }
+            ff.close(fd);
+            Misc.free(path);
+            LOG.debug().$("unmapped [fd=").$(fd).$(']').$();
+        }
+    }
+}
@@ -555,4 +555,64 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     public int getLatestByQueueCapacity() {
         return 32;
     }
+
+    @Override
+    public int getExchangeQueueCapacity() {
+        return 32;
+    }
+
+    @Override
+    public int getTextImportQueueCapacity() {
+        return 32;
+    }
+
+    @Override
+    public long getMatViewRefreshInterval() {
+        return 0;
+    }
+
+    @Override
+    public boolean isColumnMappingCacheEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getResultCacheMaxPages() {
+        return 128;
+    }
+
+    @Override
+    public int getResultCachePageSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public long getResultCacheSize() {
+        return 64 * 1024 * 1024;
+    }
+
+    @Override
+    public boolean isResultCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSqlJoinBuildSideRowRatio() {
+        return 16;
+    }
+
+    @Override
+    public int getSqlExchangePageSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public int getSqlExchangeMaxPages() {
+        return 256;
+    }
+
+    @Override
+    public boolean isSqlExchangeEnabled() {
+        return true;
+    }
 }
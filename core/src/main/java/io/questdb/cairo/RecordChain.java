@@ -29,11 +29,9 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.vm.ContiguousVirtualMemory;
 import io.questdb.cairo.vm.VmUtils;
-import io.questdb.std.BinarySequence;
-import io.questdb.std.Long256;
-import io.questdb.std.Mutable;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectCharSequence;
 
 import java.io.Closeable;
 
@@ -106,6 +104,10 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         varAppendOffset = 0L;
     }
 
+    public long getMemorySize() {
+        return mem.size();
+    }
+
     public long getOffsetOfColumn(long recordOffset, int columnIndex) {
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
@@ -280,6 +282,249 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         recordOffset += 8;
     }
 
+    /**
+     * Cursor over records of a chain that is no longer being appended to. Chain's own cursor shares
+     * string, binary and long256 views of the underlying memory, whereas each reader has its own. This
+     * allows multiple threads to iterate the same chain concurrently, each using its own reader.
+     * Reader expects symbol values to have been stored as strings.
+     */
+    public static class Reader implements RecordCursor {
+        private final ReaderRecord recordA = new ReaderRecord();
+        private final ReaderRecord recordB = new ReaderRecord();
+        private long[] columnOffsets;
+        private long varOffset;
+        private long baseAddress;
+        private long firstRecordOffset;
+        private long nextRecordOffset;
+
+        @Override
+        public void close() {
+            baseAddress = 0;
+            columnOffsets = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecordOffset != -1) {
+                final long offset = nextRecordOffset;
+                nextRecordOffset = Unsafe.getUnsafe().getLong(baseAddress + offset);
+                recordA.of(rowToDataOffset(offset));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public void recordAt(Record record, long row) {
+            ((ReaderRecord) record).of(rowToDataOffset(row));
+        }
+
+        @Override
+        public void toTop() {
+            nextRecordOffset = firstRecordOffset;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        public Reader of(RecordChain chain) {
+            this.columnOffsets = chain.columnOffsets;
+            this.varOffset = chain.varOffset;
+            this.baseAddress = chain.mem.addressOf(0);
+            this.firstRecordOffset = chain.mem.getAppendOffset() == 0 ? -1L : 0L;
+            toTop();
+            return this;
+        }
+
+        private class ReaderRecord implements Record {
+            private final DirectCharSequence csA = new DirectCharSequence();
+            private final DirectCharSequence csB = new DirectCharSequence();
+            private final DirectBinarySequence bs = new DirectBinarySequence();
+            private final Long256Impl long256A = new Long256Impl();
+            private final Long256Impl long256B = new Long256Impl();
+            private long fixedAddress;
+            private long baseOffset;
+
+            @Override
+            public BinarySequence getBin(int col) {
+                final long address = varWidthColumnAddress(col);
+                if (address == -1) {
+                    return null;
+                }
+                final long len = Unsafe.getUnsafe().getLong(address);
+                return len == TableUtils.NULL_LEN ? null : bs.of(address + Long.BYTES, len);
+            }
+
+            @Override
+            public long getBinLen(int col) {
+                final long address = varWidthColumnAddress(col);
+                return address == -1 ? TableUtils.NULL_LEN : Unsafe.getUnsafe().getLong(address);
+            }
+
+            @Override
+            public boolean getBool(int col) {
+                return getByte(col) == 1;
+            }
+
+            @Override
+            public byte getByte(int col) {
+                return Unsafe.getUnsafe().getByte(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public char getChar(int col) {
+                return Unsafe.getUnsafe().getChar(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public double getDouble(int col) {
+                return Unsafe.getUnsafe().getDouble(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public float getFloat(int col) {
+                return Unsafe.getUnsafe().getFloat(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public int getInt(int col) {
+                return Unsafe.getUnsafe().getInt(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public long getLong(int col) {
+                return Unsafe.getUnsafe().getLong(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public void getLong256(int col, CharSink sink) {
+                final long address = fixedWidthColumnAddress(col);
+                Numbers.appendLong256(
+                        Unsafe.getUnsafe().getLong(address),
+                        Unsafe.getUnsafe().getLong(address + Long.BYTES),
+                        Unsafe.getUnsafe().getLong(address + Long.BYTES * 2),
+                        Unsafe.getUnsafe().getLong(address + Long.BYTES * 3),
+                        sink
+                );
+            }
+
+            @Override
+            public Long256 getLong256A(int col) {
+                return getLong256(col, long256A);
+            }
+
+            @Override
+            public Long256 getLong256B(int col) {
+                return getLong256(col, long256B);
+            }
+
+            @Override
+            public long getRowId() {
+                return baseOffset - 8;
+            }
+
+            @Override
+            public short getShort(int col) {
+                return Unsafe.getUnsafe().getShort(fixedWidthColumnAddress(col));
+            }
+
+            @Override
+            public CharSequence getStr(int col) {
+                return getStr(col, csA);
+            }
+
+            @Override
+            public CharSequence getStrB(int col) {
+                return getStr(col, csB);
+            }
+
+            @Override
+            public int getStrLen(int col) {
+                final long address = varWidthColumnAddress(col);
+                return address == -1 ? TableUtils.NULL_LEN : Unsafe.getUnsafe().getInt(address);
+            }
+
+            @Override
+            public CharSequence getSym(int col) {
+                return getStr(col);
+            }
+
+            @Override
+            public CharSequence getSymB(int col) {
+                return getStrB(col);
+            }
+
+            private long fixedWidthColumnAddress(int index) {
+                return fixedAddress + columnOffsets[index];
+            }
+
+            private Long256 getLong256(int col, Long256Impl long256) {
+                final long address = fixedWidthColumnAddress(col);
+                long256.setLong0(Unsafe.getUnsafe().getLong(address));
+                long256.setLong1(Unsafe.getUnsafe().getLong(address + Long.BYTES));
+                long256.setLong2(Unsafe.getUnsafe().getLong(address + Long.BYTES * 2));
+                long256.setLong3(Unsafe.getUnsafe().getLong(address + Long.BYTES * 3));
+                return long256;
+            }
+
+            private CharSequence getStr(int col, DirectCharSequence cs) {
+                final long address = varWidthColumnAddress(col);
+                if (address == -1) {
+                    return null;
+                }
+                final int len = Unsafe.getUnsafe().getInt(address);
+                if (len == TableUtils.NULL_LEN) {
+                    return null;
+                }
+                final long lo = address + VmUtils.STRING_LENGTH_BYTES;
+                return cs.of(lo, lo + len * 2L);
+            }
+
+            private void of(long offset) {
+                this.baseOffset = offset;
+                this.fixedAddress = baseAddress + offset + varOffset;
+            }
+
+            private long varWidthColumnAddress(int index) {
+                final long offset = Unsafe.getUnsafe().getLong(baseAddress + baseOffset + columnOffsets[index]);
+                return offset == -1 ? -1 : baseAddress + offset;
+            }
+        }
+    }
+
+    private static class DirectBinarySequence implements BinarySequence {
+        private long address;
+        private long len;
+
+        @Override
+        public byte byteAt(long index) {
+            return Unsafe.getUnsafe().getByte(address + index);
+        }
+
+        @Override
+        public long length() {
+            return len;
+        }
+
+        private DirectBinarySequence of(long address, long len) {
+            this.address = address;
+            this.len = len;
+            return this;
+        }
+    }
+
     private class RecordChainRecord implements Record {
         long fixedOffset;
         long baseOffset;
@@ -210,12 +210,27 @@ public class RecordSinkFactory {
                     asm.invokeInterface(rGetRecord, 1);
                     asm.invokeInterface(wPutRecord, 1);
                     break;
+                case -ColumnType.BYTE:
+                    asm.aload(2);
+                    asm.iconst(Byte.BYTES);
+                    asm.invokeInterface(wSkip, 1);
+                    break;
+                case -ColumnType.SHORT:
+                case -ColumnType.CHAR:
+                    asm.aload(2);
+                    asm.iconst(Short.BYTES);
+                    asm.invokeInterface(wSkip, 1);
+                    break;
                 case -ColumnType.INT:
+                case -ColumnType.FLOAT:
                     asm.aload(2);
                     asm.iconst(Integer.BYTES);
                     asm.invokeInterface(wSkip, 1);
                     break;
                 case -ColumnType.LONG:
+                case -ColumnType.DATE:
+                case -ColumnType.TIMESTAMP:
+                case -ColumnType.DOUBLE:
                     asm.aload(2);
                     asm.iconst(Long.BYTES);
                     asm.invokeInterface(wSkip, 1);
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+
+import java.io.Closeable;
+
+/**
+ * Results of read-only queries shared by all SQL executors of the engine. Result is looked up by query text
+ * and is valid for as long as every table the query reads remains unchanged. Callers capture table states before
+ * executing the query and supply them on lookup, which means that entry is never served once any of its tables
+ * has committed. Stale entry is dropped when it is found.
+ * <p>
+ * Table state comes in two forms. When every table has an open pool writer, {@link TxnNotifier} versions of
+ * the tables are enough and no table reader is needed. Otherwise state is table id, structure version and txn
+ * read by table reader. Entry is valid when either form matches the form it was cached with.
+ * <p>
+ * Results are kept in off-heap {@link RecordChain} instances, which are not modified once cached. Total
+ * memory size of cached chains is capped and least recently used entries are evicted to stay within the cap.
+ * Entries are reference counted, evicted or stale entry is freed when the last cursor reading it releases it.
+ */
+public class ResultCache implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ResultCache.class);
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private final long maxSize;
+    private ResultCacheMetrics metrics = ResultCacheMetrics.DISABLED;
+    // most recently used entry
+    private Entry head;
+    // least recently used entry, first to be evicted
+    private Entry tail;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ResultCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Looks up result of the query. Result is returned only when it was produced from exactly the same
+     * table states.
+     *
+     * @param query       query text
+     * @param txnVersions txn version of each table query reads, in the order of the tables, empty when
+     *                    at least one of the tables has no open pool writer
+     * @param tableStates id, structure version and txn of each table query reads, in the order of the tables,
+     *                    empty when txn versions are known
+     * @return entry, which must be released via {@link #release(Entry)}, or null when there is no valid result
+     */
+    public synchronized Entry acquire(CharSequence query, LongList txnVersions, LongList tableStates) {
+        final int index = entries.keyIndex(query);
+        if (index < 0) {
+            final Entry entry = entries.valueAtQuick(index);
+            if (entry.isOf(txnVersions, tableStates)) {
+                unlink(entry);
+                linkHead(entry);
+                entry.refCount++;
+                hitCount++;
+                metrics.markHit();
+                return entry;
+            }
+            // at least one of the tables has moved on since the result was cached
+            detach(entry);
+            metrics.markInvalidation();
+        }
+        missCount++;
+        metrics.markMiss();
+        return null;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Entry entry = head;
+        while (entry != null) {
+            final Entry next = entry.next;
+            entry.cached = false;
+            if (entry.refCount == 0) {
+                entry.free();
+            }
+            entry = next;
+        }
+        head = tail = null;
+        entries.clear();
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Caches query result, replacing any previous result of the same query. Least recently used entries
+     * are evicted if the cache grows over its size limit. Results larger than the limit are freed straight
+     * away.
+     *
+     * @param query       query text
+     * @param txnVersions txn versions as they were captured before query execution
+     * @param tableStates table states as they were captured before query execution
+     * @param chain       query result, cache takes ownership of the chain
+     */
+    public synchronized void put(String query, LongList txnVersions, LongList tableStates, RecordChain chain) {
+        final Entry entry = new Entry(query, txnVersions, tableStates, chain);
+        if (entry.size > maxSize) {
+            entry.free();
+            return;
+        }
+
+        final int index = entries.keyIndex(query);
+        if (index < 0) {
+            // concurrent execution of the same query got here first
+            detach(entries.valueAtQuick(index));
+        }
+        entries.put(query, entry);
+        entry.cached = true;
+        linkHead(entry);
+        size += entry.size;
+
+        while (size > maxSize) {
+            final Entry victim = tail;
+            detach(victim);
+            evictionCount++;
+            metrics.markEviction();
+            LOG.debug().$("evicted [query=`").$(victim.query).$("`, size=").$(victim.size).$(']').$();
+        }
+    }
+
+    public synchronized void release(Entry entry) {
+        if (--entry.refCount == 0 && !entry.cached) {
+            entry.free();
+        }
+    }
+
+    public void setMetrics(ResultCacheMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void detach(Entry entry) {
+        entries.remove(entry.query);
+        unlink(entry);
+        size -= entry.size;
+        entry.cached = false;
+        if (entry.refCount == 0) {
+            entry.free();
+        }
+    }
+
+    private void linkHead(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = entry.next = null;
+    }
+
+    public static class Entry {
+        private final String query;
+        private final LongList txnVersions;
+        private final LongList tableStates;
+        private final RecordChain chain;
+        private final long size;
+        private int refCount;
+        private boolean cached;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(String query, LongList txnVersions, LongList tableStates, RecordChain chain) {
+            this.query = query;
+            this.txnVersions = new LongList(txnVersions);
+            this.tableStates = new LongList(tableStates);
+            this.chain = chain;
+            this.size = chain.getMemorySize();
+        }
+
+        public RecordChain getChain() {
+            return chain;
+        }
+
+        private static boolean sameStates(LongList a, LongList b) {
+            final int n = a.size();
+            if (n == 0 || n != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (a.getQuick(i) != b.getQuick(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isOf(LongList txnVersions, LongList tableStates) {
+            // empty list means that state of this form was not captured
+            return sameStates(this.txnVersions, txnVersions) || sameStates(this.tableStates, tableStates);
+        }
+
+        private void free() {
+            chain.close();
+        }
+    }
+}
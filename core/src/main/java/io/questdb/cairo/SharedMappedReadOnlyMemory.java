@@ -0,0 +1,115 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Column memory of {@link TableReader} backed by mapping from {@link ColumnMappingCache}. Instead of
+ * remapping file in place, growth acquires larger mapping from the cache and releases current one.
+ */
+class SharedMappedReadOnlyMemory extends SinglePageMappedReadOnlyPageMemory {
+    private final ColumnMappingCache cache;
+    private final TableReader reader;
+    private ColumnMappingCache.Mapping mapping;
+
+    SharedMappedReadOnlyMemory(ColumnMappingCache cache, TableReader reader, FilesFacade ff, LPSZ name) {
+        this.cache = cache;
+        this.reader = reader;
+        of(ff, name, 0);
+    }
+
+    @Override
+    public void close() {
+        if (mapping != null) {
+            cache.release(mapping);
+            mapping = null;
+        }
+        page = -1;
+        absolutePointer = -1;
+        fd = -1;
+        size = 0;
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize, long size) {
+        of(ff, name, pageSize);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize) {
+        close();
+        if (!ff.exists(name)) {
+            throw CairoException.instance(0).put("File not found: ").put(name);
+        }
+        this.ff = ff;
+        setMapping(
+                cache.acquire(
+                        ff,
+                        name,
+                        reader.getMetadata().getId(),
+                        reader.getVersion(),
+                        reader.getDataVersion(),
+                        reader.getPartitionTableVersion(),
+                        0
+                )
+        );
+    }
+
+    @Override
+    public void grow(long newSize) {
+        if (newSize <= size) {
+            return;
+        }
+
+        final ColumnMappingCache.Mapping current = mapping;
+        assert current != null;
+        // the mapping we are replacing is looked up with versions it was created with, reader
+        // could have moved on to newer versions while keeping this column open
+        final ColumnMappingCache.Mapping grown = cache.acquire(
+                ff,
+                current.getPath(),
+                current.getTableId(),
+                current.getStructureVersion(),
+                current.getDataVersion(),
+                current.getPartitionTableVersion(),
+                newSize
+        );
+        mapping = null;
+        cache.release(current);
+        setMapping(grown);
+    }
+
+    private void setMapping(ColumnMappingCache.Mapping mapping) {
+        this.mapping = mapping;
+        this.fd = mapping.getFd();
+        this.page = mapping.getPage();
+        this.absolutePointer = page;
+        this.size = mapping.getSize();
+    }
+}
@@ -38,6 +38,7 @@ import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.concurrent.locks.LockSupport;
@@ -65,6 +66,7 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final TxReader txFile;
     private final MappedReadOnlyMemory todoMem = new SinglePageMappedReadOnlyPageMemory();
     private final TxnScoreboard txnScoreboard;
+    private final ColumnMappingCache columnMappingCache;
     private int partitionCount;
     private LongList columnTops;
     private ObjList<MappedReadOnlyMemory> columns;
@@ -77,7 +79,12 @@ public class TableReader implements Closeable, SymbolTableSource {
     private boolean active;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, null);
+    }
+
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, @Nullable ColumnMappingCache columnMappingCache) {
         this.configuration = configuration;
+        this.columnMappingCache = columnMappingCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path();
@@ -258,6 +265,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         return partitionCount;
     }
 
+    public long getPartitionNameTxn(int partitionIndex) {
+        return txFile.getPartitionNameTxn(partitionIndex);
+    }
+
+    /**
+     * Row count of partition as of reader's transaction. Unlike {@link #openPartition(int)}
+     * this method does not open partition columns.
+     *
+     * @param partitionIndex index of partition
+     * @return partition row count
+     */
+    public long getPartitionSize(int partitionIndex) {
+        return partitionIndex == partitionCount - 1 ? txFile.getTransientRowCount() : txFile.getPartitionSize(partitionIndex);
+    }
+
+    long getPartitionTableVersion() {
+        return txFile.getPartitionTableVersion();
+    }
+
+    public long getPartitionTimestamp(int partitionIndex) {
+        return txFile.getPartitionTimestamp(partitionIndex);
+    }
+
     public int getPartitionIndexByTimestamp(long timestamp) {
         int end = openPartitionInfo.binarySearchBlock(0, openPartitionInfo.size(), PARTITIONS_SLOT_SIZE_MSB, timestamp);
         if (end < 0) {
@@ -825,7 +855,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         return txFile.getTransientRowCount();
     }
 
-    long getTxn() {
+    public long getTxn() {
         return txn;
     }
 
@@ -892,7 +922,9 @@ public class TableReader implements Closeable, SymbolTableSource {
         if (mem != null && mem != NullColumn.INSTANCE) {
             mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
         } else {
-            if (lastPartition) {
+            if (columnMappingCache != null) {
+                mem = new SharedMappedReadOnlyMemory(columnMappingCache, this, ff, path);
+            } else if (lastPartition) {
                 mem = new SinglePageMappedReadOnlyPageMemory(ff, path, ff.getMapPageSize());
             } else {
                 mem = new SinglePageMappedReadOnlyPageMemory(ff, path, ff.length(path));
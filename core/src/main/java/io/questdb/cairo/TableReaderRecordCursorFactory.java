@@ -85,11 +85,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
         if (pageFrameCursor != null) {
-            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName), Long.MAX_VALUE, -1,
+            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableId, tableVersion), Long.MAX_VALUE, -1,
                     columnIndexes, columnSizes);
         } else if (framingSupported) {
             pageFrameCursor = new TablePageFrameCursor();
-            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName), Long.MAX_VALUE, -1,
+            return pageFrameCursor.of(engine.getReader(executionContext.getCairoSecurityContext(), tableName, tableId, tableVersion), Long.MAX_VALUE, -1,
                     columnIndexes, columnSizes);
         } else {
             return null;
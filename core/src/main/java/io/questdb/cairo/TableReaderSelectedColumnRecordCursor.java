@@ -102,6 +102,10 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         return reader.size();
     }
 
+    public TableReader getTableReader() {
+        return reader;
+    }
+
     public void of(TableReader reader) {
         this.partitionLo = 0;
         this.recodLo = 0;
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+
+/**
+ * Table statistics as of reader's transaction. Row counts and partition bounds come from
+ * the transaction file and symbol cardinalities from symbol map readers, collecting them
+ * does not open partition columns.
+ */
+public class TableStatistics implements Mutable {
+    // partition timestamp and row count pairs
+    private final LongList partitions = new LongList();
+    private final IntList symbolCardinalities = new IntList();
+    private long rowCount;
+    private long minTimestamp;
+    private long maxTimestamp;
+
+    @Override
+    public void clear() {
+        partitions.clear();
+        symbolCardinalities.clear();
+        rowCount = 0;
+        minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public int getPartitionCount() {
+        return partitions.size() / 2;
+    }
+
+    public long getPartitionRowCount(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * 2 + 1);
+    }
+
+    public long getPartitionTimestamp(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * 2);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Counts rows of partitions that overlap timestamp interval. Partition is assumed to span
+     * from its timestamp to the timestamp of the next partition, the last partition ends at
+     * table max timestamp.
+     *
+     * @param lo inclusive interval start
+     * @param hi inclusive interval end
+     * @return upper bound of row count in the interval
+     */
+    public long getRowCount(long lo, long hi) {
+        if (lo > maxTimestamp || hi < minTimestamp) {
+            return 0;
+        }
+
+        final int partitionCount = getPartitionCount();
+        long count = 0;
+        for (int i = 0; i < partitionCount; i++) {
+            final long partitionLo = i == 0 ? minTimestamp : getPartitionTimestamp(i);
+            final long partitionHi = i < partitionCount - 1 ? getPartitionTimestamp(i + 1) - 1 : maxTimestamp;
+            if (partitionLo <= hi && partitionHi >= lo) {
+                count += getPartitionRowCount(i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param columnIndex index of column in table metadata
+     * @return number of distinct symbols in the column or -1 when column is not a symbol
+     */
+    public int getSymbolCardinality(int columnIndex) {
+        return symbolCardinalities.getQuick(columnIndex);
+    }
+
+    public void of(TableReader reader) {
+        clear();
+        rowCount = reader.size();
+        minTimestamp = reader.getMinTimestamp();
+        maxTimestamp = reader.getMaxTimestamp();
+
+        for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+            partitions.add(reader.getPartitionTimestamp(i));
+            partitions.add(reader.getPartitionSize(i));
+        }
+
+        final TableReaderMetadata metadata = reader.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) == ColumnType.SYMBOL) {
+                symbolCardinalities.add(reader.getSymbolMapReader(i).size());
+            } else {
+                symbolCardinalities.add(-1);
+            }
+        }
+    }
+}
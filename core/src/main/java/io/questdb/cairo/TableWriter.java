@@ -163,6 +163,7 @@ public class TableWriter implements Closeable {
     private final O3ColumnUpdateMethod o3MoveUncommittedRef = this::o3MoveUncommitted0;
     private long lastPartitionTimestamp;
     private boolean o3InError = false;
+    private TxnNotifier.Sequence txnSequence;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
         this(configuration, tableName, new MessageBusImpl(configuration));
@@ -1035,6 +1036,17 @@ public class TableWriter implements Closeable {
         this.lifecycleManager = lifecycleManager;
     }
 
+    /**
+     * Makes writer publish its transactions to the given sequence. Writer must hold table lock
+     * for the rest of its life, the sequence is invalidated when writer is closed.
+     *
+     * @param txnSequence sequence of this table
+     */
+    public void setTxnSequence(TxnNotifier.Sequence txnSequence) {
+        this.txnSequence = txnSequence;
+        txFile.setTxnSequence(txnSequence);
+    }
+
     public void setMetaCommitLag(long commitLag) {
         try {
             commit();
@@ -1151,6 +1163,99 @@ public class TableWriter implements Closeable {
         LOG.info().$("truncated [name=").$(tableName).$(']').$();
     }
 
+    /**
+     * Removes rows with timestamp greater than or equal to the given one. Pending rows are committed first.
+     * Partitions that end up empty are removed and last of the remaining partitions becomes active. Unlike
+     * {@link #removePartition(long)} this method modifies data readers may have mapped, which is why it must
+     * only be called when table readers are locked, see {@link CairoEngine#lockReaders(CharSequence)}.
+     *
+     * @param timestamp lowest timestamp of removed rows
+     * @return number of removed rows
+     */
+    public long truncateFrom(long timestamp) {
+        if (partitionBy == PartitionBy.NONE) {
+            throw CairoException.instance(0).put("table is not partitioned [table=").put(tableName).put(']');
+        }
+
+        commit();
+
+        if (timestamp > txFile.getMaxTimestamp()) {
+            return 0;
+        }
+
+        final long rowCount = size();
+        if (timestamp <= txFile.getMinTimestamp()) {
+            truncate();
+            return rowCount;
+        }
+
+        // partition with index "lo" is the first partition that contains rows to remove,
+        // the number of rows it retains is "keep"
+        final long partitionLo = getPartitionLo(timestamp);
+        final int partitionCount = txFile.getPartitionCount();
+        int lo = partitionCount;
+        while (lo > 0 && txFile.getPartitionTimestamp(lo - 1) >= partitionLo) {
+            lo--;
+        }
+
+        long keep = 0;
+        if (lo < partitionCount && txFile.getPartitionTimestamp(lo) == partitionLo) {
+            final long partitionSize = lo == partitionCount - 1 ? txFile.getTransientRowCount() : txFile.getPartitionSize(lo);
+            keep = countRowsBefore(partitionLo, partitionSize, timestamp);
+        }
+
+        final LongList removed = new LongList();
+        for (int i = keep > 0 ? lo + 1 : lo; i < partitionCount; i++) {
+            removed.add(txFile.getPartitionTimestamp(i));
+            removed.add(txFile.getPartitionNameTxn(i));
+        }
+
+        // this is the partition that becomes active
+        final int activeIndex = keep > 0 ? lo : lo - 1;
+        final long activeTimestamp = txFile.getPartitionTimestamp(activeIndex);
+        final long activeSize = keep > 0 ? keep : txFile.getPartitionSize(activeIndex);
+        final long maxTimestamp;
+        setStateForTimestamp(other, activeTimestamp, false);
+        try {
+            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            maxTimestamp = TableUtils.readLongAtOffset(ff, other, tempMem16b, (activeSize - 1) * Long.BYTES);
+        } finally {
+            other.trimTo(rootLen);
+        }
+
+        freeColumns(false);
+
+        txFile.beginPartitionSizeUpdate();
+        for (int i = removed.size() - 2; i > -1; i -= 2) {
+            txFile.removeAttachedPartitions(removed.getQuick(i));
+        }
+        txFile.updatePartitionSizeByTimestamp(activeTimestamp, activeSize);
+        txFile.finishPartitionSizeUpdate(txFile.getMinTimestamp(), maxTimestamp);
+        txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+
+        for (int i = 0, n = removed.size(); i < n; i += 2) {
+            try {
+                TableUtils.setPathForPartition(path, partitionBy, removed.getQuick(i), false);
+                TableUtils.txnPartitionConditionally(path, removed.getQuick(i + 1));
+                int errno;
+                if ((errno = ff.rmdir(path.slash$())) != 0) {
+                    LOG.info().$("partition directory delete is postponed [path=").$(path)
+                            .$(", errno=").$(errno)
+                            .$(']').$();
+                } else {
+                    LOG.info().$("partition removed [path=").$(path).$(']').$();
+                }
+            } finally {
+                path.trimTo(rootLen);
+            }
+        }
+
+        configureAppendPosition();
+        // indexes of the active partition may reference removed rows
+        rollbackIndexes();
+        return rowCount - size();
+    }
+
     public void updateMetadataVersion() {
 
         checkDistressed();
@@ -1993,6 +2098,28 @@ public class TableWriter implements Closeable {
         }
     }
 
+    // number of rows in partition with timestamps below the given one
+    private long countRowsBefore(long partitionTimestamp, long partitionSize, long timestamp) {
+        setStateForTimestamp(other, partitionTimestamp, false);
+        try {
+            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            final long fd = TableUtils.openRO(ff, other, LOG);
+            try {
+                final long size = partitionSize * Long.BYTES;
+                final long address = O3Utils.mapRO(ff, fd, size);
+                try {
+                    return Vect.boundedBinarySearch64Bit(address, timestamp - 1, 0, partitionSize - 1, BinarySearch.SCAN_DOWN) + 1;
+                } finally {
+                    ff.munmap(address, size);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
     private void createSymbolMapWriter(CharSequence name, int symbolCapacity, boolean symbolCacheFlag) {
         SymbolMapWriter.createSymbolMapFiles(ff, ddlMem, path, name, symbolCapacity, symbolCacheFlag);
         WriterTransientSymbolCountChangeHandler transientSymbolCountChangeHandler = new WriterTransientSymbolCountChangeHandler(denseSymbolMapWriters.size());
@@ -2014,6 +2141,10 @@ public class TableWriter implements Closeable {
         Misc.free(ddlMem);
         Misc.free(other);
         Misc.free(todoMem);
+        if (txnSequence != null) {
+            // other writers can commit as soon as we release the lock
+            txnSequence.invalidate();
+        }
         try {
             releaseLock(!truncate | tx | performRecovery | distressed);
         } finally {
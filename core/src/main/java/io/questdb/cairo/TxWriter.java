@@ -43,6 +43,7 @@ public final class TxWriter extends TxReader implements Closeable {
     protected long prevTransientRowCount;
 
     private PagedMappedReadWriteMemory txMem;
+    private TxnNotifier.Sequence txnSequence;
 
     public TxWriter(FilesFacade ff, Path path, int partitionBy) {
         super(ff, path, partitionBy);
@@ -103,6 +104,7 @@ public final class TxWriter extends TxReader implements Closeable {
 
         Unsafe.getUnsafe().storeFence();
         txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
+        publishTxn();
     }
 
     public void cancelRow() {
@@ -183,6 +185,7 @@ public final class TxWriter extends TxReader implements Closeable {
         }
 
         prevTransientRowCount = transientRowCount;
+        publishTxn();
     }
 
     public void finishPartitionSizeUpdate(long minTimestamp, long maxTimestamp) {
@@ -255,6 +258,7 @@ public final class TxWriter extends TxReader implements Closeable {
         this.maxTimestamp = maxTimestamp;
         this.transientRowCount = transientRowCount;
         this.txn = txn;
+        publishTxn();
     }
 
     public void reset() {
@@ -264,6 +268,7 @@ public final class TxWriter extends TxReader implements Closeable {
                 txMem.getLong(TX_OFFSET_TXN) + 1,
                 txMem.getLong(TX_OFFSET_DATA_VERSION) + 1,
                 txMem.getLong(TX_OFFSET_PARTITION_TABLE_VERSION) + 1);
+        publishTxn();
     }
 
     public void resetTimestamp() {
@@ -308,6 +313,7 @@ public final class TxWriter extends TxReader implements Closeable {
         attachedPositionDirtyIndex = 0;
         attachedPartitions.clear();
         resetTxn(txMem, symbolsCount, txn, ++dataVersion, ++partitionTableVersion);
+        publishTxn();
     }
 
     public void updateMaxTimestamp(long timestamp) {
@@ -363,6 +369,12 @@ public final class TxWriter extends TxReader implements Closeable {
         transientRowCount = committedTransientRowCount;
     }
 
+    private void publishTxn() {
+        if (txnSequence != null) {
+            txnSequence.publish(txMem.getLong(TX_OFFSET_TXN));
+        }
+    }
+
     private void saveAttachedPartitionsToTx(int symCount) {
         final int size = attachedPartitions.size();
         final long partitionTableOffset = getPartitionTableSizeOffset(symCount);
@@ -375,6 +387,11 @@ public final class TxWriter extends TxReader implements Closeable {
         }
     }
 
+    void setTxnSequence(TxnNotifier.Sequence txnSequence) {
+        this.txnSequence = txnSequence;
+        publishTxn();
+    }
+
     private void storeSymbolCounts(ObjList<SymbolMapWriter> denseSymbolMapWriters) {
         for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
             long offset = getSymbolWriterIndexOffset(i);
@@ -410,4 +427,4 @@ public final class TxWriter extends TxReader implements Closeable {
         attachedPartitions.set(index + PARTITION_NAME_TX_OFFSET, txn);
         attachedPositionDirtyIndex = Math.min(attachedPositionDirtyIndex, index);
     }
-}
\ No newline at end of file
+}
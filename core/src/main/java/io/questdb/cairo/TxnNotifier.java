@@ -0,0 +1,125 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+
+/**
+ * Per-table transaction numbers published by pooled table writers on every change to "_txn" file. Consumers
+ * can tell whether table has changed since they last looked at it with a single volatile read and without
+ * opening table reader, or block until it changes.
+ * <p>
+ * Published number is authoritative only while pool writer is open. Writer holds table lock for all of that
+ * time, so no other writer can commit behind its back. When writer is closed, the lock is about to be released
+ * and number becomes {@link #TXN_UNKNOWN}, consumers are expected to fall back to reading "_txn" file.
+ */
+public class TxnNotifier {
+    public static final long TXN_UNKNOWN = -1;
+    private final ConcurrentHashMap<Sequence> sequences = new ConcurrentHashMap<>();
+
+    public Sequence getSequence(CharSequence tableName) {
+        Sequence sequence = sequences.get(tableName);
+        if (sequence == null) {
+            sequence = new Sequence();
+            final Sequence other = sequences.putIfAbsent(Chars.toString(tableName), sequence);
+            if (other != null) {
+                sequence = other;
+            }
+        }
+        return sequence;
+    }
+
+    public static class Sequence {
+        private volatile long txn = TXN_UNKNOWN;
+        private volatile long version;
+        private volatile int waiterCount;
+
+        /**
+         * Blocks until published transaction is different from the one given or timeout elapses. Spurious
+         * returns are possible, e.g. when writer is closed, callers should check the returned value.
+         *
+         * @param txn           transaction caller has already seen
+         * @param timeoutMillis maximum time to wait
+         * @return published transaction, which is {@link #TXN_UNKNOWN} when there is no open writer
+         */
+        public long await(long txn, long timeoutMillis) {
+            long current = this.txn;
+            if (current != txn) {
+                return current;
+            }
+
+            final long deadline = System.currentTimeMillis() + timeoutMillis;
+            synchronized (this) {
+                waiterCount++;
+                try {
+                    long remaining = timeoutMillis;
+                    while ((current = this.txn) == txn && remaining > 0) {
+                        wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    current = this.txn;
+                } finally {
+                    waiterCount--;
+                }
+            }
+            return current;
+        }
+
+        public long getTxn() {
+            return txn;
+        }
+
+        /**
+         * Counts publications, including those made when writer is closed. Unlike txn, version does not
+         * repeat when table is dropped and created again. Table cannot change while version stays the same,
+         * provided that published txn was known after version had been read.
+         *
+         * @return number of times txn has been published
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        void invalidate() {
+            publish(TXN_UNKNOWN);
+        }
+
+        void publish(long txn) {
+            this.txn = txn;
+            // there is one publisher at a time, the one that owns table lock
+            this.version = version + 1;
+            // both fields are volatile, either waiter sees new txn or we see the waiter
+            if (waiterCount > 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
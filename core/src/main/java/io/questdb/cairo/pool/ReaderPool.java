@@ -26,6 +26,7 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnMappingCache;
 import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
@@ -34,6 +35,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.ConcurrentHashMap;
 import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -51,11 +53,13 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final boolean columnMappingCacheEnabled;
 
     public ReaderPool(CairoConfiguration configuration) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.columnMappingCacheEnabled = configuration.isColumnMappingCacheEnabled();
     }
 
     @Override
@@ -112,7 +116,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
             // all allocated, create next entry if possible
             if (Unsafe.getUnsafe().compareAndSwapInt(e, NEXT_STATUS, NEXT_OPEN, NEXT_ALLOCATED)) {
                 LOG.debug().$("Thread ").$(thread).$(" allocated entry ").$(e.index + 1).$();
-                e.next = new Entry(e.index + 1, clock.getTicks());
+                e.next = new Entry(e.index + 1, clock.getTicks(), e.columnMappingCache);
             }
             e = e.next;
         } while (e != null && e.index < maxSegments);
@@ -139,6 +143,11 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         return count;
     }
 
+    public ColumnMappingCache getColumnMappingCache(CharSequence name) {
+        final Entry e = entries.get(name);
+        return e != null ? e.columnMappingCache : null;
+    }
+
     public int getMaxEntries() {
         return maxEntries;
     }
@@ -280,7 +289,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         Entry e = entries.get(name);
         if (e == null) {
-            e = new Entry(0, clock.getTicks());
+            // mappings are cached per table, so that readers of different tables do not contend
+            e = new Entry(0, clock.getTicks(), columnMappingCacheEnabled ? new ColumnMappingCache() : null);
             Entry other = entries.putIfAbsent(name, e);
             if (other != null) {
                 e = other;
@@ -332,13 +342,16 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         final long[] releaseTimes = new long[ENTRY_SIZE];
         final R[] readers = new R[ENTRY_SIZE];
         final int index;
+        // shared by all segments of the table
+        final ColumnMappingCache columnMappingCache;
         volatile long lockOwner = -1L;
         @SuppressWarnings("unused")
         int nextStatus = 0;
         volatile Entry next;
 
-        public Entry(int index, long currentMicros) {
+        public Entry(int index, long currentMicros, @Nullable ColumnMappingCache columnMappingCache) {
             this.index = index;
+            this.columnMappingCache = columnMappingCache;
             Arrays.fill(allocations, UNALLOCATED);
             Arrays.fill(releaseTimes, currentMicros);
         }
@@ -350,7 +363,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, entry.columnMappingCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
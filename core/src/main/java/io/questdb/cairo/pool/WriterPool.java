@@ -71,6 +71,7 @@ public class WriterPool extends AbstractPool {
     private final CharSequence root;
     @NotNull
     private final MessageBus messageBus;
+    private final TxnNotifier txnNotifier = new TxnNotifier();
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -223,6 +224,10 @@ public class WriterPool extends AbstractPool {
         return count;
     }
 
+    public TxnNotifier getTxnNotifier() {
+        return txnNotifier;
+    }
+
     private TableWriter checkClosedAndGetWriter(CharSequence tableName, Entry e, CharSequence lockReason) {
         if (null == lockReason) {
             throw new NullPointerException();
@@ -290,6 +295,7 @@ public class WriterPool extends AbstractPool {
                 e.writer = writer;
                 writer.setLifecycleManager(e);
                 writer.transferLock(e.lockFd);
+                writer.setTxnSequence(txnNotifier.getSequence(name));
                 e.lockFd = -1;
                 e.ownershipReason = UNLOCKING;
                 Unsafe.getUnsafe().putOrderedLong(e, ENTRY_OWNER, UNALLOCATED);
@@ -394,6 +400,7 @@ public class WriterPool extends AbstractPool {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
             e.writer = new TableWriter(configuration, name, messageBus, true, e, root);
+            e.writer.setTxnSequence(txnNotifier.getSequence(name));
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
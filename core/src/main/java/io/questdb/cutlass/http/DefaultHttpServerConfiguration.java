@@ -24,7 +24,10 @@
 
 package io.questdb.cutlass.http;
 
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.PartitionBy;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.griffin.DefaultSqlInterruptorConfiguration;
 import io.questdb.griffin.SqlInterruptorConfiguration;
@@ -34,6 +37,8 @@ import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.Numbers;
 import io.questdb.std.Os;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 import io.questdb.std.str.Path;
@@ -112,6 +117,33 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         }
     };
 
+    private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new LineHttpProcessorConfiguration() {
+        @Override
+        public int getCommitMode() {
+            return CommitMode.SYNC;
+        }
+
+        @Override
+        public int getDefaultPartitionBy() {
+            return PartitionBy.DAY;
+        }
+
+        @Override
+        public int getMaxLineErrors() {
+            return 100;
+        }
+
+        @Override
+        public int getMaxMeasurementSize() {
+            return 64 * 1024;
+        }
+
+        @Override
+        public MicrosecondClock getMicrosecondClock() {
+            return MicrosecondClockImpl.INSTANCE;
+        }
+    };
+
     public DefaultHttpServerConfiguration() {
         this(new DefaultHttpContextConfiguration());
     }
@@ -151,6 +183,11 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         return jsonQueryProcessorConfiguration;
     }
 
+    @Override
+    public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+        return lineHttpProcessorConfiguration;
+    }
+
     @Override
     public int getQueryCacheBlocks() {
         return 16;
@@ -33,8 +33,21 @@ public interface HttpChunkedResponseSocket extends CharSink {
 
     void done() throws PeerDisconnectedException, PeerIsSlowToReadException;
 
+    /**
+     * @return number of bytes that can be put into the response buffer before the chunk has to be sent
+     */
+    long getWriteNAvailable();
+
     HttpResponseHeader headers();
 
+    /**
+     * Copies bytes between lo and hi verbatim into the response buffer.
+     *
+     * @param lo address of first byte
+     * @param hi address of byte after the last one
+     */
+    void putBytes(long lo, long hi);
+
     boolean resetToBookmark();
 
     void sendChunk(boolean done) throws PeerDisconnectedException, PeerIsSlowToReadException;
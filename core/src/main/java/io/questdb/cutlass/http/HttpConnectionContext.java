@@ -66,6 +66,8 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
     private int nCompletedRequests;
     private long totalBytesSent;
     private int receivedBytes;
+    private long contentRemaining;
+    private boolean contentRetry = false;
 
     public HttpConnectionContext(HttpContextConfiguration configuration) {
         this.nf = configuration.getNetworkFacade();
@@ -101,6 +103,8 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         }
         this.pendingRetry = false;
         this.multipartParserState.multipartRetry = false;
+        this.contentRetry = false;
+        this.contentRemaining = 0;
         this.retryAttemptAttributes.waitStartTimestamp = 0;
         this.retryAttemptAttributes.lastRunTimestamp = 0;
         this.retryAttemptAttributes.attempt = 0;
@@ -176,6 +180,14 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                     } else {
                         LOG.info().$("retry success but import not finished [fd=").$(fd).$(']').$();
                     }
+                } else if (contentRetry) {
+                    contentRetry = false;
+                    if (continueConsumeContent(fd, (HttpContentListener) processor, processor, retryRescheduleContext)) {
+                        LOG.info().$("success retried content [fd=").$(fd).$(']').$();
+                        busyRcvLoop(selector, rescheduleContext);
+                    } else {
+                        LOG.info().$("retry success but content not finished [fd=").$(fd).$(']').$();
+                    }
                 } else {
                     busyRcvLoop(selector, rescheduleContext);
                 }
@@ -302,6 +314,44 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         }
     }
 
+    private boolean consumeContent(
+            long fd,
+            HttpRequestProcessor processor,
+            long headerEnd,
+            int read,
+            boolean newRequest,
+            RescheduleContext rescheduleContext
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        if (newRequest) {
+            final DirectByteCharSequence contentLength = headerParser.getHeader("Content-Length");
+            long len = -1;
+            if (contentLength != null) {
+                try {
+                    len = Numbers.parseLong(contentLength);
+                } catch (NumericException ignore) {
+                }
+            }
+            if (len < 0) {
+                return rejectRequest("Bad request. Content-Length expected.");
+            }
+            contentRemaining = len;
+            processor.onHeadersReady(this);
+        }
+
+        processor.resumeRecv(this);
+
+        final HttpContentListener contentListener = (HttpContentListener) processor;
+        final long bufferEnd = recvBuffer + read;
+
+        // part of the body could have been received together with headers
+        if (headerEnd < bufferEnd && contentRemaining > 0) {
+            final long hi = headerEnd + Math.min(bufferEnd - headerEnd, contentRemaining);
+            contentRemaining -= hi - headerEnd;
+            onContentChunk(contentListener, headerEnd, hi);
+        }
+        return continueConsumeContent(fd, contentListener, processor, rescheduleContext);
+    }
+
     private boolean consumeMultipart(
             long fd,
             HttpRequestProcessor processor,
@@ -447,6 +497,33 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         return keepGoing;
     }
 
+    private boolean continueConsumeContent(
+            long fd,
+            HttpContentListener contentListener,
+            HttpRequestProcessor processor,
+            RescheduleContext rescheduleContext
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        while (contentRemaining > 0) {
+            final int n = nf.recv(fd, recvBuffer, (int) Math.min(recvBufferSize, contentRemaining));
+            if (n < 0) {
+                handlePeerDisconnect(DISCONNECT_REASON_PEER_DISCONNECT_AT_CONTENT_RECV);
+                return false;
+            }
+
+            if (n == 0) {
+                dispatcher.registerChannel(this, IOOperation.READ);
+                return false;
+            }
+
+            LOG.debug().$("content recv [len=").$(n).$(']').$();
+            dumpBuffer(recvBuffer, n);
+            contentRemaining -= n;
+            onContentChunk(contentListener, recvBuffer, recvBuffer + n);
+        }
+        completeRequest(processor, rescheduleContext);
+        return true;
+    }
+
     private void dumpBuffer(long buffer, int size) {
         if (dumpNetworkTraffic && size > 0) {
             StdoutSink.INSTANCE.put('>');
@@ -527,10 +604,12 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
 
             final boolean multipartRequest = Chars.equalsNc("multipart/form-data", headerParser.getContentType());
             final boolean multipartProcessor = processor instanceof HttpMultipartContentListener;
+            final boolean contentProcessor = processor instanceof HttpContentListener;
 
-            if (allowDeflateBeforeSend && Chars.contains(headerParser.getHeader("Accept-Encoding"), "gzip")) {
-                responseSink.setDeflateBeforeSend(true);
-            }
+            // compression is negotiated per request, keep-alive connection may
+            // serve clients that do and do not accept gzip
+            final CharSequence acceptEncoding = headerParser.getHeader("Accept-Encoding");
+            responseSink.setDeflateBeforeSend(allowDeflateBeforeSend && acceptEncoding != null && Chars.contains(acceptEncoding, "gzip"));
 
             try {
                 if (multipartRequest && !multipartProcessor) {
@@ -541,6 +620,8 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                     busyRecv = rejectRequest("Bad request. Multipart POST expected.");
                 } else if (multipartProcessor) {
                     busyRecv = consumeMultipart(fd, processor, headerEnd, read, newRequest, rescheduleContext);
+                } else if (contentProcessor) {
+                    busyRecv = consumeContent(fd, processor, headerEnd, read, newRequest, rescheduleContext);
                 } else {
 
                     // Do not expect any more bytes to be sent to us before
@@ -614,6 +695,20 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         onPeerDisconnect.run();
     }
 
+    private void onContentChunk(
+            HttpContentListener contentListener,
+            long lo,
+            long hi
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            contentListener.onChunk(lo, hi);
+        } catch (RetryOperationException e) {
+            // listener retains the chunk, we only have to carry on receiving once retry succeeds
+            contentRetry = true;
+            throw e;
+        }
+    }
+
     private boolean parseMultipartResult(long start, long buf, int bufRemaining, HttpMultipartContentListener
             multipartListener, HttpRequestProcessor processor, RescheduleContext rescheduleContext) throws
             PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, TooFewBytesReceivedException {
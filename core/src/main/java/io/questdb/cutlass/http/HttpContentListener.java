@@ -0,0 +1,42 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+
+/**
+ * Consumes body of a regular, non-multipart, request. Body length is taken from "Content-Length"
+ * header and the body is delivered in chunks as they are received. Chunk memory is only valid for the
+ * duration of the call.
+ * <p>
+ * Listener may throw {@link io.questdb.cutlass.http.ex.RetryOperationException} when it cannot make
+ * progress. Chunk memory is left intact while request waits for retry and listener is expected to finish
+ * processing the chunk in {@link HttpRequestProcessor#onRequestRetry(HttpConnectionContext)}, after which
+ * the rest of the body is delivered as usual.
+ */
+public interface HttpContentListener {
+    void onChunk(long lo, long hi) throws PeerDisconnectedException, PeerIsSlowToReadException;
+}
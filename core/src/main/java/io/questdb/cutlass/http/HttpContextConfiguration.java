@@ -34,6 +34,17 @@ public interface HttpContextConfiguration {
 
     boolean allowDeflateBeforeSend();
 
+    /**
+     * Chunked responses that complete under this many bytes are sent uncompressed
+     * even when the client accepts gzip. Zero compresses every response. Values
+     * above the send buffer size are capped at the buffer size.
+     *
+     * @return minimum response size to compress
+     */
+    default int getCompressionMinSize() {
+        return 0;
+    }
+
     MillisecondClock getClock();
 
     int getConnectionPoolInitialCapacity();
@@ -43,6 +43,7 @@ public class HttpResponseSink implements Closeable, Mutable {
 
     static {
         httpStatusMap.put(200, "OK");
+        httpStatusMap.put(204, "No Content");
         httpStatusMap.put(206, "Partial content");
         httpStatusMap.put(304, "Not Modified");
         httpStatusMap.put(400, "Bad request");
@@ -61,6 +62,7 @@ public class HttpResponseSink implements Closeable, Mutable {
     private final HttpRawSocketImpl rawSocket = new HttpRawSocketImpl();
     private final NetworkFacade nf;
     private final int responseBufferSize;
+    private final int compressionMinSize;
     private final boolean dumpNetworkTraffic;
     private final String httpVersion;
     private long fd;
@@ -75,11 +77,16 @@ public class HttpResponseSink implements Closeable, Mutable {
     private boolean compressedHeaderDone;
     private boolean compressedOutputReady;
     private boolean compressionComplete;
+    // chunked response header is held back until the first chunk shows
+    // whether response is large enough to be compressed
+    private boolean headerDeferred;
+    private boolean headerOutPending;
 
     public HttpResponseSink(HttpContextConfiguration configuration) {
         this.responseBufferSize = Numbers.ceilPow2(configuration.getSendBufferSize());
         this.nf = configuration.getNetworkFacade();
         this.buffer = new ChunkBuffer(responseBufferSize);
+        this.compressionMinSize = Math.min(configuration.getCompressionMinSize(), responseBufferSize);
         this.headerImpl = new HttpResponseHeaderImpl(configuration.getClock());
         this.dumpNetworkTraffic = configuration.getDumpNetworkTraffic();
         this.httpVersion = configuration.getHttpVersion();
@@ -96,6 +103,8 @@ public class HttpResponseSink implements Closeable, Mutable {
         totalBytesSent = 0;
         headersSent = false;
         chunkedRequestDone = false;
+        headerDeferred = false;
+        headerOutPending = false;
         resetZip();
     }
 
@@ -127,6 +136,11 @@ public class HttpResponseSink implements Closeable, Mutable {
     }
 
     public void resumeSend() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (headerOutPending) {
+            sendBuffer(compressOutBuffer);
+            headerOutPending = false;
+        }
+
         if (!headersSent || !deflateBeforeSend) {
             sendBuffer(buffer);
             return;
@@ -405,6 +419,31 @@ public class HttpResponseSink implements Closeable, Mutable {
 
     private class ResponseSinkImpl extends AbstractCharSink {
 
+        @Override
+        public CharSink encodeUtf8(CharSequence cs, int lo, int hi) {
+            // runs of printable ascii that need no escaping are copied in bulk,
+            // the remaining chars are escaped or encoded one at a time
+            int i = lo;
+            while (i < hi) {
+                int runHi = i;
+                while (runHi < hi && isPlainAscii(cs.charAt(runHi))) {
+                    runHi++;
+                }
+                if (runHi > i) {
+                    buffer.put(cs, i, runHi);
+                    i = runHi;
+                    continue;
+                }
+                char c = cs.charAt(i++);
+                if (c < 128) {
+                    putUtf8Special(c);
+                } else {
+                    i = putUtf8Internal(cs, hi, i, c);
+                }
+            }
+            return this;
+        }
+
         @Override
         public CharSink put(CharSequence seq) {
             buffer.put(seq);
@@ -470,6 +509,10 @@ public class HttpResponseSink implements Closeable, Mutable {
             headerImpl.status("HTTP/1.1 ", status, contentType, -1);
         }
 
+        private boolean isPlainAscii(char c) {
+            return c > 31 && c < 128 && c != '/' && c != '\"' && c != '\\';
+        }
+
         private void escapeSpace(char c) {
             switch (c) {
                 case '\0':
@@ -532,11 +575,23 @@ public class HttpResponseSink implements Closeable, Mutable {
             }
         }
 
+        @Override
+        public long getWriteNAvailable() {
+            return buffer.getWriteNAvailable();
+        }
+
         @Override
         public HttpResponseHeader headers() {
             return headerImpl;
         }
 
+        @Override
+        public void putBytes(long lo, long hi) {
+            final int len = (int) (hi - lo);
+            Unsafe.getUnsafe().copyMemory(lo, buffer.getWriteAddress(len), len);
+            buffer.onWrite(len);
+        }
+
         @Override
         public boolean resetToBookmark() {
             buffer._wptr = bookmark;
@@ -547,6 +602,9 @@ public class HttpResponseSink implements Closeable, Mutable {
         public void sendChunk(boolean done) throws PeerDisconnectedException, PeerIsSlowToReadException {
             headersSent = true;
             chunkedRequestDone = done;
+            if (headerDeferred) {
+                prepareDeferredHeader();
+            }
             if (buffer.getReadNAvailable() > 0 || done) {
                 if (!deflateBeforeSend) {
                     buffer.prepareToReadFromBuffer(true, chunkedRequestDone);
@@ -559,18 +617,39 @@ public class HttpResponseSink implements Closeable, Mutable {
         public void sendHeader() throws PeerDisconnectedException, PeerIsSlowToReadException {
             chunkedRequestDone = false;
             prepareHeaderSink();
-            flushSingle();
+            if (deflateBeforeSend && compressionMinSize > 0) {
+                // park header in the compression buffer, it is idle until headers are out
+                final int len = (int) buffer.getReadNAvailable();
+                compressOutBuffer.clearAndPrepareToWriteToBuffer();
+                Vect.memcpy(buffer.getReadAddress(), compressOutBuffer.getWriteAddress(len), len);
+                compressOutBuffer.onWrite(len);
+                headerDeferred = true;
+            } else {
+                flushSingle();
+            }
             buffer.clearAndPrepareToWriteToBuffer();
         }
 
         @Override
         public void status(int status, CharSequence contentType) {
             super.status(status, contentType);
-            if (deflateBeforeSend) {
+            if (deflateBeforeSend && compressionMinSize == 0) {
                 headerImpl.put("Content-Encoding: gzip").put(Misc.EOL);
             }
         }
 
+        private void prepareDeferredHeader() {
+            headerDeferred = false;
+            // response that does not fit single chunk is big enough to compress
+            if (!chunkedRequestDone || buffer.getReadNAvailable() >= compressionMinSize) {
+                compressOutBuffer.put("Content-Encoding: gzip").put(Misc.EOL);
+            } else {
+                deflateBeforeSend = false;
+            }
+            // header goes out ahead of the chunk on the next resumeSend()
+            headerOutPending = true;
+        }
+
         @Override
         public void shutdownWrite() {
             nf.shutdown(fd, Net.SHUT_WR);
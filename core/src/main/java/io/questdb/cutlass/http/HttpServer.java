@@ -30,9 +30,12 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterJob;
 import io.questdb.cutlass.http.processors.*;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.ExchangeJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.LatestBySymbolScanJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.Metrics;
@@ -160,6 +163,36 @@ public class HttpServer implements Closeable {
             }
         });
 
+        server.bind(new HttpRequestProcessorFactory() {
+            @Override
+            public HttpRequestProcessor newInstance() {
+                return new ArrowQueryProcessor(
+                        configuration.getJsonQueryProcessorConfiguration(),
+                        cairoEngine,
+                        messageBus,
+                        workerPool.getWorkerCount(),
+                        functionFactoryCache
+                );
+            }
+
+            @Override
+            public String getUrl() {
+                return "/arrow";
+            }
+        });
+
+        server.bind(new HttpRequestProcessorFactory() {
+            @Override
+            public HttpRequestProcessor newInstance() {
+                return new LineHttpProcessor(cairoEngine, configuration.getLineHttpProcessorConfiguration());
+            }
+
+            @Override
+            public String getUrl() {
+                return "/write";
+            }
+        });
+
         server.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -189,6 +222,9 @@ public class HttpServer implements Closeable {
         workerPool.assign(new GroupByJob(messageBus));
         workerPool.assign(new TableBlockWriterJob(messageBus));
         workerPool.assign(new LatestByAllIndexedJob(messageBus));
+        workerPool.assign(new LatestBySymbolScanJob(messageBus));
+        workerPool.assign(new ExchangeJob(messageBus));
+        workerPool.assign(new TextImportJob(messageBus));
     }
 
     @Nullable
@@ -26,6 +26,7 @@ package io.questdb.cutlass.http;
 
 import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 
 public interface HttpServerConfiguration extends WorkerPoolAwareConfiguration, HttpMinServerConfiguration {
@@ -35,6 +36,8 @@ public interface HttpServerConfiguration extends WorkerPoolAwareConfiguration, H
 
     JsonQueryProcessorConfiguration getJsonQueryProcessorConfiguration();
 
+    LineHttpProcessorConfiguration getLineHttpProcessorConfiguration();
+
     int getQueryCacheBlocks();
 
     int getQueryCacheRows();
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.FlatBufferBuilder;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+
+/**
+ * Encodes Arrow IPC stream metadata, as defined by Schema.fbs and Message.fbs of Apache Arrow
+ * format specification. Each message is framed by continuation marker and metadata length
+ * and followed by message body, which consists of 8-byte aligned buffers.
+ */
+final class ArrowIpc {
+    static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    static final int PREFIX_SIZE = 8;
+    static final int ALIGNMENT = 8;
+
+    private static final short METADATA_VERSION_V5 = 4;
+
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_FIXED_SIZE_BINARY = 15;
+
+    private static final short PRECISION_SINGLE = 1;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short DATE_UNIT_MILLISECOND = 1;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+
+    private ArrowIpc() {
+    }
+
+    static long align(long size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Finishes DictionaryBatch message, dictionary id is the index of column it belongs to.
+     *
+     * @param builder    empty builder
+     * @param id         dictionary id
+     * @param length     number of dictionary values
+     * @param nodes      field node of dictionary values, as (length, null count) pair
+     * @param buffers    body buffers as (offset, length) pairs
+     * @param bodyLength length of message body
+     */
+    static void finishDictionaryBatch(FlatBufferBuilder builder, long id, long length, LongList nodes, LongList buffers, long bodyLength) {
+        final int data = recordBatch(builder, length, nodes, buffers);
+        builder.startTable(3);
+        builder.addFieldLong(0, id);
+        builder.addFieldOffset(1, data);
+        builder.addFieldBool(2, false);
+        finishMessage(builder, HEADER_DICTIONARY_BATCH, builder.endTable(), bodyLength);
+    }
+
+    /**
+     * Finishes RecordBatch message.
+     *
+     * @param builder    empty builder
+     * @param length     number of rows in the batch
+     * @param nodes      one (length, null count) pair per field
+     * @param buffers    body buffers as (offset, length) pairs
+     * @param bodyLength length of message body
+     */
+    static void finishRecordBatch(FlatBufferBuilder builder, long length, LongList nodes, LongList buffers, long bodyLength) {
+        finishMessage(builder, HEADER_RECORD_BATCH, recordBatch(builder, length, nodes, buffers), bodyLength);
+    }
+
+    /**
+     * Finishes Schema message. Column types Arrow has no equivalent for are sent as Null type.
+     *
+     * @param builder           empty builder
+     * @param metadata          query metadata
+     * @param dictionaryEncoded true when symbol columns are sent as dictionary indexes, dictionary id is column index
+     * @param fieldOffsets      scratch list
+     */
+    static void finishSchema(FlatBufferBuilder builder, RecordMetadata metadata, boolean dictionaryEncoded, IntList fieldOffsets) {
+        final int columnCount = metadata.getColumnCount();
+        fieldOffsets.clear();
+        for (int i = 0; i < columnCount; i++) {
+            fieldOffsets.add(field(builder, metadata, i, dictionaryEncoded));
+        }
+        builder.startVector(Integer.BYTES, columnCount, Integer.BYTES);
+        for (int i = columnCount - 1; i > -1; i--) {
+            builder.addOffset(fieldOffsets.getQuick(i));
+        }
+        final int fields = builder.endVector();
+        builder.startTable(4);
+        // little endian
+        builder.addFieldShort(0, (short) 0);
+        builder.addFieldOffset(1, fields);
+        finishMessage(builder, HEADER_SCHEMA, builder.endTable(), 0);
+    }
+
+    private static int field(FlatBufferBuilder builder, RecordMetadata metadata, int columnIndex, boolean dictionaryEncoded) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final int name = builder.createString(metadata.getColumnName(columnIndex));
+        final byte typeType = typeType(columnType);
+        final int type = type(builder, columnType);
+        int dictionary = 0;
+        if (dictionaryEncoded && columnType == ColumnType.SYMBOL) {
+            final int indexType = intType(builder, 32, true);
+            builder.startTable(4);
+            builder.addFieldLong(0, columnIndex);
+            builder.addFieldOffset(1, indexType);
+            builder.addFieldBool(2, false);
+            dictionary = builder.endTable();
+        }
+        // readers expect children vector to be present even when empty
+        builder.startVector(Integer.BYTES, 0, Integer.BYTES);
+        final int children = builder.endVector();
+
+        builder.startTable(7);
+        builder.addFieldOffset(0, name);
+        builder.addFieldBool(1, true);
+        builder.addFieldByte(2, typeType);
+        builder.addFieldOffset(3, type);
+        builder.addFieldOffset(4, dictionary);
+        builder.addFieldOffset(5, children);
+        return builder.endTable();
+    }
+
+    private static void finishMessage(FlatBufferBuilder builder, byte headerType, int header, long bodyLength) {
+        builder.startTable(5);
+        builder.addFieldShort(0, METADATA_VERSION_V5);
+        builder.addFieldByte(1, headerType);
+        builder.addFieldOffset(2, header);
+        builder.addFieldLong(3, bodyLength);
+        builder.finish(builder.endTable());
+    }
+
+    private static int intType(FlatBufferBuilder builder, int bitWidth, boolean signed) {
+        builder.startTable(2);
+        builder.addFieldInt(0, bitWidth);
+        builder.addFieldBool(1, signed);
+        return builder.endTable();
+    }
+
+    private static int recordBatch(FlatBufferBuilder builder, long length, LongList nodes, LongList buffers) {
+        final int nodeVector = structVector(builder, nodes);
+        final int bufferVector = structVector(builder, buffers);
+        builder.startTable(4);
+        builder.addFieldLong(0, length);
+        builder.addFieldOffset(1, nodeVector);
+        builder.addFieldOffset(2, bufferVector);
+        return builder.endTable();
+    }
+
+    // both FieldNode and Buffer structs are pairs of longs
+    private static int structVector(FlatBufferBuilder builder, LongList pairs) {
+        final int n = pairs.size() / 2;
+        builder.startVector(2 * Long.BYTES, n, Long.BYTES);
+        for (int i = n - 1; i > -1; i--) {
+            builder.prep(Long.BYTES, 2 * Long.BYTES);
+            builder.addLong(pairs.getQuick(2 * i + 1));
+            builder.addLong(pairs.getQuick(2 * i));
+        }
+        return builder.endVector();
+    }
+
+    private static int type(FlatBufferBuilder builder, int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+                return intType(builder, 8, true);
+            case ColumnType.SHORT:
+                return intType(builder, 16, true);
+            case ColumnType.INT:
+                return intType(builder, 32, true);
+            case ColumnType.LONG:
+                return intType(builder, 64, true);
+            case ColumnType.FLOAT:
+                builder.startTable(1);
+                builder.addFieldShort(0, PRECISION_SINGLE);
+                return builder.endTable();
+            case ColumnType.DOUBLE:
+                builder.startTable(1);
+                builder.addFieldShort(0, PRECISION_DOUBLE);
+                return builder.endTable();
+            case ColumnType.DATE:
+                builder.startTable(1);
+                builder.addFieldShort(0, DATE_UNIT_MILLISECOND);
+                return builder.endTable();
+            case ColumnType.TIMESTAMP:
+                final int timezone = builder.createString("UTC");
+                builder.startTable(2);
+                builder.addFieldShort(0, TIME_UNIT_MICROSECOND);
+                builder.addFieldOffset(1, timezone);
+                return builder.endTable();
+            case ColumnType.LONG256:
+                builder.startTable(1);
+                builder.addFieldInt(0, 32);
+                return builder.endTable();
+            default:
+                // Bool, Utf8, Binary and Null have no attributes
+                builder.startTable(0);
+                return builder.endTable();
+        }
+    }
+
+    private static byte typeType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return TYPE_INT;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return TYPE_FLOATING_POINT;
+            case ColumnType.DATE:
+                return TYPE_DATE;
+            case ColumnType.TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return TYPE_UTF8;
+            case ColumnType.BINARY:
+                return TYPE_BINARY;
+            case ColumnType.LONG256:
+                return TYPE_FIXED_SIZE_BINARY;
+            default:
+                return TYPE_NULL;
+        }
+    }
+}
@@ -0,0 +1,781 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.MessageBus;
+import io.questdb.Telemetry;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoError;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
+import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.text.TextUtil;
+import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.griffin.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.log.LogRecord;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.*;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Streams query results in Apache Arrow IPC stream format. Stream starts with schema message,
+ * followed by record batches of up to configured number of rows and end-of-stream marker.
+ * <p>
+ * Queries that support page frames are sent without materialising values: data buffers of
+ * fixed size columns point at column memory and only validity bitmaps are computed. Symbol
+ * columns of such queries are dictionary encoded, dictionaries are sent from symbol tables
+ * ahead of the first record batch. Other queries are buffered from record cursor one batch
+ * at a time, symbols are sent as strings.
+ */
+public class ArrowQueryProcessor implements HttpRequestProcessor, Closeable {
+    // Factory cache is thread local due to possibility of factory being
+    // closed by another thread. Peer disconnect is a typical example of this.
+    // Being asynchronous we may need to be able to return factory to the cache
+    // by the same thread that executes the dispatcher.
+    private static final LocalValue<ArrowQueryProcessorState> LV = new LocalValue<>();
+    private static final Log LOG = LogFactory.getLog(ArrowQueryProcessor.class);
+    private static final CharSequence CONTENT_TYPE_ARROW = "application/vnd.apache.arrow.stream";
+    private static final CharSequence CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+    private final SqlCompiler compiler;
+    private final JsonQueryProcessorConfiguration configuration;
+    private final SqlExecutionContextImpl sqlExecutionContext;
+    private final MillisecondClock clock;
+    private final int batchSize;
+    private final HttpSqlExecutionInterruptor interruptor;
+
+    public ArrowQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            @Nullable MessageBus messageBus,
+            int workerCount
+    ) {
+        this(configuration, engine, messageBus, workerCount, null);
+    }
+
+    public ArrowQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            @Nullable MessageBus messageBus,
+            int workerCount,
+            @Nullable FunctionFactoryCache functionFactoryCache
+    ) {
+        this.configuration = configuration;
+        this.compiler = new SqlCompiler(engine, messageBus, functionFactoryCache);
+        this.clock = configuration.getClock();
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
+        this.batchSize = Math.max(1, configuration.getArrowBatchSize());
+        this.interruptor = new HttpSqlExecutionInterruptor(configuration.getInterruptorConfiguration());
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(interruptor);
+    }
+
+    public void execute(
+            HttpConnectionContext context,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            state.recordCursorFactory = QueryCache.getInstance().poll(state.query);
+            state.setQueryCacheable(true);
+            sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), interruptor.of(context.getFd()));
+            if (state.recordCursorFactory == null) {
+                final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
+                if (cc.getType() == CompiledQuery.SELECT) {
+                    state.recordCursorFactory = cc.getRecordCursorFactory();
+                }
+                info(state).$("execute-new [q=`").utf8(state.query).$("`]").$();
+                sqlExecutionContext.storeTelemetry(cc.getType(), Telemetry.ORIGIN_HTTP_TEXT);
+            } else {
+                info(state).$("execute-cached [q=`").utf8(state.query).$("`]").$();
+                sqlExecutionContext.storeTelemetry(CompiledQuery.SELECT, Telemetry.ORIGIN_HTTP_TEXT);
+            }
+
+            if (state.recordCursorFactory != null) {
+                try {
+                    boolean runQuery = true;
+                    do {
+                        try {
+                            openCursor(state);
+                            runQuery = false;
+                        } catch (ReaderOutOfDateException e) {
+                            info(state).$(e.getFlyweightMessage()).$();
+                            state.recordCursorFactory = Misc.free(state.recordCursorFactory);
+                            final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
+                            state.recordCursorFactory = cc.getRecordCursorFactory();
+                        }
+                    } while (runQuery);
+                    state.metadata = state.recordCursorFactory.getMetadata();
+                    header(context.getChunkedResponseSocket(), state);
+                    resumeSend(context);
+                } catch (CairoException e) {
+                    state.setQueryCacheable(e.isCacheable());
+                    internalError(context.getChunkedResponseSocket(), e, state);
+                } catch (CairoError e) {
+                    internalError(context.getChunkedResponseSocket(), e, state);
+                }
+            } else {
+                sendConfirmation(context.getChunkedResponseSocket());
+                readyForNextRequest(context);
+            }
+        } catch (SqlException e) {
+            syntaxError(context.getChunkedResponseSocket(), e, state);
+            readyForNextRequest(context);
+        } catch (CairoException | CairoError e) {
+            internalError(context.getChunkedResponseSocket(), e, state);
+            readyForNextRequest(context);
+        }
+    }
+
+    @Override
+    public void onRequestComplete(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        ArrowQueryProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new ArrowQueryProcessorState(context));
+        }
+        // new request clears random
+        state.rnd = null;
+
+        HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (parseUrl(socket, context.getRequestHeader(), state)) {
+            execute(context, state);
+        } else {
+            readyForNextRequest(context);
+        }
+    }
+
+    @Override
+    public void resumeSend(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        ArrowQueryProcessorState state = LV.get(context);
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
+            return;
+        }
+
+        // copy random during query resume
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.rnd, context.getFd(), interruptor.of(context.getFd()));
+        LOG.debug().$("resume [fd=").$(context.getFd()).$(']').$();
+
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        OUT:
+        while (true) {
+            // message prepared in the previous iteration has to be out
+            // before the next one can reuse the buffers
+            sendSegments(socket, state);
+            switch (state.queryState) {
+                case JsonQueryProcessorState.QUERY_PREFIX:
+                    prepareSchema(state);
+                    state.columnIndex = 0;
+                    state.queryState = JsonQueryProcessorState.QUERY_METADATA;
+                    break;
+                case JsonQueryProcessorState.QUERY_METADATA:
+                    if (prepareDictionary(state)) {
+                        break;
+                    }
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD_START:
+                    if (prepareRecordBatch(state)) {
+                        break;
+                    }
+                    prepareEndOfStream(state);
+                    state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                    break;
+                case JsonQueryProcessorState.QUERY_SUFFIX:
+                    sendDone(socket, state);
+                    break OUT;
+                default:
+                    break OUT;
+            }
+        }
+        // reached the end naturally?
+        readyForNextRequest(context);
+    }
+
+    @Override
+    public void parkRequest(HttpConnectionContext context) {
+        ArrowQueryProcessorState state = LV.get(context);
+        if (state != null) {
+            state.rnd = sqlExecutionContext.getRandom();
+        }
+    }
+
+    private static void addBuffer(ArrowQueryProcessorState state, long address, long size) {
+        state.bufferOffsets.add(state.bodyLength);
+        state.bufferOffsets.add(size);
+        if (size > 0) {
+            state.segments.add(address);
+            state.segments.add(size);
+            final long alignedSize = ArrowIpc.align(size);
+            if (alignedSize > size) {
+                state.segments.add(state.padding);
+                state.segments.add(alignedSize - size);
+            }
+            state.bodyLength += alignedSize;
+        }
+    }
+
+    private static void addColumn(ArrowQueryProcessorState state, ArrowQueryProcessorState.ColumnBuffers buffers, int type, long rowCount) {
+        switch (type) {
+            case ColumnType.NULL:
+                // null layout has no buffers
+                addNode(state, rowCount, rowCount);
+                break;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                addValidity(state, buffers, rowCount);
+                addBuffer(state, buffers.offsets.addressOf(0), (rowCount + 1) * Integer.BYTES);
+                addBuffer(state, buffers.chars.getAddress(), buffers.chars.length());
+                break;
+            case ColumnType.BINARY:
+                addValidity(state, buffers, rowCount);
+                addBuffer(state, buffers.offsets.addressOf(0), (rowCount + 1) * Integer.BYTES);
+                addBuffer(state, buffers.values.addressOf(0), buffers.values.getAppendOffset());
+                break;
+            case ColumnType.BOOLEAN:
+                // values are bit packed and never null
+                buffers.flush();
+                addNode(state, rowCount, 0);
+                addBuffer(state, 0, 0);
+                addBuffer(state, buffers.values.addressOf(0), buffers.values.getAppendOffset());
+                break;
+            default:
+                addValidity(state, buffers, rowCount);
+                addBuffer(state, buffers.values.addressOf(0), buffers.values.getAppendOffset());
+                break;
+        }
+    }
+
+    private static void addValidity(ArrowQueryProcessorState state, ArrowQueryProcessorState.ColumnBuffers buffers, long rowCount) {
+        buffers.flush();
+        addNode(state, rowCount, buffers.nullCount);
+        // bitmap can be omitted when there are no nulls
+        addBuffer(state, buffers.validity.addressOf(0), buffers.nullCount > 0 ? (rowCount + 7) >>> 3 : 0);
+    }
+
+    private static void appendUtf8(ArrowQueryProcessorState.ColumnBuffers buffers, CharSequence value) {
+        buffers.appendValidity(value != null);
+        if (value != null) {
+            buffers.chars.encodeUtf8(value);
+        }
+        buffers.offsets.putInt((int) buffers.chars.length());
+    }
+
+    private static void appendValue(ArrowQueryProcessorState.ColumnBuffers buffers, int type, Record record, int col) {
+        final ContiguousVirtualMemory values = buffers.values;
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                buffers.appendBool(record.getBool(col));
+                break;
+            case ColumnType.BYTE:
+                values.putByte(record.getByte(col));
+                break;
+            case ColumnType.SHORT:
+                values.putShort(record.getShort(col));
+                break;
+            case ColumnType.CHAR:
+                final char c = record.getChar(col);
+                buffers.appendValidity(c > 0);
+                if (c > 0) {
+                    buffers.chars.putUtf8(c);
+                }
+                buffers.offsets.putInt((int) buffers.chars.length());
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(col);
+                buffers.appendValidity(i != Numbers.INT_NaN);
+                values.putInt(i);
+                break;
+            case ColumnType.LONG:
+                final long l = record.getLong(col);
+                buffers.appendValidity(l != Numbers.LONG_NaN);
+                values.putLong(l);
+                break;
+            case ColumnType.DATE:
+                final long date = record.getDate(col);
+                buffers.appendValidity(date != Numbers.LONG_NaN);
+                values.putLong(date);
+                break;
+            case ColumnType.TIMESTAMP:
+                final long timestamp = record.getTimestamp(col);
+                buffers.appendValidity(timestamp != Numbers.LONG_NaN);
+                values.putLong(timestamp);
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(col);
+                buffers.appendValidity(f == f);
+                values.putFloat(f);
+                break;
+            case ColumnType.DOUBLE:
+                final double d = record.getDouble(col);
+                buffers.appendValidity(d == d);
+                values.putDouble(d);
+                break;
+            case ColumnType.STRING:
+                appendUtf8(buffers, record.getStr(col));
+                break;
+            case ColumnType.SYMBOL:
+                appendUtf8(buffers, record.getSym(col));
+                break;
+            case ColumnType.BINARY:
+                final BinarySequence bin = record.getBin(col);
+                buffers.appendValidity(bin != null);
+                if (bin != null) {
+                    final long len = bin.length();
+                    final long offset = values.getAppendOffset();
+                    values.skip(len);
+                    bin.copyTo(values.addressOf(offset), 0, len);
+                }
+                buffers.offsets.putInt((int) values.getAppendOffset());
+                break;
+            case ColumnType.LONG256:
+                final Long256 long256 = record.getLong256A(col);
+                buffers.appendValidity(
+                        long256.getLong0() != Numbers.LONG_NaN
+                                || long256.getLong1() != Numbers.LONG_NaN
+                                || long256.getLong2() != Numbers.LONG_NaN
+                                || long256.getLong3() != Numbers.LONG_NaN
+                );
+                values.putLong256(long256);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void beginMessage(ArrowQueryProcessorState state) {
+        state.builder.clear();
+        state.fieldNodes.clear();
+        state.bufferOffsets.clear();
+        state.bodyLength = 0;
+        state.segments.clear();
+        // placeholder for metadata, it is encoded once body layout is known
+        state.segments.add(0);
+        state.segments.add(0);
+        state.segmentIndex = 0;
+        state.segmentOffset = 0;
+    }
+
+    private static void ensureZeroes(ArrowQueryProcessorState state, long size) {
+        // column tops of the batch share zeroes, which must not move once referenced
+        if (size > state.zeroesSize) {
+            final ContiguousVirtualMemory mem = state.zeroes;
+            mem.jumpTo(0);
+            mem.skip(size);
+            Vect.memset(mem.addressOf(0), size, 0);
+            state.zeroesSize = size;
+        }
+    }
+
+    private static void finishMessage(ArrowQueryProcessorState state) {
+        final FlatBufferBuilder builder = state.builder;
+        final int size = builder.getBufferSize();
+        final long metadataSize = ArrowIpc.align(size);
+        final ContiguousVirtualMemory mem = state.messageMetadata;
+        mem.jumpTo(0);
+        mem.putInt(ArrowIpc.CONTINUATION_MARKER);
+        mem.putInt((int) metadataSize);
+        mem.putBlockOfBytes(builder.getBufferAddress(), size);
+        for (long i = size; i < metadataSize; i++) {
+            mem.putByte((byte) 0);
+        }
+        state.segments.setQuick(0, mem.addressOf(0));
+        state.segments.setQuick(1, mem.getAppendOffset());
+    }
+
+    private static long frameRowCount(PageFrame frame) {
+        final long size = frame.getPageSize(0);
+        return frame.getPageAddress(0) == 0 ? size : size >> frame.getColumnSize(0);
+    }
+
+    private static void prepareEndOfStream(ArrowQueryProcessorState state) {
+        beginMessage(state);
+        final ContiguousVirtualMemory mem = state.messageMetadata;
+        mem.jumpTo(0);
+        mem.putInt(ArrowIpc.CONTINUATION_MARKER);
+        mem.putInt(0);
+        state.segments.setQuick(0, mem.addressOf(0));
+        state.segments.setQuick(1, mem.getAppendOffset());
+    }
+
+    private static void prepareSchema(ArrowQueryProcessorState state) {
+        beginMessage(state);
+        ArrowIpc.finishSchema(state.builder, state.metadata, state.pageFrameCursor != null, state.fieldOffsets);
+        finishMessage(state);
+    }
+
+    private static void readyForNextRequest(HttpConnectionContext context) {
+        LOG.info().$("all sent [fd=").$(context.getFd()).$(", lastRequestBytesSent=").$(context.getLastRequestBytesSent()).$(", nCompletedRequests=").$(context.getNCompletedRequests() + 1)
+                .$(", totalBytesSent=").$(context.getTotalBytesSent()).$(']').$();
+    }
+
+    private static void sendSegments(
+            HttpChunkedResponseSocket socket,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final LongList segments = state.segments;
+        while (state.segmentIndex < segments.size()) {
+            final long available = socket.getWriteNAvailable();
+            if (available == 0) {
+                socket.sendChunk(false);
+                continue;
+            }
+            final long address = segments.getQuick(state.segmentIndex) + state.segmentOffset;
+            final long size = segments.getQuick(state.segmentIndex + 1);
+            final long n = Math.min(available, size - state.segmentOffset);
+            socket.putBytes(address, address + n);
+            state.segmentOffset += n;
+            if (state.segmentOffset == size) {
+                state.segmentIndex += 2;
+                state.segmentOffset = 0;
+            }
+        }
+    }
+
+    private static void addColumnTop(ArrowQueryProcessorState state, int type, int rowCount) {
+        // column top reads as nulls, or zeroes for types without null value
+        final long zeroes = state.zeroes.addressOf(0);
+        final long size = (long) rowCount << ColumnType.pow2SizeOf(type);
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                addNode(state, rowCount, 0);
+                addBuffer(state, 0, 0);
+                addBuffer(state, zeroes, (rowCount + 7) >>> 3);
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                addNode(state, rowCount, 0);
+                addBuffer(state, 0, 0);
+                addBuffer(state, zeroes, size);
+                break;
+            case ColumnType.CHAR:
+                addNode(state, rowCount, rowCount);
+                addBuffer(state, zeroes, (rowCount + 7) >>> 3);
+                addBuffer(state, zeroes, (rowCount + 1L) * Integer.BYTES);
+                addBuffer(state, 0, 0);
+                break;
+            default:
+                addNode(state, rowCount, rowCount);
+                addBuffer(state, zeroes, (rowCount + 7) >>> 3);
+                addBuffer(state, zeroes, size);
+                break;
+        }
+    }
+
+    private static void addFrameColumn(ArrowQueryProcessorState state, PageFrame frame, int col, int type, long rowLo, int rowCount) {
+        final long address = frame.getPageAddress(col);
+        if (address == 0) {
+            addColumnTop(state, type, rowCount);
+            return;
+        }
+        final ArrowQueryProcessorState.ColumnBuffers buffers = state.getColumnBuffers(col);
+        buffers.reset();
+        final int shift = ColumnType.pow2SizeOf(type);
+        final long lo = address + (rowLo << shift);
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                for (int r = 0; r < rowCount; r++) {
+                    buffers.appendBool(Unsafe.getUnsafe().getByte(lo + r) == 1);
+                }
+                addColumn(state, buffers, type, rowCount);
+                return;
+            case ColumnType.CHAR:
+                buffers.offsets.putInt(0);
+                for (int r = 0; r < rowCount; r++) {
+                    final char c = Unsafe.getUnsafe().getChar(lo + ((long) r << 1));
+                    buffers.appendValidity(c > 0);
+                    if (c > 0) {
+                        buffers.chars.putUtf8(c);
+                    }
+                    buffers.offsets.putInt((int) buffers.chars.length());
+                }
+                addColumn(state, buffers, type, rowCount);
+                return;
+            case ColumnType.INT:
+                for (int r = 0; r < rowCount; r++) {
+                    buffers.appendValidity(Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) != Numbers.INT_NaN);
+                }
+                break;
+            case ColumnType.SYMBOL:
+                for (int r = 0; r < rowCount; r++) {
+                    buffers.appendValidity(Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) > -1);
+                }
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                for (int r = 0; r < rowCount; r++) {
+                    buffers.appendValidity(Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) != Numbers.LONG_NaN);
+                }
+                break;
+            case ColumnType.FLOAT:
+                for (int r = 0; r < rowCount; r++) {
+                    final float f = Unsafe.getUnsafe().getFloat(lo + ((long) r << 2));
+                    buffers.appendValidity(f == f);
+                }
+                break;
+            case ColumnType.DOUBLE:
+                for (int r = 0; r < rowCount; r++) {
+                    final double d = Unsafe.getUnsafe().getDouble(lo + ((long) r << 3));
+                    buffers.appendValidity(d == d);
+                }
+                break;
+            default:
+                // byte and short have no null value
+                break;
+        }
+        // values are sent straight from column memory
+        addValidity(state, buffers, rowCount);
+        addBuffer(state, lo, (long) rowCount << shift);
+    }
+
+    private static void addNode(ArrowQueryProcessorState state, long length, long nullCount) {
+        state.fieldNodes.add(length);
+        state.fieldNodes.add(nullCount);
+    }
+
+    private void header(HttpChunkedResponseSocket socket, ArrowQueryProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        socket.status(200, CONTENT_TYPE_ARROW);
+        if (state.fileName != null && state.fileName.length() > 0) {
+            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(".arrow\"").put(Misc.EOL);
+        } else {
+            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(".arrow\"").put(Misc.EOL);
+        }
+        socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        socket.sendHeader();
+    }
+
+    private LogRecord error(ArrowQueryProcessorState state) {
+        return LOG.error().$('[').$(state.getFd()).$("] ");
+    }
+
+    private LogRecord info(ArrowQueryProcessorState state) {
+        return LOG.info().$('[').$(state.getFd()).$("] ");
+    }
+
+    private void internalError(
+            HttpChunkedResponseSocket socket,
+            Throwable e,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        error(state).$("Server error executing query ").utf8(state.query).$(e).$();
+        sendException(socket, 0, e.getMessage(), state);
+    }
+
+    private void openCursor(ArrowQueryProcessorState state) throws SqlException {
+        if (state.recordCursorFactory.supportPageFrameCursor()) {
+            state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext);
+            if (state.pageFrameCursor != null) {
+                state.pageFrame = null;
+                state.frameRowCount = state.frameRowIndex = 0;
+                return;
+            }
+        }
+        state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+    }
+
+    private boolean parseUrl(
+            HttpChunkedResponseSocket socket,
+            HttpRequestHeader request,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final DirectByteCharSequence query = request.getUrlParam("query");
+        if (query == null || query.length() == 0) {
+            info(state).$("Empty query request received. Sending empty reply.").$();
+            sendException(socket, 0, "No query text", state);
+            return false;
+        }
+
+        state.query.clear();
+        try {
+            TextUtil.utf8Decode(query.getLo(), query.getHi(), state.query);
+        } catch (Utf8Exception e) {
+            info(state).$("Bad UTF8 encoding").$();
+            sendException(socket, 0, "Bad UTF8 encoding in query text", state);
+            return false;
+        }
+        CharSequence fileName = request.getUrlParam("filename");
+        state.fileName = null;
+        if (fileName != null && fileName.length() > 0) {
+            state.fileName = fileName.toString();
+        }
+        state.count = 0L;
+        return true;
+    }
+
+    private boolean prepareDictionary(ArrowQueryProcessorState state) {
+        if (state.pageFrameCursor == null) {
+            return false;
+        }
+        final RecordMetadata metadata = state.metadata;
+        final int columnCount = metadata.getColumnCount();
+        for (; state.columnIndex < columnCount; state.columnIndex++) {
+            final int col = state.columnIndex;
+            if (metadata.getColumnType(col) == ColumnType.SYMBOL) {
+                state.columnIndex++;
+                beginMessage(state);
+                final SymbolMapReader symbolMapReader = state.pageFrameCursor.getSymbolMapReader(col);
+                final ArrowQueryProcessorState.ColumnBuffers buffers = state.getColumnBuffers(col);
+                buffers.reset();
+                buffers.offsets.putInt(0);
+                final int symbolCount = symbolMapReader.size();
+                for (int key = 0; key < symbolCount; key++) {
+                    appendUtf8(buffers, symbolMapReader.valueOf(key));
+                }
+                addColumn(state, buffers, ColumnType.SYMBOL, symbolCount);
+                ArrowIpc.finishDictionaryBatch(state.builder, col, symbolCount, state.fieldNodes, state.bufferOffsets, state.bodyLength);
+                finishMessage(state);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean prepareRecordBatch(ArrowQueryProcessorState state) {
+        final RecordMetadata metadata = state.metadata;
+        final int columnCount = metadata.getColumnCount();
+        final int rowCount;
+        if (state.pageFrameCursor != null) {
+            while (state.frameRowIndex == state.frameRowCount) {
+                final PageFrame frame = state.pageFrameCursor.next();
+                if (frame == null) {
+                    return false;
+                }
+                state.pageFrame = frame;
+                state.frameRowCount = frameRowCount(frame);
+                state.frameRowIndex = 0;
+            }
+            rowCount = (int) Math.min(batchSize, state.frameRowCount - state.frameRowIndex);
+            ensureZeroes(state, ((long) rowCount + 1) << 3);
+            beginMessage(state);
+            for (int col = 0; col < columnCount; col++) {
+                addFrameColumn(state, state.pageFrame, col, metadata.getColumnType(col), state.frameRowIndex, rowCount);
+            }
+            state.frameRowIndex += rowCount;
+        } else {
+            for (int col = 0; col < columnCount; col++) {
+                final ArrowQueryProcessorState.ColumnBuffers buffers = state.getColumnBuffers(col);
+                buffers.reset();
+                switch (metadata.getColumnType(col)) {
+                    case ColumnType.CHAR:
+                    case ColumnType.STRING:
+                    case ColumnType.SYMBOL:
+                    case ColumnType.BINARY:
+                        buffers.offsets.putInt(0);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            final RecordCursor cursor = state.cursor;
+            final Record record = cursor.getRecord();
+            int n = 0;
+            while (n < batchSize && cursor.hasNext()) {
+                for (int col = 0; col < columnCount; col++) {
+                    appendValue(state.columnBuffers.getQuick(col), metadata.getColumnType(col), record, col);
+                }
+                n++;
+            }
+            if (n == 0) {
+                return false;
+            }
+            rowCount = n;
+            beginMessage(state);
+            for (int col = 0; col < columnCount; col++) {
+                addColumn(state, state.columnBuffers.getQuick(col), metadata.getColumnType(col), rowCount);
+            }
+        }
+        ArrowIpc.finishRecordBatch(state.builder, rowCount, state.fieldNodes, state.bufferOffsets, state.bodyLength);
+        finishMessage(state);
+        state.count += rowCount;
+        return true;
+    }
+
+    private void sendConfirmation(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        socket.status(200, CONTENT_TYPE_JSON);
+        socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        socket.sendHeader();
+        socket.put("{\"ddl\":\"OK\"}");
+        socket.sendChunk(true);
+    }
+
+    private void sendDone(
+            HttpChunkedResponseSocket socket,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (state.count > -1) {
+            info(state).$("sent [rows=").$(state.count).$(']').$();
+            state.count = -1;
+            socket.sendChunk(true);
+            return;
+        }
+        socket.done();
+    }
+
+    private void sendException(
+            HttpChunkedResponseSocket socket,
+            int position,
+            CharSequence message,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        socket.status(400, CONTENT_TYPE_JSON);
+        socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        socket.sendHeader();
+        JsonQueryProcessorState.prepareExceptionJson(socket, position, message, state.query);
+    }
+
+    private void syntaxError(
+            HttpChunkedResponseSocket socket,
+            SqlException sqlException,
+            ArrowQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        info(state)
+                .$("syntax-error [q=`").utf8(state.query)
+                .$("`, at=").$(sqlException.getPosition())
+                .$(", message=`").$(sqlException.getFlyweightMessage()).$('`')
+                .$(']').$();
+        sendException(socket, sqlException.getPosition(), sqlException.getFlyweightMessage(), state);
+    }
+}
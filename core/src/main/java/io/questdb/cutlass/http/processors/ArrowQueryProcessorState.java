@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSink;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+public class ArrowQueryProcessorState implements Mutable, Closeable {
+    private static final long BUFFER_PAGE_SIZE = 64 * 1024;
+    final StringSink query = new StringSink();
+    final FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+    final IntList fieldOffsets = new IntList();
+    // (length, null count) of each field and (offset, length) of each body buffer of current message
+    final LongList fieldNodes = new LongList();
+    final LongList bufferOffsets = new LongList();
+    // (address, length) of message parts in the order they are sent, first part is the metadata
+    final LongList segments = new LongList();
+    final ContiguousVirtualMemory messageMetadata = new ContiguousVirtualMemory(1024, Integer.MAX_VALUE);
+    final ObjList<ColumnBuffers> columnBuffers = new ObjList<>();
+    // zeroes referenced by column tops of page frames
+    final ContiguousVirtualMemory zeroes = new ContiguousVirtualMemory(BUFFER_PAGE_SIZE, Integer.MAX_VALUE);
+    private final HttpConnectionContext httpConnectionContext;
+    // zero bytes to pad body buffers with
+    long padding;
+    RecordCursorFactory recordCursorFactory;
+    RecordMetadata metadata;
+    RecordCursor cursor;
+    PageFrameCursor pageFrameCursor;
+    PageFrame pageFrame;
+    long frameRowCount;
+    long frameRowIndex;
+    long bodyLength;
+    long zeroesSize;
+    int segmentIndex;
+    long segmentOffset;
+    long count;
+    Rnd rnd;
+    int queryState = JsonQueryProcessorState.QUERY_PREFIX;
+    int columnIndex;
+    String fileName;
+    private boolean queryCacheable = false;
+
+    public ArrowQueryProcessorState(HttpConnectionContext httpConnectionContext) {
+        this.httpConnectionContext = httpConnectionContext;
+        this.padding = Unsafe.calloc(ArrowIpc.ALIGNMENT);
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        pageFrame = null;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        if (null != recordCursorFactory) {
+            if (queryCacheable) {
+                QueryCache.getInstance().push(query, recordCursorFactory);
+            } else {
+                recordCursorFactory.close();
+            }
+            recordCursorFactory = null;
+        }
+        queryCacheable = false;
+        query.clear();
+        queryState = JsonQueryProcessorState.QUERY_PREFIX;
+        columnIndex = 0;
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        count = 0;
+    }
+
+    @Override
+    public void close() {
+        cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        recordCursorFactory = Misc.free(recordCursorFactory);
+        Misc.freeObjList(columnBuffers);
+        columnBuffers.clear();
+        Misc.free(builder);
+        Misc.free(messageMetadata);
+        Misc.free(zeroes);
+        zeroesSize = 0;
+        if (padding != 0) {
+            Unsafe.free(padding, ArrowIpc.ALIGNMENT);
+            padding = 0;
+        }
+    }
+
+    public long getFd() {
+        return httpConnectionContext.getFd();
+    }
+
+    ColumnBuffers getColumnBuffers(int columnIndex) {
+        while (columnBuffers.size() <= columnIndex) {
+            columnBuffers.add(new ColumnBuffers());
+        }
+        return columnBuffers.getQuick(columnIndex);
+    }
+
+    void setQueryCacheable(boolean queryCacheable) {
+        this.queryCacheable = queryCacheable;
+    }
+
+    /**
+     * Arrow buffers of a single column of the batch being sent. Validity and boolean values
+     * are bit packed as rows are appended. Variable length values are indexed by int offsets
+     * with values themselves kept either as UTF-8 chars or as binary values.
+     */
+    static class ColumnBuffers implements Closeable {
+        final ContiguousVirtualMemory validity = new ContiguousVirtualMemory(BUFFER_PAGE_SIZE, Integer.MAX_VALUE);
+        final ContiguousVirtualMemory offsets = new ContiguousVirtualMemory(BUFFER_PAGE_SIZE, Integer.MAX_VALUE);
+        final ContiguousVirtualMemory values = new ContiguousVirtualMemory(BUFFER_PAGE_SIZE, Integer.MAX_VALUE);
+        final DirectByteCharSink chars = new DirectByteCharSink(1024);
+        long rowCount;
+        long nullCount;
+        private int validityBits;
+        private long valueCount;
+        private int valueBits;
+
+        void appendBool(boolean value) {
+            if (value) {
+                valueBits |= 1 << (valueCount & 7);
+            }
+            if ((++valueCount & 7) == 0) {
+                values.putByte((byte) valueBits);
+                valueBits = 0;
+            }
+        }
+
+        void appendValidity(boolean valid) {
+            if (valid) {
+                validityBits |= 1 << (rowCount & 7);
+            } else {
+                nullCount++;
+            }
+            if ((++rowCount & 7) == 0) {
+                validity.putByte((byte) validityBits);
+                validityBits = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            Misc.free(validity);
+            Misc.free(offsets);
+            Misc.free(values);
+            Misc.free(chars);
+        }
+
+        /**
+         * Flushes partially filled bytes of bit packed buffers.
+         */
+        void flush() {
+            if ((rowCount & 7) != 0) {
+                validity.putByte((byte) validityBits);
+            }
+            if ((valueCount & 7) != 0) {
+                values.putByte((byte) valueBits);
+            }
+        }
+
+        void reset() {
+            validity.jumpTo(0);
+            offsets.jumpTo(0);
+            values.jumpTo(0);
+            chars.clear();
+            rowCount = 0;
+            nullCount = 0;
+            validityBits = 0;
+            valueCount = 0;
+            valueBits = 0;
+        }
+    }
+}
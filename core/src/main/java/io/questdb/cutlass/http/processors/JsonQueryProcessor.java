@@ -27,10 +27,7 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.MessageBus;
 import io.questdb.Metrics;
 import io.questdb.Telemetry;
-import io.questdb.cairo.CairoEngine;
-import io.questdb.cairo.CairoError;
-import io.questdb.cairo.CairoException;
-import io.questdb.cairo.EntryUnavailableException;
+import io.questdb.cairo.*;
 import io.questdb.cairo.sql.InsertMethod;
 import io.questdb.cairo.sql.InsertStatement;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
@@ -39,6 +36,7 @@ import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.ex.RetryOperationException;
 import io.questdb.cutlass.text.Utf8Exception;
 import io.questdb.griffin.*;
+import io.questdb.griffin.engine.ResultCacheRecordCursorFactory;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.network.NoSpaceLeftInResponseBufferException;
@@ -63,6 +61,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final NanosecondClock nanosecondClock;
     private final HttpSqlExecutionInterruptor interruptor;
     private final Metrics metrics;
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
 
     public JsonQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -176,7 +176,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                     context,
                     nanosecondClock,
                     configuration.getFloatScale(),
-                    configuration.getDoubleScale()
+                    configuration.getDoubleScale(),
+                    configuration.getJsonQueryBatchSize()
             ));
         }
 
@@ -363,7 +364,20 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CharSequence keepAliveHeader
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         state.logExecuteNew();
-        final RecordCursorFactory factory = cc.getRecordCursorFactory();
+        RecordCursorFactory factory = cc.getRecordCursorFactory();
+        final CairoEngine engine = sqlExecutionContext.getCairoEngine();
+        final ResultCache resultCache = engine.getResultCache();
+        if (resultCache != null && compiler.isResultCacheable()) {
+            entityColumnFilter.of(factory.getMetadata().getColumnCount());
+            factory = new ResultCacheRecordCursorFactory(
+                    engine.getConfiguration(),
+                    resultCache,
+                    factory,
+                    state.getQuery(),
+                    compiler.getReadTableNames(),
+                    RecordSinkFactory.getInstance(asm, factory.getMetadata(), entityColumnFilter, true)
+            );
+        }
         executeSelect(
                 state,
                 factory,
@@ -45,4 +45,36 @@ public interface JsonQueryProcessorConfiguration {
     long getMaxQueryResponseRowLimit();
 
     SqlInterruptorConfiguration getInterruptorConfiguration();
+
+    /**
+     * Number of rows /exp renders column by column out of a page frame before
+     * interleaving them into the response. Applies to queries that can be framed,
+     * e.g. unfiltered table scans of fixed size columns. Zero disables page frame export.
+     *
+     * @return rows per export batch
+     */
+    default int getExportBatchSize() {
+        return 1024;
+    }
+
+    /**
+     * Maximum number of rows in a single record batch streamed by /arrow. Page frames
+     * larger than this are sliced, record cursors are buffered up to this many rows.
+     *
+     * @return rows per Arrow record batch
+     */
+    default int getArrowBatchSize() {
+        return 65536;
+    }
+
+    /**
+     * Number of rows /exec renders column by column out of a page frame before
+     * interleaving them into the JSON response. Applies to queries that can be framed
+     * and have no row offset or column list. Zero disables page frame rendering.
+     *
+     * @return rows per JSON batch
+     */
+    default int getJsonQueryBatchSize() {
+        return 1024;
+    }
 }
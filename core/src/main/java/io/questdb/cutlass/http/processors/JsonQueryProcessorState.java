@@ -26,6 +26,8 @@ package io.questdb.cutlass.http.processors;
 
 import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -45,11 +47,14 @@ import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectByteCharSink;
 import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
 
 public class JsonQueryProcessorState implements Mutable, Closeable {
+    static final int QUERY_COLUMNAR = 11;
+    static final int QUERY_PAGE_FRAME = 10;
     static final int QUERY_RECORD_PREFIX = 9;
     static final int QUERY_SETUP_FIRST_RECORD = 8;
     static final int QUERY_SUFFIX = 7;
@@ -73,6 +78,22 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private final NanosecondClock nanosecondClock;
     private final int floatScale;
     private final int doubleScale;
+    private final int batchSize;
+    // values rendered column by column, one sink per column and
+    // end offset of each value within that sink
+    private final ObjList<JsonValueSink> columnSinks = new ObjList<>();
+    private final ObjList<LongList> columnValueEnds = new ObjList<>();
+    private final PageFrameColumnWriter frameColumnWriter;
+    private PageFrameCursor pageFrameCursor;
+    private PageFrame pageFrame;
+    private long frameRowCount;
+    private long frameRowIndex;
+    private int batchRowCount;
+    private int batchRowIndex;
+    // index of the next value of the column being sent in columnar layout,
+    // -1 when the column has not been opened yet
+    private int valueIndex;
+    private boolean columnar = false;
     private Rnd rnd;
     private RecordCursorFactory recordCursorFactory;
     private RecordCursor cursor;
@@ -95,7 +116,8 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             HttpConnectionContext httpConnectionContext,
             NanosecondClock nanosecondClock,
             int floatScale,
-            int doubleScale
+            int doubleScale,
+            int batchSize
     ) {
         this.httpConnectionContext = httpConnectionContext;
         resumeActions.extendAndSet(QUERY_PREFIX, this::onQueryPrefix);
@@ -106,6 +128,8 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         resumeActions.extendAndSet(QUERY_RECORD, this::onQueryRecord);
         resumeActions.extendAndSet(QUERY_RECORD_SUFFIX, this::onQueryRecordSuffix);
         resumeActions.extendAndSet(QUERY_SUFFIX, this::doQuerySuffix);
+        resumeActions.extendAndSet(QUERY_PAGE_FRAME, this::doPageFrameLoop);
+        resumeActions.extendAndSet(QUERY_COLUMNAR, this::doColumnarLoop);
 
         skewedValueWriters.extendAndSet(ColumnType.BOOLEAN, this::putSkewedBooleanValue);
         skewedValueWriters.extendAndSet(ColumnType.BYTE, this::putSkewedByteValue);
@@ -142,6 +166,32 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.nanosecondClock = nanosecondClock;
         this.floatScale = floatScale;
         this.doubleScale = doubleScale;
+        this.frameColumnWriter = new PageFrameColumnWriter(floatScale, doubleScale) {
+            @Override
+            void putChar(CharSink sink, char c) {
+                sink.put('"').putUtf8(c).put('"');
+            }
+
+            @Override
+            void putNull(CharSink sink, int type) {
+                switch (type) {
+                    case ColumnType.BOOLEAN:
+                        sink.put(false);
+                        break;
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                        sink.put('0');
+                        break;
+                    case ColumnType.CHAR:
+                        sink.put("\"\"");
+                        break;
+                    default:
+                        sink.put("null");
+                        break;
+                }
+            }
+        };
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -150,6 +200,12 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         columnTypes.clear();
         columnNames.clear();
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        pageFrame = null;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        batchRowCount = 0;
+        batchRowIndex = 0;
         record = null;
         if (null != recordCursorFactory) {
             if (queryCacheable) {
@@ -164,11 +220,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         queryState = QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        columnar = false;
     }
 
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        Misc.freeObjList(columnSinks);
+        columnSinks.clear();
+        columnValueEnds.clear();
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -186,6 +247,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         this.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
         this.timings = Chars.equalsNc("true", request.getUrlParam("timings"));
+        this.columnar = Chars.equalsNc("true", request.getUrlParam("columnar"));
     }
 
     public LogRecord error() {
@@ -265,84 +327,84 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         }
     }
 
-    private static void putBinValue(HttpChunkedResponseSocket socket, Record record, int col) {
-        socket.put('[');
-        socket.put(']');
+    private static void putBinValue(CharSink sink, Record record, int col) {
+        sink.put('[');
+        sink.put(']');
     }
 
-    private static void putBooleanValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getBool(col));
+    private static void putBooleanValue(CharSink sink, Record rec, int col) {
+        sink.put(rec.getBool(col));
     }
 
-    private static void putByteValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getByte(col));
+    private static void putByteValue(CharSink sink, Record rec, int col) {
+        sink.put(rec.getByte(col));
     }
 
-    private static void putCharValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putCharValue(CharSink sink, Record rec, int col) {
         char c = rec.getChar(col);
         if (c == 0) {
-            socket.put("\"\"");
+            sink.put("\"\"");
         } else {
-            socket.put('"').putUtf8(c).put('"');
+            sink.put('"').putUtf8(c).put('"');
         }
     }
 
-    private static void putDateValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putDateValue(CharSink sink, Record rec, int col) {
         final long d = rec.getDate(col);
         if (d == Long.MIN_VALUE) {
-            socket.put("null");
+            sink.put("null");
             return;
         }
-        socket.put('"').putISODateMillis(d).put('"');
+        sink.put('"').putISODateMillis(d).put('"');
     }
 
-    private static void putIntValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putIntValue(CharSink sink, Record rec, int col) {
         final int i = rec.getInt(col);
         if (i == Integer.MIN_VALUE) {
-            socket.put("null");
+            sink.put("null");
         } else {
-            Numbers.append(socket, i);
+            Numbers.append(sink, i);
         }
     }
 
-    private static void putLong256Value(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put('"');
-        rec.getLong256(col, socket);
-        socket.put('"');
+    private static void putLong256Value(CharSink sink, Record rec, int col) {
+        sink.put('"');
+        rec.getLong256(col, sink);
+        sink.put('"');
     }
 
-    private static void putLongValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putLongValue(CharSink sink, Record rec, int col) {
         final long l = rec.getLong(col);
         if (l == Long.MIN_VALUE) {
-            socket.put("null");
+            sink.put("null");
         } else {
-            socket.put(l);
+            sink.put(l);
         }
     }
 
-    private static void putShortValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getShort(col));
+    private static void putShortValue(CharSink sink, Record rec, int col) {
+        sink.put(rec.getShort(col));
     }
 
-    private static void putStrValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putStringOrNull(socket, rec.getStr(col));
+    private static void putStrValue(CharSink sink, Record rec, int col) {
+        putStringOrNull(sink, rec.getStr(col));
     }
 
-    private static void putSymValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putStringOrNull(socket, rec.getSym(col));
+    private static void putSymValue(CharSink sink, Record rec, int col) {
+        putStringOrNull(sink, rec.getSym(col));
     }
 
-    private static void putTimestampValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+    private static void putTimestampValue(CharSink sink, Record rec, int col) {
         final long t = rec.getTimestamp(col);
         if (t == Long.MIN_VALUE) {
-            socket.put("null");
+            sink.put("null");
             return;
         }
-        socket.put('"').putISODate(t).put('"');
+        sink.put('"').putISODate(t).put('"');
     }
 
-    private static void putCursorValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putStringOrNull(socket, null);
+    private static void putCursorValue(CharSink sink, Record rec, int col) {
+        putStringOrNull(sink, null);
     }
 
     private boolean addColumnToOutput(RecordMetadata metadata, CharSequence columnNames, int start, int hi) throws PeerDisconnectedException, PeerIsSlowToReadException {
@@ -383,10 +445,105 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return false;
     }
 
+    /**
+     * Renders the whole result set, up to the row limit, into per-column sinks
+     * for the columnar layout. Values of a column are comma separated so that
+     * they can be copied into the response in bulk.
+     */
+    private void bufferColumns(int columnCount) {
+        for (int col = 0; col < columnCount; col++) {
+            getColumnSink(col).clear();
+            columnValueEnds.getQuick(col).clear();
+        }
+
+        if (pageFrameCursor != null) {
+            while (nextBatch(columnCount, true)) {
+                count += batchRowCount;
+            }
+            return;
+        }
+
+        if (onQuerySetupFirstRecord()) {
+            do {
+                for (int col = 0; col < columnCount; col++) {
+                    final JsonValueSink sink = columnSinks.getQuick(col);
+                    final LongList ends = columnValueEnds.getQuick(col);
+                    if (ends.size() > 0) {
+                        sink.put(',');
+                    }
+                    valueWriters.getQuick(col).write(sink, record, col);
+                    ends.add(sink.length());
+                }
+                count++;
+            } while (doQueryNextRecord());
+        }
+    }
+
+    private void doColumnarLoop(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        queryState = QUERY_COLUMNAR;
+        for (; columnIndex < columnCount; columnIndex++) {
+            if (valueIndex == -1) {
+                socket.bookmark();
+                if (columnIndex > 0) {
+                    socket.put(',');
+                }
+                socket.put('[');
+                valueIndex = 0;
+            }
+
+            final long address = columnSinks.getQuick(columnIndex).getAddress();
+            final LongList ends = columnValueEnds.getQuick(columnIndex);
+            final int valueCount = ends.size();
+            while (valueIndex < valueCount) {
+                // copy as many values as fit into the response buffer, values that
+                // do not fit on their own trigger a chunk send and are retried
+                final long lo = valueIndex > 0 ? ends.getQuick(valueIndex - 1) : 0;
+                final long limit = lo + socket.getWriteNAvailable();
+                int hi = valueIndex;
+                int l = valueIndex + 1;
+                int h = valueCount - 1;
+                while (l <= h) {
+                    final int mid = (l + h) >>> 1;
+                    if (ends.getQuick(mid) <= limit) {
+                        hi = mid;
+                        l = mid + 1;
+                    } else {
+                        h = mid - 1;
+                    }
+                }
+                socket.bookmark();
+                socket.putBytes(address + lo, address + ends.getQuick(hi));
+                valueIndex = hi + 1;
+            }
+
+            socket.bookmark();
+            socket.put(']');
+            valueIndex = -1;
+        }
+        doQuerySuffix(socket, columnCount);
+    }
+
     private void doFirstRecordLoop(
             HttpChunkedResponseSocket socket,
             int columnCount
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (columnar) {
+            bufferColumns(columnCount);
+            columnIndex = 0;
+            valueIndex = -1;
+            doColumnarLoop(socket, columnCount);
+            return;
+        }
+
+        if (pageFrameCursor != null) {
+            columnIndex = -1;
+            doPageFrameLoop(socket, columnCount);
+            return;
+        }
+
         if (onQuerySetupFirstRecord()) {
             doRecordFetchLoop(socket, columnCount);
         } else {
@@ -405,6 +562,42 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         }
     }
 
+    private void doPageFrameLoop(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        queryState = QUERY_PAGE_FRAME;
+        while (batchRowIndex < batchRowCount || nextBatch(columnCount, false)) {
+            for (; batchRowIndex < batchRowCount; batchRowIndex++) {
+                final int row = batchRowIndex;
+                if (columnIndex == -1) {
+                    socket.bookmark();
+                    if (count > 0) {
+                        socket.put(',');
+                    }
+                    socket.put('[');
+                    columnIndex = 0;
+                }
+
+                for (; columnIndex < columnCount; columnIndex++) {
+                    final long address = columnSinks.getQuick(columnIndex).getAddress();
+                    final LongList ends = columnValueEnds.getQuick(columnIndex);
+                    socket.bookmark();
+                    if (columnIndex > 0) {
+                        socket.put(',');
+                    }
+                    socket.putBytes(address + (row > 0 ? ends.getQuick(row - 1) : 0), address + ends.getQuick(row));
+                }
+
+                socket.bookmark();
+                socket.put(']');
+                columnIndex = -1;
+                count++;
+            }
+        }
+        doQuerySuffix(socket, columnCount);
+    }
+
     private void doQueryMetadata(HttpChunkedResponseSocket socket, int columnCount) {
         queryState = QUERY_METADATA;
         for (; columnIndex < columnCount; columnIndex++) {
@@ -519,18 +712,65 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    private JsonValueSink getColumnSink(int columnIndex) {
+        while (columnSinks.size() <= columnIndex) {
+            columnSinks.add(new JsonValueSink(1024));
+            columnValueEnds.add(new LongList());
+        }
+        return columnSinks.getQuick(columnIndex);
+    }
+
+    private static long getFrameRowCount(PageFrame frame) {
+        final long size = frame.getPageSize(0);
+        return frame.getPageAddress(0) == 0 ? size : size >> frame.getColumnSize(0);
+    }
+
+    /**
+     * Renders the next batch of page frame rows into the column sinks. In row
+     * layout the sinks are cleared first, in columnar layout the batch is appended.
+     *
+     * @return false when the row limit is reached or there are no more frames
+     */
+    private boolean nextBatch(int columnCount, boolean append) {
+        while (count < stop) {
+            if (frameRowIndex < frameRowCount) {
+                final int rowCount = (int) Math.min(
+                        Math.min(batchSize, frameRowCount - frameRowIndex),
+                        stop - count
+                );
+                for (int col = 0; col < columnCount; col++) {
+                    renderFrameColumn(col, frameRowIndex, rowCount, append);
+                }
+                frameRowIndex += rowCount;
+                batchRowCount = rowCount;
+                batchRowIndex = 0;
+                return true;
+            }
+
+            final PageFrame frame = pageFrameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            pageFrame = frame;
+            frameRowCount = getFrameRowCount(frame);
+            frameRowIndex = 0;
+        }
+        onNoMoreFrames();
+        return false;
+    }
+
     boolean noCursor() {
-        return cursor == null;
+        return cursor == null && pageFrameCursor == null;
     }
 
     boolean of(RecordCursorFactory factory, SqlExecutionContextImpl sqlExecutionContext)
             throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.recordCursorFactory = factory;
         queryCacheable = true;
-        this.cursor = factory.getCursor(sqlExecutionContext);
         final RecordMetadata metadata = factory.getMetadata();
         HttpRequestHeader header = httpConnectionContext.getRequestHeader();
         DirectByteCharSequence columnNames = header.getUrlParam("cols");
+        openCursor(factory, sqlExecutionContext, columnNames == null);
         this.valueWriters.clear();
         int columnCount;
         if (columnNames != null) {
@@ -604,6 +844,21 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         recordCountNanos = nanosecondClock.getTicks() - nanos;
     }
 
+    private void onNoMoreFrames() {
+        long nanos = nanosecondClock.getTicks();
+        if (countRows) {
+            // page frames know their row count, there is no need to read rows
+            long count = frameRowCount - frameRowIndex;
+            PageFrame frame;
+            while ((frame = pageFrameCursor.next()) != null) {
+                count += getFrameRowCount(frame);
+            }
+            frameRowIndex = frameRowCount;
+            this.count += count;
+        }
+        recordCountNanos = nanosecondClock.getTicks() - nanos;
+    }
+
     private void onQueryMetadata(
             HttpChunkedResponseSocket socket,
             int columnCount
@@ -671,68 +926,108 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return true;
     }
 
-    private void putDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getDouble(col), doubleScale);
+    private void openCursor(
+            RecordCursorFactory factory,
+            SqlExecutionContextImpl sqlExecutionContext,
+            boolean allColumns
+    ) throws SqlException {
+        // unfiltered scans of fixed size columns are rendered straight from page frames,
+        // row offset and column list are left to the record cursor
+        if (batchSize > 0 && skip == 0 && allColumns && factory.supportPageFrameCursor()) {
+            pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext);
+            if (pageFrameCursor != null) {
+                pageFrame = null;
+                frameRowCount = frameRowIndex = 0;
+                batchRowCount = batchRowIndex = 0;
+                return;
+            }
+        }
+        cursor = factory.getCursor(sqlExecutionContext);
+    }
+
+    private void putDoubleValue(CharSink sink, Record rec, int col) {
+        sink.put(rec.getDouble(col), doubleScale);
+    }
+
+    private void putFloatValue(CharSink sink, Record rec, int col) {
+        sink.put(rec.getFloat(col), floatScale);
     }
 
-    private void putFloatValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getFloat(col), floatScale);
+    private void putSkewedBinValue(CharSink sink, Record record, int col) {
+        putBinValue(sink, record, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedBinValue(HttpChunkedResponseSocket socket, Record record, int col) {
-        putBinValue(socket, record, columnSkewList.getQuick(col));
+    private void putSkewedBooleanValue(CharSink sink, Record rec, int col) {
+        putBooleanValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedBooleanValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putBooleanValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedByteValue(CharSink sink, Record rec, int col) {
+        putByteValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedByteValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putByteValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedCharValue(CharSink sink, Record rec, int col) {
+        putCharValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedCharValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putCharValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedDateValue(CharSink sink, Record rec, int col) {
+        putDateValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedDateValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putDateValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedDoubleValue(CharSink sink, Record rec, int col) {
+        putDoubleValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putDoubleValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedFloatValue(CharSink sink, Record rec, int col) {
+        putFloatValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedFloatValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putFloatValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedIntValue(CharSink sink, Record rec, int col) {
+        putIntValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedIntValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putIntValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedLong256Value(CharSink sink, Record rec, int col) {
+        putLong256Value(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedLong256Value(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putLong256Value(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedLongValue(CharSink sink, Record rec, int col) {
+        putLongValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedLongValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putLongValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedShortValue(CharSink sink, Record rec, int col) {
+        putShortValue(sink, rec, col);
     }
 
-    private void putSkewedShortValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putShortValue(socket, rec, col);
+    private void putSkewedStrValue(CharSink sink, Record rec, int col) {
+        putStrValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedStrValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putStrValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedSymValue(CharSink sink, Record rec, int col) {
+        putSymValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedSymValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putSymValue(socket, rec, columnSkewList.getQuick(col));
+    private void putSkewedTimestampValue(CharSink sink, Record rec, int col) {
+        putTimestampValue(sink, rec, columnSkewList.getQuick(col));
     }
 
-    private void putSkewedTimestampValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        putTimestampValue(socket, rec, columnSkewList.getQuick(col));
+    private void renderFrameColumn(int col, long rowLo, int rowCount, boolean append) {
+        final JsonValueSink sink = getColumnSink(col);
+        final LongList ends = columnValueEnds.getQuick(col);
+        if (!append) {
+            sink.clear();
+            ends.clear();
+        }
+        final int type = columnTypes.getColumnType(col);
+        frameColumnWriter.write(
+                sink,
+                ends,
+                pageFrame,
+                col,
+                type,
+                rowLo,
+                rowCount,
+                type == ColumnType.SYMBOL ? pageFrameCursor.getSymbolMapReader(col) : null,
+                append
+        );
     }
 
     void resume(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
@@ -750,4 +1045,72 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
                 int columnCount
         ) throws PeerDisconnectedException, PeerIsSlowToReadException;
     }
+
+    /**
+     * Off-heap sink for rendered values. Escapes strings and formats nulls the
+     * same way the chunked response socket does.
+     */
+    private static class JsonValueSink extends DirectByteCharSink {
+
+        private JsonValueSink(long capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public CharSink put(float value, int scale) {
+            if (Float.isNaN(value)) {
+                put("null");
+                return this;
+            }
+            return super.put(value, scale);
+        }
+
+        @Override
+        public CharSink put(double value, int scale) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                put("null");
+                return this;
+            }
+            return super.put(value, scale);
+        }
+
+        @Override
+        protected void putUtf8Special(char c) {
+            if (c < 32) {
+                switch (c) {
+                    case '\0':
+                        break;
+                    case '\b':
+                        put("\\b");
+                        break;
+                    case '\f':
+                        put("\\f");
+                        break;
+                    case '\n':
+                        put("\\n");
+                        break;
+                    case '\r':
+                        put("\\r");
+                        break;
+                    case '\t':
+                        put("\\t");
+                        break;
+                    default:
+                        put(c);
+                        break;
+                }
+            } else {
+                switch (c) {
+                    case '/':
+                    case '\"':
+                    case '\\':
+                        put('\\');
+                        // intentional fall through
+                    default:
+                        put(c);
+                        break;
+                }
+            }
+        }
+    }
 }
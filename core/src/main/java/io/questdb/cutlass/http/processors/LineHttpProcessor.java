@@ -0,0 +1,242 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoError;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.EntryUnavailableException;
+import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.http.ex.RetryOperationException;
+import io.questdb.cutlass.line.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.CharSequenceObjHashMap;
+
+import java.io.Closeable;
+
+/**
+ * Accepts line protocol in the body of POST request. Body is parsed in chunks as it arrives and rows are
+ * written straight to table writers, which are committed at the end of request. Client receives
+ * "204 No Content" only after all rows of the request have been committed. Lines that could not be
+ * parsed or written are skipped and reported back with "400 Bad request", rest of the request is
+ * committed nevertheless. Lines are numbered from 1, empty lines are not counted.
+ * <p>
+ * Optional "precision" URL parameter sets units of line timestamps: n, u, ms, s, m or h. Nanoseconds
+ * are the default.
+ * <p>
+ * Writers come from engine pool and are held until the end of request. They are shared with line protocol
+ * TCP receiver, which keeps writers of active tables, and with SQL inserts. Request that finds writer busy
+ * is parked and retried until writer is released, client is disconnected when retry queue is full.
+ */
+public class LineHttpProcessor implements HttpRequestProcessor, HttpContentListener, Closeable {
+    static final int RESPONSE_HEADER = 0;
+    private static final int RESPONSE_PREFIX = 1;
+    private static final int RESPONSE_ERRORS = 2;
+    private static final int RESPONSE_SUFFIX = 3;
+    private static final int RESPONSE_COMPLETE = 4;
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessor.class);
+    private static final CharSequence CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+    private static final CharSequenceObjHashMap<LineProtoTimestampAdapter> precisionMap = new CharSequenceObjHashMap<>();
+    // processor instances are per thread, local value key has to be shared between them
+    private static final LocalValue<LineHttpProcessorState> LV = new LocalValue<>();
+    private final CairoEngine engine;
+    private final LineHttpProcessorConfiguration configuration;
+    private LineHttpProcessorState transientState;
+
+    public LineHttpProcessor(CairoEngine engine, LineHttpProcessorConfiguration configuration) {
+        this.engine = engine;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void onChunk(long lo, long hi) {
+        if (transientState.requestError == null) {
+            try {
+                transientState.onChunk(lo, hi);
+            } catch (EntryUnavailableException e) {
+                throw RetryOperationException.INSTANCE;
+            } catch (CairoException | CairoError e) {
+                onRequestError(e.getFlyweightMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onHeadersReady(HttpConnectionContext context) {
+        LineHttpProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new LineHttpProcessorState(engine, configuration));
+        }
+
+        final CharSequence precision = context.getRequestHeader().getUrlParam("precision");
+        final LineProtoTimestampAdapter timestampAdapter = precision == null ? LineProtoNanoTimestampAdapter.INSTANCE : precisionMap.get(precision);
+        if (timestampAdapter == null) {
+            state.requestError = "invalid precision";
+            state.requestErrorStatus = 400;
+        }
+        state.of(context.getCairoSecurityContext(), timestampAdapter);
+    }
+
+    @Override
+    public void onRequestComplete(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        final LineHttpProcessorState state = LV.get(context);
+        if (state.requestError == null) {
+            try {
+                state.commit();
+            } catch (CairoException | CairoError e) {
+                LOG.error().$("could not commit [ex=").$(e.getFlyweightMessage()).$(']').$();
+                state.clear();
+                state.requestError = e.getFlyweightMessage().toString();
+                state.requestErrorStatus = 500;
+            }
+        }
+
+        if (state.requestError == null && state.errorCount == 0) {
+            context.simpleResponse().sendStatus(204);
+        } else {
+            final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+            socket.status(state.requestError == null ? 400 : state.requestErrorStatus, CONTENT_TYPE_JSON);
+            state.responseState = RESPONSE_PREFIX;
+            socket.sendHeader();
+            doResumeSend(state, socket);
+        }
+    }
+
+    @Override
+    public void onRequestRetry(HttpConnectionContext context) {
+        this.transientState = LV.get(context);
+        try {
+            transientState.resume();
+        } catch (EntryUnavailableException e) {
+            throw RetryOperationException.INSTANCE;
+        } catch (CairoException | CairoError e) {
+            onRequestError(e.getFlyweightMessage());
+        }
+    }
+
+    @Override
+    public void resumeRecv(HttpConnectionContext context) {
+        this.transientState = LV.get(context);
+    }
+
+    @Override
+    public void resumeSend(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        doResumeSend(LV.get(context), context.getChunkedResponseSocket());
+    }
+
+    private static void doResumeSend(
+            LineHttpProcessorState state,
+            HttpChunkedResponseSocket socket
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        while (true) {
+            try {
+                resumeJson(state, socket);
+                break;
+            } catch (NoSpaceLeftInResponseBufferException ignored) {
+                if (socket.resetToBookmark()) {
+                    // chunk has been sent in full, carry on from the bookmark
+                    socket.sendChunk(false);
+                } else {
+                    // single error message is larger than response buffer
+                    socket.shutdownWrite();
+                    throw ServerDisconnectException.INSTANCE;
+                }
+            }
+        }
+    }
+
+    private static void resumeJson(
+            LineHttpProcessorState state,
+            HttpChunkedResponseSocket socket
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        switch (state.responseState) {
+            case RESPONSE_PREFIX:
+                socket.bookmark();
+                socket.put('{');
+                if (state.requestError != null) {
+                    socket.putQuoted("status").put(':').encodeUtf8AndQuote(state.requestError).put('}');
+                    state.responseState = RESPONSE_COMPLETE;
+                    socket.sendChunk(true);
+                    break;
+                }
+                socket.putQuoted("status").put(':').putQuoted("partial").put(',')
+                        .putQuoted("rowsCommitted").put(':').put(state.rowCount).put(',')
+                        .putQuoted("rowsRejected").put(':').put(state.errorCount).put(',')
+                        .putQuoted("errors").put(':').put('[');
+                state.responseState = RESPONSE_ERRORS;
+                // fall through
+            case RESPONSE_ERRORS:
+                for (int n = state.errorLines.size(); state.errorIndex < n; state.errorIndex++) {
+                    socket.bookmark();
+                    if (state.errorIndex > 0) {
+                        socket.put(',');
+                    }
+                    socket.put('{')
+                            .putQuoted("line").put(':').put(state.errorLines.getQuick(state.errorIndex)).put(',')
+                            .putQuoted("error").put(':').encodeUtf8AndQuote(state.getError(state.errorIndex))
+                            .put('}');
+                }
+                state.responseState = RESPONSE_SUFFIX;
+                // fall through
+            case RESPONSE_SUFFIX:
+                socket.bookmark();
+                socket.put(']').put('}');
+                state.responseState = RESPONSE_COMPLETE;
+                socket.sendChunk(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onRequestError(CharSequence message) {
+        LOG.error().$("could not process line protocol request [ex=").$(message).$(']').$();
+        transientState.clear();
+        transientState.requestError = message.toString();
+        transientState.requestErrorStatus = 500;
+    }
+
+    static {
+        precisionMap.put("n", LineProtoNanoTimestampAdapter.INSTANCE);
+        precisionMap.put("u", LineProtoMicroTimestampAdapter.INSTANCE);
+        precisionMap.put("ms", LineProtoMilliTimestampAdapter.INSTANCE);
+        precisionMap.put("s", LineProtoSecondTimestampAdapter.INSTANCE);
+        precisionMap.put("m", LineProtoMinuteTimestampAdapter.INSTANCE);
+        precisionMap.put("h", LineProtoHourTimestampAdapter.INSTANCE);
+    }
+}
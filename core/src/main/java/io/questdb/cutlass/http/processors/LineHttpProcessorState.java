@@ -0,0 +1,588 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ParseResult;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ProtoEntity;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Parses and writes line protocol body of single HTTP request. Body arrives in chunks, which are
+ * copied into measurement buffer, because the parser works in-place and measurements can straddle
+ * chunk boundaries. Rows are appended to writers, which are held until the end of request, when
+ * they are all committed. Rows of the request that has not been committed are rolled back.
+ */
+class LineHttpProcessorState implements Mutable, Closeable {
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessorState.class);
+    private static final String WRITER_LOCK_REASON = "ilpHttp";
+    private static final int[] DEFAULT_COLUMN_TYPES = new int[NewLineProtoParser.N_ENTITY_TYPES];
+    final LongList errorLines = new LongList();
+    final IntList errorOffsets = new IntList();
+    final StringSink errorSink = new StringSink();
+    private final CairoEngine engine;
+    private final NewLineProtoParser parser = new NewLineProtoParser();
+    private final CharSequenceObjHashMap<TableWriter> writers = new CharSequenceObjHashMap<>();
+    private final StringSink utf8Sink = new StringSink();
+    private final Path path = new Path();
+    private final AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory();
+    private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
+    private final MicrosecondClock clock;
+    private final int commitMode;
+    private final int defaultPartitionBy;
+    private final int maxLineErrors;
+    // measurement buffer, one byte is reserved to terminate last line of the body
+    private final long buf;
+    private final long bufLimit;
+    private final int bufSize;
+    int responseState;
+    int errorIndex;
+    long lineCount;
+    long rowCount;
+    long errorCount;
+    CharSequence requestError;
+    int requestErrorStatus;
+    private long bufHi;
+    private long measurementLo;
+    private long chunkLo;
+    private long chunkHi;
+    private boolean goodMeasurement;
+    private boolean pendingMeasurement;
+    private boolean oversizedMeasurement;
+    private CairoSecurityContext securityContext;
+    private LineProtoTimestampAdapter timestampAdapter;
+
+    LineHttpProcessorState(CairoEngine engine, LineHttpProcessorConfiguration configuration) {
+        this.engine = engine;
+        this.clock = configuration.getMicrosecondClock();
+        this.commitMode = configuration.getCommitMode();
+        this.defaultPartitionBy = configuration.getDefaultPartitionBy();
+        this.maxLineErrors = configuration.getMaxLineErrors();
+        this.bufSize = configuration.getMaxMeasurementSize() + 1;
+        this.buf = Unsafe.malloc(bufSize);
+        this.bufLimit = buf + bufSize - 1;
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        rollback();
+        bufHi = buf;
+        measurementLo = buf;
+        parser.of(buf);
+        chunkLo = chunkHi = 0;
+        goodMeasurement = true;
+        pendingMeasurement = false;
+        oversizedMeasurement = false;
+        lineCount = 0;
+        rowCount = 0;
+        errorCount = 0;
+        errorLines.clear();
+        errorOffsets.clear();
+        errorSink.clear();
+        errorIndex = 0;
+        responseState = LineHttpProcessor.RESPONSE_HEADER;
+        requestError = null;
+        securityContext = null;
+        timestampAdapter = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(parser);
+        Misc.free(path);
+        Misc.free(mem);
+        Unsafe.free(buf, bufSize);
+    }
+
+    /**
+     * Commits all writers of the request. Last line of the body does not have to be terminated, it
+     * is processed here too.
+     */
+    void commit() {
+        if (oversizedMeasurement) {
+            lineCount++;
+        } else if (bufHi > measurementLo) {
+            Unsafe.getUnsafe().putByte(bufHi++, (byte) '\n');
+            parseMeasurements();
+        }
+
+        for (int i = 0, n = writers.size(); i < n; i++) {
+            final TableWriter writer = writers.valueQuick(i);
+            writer.commit(commitMode);
+        }
+        releaseWriters();
+    }
+
+    CharSequence getError(int index) {
+        final int lo = errorOffsets.getQuick(index);
+        final int hi = index + 1 < errorOffsets.size() ? errorOffsets.getQuick(index + 1) : errorSink.length();
+        return errorSink.subSequence(lo, hi);
+    }
+
+    void of(CairoSecurityContext securityContext, LineProtoTimestampAdapter timestampAdapter) {
+        this.securityContext = securityContext;
+        this.timestampAdapter = timestampAdapter;
+    }
+
+    void onChunk(long lo, long hi) {
+        chunkLo = lo;
+        chunkHi = hi;
+        resume();
+    }
+
+    /**
+     * Carries on processing of current chunk. This can be called again after writer could not be acquired,
+     * chunk memory is left intact by the connection while request is waiting for retry.
+     */
+    void resume() {
+        while (true) {
+            parseMeasurements();
+            if (chunkLo == chunkHi) {
+                break;
+            }
+            fill();
+        }
+    }
+
+    private static int getDefaultColumnType(byte entityType) {
+        return DEFAULT_COLUMN_TYPES[entityType];
+    }
+
+    private static CairoException outOfBounds(int columnIndex, long v, CharSequence type) {
+        return CairoException.instance(0)
+                .put("line protocol integer is out of ").put(type).put(" bounds [columnIndex=").put(columnIndex)
+                .put(", v=").put(v)
+                .put(']');
+    }
+
+    private void appendMeasurement() {
+        final TableWriter writer = getWriter(parser);
+        if (writer == null) {
+            return;
+        }
+
+        long timestamp = parser.getTimestamp();
+        if (timestamp == NewLineProtoParser.NULL_TIMESTAMP) {
+            timestamp = clock.getTicks();
+        } else {
+            timestamp = timestampAdapter.getMicros(timestamp);
+        }
+
+        TableWriter.Row row = null;
+        try {
+            row = writer.newRow(timestamp);
+            final TableWriterMetadata metadata = writer.getMetadata();
+            for (int i = 0, n = parser.getnEntities(); i < n; i++) {
+                final ProtoEntity entity = parser.getEntity(i);
+                decodeUtf8(entity.getName());
+                int columnIndex = metadata.getColumnIndexQuiet(utf8Sink);
+                if (columnIndex < 0) {
+                    // writer commits when column is added, row cannot be open at that time
+                    row.cancel();
+                    row = null;
+                    if (!TableUtils.isValidInfluxColumnName(utf8Sink)) {
+                        throw CairoException.instance(0).put("invalid column name [table=").put(writer.getTableName())
+                                .put(", columnName=").put(utf8Sink)
+                                .put(']');
+                    }
+                    writer.addColumn(utf8Sink, getDefaultColumnType(entity.getType()));
+                    row = writer.newRow(timestamp);
+                    i = -1;
+                    continue;
+                }
+                putValue(row, entity, columnIndex, metadata.getColumnType(columnIndex));
+            }
+            row.append();
+            rowCount++;
+        } catch (CairoException e) {
+            if (row != null) {
+                row.cancel();
+            }
+            rejectLine(e.getFlyweightMessage());
+        }
+    }
+
+    private boolean compact() {
+        if (measurementLo > buf) {
+            final long len = bufHi - measurementLo;
+            if (len > 0) {
+                Vect.memcpy(measurementLo, buf, len);
+                parser.shl(measurementLo - buf);
+            } else {
+                parser.of(buf);
+            }
+            bufHi = buf + len;
+            measurementLo = buf;
+            return true;
+        }
+        return false;
+    }
+
+    private void decodeUtf8(DirectByteCharSequence value) {
+        utf8Sink.clear();
+        if (!Chars.utf8Decode(value.getLo(), value.getHi(), utf8Sink)) {
+            throw CairoException.instance(0).put("invalid UTF8");
+        }
+    }
+
+    private void fill() {
+        if (oversizedMeasurement) {
+            // discard the rest of measurement, which does not fit the buffer
+            while (chunkLo < chunkHi) {
+                final byte b = Unsafe.getUnsafe().getByte(chunkLo);
+                if (b == '\n' || b == '\r') {
+                    oversizedMeasurement = false;
+                    lineCount++;
+                    break;
+                }
+                chunkLo++;
+            }
+            return;
+        }
+
+        if (bufHi == bufLimit && !compact()) {
+            // measurement that failed to parse has been rejected already
+            if (goodMeasurement) {
+                rejectLine(lineCount + 1, "measurement is too large");
+            }
+            goodMeasurement = true;
+            oversizedMeasurement = true;
+            resetBuffer();
+            return;
+        }
+
+        final long len = Math.min(chunkHi - chunkLo, bufLimit - bufHi);
+        Vect.memcpy(chunkLo, bufHi, len);
+        chunkLo += len;
+        bufHi += len;
+    }
+
+    private TableWriter getWriter(NewLineProtoParser parser) {
+        try {
+            decodeUtf8(parser.getMeasurementName());
+        } catch (CairoException e) {
+            rejectLine(e.getFlyweightMessage());
+            return null;
+        }
+
+        final int keyIndex = writers.keyIndex(utf8Sink);
+        if (keyIndex < 0) {
+            return writers.valueAt(keyIndex);
+        }
+
+        final String tableName = Chars.toString(utf8Sink);
+        try {
+            if (engine.getStatus(securityContext, path, tableName) != TableUtils.TABLE_EXISTS) {
+                LOG.info().$("creating table [tableName=").$(tableName).$(']').$();
+                engine.createTable(securityContext, mem, path, tableStructureAdapter.of(tableName, parser));
+            }
+            final TableWriter writer = engine.getWriter(securityContext, tableName, WRITER_LOCK_REASON);
+            writers.putAt(keyIndex, tableName, writer);
+            return writer;
+        } catch (EntryUnavailableException e) {
+            // request is retried when writer is busy
+            throw e;
+        } catch (CairoException e) {
+            rejectLine(e.getFlyweightMessage());
+            return null;
+        }
+    }
+
+    private void nextMeasurement() {
+        parser.startNextMeasurement();
+        measurementLo = parser.getBufferAddress();
+        if (measurementLo == bufHi) {
+            resetBuffer();
+        }
+    }
+
+    private void parseMeasurements() {
+        while (true) {
+            if (pendingMeasurement) {
+                // writer can be unavailable, in which case measurement stays pending until retry
+                appendMeasurement();
+                pendingMeasurement = false;
+                nextMeasurement();
+            }
+
+            final ParseResult rc = goodMeasurement ? parser.parseMeasurement(bufHi) : parser.skipMeasurement(bufHi);
+            switch (rc) {
+                case MEASUREMENT_COMPLETE:
+                    lineCount++;
+                    if (goodMeasurement) {
+                        pendingMeasurement = true;
+                    } else {
+                        goodMeasurement = true;
+                        nextMeasurement();
+                    }
+                    break;
+                case ERROR:
+                    rejectLine(lineCount + 1, parser.getErrorCode().name());
+                    goodMeasurement = false;
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void putValue(TableWriter.Row row, ProtoEntity entity, int columnIndex, int columnType) {
+        switch (entity.getType()) {
+            case NewLineProtoParser.ENTITY_TYPE_TAG:
+                decodeUtf8(entity.getValue());
+                switch (columnType) {
+                    case ColumnType.SYMBOL:
+                        row.putSym(columnIndex, utf8Sink);
+                        return;
+                    case ColumnType.STRING:
+                        row.putStr(columnIndex, utf8Sink);
+                        return;
+                    default:
+                        break;
+                }
+                break;
+            case NewLineProtoParser.ENTITY_TYPE_INTEGER: {
+                final long v = entity.getIntegerValue();
+                switch (columnType) {
+                    case ColumnType.LONG:
+                        row.putLong(columnIndex, v);
+                        return;
+                    case ColumnType.INT:
+                        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+                            throw outOfBounds(columnIndex, v, "int");
+                        }
+                        row.putInt(columnIndex, (int) v);
+                        return;
+                    case ColumnType.SHORT:
+                        if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+                            throw outOfBounds(columnIndex, v, "short");
+                        }
+                        row.putShort(columnIndex, (short) v);
+                        return;
+                    case ColumnType.BYTE:
+                        if (v < Byte.MIN_VALUE || v > Byte.MAX_VALUE) {
+                            throw outOfBounds(columnIndex, v, "byte");
+                        }
+                        row.putByte(columnIndex, (byte) v);
+                        return;
+                    case ColumnType.TIMESTAMP:
+                        row.putTimestamp(columnIndex, v);
+                        return;
+                    case ColumnType.DATE:
+                        row.putDate(columnIndex, v);
+                        return;
+                    default:
+                        break;
+                }
+                break;
+            }
+            case NewLineProtoParser.ENTITY_TYPE_FLOAT:
+                switch (columnType) {
+                    case ColumnType.DOUBLE:
+                        row.putDouble(columnIndex, entity.getFloatValue());
+                        return;
+                    case ColumnType.FLOAT:
+                        row.putFloat(columnIndex, (float) entity.getFloatValue());
+                        return;
+                    default:
+                        break;
+                }
+                break;
+            case NewLineProtoParser.ENTITY_TYPE_BOOLEAN:
+                if (columnType == ColumnType.BOOLEAN) {
+                    row.putBool(columnIndex, entity.getBooleanValue());
+                    return;
+                }
+                break;
+            case NewLineProtoParser.ENTITY_TYPE_STRING:
+                if (columnType == ColumnType.STRING) {
+                    decodeUtf8(entity.getValue());
+                    row.putStr(columnIndex, utf8Sink);
+                    return;
+                }
+                break;
+            case NewLineProtoParser.ENTITY_TYPE_LONG256:
+                if (columnType == ColumnType.LONG256) {
+                    decodeUtf8(entity.getValue());
+                    row.putLong256(columnIndex, utf8Sink);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        throw CairoException.instance(0)
+                .put("cast error [columnIndex=").put(columnIndex)
+                .put(", columnType=").put(ColumnType.nameOf(columnType))
+                .put(']');
+    }
+
+    private void rejectLine(CharSequence message) {
+        rejectLine(lineCount, message);
+    }
+
+    private void rejectLine(long line, CharSequence message) {
+        errorCount++;
+        if (errorLines.size() < maxLineErrors) {
+            errorLines.add(line);
+            errorOffsets.add(errorSink.length());
+            errorSink.put(message);
+        }
+    }
+
+    private void releaseWriters() {
+        for (int i = 0, n = writers.size(); i < n; i++) {
+            Misc.free(writers.valueQuick(i));
+        }
+        writers.clear();
+    }
+
+    private void resetBuffer() {
+        bufHi = buf;
+        measurementLo = buf;
+        parser.of(buf);
+    }
+
+    private void rollback() {
+        for (int i = 0, n = writers.size(); i < n; i++) {
+            final TableWriter writer = writers.valueQuick(i);
+            try {
+                writer.rollback();
+            } catch (CairoException e) {
+                LOG.error().$("could not rollback [table=").$(writer.getTableName()).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            }
+        }
+        releaseWriters();
+    }
+
+    private class TableStructureAdapter implements TableStructure {
+        private CharSequence tableName;
+        private NewLineProtoParser parser;
+
+        @Override
+        public int getColumnCount() {
+            return parser.getnEntities() + 1;
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            if (columnIndex == getTimestampIndex()) {
+                return "timestamp";
+            }
+            decodeUtf8(parser.getEntity(columnIndex).getName());
+            final String columnName = Chars.toString(utf8Sink);
+            if (TableUtils.isValidColumnName(columnName)) {
+                return columnName;
+            }
+            throw CairoException.instance(0).put("column name contains invalid characters [colName=").put(columnName).put(']');
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            if (columnIndex == getTimestampIndex()) {
+                return ColumnType.TIMESTAMP;
+            }
+            return getDefaultColumnType(parser.getEntity(columnIndex).getType());
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return 0;
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return defaultPartitionBy;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return engine.getConfiguration().getDefaultSymbolCacheFlag();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return engine.getConfiguration().getDefaultSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return tableName;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return parser.getnEntities();
+        }
+
+        @Override
+        public int getMaxUncommittedRows() {
+            return engine.getConfiguration().getMaxUncommittedRows();
+        }
+
+        @Override
+        public long getCommitLag() {
+            return engine.getConfiguration().getCommitLag();
+        }
+
+        TableStructureAdapter of(CharSequence tableName, NewLineProtoParser parser) {
+            this.tableName = tableName;
+            this.parser = parser;
+            return this;
+        }
+    }
+
+    static {
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_TAG] = ColumnType.SYMBOL;
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_FLOAT] = ColumnType.DOUBLE;
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_INTEGER] = ColumnType.LONG;
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_STRING] = ColumnType.STRING;
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_BOOLEAN] = ColumnType.BOOLEAN;
+        DEFAULT_COLUMN_TYPES[NewLineProtoParser.ENTITY_TYPE_LONG256] = ColumnType.LONG256;
+    }
+}
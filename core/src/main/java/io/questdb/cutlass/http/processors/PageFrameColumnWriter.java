@@ -0,0 +1,219 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectByteCharSink;
+
+/**
+ * Formats a run of page frame column values as text and records the sink offset
+ * at which each value ends, so that rows can later be assembled by copying byte
+ * ranges. Response formats differ only in how they spell nulls and characters.
+ */
+abstract class PageFrameColumnWriter {
+    private final int floatScale;
+    private final int doubleScale;
+
+    PageFrameColumnWriter(int floatScale, int doubleScale) {
+        this.floatScale = floatScale;
+        this.doubleScale = doubleScale;
+    }
+
+    /**
+     * @param sink        values are appended to this sink
+     * @param ends        receives end offset of each value in the sink
+     * @param frame       page frame to read from
+     * @param col         column index in the frame
+     * @param type        column type
+     * @param rowLo       first row in the frame
+     * @param rowCount    number of rows to write
+     * @param symbolTable symbol table of the column, only used for symbol columns
+     * @param separate    when true values are separated by comma
+     */
+    void write(
+            DirectByteCharSink sink,
+            LongList ends,
+            PageFrame frame,
+            int col,
+            int type,
+            long rowLo,
+            int rowCount,
+            SymbolTable symbolTable,
+            boolean separate
+    ) {
+        final long address = frame.getPageAddress(col);
+        if (address == 0) {
+            // column top, every value is null
+            for (int r = 0; r < rowCount; r++) {
+                putSeparator(sink, ends, separate);
+                putNull(sink, type);
+                ends.add(sink.length());
+            }
+            return;
+        }
+
+        final long lo = address + (rowLo << frame.getColumnSize(col));
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    sink.put(Unsafe.getUnsafe().getByte(lo + r) == 1);
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.BYTE:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    sink.put(Unsafe.getUnsafe().getByte(lo + r));
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.SHORT:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    sink.put(Unsafe.getUnsafe().getShort(lo + ((long) r << 1)));
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.CHAR:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final char c = Unsafe.getUnsafe().getChar(lo + ((long) r << 1));
+                    if (c == 0) {
+                        putNull(sink, type);
+                    } else {
+                        putChar(sink, c);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.INT:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final int i = Unsafe.getUnsafe().getInt(lo + ((long) r << 2));
+                    if (i == Numbers.INT_NaN) {
+                        putNull(sink, type);
+                    } else {
+                        Numbers.append(sink, i);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.SYMBOL:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final CharSequence symbol = symbolTable.valueOf(Unsafe.getUnsafe().getInt(lo + ((long) r << 2)));
+                    if (symbol == null) {
+                        putNull(sink, type);
+                    } else {
+                        sink.encodeUtf8AndQuote(symbol);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.FLOAT:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final float f = Unsafe.getUnsafe().getFloat(lo + ((long) r << 2));
+                    if (f != f) {
+                        putNull(sink, type);
+                    } else {
+                        sink.put(f, floatScale);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.LONG:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final long l = Unsafe.getUnsafe().getLong(lo + ((long) r << 3));
+                    if (l == Numbers.LONG_NaN) {
+                        putNull(sink, type);
+                    } else {
+                        sink.put(l);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.DOUBLE:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final double d = Unsafe.getUnsafe().getDouble(lo + ((long) r << 3));
+                    if (d != d) {
+                        putNull(sink, type);
+                    } else if (Double.isInfinite(d)) {
+                        // response sinks print infinity as null
+                        sink.put("null");
+                    } else {
+                        sink.put(d, doubleScale);
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.DATE:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final long d = Unsafe.getUnsafe().getLong(lo + ((long) r << 3));
+                    if (d == Numbers.LONG_NaN) {
+                        putNull(sink, type);
+                    } else {
+                        sink.put('"').putISODateMillis(d).put('"');
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                for (int r = 0; r < rowCount; r++) {
+                    putSeparator(sink, ends, separate);
+                    final long t = Unsafe.getUnsafe().getLong(lo + ((long) r << 3));
+                    if (t == Numbers.LONG_NaN) {
+                        putNull(sink, type);
+                    } else {
+                        sink.put('"').putISODate(t).put('"');
+                    }
+                    ends.add(sink.length());
+                }
+                break;
+            default:
+                assert false;
+        }
+    }
+
+    private static void putSeparator(CharSink sink, LongList ends, boolean separate) {
+        if (separate && ends.size() > 0) {
+            sink.put(',');
+        }
+    }
+
+    abstract void putChar(CharSink sink, char c);
+
+    abstract void putNull(CharSink sink, int type);
+}
@@ -30,6 +30,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoError;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageFrame;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cutlass.http.*;
@@ -42,12 +43,10 @@ import io.questdb.log.LogRecord;
 import io.questdb.network.NoSpaceLeftInResponseBufferException;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
-import io.questdb.std.Chars;
-import io.questdb.std.Misc;
-import io.questdb.std.Numbers;
-import io.questdb.std.NumericException;
+import io.questdb.std.*;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectByteCharSink;
 import io.questdb.std.str.DirectByteCharSequence;
 import org.jetbrains.annotations.Nullable;
 
@@ -66,7 +65,10 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final MillisecondClock clock;
     private final int doubleScale;
+    private final int exportBatchSize;
     private final HttpSqlExecutionInterruptor interruptor;
+    // page frame values are printed as text record path prints them
+    private final PageFrameColumnWriter frameColumnWriter;
 
     public TextQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -90,6 +92,28 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.clock = configuration.getClock();
         this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
         this.doubleScale = configuration.getDoubleScale();
+        this.exportBatchSize = configuration.getExportBatchSize();
+        this.frameColumnWriter = new PageFrameColumnWriter(floatScale, doubleScale) {
+            @Override
+            void putChar(CharSink sink, char c) {
+                sink.put(c);
+            }
+
+            @Override
+            void putNull(CharSink sink, int type) {
+                switch (type) {
+                    case ColumnType.BOOLEAN:
+                        sink.put(false);
+                        break;
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                        sink.put('0');
+                        break;
+                    default:
+                        break;
+                }
+            }
+        };
         this.interruptor = new HttpSqlExecutionInterruptor(configuration.getInterruptorConfiguration());
     }
 
@@ -130,7 +154,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     do {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            openCursor(state);
                             runQuery = false;
                         } catch (ReaderOutOfDateException e) {
                             info(state).$(e.getFlyweightMessage()).$();
@@ -186,7 +210,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         TextQueryProcessorState state = LV.get(context);
-        if (state == null || state.cursor == null) {
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
             return;
         }
 
@@ -219,6 +243,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                         // fall through
                     case JsonQueryProcessorState.QUERY_RECORD_START:
 
+                        if (state.pageFrameCursor != null) {
+                            sendPageFrames(socket, state, columnCount);
+                            state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                            break;
+                        }
+
                         if (state.record == null) {
                             // check if cursor has any records
                             state.record = state.cursor.getRecord();
@@ -332,6 +362,15 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         socket.sendHeader();
     }
 
+    private static void putSymbolOrNull(HttpChunkedResponseSocket socket, TextQueryProcessorState state, int col) {
+        final long address = state.pageFrame.getPageAddress(col);
+        if (address != 0) {
+            final long row = state.frameRowIndex - state.batchRowCount + state.batchRowIndex;
+            final int key = Unsafe.getUnsafe().getInt(address + (row << 2));
+            putStringOrNull(socket, state.pageFrameCursor.getSymbolMapReader(col).valueOf(key));
+        }
+    }
+
     private LogRecord info(TextQueryProcessorState state) {
         return LOG.info().$('[').$(state.getFd()).$("] ");
     }
@@ -411,6 +450,21 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         return true;
     }
 
+    private void openCursor(TextQueryProcessorState state) throws SqlException {
+        // unfiltered scans of fixed size columns are exported straight from page frames,
+        // limit offset is left to the record cursor, which can skip rows
+        if (exportBatchSize > 0 && state.skip == 0 && state.recordCursorFactory.supportPageFrameCursor()) {
+            state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext);
+            if (state.pageFrameCursor != null) {
+                state.pageFrame = null;
+                state.frameRowCount = state.frameRowIndex = 0;
+                state.batchRowCount = state.batchRowIndex = 0;
+                return;
+            }
+        }
+        state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+    }
+
     private void putValue(HttpChunkedResponseSocket socket, int type, Record rec, int col) {
         switch (type) {
             case ColumnType.BOOLEAN:
@@ -482,6 +536,80 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    /**
+     * Renders the next batch of page frame rows into per-column sinks. Symbols are
+     * left to the row writer, which escapes them the same way as the record path.
+     */
+    private void renderBatch(TextQueryProcessorState state, int columnCount, int rowCount) {
+        for (int col = 0; col < columnCount; col++) {
+            final int type = state.metadata.getColumnType(col);
+            if (type == ColumnType.SYMBOL) {
+                continue;
+            }
+            final DirectByteCharSink sink = state.getColumnSink(col);
+            final LongList ends = state.columnValueEnds.getQuick(col);
+            sink.clear();
+            ends.clear();
+            frameColumnWriter.write(sink, ends, state.pageFrame, col, type, state.frameRowIndex, rowCount, null, false);
+        }
+    }
+
+    private void sendPageFrames(
+            HttpChunkedResponseSocket socket,
+            TextQueryProcessorState state,
+            int columnCount
+    ) {
+        while (true) {
+            if (state.batchRowIndex == state.batchRowCount) {
+                if (state.count >= state.stop) {
+                    return;
+                }
+                if (state.frameRowIndex == state.frameRowCount) {
+                    final PageFrame frame = state.pageFrameCursor.next();
+                    if (frame == null) {
+                        return;
+                    }
+                    state.pageFrame = frame;
+                    final long size = frame.getPageSize(0);
+                    state.frameRowCount = frame.getPageAddress(0) == 0 ? size : size >> frame.getColumnSize(0);
+                    state.frameRowIndex = 0;
+                    continue;
+                }
+                final int rowCount = (int) Math.min(
+                        Math.min(exportBatchSize, state.frameRowCount - state.frameRowIndex),
+                        state.stop - state.count
+                );
+                renderBatch(state, columnCount, rowCount);
+                state.frameRowIndex += rowCount;
+                state.batchRowCount = rowCount;
+                state.batchRowIndex = 0;
+                state.columnIndex = 0;
+            }
+
+            for (; state.batchRowIndex < state.batchRowCount; state.batchRowIndex++) {
+                final int row = state.batchRowIndex;
+                for (; state.columnIndex < columnCount; state.columnIndex++) {
+                    final int col = state.columnIndex;
+                    socket.bookmark();
+                    if (col > 0) {
+                        socket.put(',');
+                    }
+                    if (state.metadata.getColumnType(col) == ColumnType.SYMBOL) {
+                        putSymbolOrNull(socket, state, col);
+                    } else {
+                        final long address = state.columnSinks.getQuick(col).getAddress();
+                        final LongList ends = state.columnValueEnds.getQuick(col);
+                        socket.putBytes(address + (row > 0 ? ends.getQuick(row - 1) : 0), address + ends.getQuick(row));
+                    }
+                }
+                socket.bookmark();
+                socket.put(Misc.EOL);
+                state.columnIndex = 0;
+                state.count++;
+            }
+        }
+    }
+
     private void sendConfirmation(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
         socket.put("DDL Success\n");
         socket.sendChunk(true);
@@ -24,26 +24,41 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.std.LongList;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
 import io.questdb.std.Rnd;
+import io.questdb.std.str.DirectByteCharSink;
 import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
+    // column-wise rendering of the current page frame batch, one sink per column
+    // and end offset of each row value within that sink
+    final ObjList<DirectByteCharSink> columnSinks = new ObjList<>();
+    final ObjList<LongList> columnValueEnds = new ObjList<>();
     private final HttpConnectionContext httpConnectionContext;
     boolean countRows = false;
     boolean noMeta = false;
     RecordCursorFactory recordCursorFactory;
     RecordMetadata metadata;
     RecordCursor cursor;
+    PageFrameCursor pageFrameCursor;
+    PageFrame pageFrame;
+    long frameRowCount;
+    long frameRowIndex;
+    int batchRowCount;
+    int batchRowIndex;
     long count;
     long skip;
     long stop;
@@ -62,6 +77,12 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     public void clear() {
         metadata = null;
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        pageFrame = null;
+        frameRowCount = 0;
+        frameRowIndex = 0;
+        batchRowCount = 0;
+        batchRowIndex = 0;
         record = null;
         if (null != recordCursorFactory) {
             if (queryCacheable) {
@@ -81,6 +102,10 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        Misc.freeObjList(columnSinks);
+        columnSinks.clear();
+        columnValueEnds.clear();
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -88,6 +113,14 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    DirectByteCharSink getColumnSink(int columnIndex) {
+        while (columnSinks.size() <= columnIndex) {
+            columnSinks.add(new DirectByteCharSink(1024));
+            columnValueEnds.add(new LongList());
+        }
+        return columnSinks.getQuick(columnIndex);
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -25,9 +25,9 @@
 package io.questdb.cutlass.http.processors;
 
 import io.questdb.cairo.sql.Record;
-import io.questdb.cutlass.http.HttpChunkedResponseSocket;
+import io.questdb.std.str.CharSink;
 
 @FunctionalInterface
 interface ValueWriter {
-    void write(HttpChunkedResponseSocket socket, Record rec, int col);
+    void write(CharSink sink, Record rec, int col);
 }
@@ -0,0 +1,515 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.Chars;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Line protocol TCP sender, which formats lines into one of two off-heap buffers while the other
+ * buffer is being sent by background thread. Buffers are swapped when active buffer is full, when
+ * size or age of completed lines reaches auto-flush threshold and on {@link #flush()}. Producer
+ * waits for the background thread only when both buffers are busy. Once auto-flush interval passes,
+ * background thread also sends completed lines of the active buffer in place, so that lines do not
+ * linger when producer goes quiet. Both threads hand batches over under the same lock.
+ * <p>
+ * When connection is lost, background thread reconnects, re-authenticating if key id is given, and
+ * replays the whole batch it was sending. Replay is bounded by single buffer and delivery of the
+ * batch is at-least-once. Once reconnect attempts are exhausted, producer calls fail with
+ * {@link NetworkError}.
+ * <p>
+ * Sender is not thread-safe, lines must be produced by single thread.
+ */
+public class AsyncLineTcpSender extends AbstractCharSink implements Closeable {
+    private static final Log LOG = LogFactory.getLog(AsyncLineTcpSender.class);
+    private static final int AUTH_BUF_SIZE = 1024;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private final NetworkFacade nf;
+    private final MillisecondClock clock;
+    private final int capacity;
+    private final long bufA;
+    private final long bufB;
+    private final long sockaddr;
+    private final int autoFlushSize;
+    private final long autoFlushIntervalMillis;
+    private final int maxReconnectAttempts;
+    private final long reconnectDelayMillis;
+    private final byte[] authKeyId;
+    private final PrivateKey authKey;
+    private final Thread flushThread;
+    private final Thread producerThread;
+    // producer state
+    private long lo;
+    private long hi;
+    private long ptr;
+    private long lineStart;
+    private boolean hasMetric = false;
+    private boolean noFields = true;
+    private final Object handOverLock = new Object();
+    // end of completed lines in the active buffer, published when line is completed
+    private volatile long completedHi;
+    // start of completed lines, which are not handed over yet, guarded by handOverLock
+    private long unsentLo;
+    private volatile long lastFlushMillis;
+    // batch handed over to flush thread, length is published last
+    private volatile long inFlightLo;
+    private volatile int inFlightLen;
+    private volatile boolean running = true;
+    private volatile boolean sendFailed = false;
+    private volatile int sendErrno;
+    // owned by flush thread once it is started
+    private long fd;
+    private long authBuf;
+
+    /**
+     * @param nf                      network facade
+     * @param sendToIPv4Address       server address
+     * @param sendToPort              server port
+     * @param bufferCapacity          size of each of the two buffers, lines cannot be longer than that
+     * @param autoFlushSize           completed lines are sent when their size reaches this value
+     * @param autoFlushIntervalMillis completed lines are sent when previous send is older than this, the
+     *                                check is done when line is completed and by background thread
+     * @param clock                   clock for auto-flush interval
+     * @param maxReconnectAttempts    number of reconnect attempts when connection is lost
+     * @param reconnectDelayMillis    delay before each reconnect attempt
+     * @param authKeyId               key id to authenticate with, null when server does not require it
+     * @param authKey                 private key matching key id
+     */
+    public AsyncLineTcpSender(
+            NetworkFacade nf,
+            int sendToIPv4Address,
+            int sendToPort,
+            int bufferCapacity,
+            int autoFlushSize,
+            long autoFlushIntervalMillis,
+            MillisecondClock clock,
+            int maxReconnectAttempts,
+            long reconnectDelayMillis,
+            @Nullable String authKeyId,
+            @Nullable PrivateKey authKey
+    ) {
+        this.nf = nf;
+        this.capacity = bufferCapacity;
+        this.autoFlushSize = autoFlushSize;
+        this.autoFlushIntervalMillis = autoFlushIntervalMillis;
+        this.clock = clock;
+        this.maxReconnectAttempts = maxReconnectAttempts;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        if (authKeyId != null) {
+            this.authKeyId = authKeyId.getBytes(StandardCharsets.UTF_8);
+            if (this.authKeyId.length >= AUTH_BUF_SIZE) {
+                throw new IllegalArgumentException("keyId \"" + authKeyId + "\" is too long");
+            }
+            this.authKey = authKey;
+            this.authBuf = Unsafe.malloc(AUTH_BUF_SIZE);
+        } else {
+            this.authKeyId = null;
+            this.authKey = null;
+        }
+
+        this.sockaddr = nf.sockaddr(sendToIPv4Address, sendToPort);
+        this.fd = connect();
+        if (fd == -1) {
+            final int errno = nf.errno();
+            freeAuthBuf();
+            nf.freeSockAddr(sockaddr);
+            throw NetworkError.instance(errno, "could not connect to ").ip(sendToIPv4Address);
+        }
+
+        this.bufA = Unsafe.malloc(capacity);
+        this.bufB = Unsafe.malloc(capacity);
+        this.lo = bufA;
+        this.hi = lo + capacity;
+        this.ptr = lo;
+        this.lineStart = lo;
+        this.completedHi = lo;
+        this.unsentLo = lo;
+        this.lastFlushMillis = clock.getTicks();
+
+        this.producerThread = Thread.currentThread();
+        this.flushThread = new Thread(this::runFlushLoop, "questdb-ilp-sender");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    public void $() {
+        put('\n');
+        lineStart = ptr;
+        completedHi = ptr;
+        hasMetric = false;
+        noFields = true;
+        if (lineStart - lo >= autoFlushSize || clock.getTicks() - lastFlushMillis >= autoFlushIntervalMillis) {
+            swapBuffers();
+        }
+    }
+
+    /**
+     * Completes line with timestamp in microseconds. Server is expected to use the default,
+     * nanosecond, timestamp precision.
+     *
+     * @param timestampMicros epoch microseconds
+     */
+    public void atMicros(long timestampMicros) {
+        atNanos(timestampMicros * 1000);
+    }
+
+    public void atNanos(long timestampNanos) {
+        put(' ').put(timestampNanos);
+        $();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!sendFailed) {
+                flush();
+            }
+        } finally {
+            running = false;
+            LockSupport.unpark(flushThread);
+            try {
+                flushThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fd != -1) {
+                nf.close(fd, LOG);
+                fd = -1;
+            }
+            freeAuthBuf();
+            nf.freeSockAddr(sockaddr);
+            Unsafe.free(bufA, capacity);
+            Unsafe.free(bufB, capacity);
+        }
+    }
+
+    public AsyncLineTcpSender field(CharSequence name, long value) {
+        field(name).put(value).put('i');
+        return this;
+    }
+
+    public AsyncLineTcpSender field(CharSequence name, CharSequence value) {
+        field(name).putQuoted(value);
+        return this;
+    }
+
+    public AsyncLineTcpSender field(CharSequence name, double value) {
+        field(name).put(value);
+        return this;
+    }
+
+    public AsyncLineTcpSender field(CharSequence name, boolean value) {
+        field(name).put(value ? 't' : 'f');
+        return this;
+    }
+
+    /**
+     * Sends all completed lines and waits until they are written to the socket.
+     */
+    @Override
+    public void flush() {
+        swapBuffers();
+        awaitInFlight();
+    }
+
+    public AsyncLineTcpSender metric(CharSequence metric) {
+        if (hasMetric) {
+            throw LineSenderException.instance().put("duplicate metric");
+        }
+        hasMetric = true;
+        return put(metric);
+    }
+
+    @Override
+    public AsyncLineTcpSender put(CharSequence cs) {
+        int l = cs.length();
+        if (ptr + l >= hi) {
+            swapBuffers();
+            if (ptr + l >= hi) {
+                throw LineSenderException.instance().put("value too long");
+            }
+        }
+        Chars.asciiStrCpy(cs, l, ptr);
+        ptr += l;
+        return this;
+    }
+
+    @Override
+    public CharSink put(char[] chars, int start, int len) {
+        if (ptr + len >= hi) {
+            swapBuffers();
+            if (ptr + len >= hi) {
+                throw LineSenderException.instance().put("value too long");
+            }
+        }
+        Chars.asciiCopyTo(chars, start, len, ptr);
+        ptr += len;
+        return this;
+    }
+
+    @Override
+    public AsyncLineTcpSender put(char c) {
+        if (ptr >= hi) {
+            swapBuffers();
+        }
+        Unsafe.getUnsafe().putByte(ptr++, (byte) c);
+        return this;
+    }
+
+    public AsyncLineTcpSender tag(CharSequence tag, CharSequence value) {
+        if (hasMetric) {
+            put(',').encodeUtf8(tag).put('=').encodeUtf8(value);
+            return this;
+        }
+        throw LineSenderException.instance().put("metric expected");
+    }
+
+    @Override
+    protected void putUtf8Special(char c) {
+        switch (c) {
+            case ' ':
+            case ',':
+            case '=':
+            case '"':
+            case '\\':
+                put('\\');
+            default:
+                put(c);
+                break;
+        }
+    }
+
+    private boolean authenticate(long fd) {
+        int n = authKeyId.length;
+        for (int i = 0; i < n; i++) {
+            Unsafe.getUnsafe().putByte(authBuf + i, authKeyId[i]);
+        }
+        Unsafe.getUnsafe().putByte(authBuf + n++, (byte) '\n');
+        if (!sendFully(fd, authBuf, n)) {
+            return false;
+        }
+
+        // challenge is a line of printable characters
+        n = 0;
+        while (true) {
+            if (n == AUTH_BUF_SIZE || nf.recv(fd, authBuf + n, 1) != 1) {
+                return false;
+            }
+            if (Unsafe.getUnsafe().getByte(authBuf + n) == (byte) '\n') {
+                break;
+            }
+            n++;
+        }
+        final byte[] challenge = new byte[n];
+        for (int i = 0; i < n; i++) {
+            challenge[i] = Unsafe.getUnsafe().getByte(authBuf + i);
+        }
+
+        final byte[] signature;
+        try {
+            final Signature sig = Signature.getInstance(AuthDb.SIGNATURE_TYPE_DER);
+            sig.initSign(authKey);
+            sig.update(challenge);
+            signature = Base64.getEncoder().encode(sig.sign());
+        } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
+            LOG.error().$("could not sign challenge [ex=").$(e).$(']').$();
+            return false;
+        }
+        if (signature.length >= AUTH_BUF_SIZE) {
+            return false;
+        }
+        for (n = 0; n < signature.length; n++) {
+            Unsafe.getUnsafe().putByte(authBuf + n, signature[n]);
+        }
+        Unsafe.getUnsafe().putByte(authBuf + n++, (byte) '\n');
+        return sendFully(fd, authBuf, n);
+    }
+
+    private void awaitInFlight() {
+        while (inFlightLen > 0) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        if (sendFailed) {
+            throw NetworkError.instance(sendErrno).put("could not send, connection lost");
+        }
+    }
+
+    private long connect() {
+        final long fd = nf.socketTcp(true);
+        if (fd == -1) {
+            return -1;
+        }
+        if (nf.connect(fd, sockaddr) != 0 || (authKeyId != null && !authenticate(fd))) {
+            nf.close(fd, LOG);
+            return -1;
+        }
+        return fd;
+    }
+
+    private CharSink field(CharSequence name) {
+        if (hasMetric) {
+            if (noFields) {
+                put(' ');
+                noFields = false;
+            } else {
+                put(',');
+            }
+
+            return encodeUtf8(name).put('=');
+        }
+        throw LineSenderException.instance().put("metric expected");
+    }
+
+    private void freeAuthBuf() {
+        if (authBuf != 0) {
+            Unsafe.free(authBuf, AUTH_BUF_SIZE);
+            authBuf = 0;
+        }
+    }
+
+    private boolean reconnect() {
+        nf.close(fd, LOG);
+        fd = -1;
+        for (int i = 0; i < maxReconnectAttempts && running; i++) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(reconnectDelayMillis));
+            fd = connect();
+            if (fd != -1) {
+                LOG.info().$("reconnected [attempt=").$(i + 1).$(']').$();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runFlushLoop() {
+        while (true) {
+            final int len = inFlightLen;
+            if (len > 0) {
+                send(inFlightLo, len);
+                inFlightLen = 0;
+                LockSupport.unpark(producerThread);
+            } else if (running) {
+                if (clock.getTicks() - lastFlushMillis >= autoFlushIntervalMillis) {
+                    handOverCompleted();
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void send(long lo, int len) {
+        if (sendFailed) {
+            return;
+        }
+        while (!sendFully(fd, lo, len)) {
+            final int errno = nf.errno();
+            LOG.info().$("connection lost, reconnecting [errno=").$(errno).$(']').$();
+            // server could have received part of the batch, replay it from the start
+            if (!reconnect()) {
+                LOG.error().$("could not reconnect [attempts=").$(maxReconnectAttempts).$(']').$();
+                sendErrno = errno;
+                sendFailed = true;
+                return;
+            }
+        }
+    }
+
+    private boolean sendFully(long fd, long lo, int len) {
+        while (len > 0) {
+            final int n = nf.send(fd, lo, len);
+            if (n < 0) {
+                return false;
+            }
+            lo += n;
+            len -= n;
+        }
+        return true;
+    }
+
+    /**
+     * Hands completed lines over to flush thread and carries incomplete line over to the other buffer.
+     */
+    private void swapBuffers() {
+        final int len = (int) (ptr - lineStart);
+        if (len >= capacity) {
+            throw LineSenderException.instance().put("line too long");
+        }
+        synchronized (handOverLock) {
+            // the other buffer, or part of the active one, may still be in flight
+            awaitInFlight();
+            final long target = lo == bufA ? bufB : bufA;
+            if (len > 0) {
+                Vect.memcpy(lineStart, target, len);
+            }
+            if (lineStart > unsentLo) {
+                inFlightLo = unsentLo;
+                inFlightLen = (int) (lineStart - unsentLo);
+                LockSupport.unpark(flushThread);
+            }
+            lo = lineStart = completedHi = unsentLo = target;
+            ptr = target + len;
+            hi = lo + capacity;
+            lastFlushMillis = clock.getTicks();
+        }
+    }
+
+    /**
+     * Called by flush thread when producer has not flushed for auto-flush interval. Completed lines
+     * are sent straight from the active buffer, producer only appends past them.
+     */
+    private void handOverCompleted() {
+        synchronized (handOverLock) {
+            final long hi = completedHi;
+            if (inFlightLen == 0 && hi > unsentLo) {
+                inFlightLo = unsentLo;
+                inFlightLen = (int) (hi - unsentLo);
+                unsentLo = hi;
+                lastFlushMillis = clock.getTicks();
+            }
+        }
+    }
+}
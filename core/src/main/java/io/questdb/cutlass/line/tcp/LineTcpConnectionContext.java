@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.NetworkIOJob;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ErrorCode;
 import io.questdb.cutlass.line.tcp.NewLineProtoParser.ParseResult;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -47,6 +48,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private final NewLineProtoParser protoParser = new NewLineProtoParser();
     private final FloatingDirectCharSink charSink = new FloatingDirectCharSink();
+    private final int maxMeasurementSize;
     protected long fd;
     protected IODispatcher<LineTcpConnectionContext> dispatcher;
     protected long recvBufStart;
@@ -56,11 +58,13 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     protected long recvBufStartOfMeasurement;
     private long lastQueueFullLogMillis = 0;
     private boolean goodMeasurement;
+    private boolean protocolDetected;
 
     LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
         nf = configuration.getNetworkFacade();
         this.scheduler = scheduler;
         this.milliClock = configuration.getMillisecondClock();
+        this.maxMeasurementSize = configuration.getMaxMeasurementSize();
         recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize());
         recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
         clear();
@@ -70,6 +74,8 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protocolDetected = false;
+        protoParser.clearBinary();
         resetParser();
     }
 
@@ -135,8 +141,32 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         return false;
     }
 
+    /**
+     * Binary connection starts with magic, which text line cannot start with. Anything else is text.
+     *
+     * @return false when there is not enough data to decide
+     */
+    private boolean detectProtocol() {
+        final long len = recvBufPos - recvBufStart;
+        if (len > 0 && Unsafe.getUnsafe().getByte(recvBufStart) != 0) {
+            protocolDetected = true;
+            return true;
+        }
+        if (len >= Integer.BYTES) {
+            protocolDetected = true;
+            if (Unsafe.getUnsafe().getInt(recvBufStart) == NewLineProtoParser.BINARY_MAGIC) {
+                LOG.info().$('[').$(fd).$("] binary protocol").$();
+                protoParser.ofBinary(recvBufStart + Integer.BYTES, maxMeasurementSize);
+                recvBufStartOfMeasurement = protoParser.getBufferAddress();
+            }
+            return true;
+        }
+        return false;
+    }
+
     private void doHandleDisconnectEvent() {
-        if (protoParser.getBufferAddress() == recvBufEnd) {
+        // binary frames are never parsed partially, full buffer means the frame does not fit in it
+        if (protoParser.isBinary() || protoParser.getBufferAddress() == recvBufEnd) {
             LOG.error().$('[').$(fd).$("] buffer overflow [msgBufferSize=").$(recvBufEnd - recvBufStart).$(']').$();
             return;
         }
@@ -164,9 +194,17 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        if (!protocolDetected && !detectProtocol()) {
+            return peerDisconnected ? IOContextResult.NEEDS_DISCONNECT : IOContextResult.NEEDS_READ;
+        }
         while (true) {
             try {
-                ParseResult rc = goodMeasurement ? protoParser.parseMeasurement(recvBufPos) : protoParser.skipMeasurement(recvBufPos);
+                final ParseResult rc;
+                if (protoParser.isBinary()) {
+                    rc = goodMeasurement ? protoParser.parseBinaryMeasurement(recvBufPos) : protoParser.skipBinaryMeasurement(recvBufPos);
+                } else {
+                    rc = goodMeasurement ? protoParser.parseMeasurement(recvBufPos) : protoParser.skipMeasurement(recvBufPos);
+                }
                 switch (rc) {
                     case MEASUREMENT_COMPLETE: {
                         if (goodMeasurement) {
@@ -177,6 +215,9 @@ class LineTcpConnectionContext implements IOContext, Mutable {
                                 }
                                 return IOContextResult.QUEUE_FULL;
                             }
+                        } else if (protoParser.isBinary()) {
+                            LOG.error().$('[').$(fd).$("] could not parse binary frame, code ").$(protoParser.getErrorCode()).$();
+                            goodMeasurement = true;
                         } else {
                             int position = (int) (protoParser.getBufferAddress() - recvBufStartOfMeasurement);
                             LOG.error().$('[').$(fd).$("] could not parse measurement, code ").$(protoParser.getErrorCode()).$(" at ").$(position)
@@ -194,11 +235,19 @@ class LineTcpConnectionContext implements IOContext, Mutable {
                     }
 
                     case ERROR: {
+                        if (protoParser.getErrorCode() == ErrorCode.INVALID_FRAME_LENGTH) {
+                            LOG.error().$('[').$(fd).$("] invalid binary frame length").$();
+                            return IOContextResult.NEEDS_DISCONNECT;
+                        }
                         goodMeasurement = false;
                         continue;
                     }
 
                     case BUFFER_UNDERFLOW: {
+                        if (protoParser.isBinary()) {
+                            // table frames before the incomplete frame are already consumed
+                            recvBufStartOfMeasurement = protoParser.getBufferAddress();
+                        }
                         if (recvBufPos == recvBufEnd && !compactBuffer(recvBufStartOfMeasurement)) {
                             doHandleDisconnectEvent();
                             return IOContextResult.NEEDS_DISCONNECT;
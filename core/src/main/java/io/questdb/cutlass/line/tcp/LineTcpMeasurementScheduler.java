@@ -88,7 +88,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             LineTcpReceiverConfiguration lineConfiguration,
             CairoEngine engine,
             WorkerPool ioWorkerPool,
-            IODispatcher<LineTcpConnectionContext> dispatcher,
+            ObjList<IODispatcher<LineTcpConnectionContext>> dispatchers,
             WorkerPool writerWorkerPool
     ) {
         this.engine = engine;
@@ -99,6 +99,9 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         this.netIoJobs = new NetworkIOJob[ioWorkerPool.getWorkerCount()];
         for (int i = 0; i < ioWorkerPool.getWorkerCount(); i++) {
+            // worker drains the dispatcher it runs, connections accepted by a SO_REUSEPORT
+            // dispatcher are therefore processed by the same worker(s)
+            final IODispatcher<LineTcpConnectionContext> dispatcher = dispatchers != null ? dispatchers.getQuick(i % dispatchers.size()) : null;
             NetworkIOJob netIoJob = createNetworkIOJob(dispatcher, i);
             netIoJobs[i] = netIoJob;
             ioWorkerPool.assign(i, netIoJob);
@@ -460,7 +463,8 @@ class LineTcpMeasurementScheduler implements Closeable {
             threadId = INCOMPLETE_EVENT_ID;
             this.tableUpdateDetails = tableUpdateDetails;
             long timestamp = protoParser.getTimestamp();
-            if (timestamp != NewLineProtoParser.NULL_TIMESTAMP) {
+            // binary timestamps are already in micros
+            if (timestamp != NewLineProtoParser.NULL_TIMESTAMP && !protoParser.isBinary()) {
                 timestamp = timestampAdapter.getMicros(timestamp);
             }
             long bufPos = bufLo;
@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
+import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.IOContextFactory;
 import io.questdb.network.IODispatcher;
@@ -42,7 +43,7 @@ import io.questdb.std.str.Path;
 
 public class LineTcpServer implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpServer.class);
-    private final IODispatcher<LineTcpConnectionContext> dispatcher;
+    private final ObjList<IODispatcher<LineTcpConnectionContext>> dispatchers;
     private final LineTcpConnectionContextFactory contextFactory;
     private final LineTcpMeasurementScheduler scheduler;
     private final ObjList<WorkerPool> dedicatedPools;
@@ -55,16 +56,18 @@ public class LineTcpServer implements Closeable {
             ObjList<WorkerPool> dedicatedPools
     ) {
         this.contextFactory = new LineTcpConnectionContextFactory(lineConfiguration);
-        this.dispatcher = IODispatchers.create(
+        this.dispatchers = IODispatchers.create(
                 lineConfiguration.getNetDispatcherConfiguration(),
-                contextFactory
+                contextFactory,
+                ioWorkerPool.getWorkerCount()
         );
         this.dedicatedPools = dedicatedPools;
-        ioWorkerPool.assign(dispatcher);
-        scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, ioWorkerPool, dispatcher, writerWorkerPool);
+        scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, ioWorkerPool, dispatchers, writerWorkerPool);
 
         final Closeable cleaner = contextFactory::closeContextPool;
         for (int i = 0, n = ioWorkerPool.getWorkerCount(); i < n; i++) {
+            // network IO job of the worker drains the same dispatcher, see LineTcpMeasurementScheduler
+            ioWorkerPool.assign(i, (Job) dispatchers.getQuick(i % dispatchers.size()));
             // http context factory has thread local pools
             // therefore we need each thread to clean their thread locals individually
             ioWorkerPool.assign(i, cleaner);
@@ -110,7 +113,7 @@ public class LineTcpServer implements Closeable {
         }
         Misc.free(scheduler);
         Misc.free(contextFactory);
-        Misc.free(dispatcher);
+        Misc.freeObjList(dispatchers);
     }
 
     private class LineTcpConnectionContextFactory implements IOContextFactory<LineTcpConnectionContext>, Closeable, EagerThreadSetup {
@@ -26,14 +26,36 @@ package io.questdb.cutlass.line.tcp;
 
 import java.io.Closeable;
 
+import io.questdb.std.IntList;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.ObjList;
 import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
 import io.questdb.std.str.DirectByteCharSequence;
 
+/**
+ * Parses line protocol measurements in place, in the receive buffer. Besides the text format, parser
+ * understands binary framing, which connection opts into by sending {@link #BINARY_MAGIC} before anything
+ * else. Binary stream is a sequence of frames, all values little-endian:
+ * <pre>
+ * frame:   int frameLen (including this header), byte frameType, payload
+ * TABLE:   short tableId, short nameLen, name, short columnCount, (short nameLen, name) * columnCount
+ * ROW:     short tableId, long timestamp, short entityCount, (short columnId, byte entityType, value) * entityCount
+ * </pre>
+ * TABLE frame binds table and column names to ids, which are then used by ROW frames of the same connection.
+ * Timestamp of ROW frame is in microseconds, {@link #NULL_TIMESTAMP} means "now". Entity types are the same as
+ * for text format. Values of FLOAT, INTEGER and BOOLEAN entities are raw double, long and byte, all other
+ * values are int length followed by UTF8 bytes.
+ */
 public class NewLineProtoParser implements Closeable {
     public static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    // "\0ILP", text line cannot start with zero byte
+    public static final int BINARY_MAGIC = 0x504c4900;
+    public static final byte BINARY_FRAME_TABLE = 0;
+    public static final byte BINARY_FRAME_ROW = 1;
+    public static final int BINARY_FRAME_HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+    private static final long MAX_BINARY_SCHEMA_SIZE = 1024 * 1024;
     public static final byte ENTITY_TYPE_TAG = 0;
     public static final byte ENTITY_TYPE_FLOAT = 1;
     public static final byte ENTITY_TYPE_INTEGER = 2;
@@ -62,9 +84,33 @@ public class NewLineProtoParser implements Closeable {
     private final EntityHandler entityTimestampHandler = this::expectTimestamp;
     private final EntityHandler entityValueHandler = this::expectEntityValue;
     private final EntityHandler entityNameHandler = this::expectEntityName;
+    // binary table id -> offset of table definition in binarySchema
+    private final IntList binaryTables = new IntList();
+    // table definitions: name offset, name length, column count, (name offset, name length) * column count
+    private final IntList binarySchema = new IntList();
+    // table and column names of binary schema
+    private long binaryNamesMem;
+    private long binaryNamesCapacity;
+    private long binaryNamesSize;
+    private boolean binary;
+    private boolean binaryMeasurementComplete;
+    private int maxBinaryMeasurementSize;
+
+    public void clearBinary() {
+        binary = false;
+        binaryTables.clear();
+        binarySchema.clear();
+        binaryNamesSize = 0;
+    }
 
     @Override
     public void close() {
+        if (binaryNamesMem != 0) {
+            Unsafe.free(binaryNamesMem, binaryNamesCapacity);
+            binaryNamesMem = 0;
+            binaryNamesCapacity = 0;
+        }
+        clearBinary();
     }
 
     public long getBufferAddress() {
@@ -96,12 +142,81 @@ public class NewLineProtoParser implements Closeable {
         return timestamp != NULL_TIMESTAMP;
     }
 
+    /**
+     * @return true when measurements are parsed from binary frames, timestamps of such measurements are
+     * in microseconds
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
     public NewLineProtoParser of(long bufLo) {
         this.bufAt = bufLo - 1;
         startNextMeasurement();
         return this;
     }
 
+    /**
+     * Switches parser to binary frames for the rest of the connection.
+     *
+     * @param bufLo                 address of the first frame
+     * @param maxMeasurementSize    limit of frame size plus size of table and column names it refers to,
+     *                              same as the limit of text measurement
+     * @return this parser
+     */
+    public NewLineProtoParser ofBinary(long bufLo, int maxMeasurementSize) {
+        this.binary = true;
+        this.maxBinaryMeasurementSize = maxMeasurementSize;
+        return of(bufLo);
+    }
+
+    /**
+     * Parses frames until ROW frame is complete. TABLE frames are consumed as they come. Frame
+     * is never parsed partially, on buffer underflow parser remains at the start of the incomplete
+     * frame. Complete ROW frame leaves parser at the last byte of the frame, in the same way text
+     * measurement leaves parser at the line end.
+     *
+     * @param bufHi end of received data
+     * @return parse result, ERROR with {@link ErrorCode#INVALID_FRAME_LENGTH} cannot be skipped
+     */
+    public ParseResult parseBinaryMeasurement(long bufHi) {
+        assert binary;
+        if (binaryMeasurementComplete) {
+            return ParseResult.MEASUREMENT_COMPLETE;
+        }
+        while (bufAt + BINARY_FRAME_HEADER_SIZE <= bufHi) {
+            final int frameLen = Unsafe.getUnsafe().getInt(bufAt);
+            if (frameLen < BINARY_FRAME_HEADER_SIZE) {
+                errorCode = ErrorCode.INVALID_FRAME_LENGTH;
+                return ParseResult.ERROR;
+            }
+            final long frameHi = bufAt + frameLen;
+            if (frameHi > bufHi) {
+                break;
+            }
+            final long lo = bufAt + BINARY_FRAME_HEADER_SIZE;
+            switch (Unsafe.getUnsafe().getByte(bufAt + Integer.BYTES)) {
+                case BINARY_FRAME_TABLE:
+                    if (parseBinaryTable(lo, frameHi)) {
+                        bufAt = frameHi;
+                        continue;
+                    }
+                    return ParseResult.ERROR;
+                case BINARY_FRAME_ROW:
+                    if (parseBinaryRow(lo, frameHi, frameLen)) {
+                        bufAt = frameHi - 1;
+                        binaryMeasurementComplete = true;
+                        return ParseResult.MEASUREMENT_COMPLETE;
+                    }
+                    return ParseResult.ERROR;
+                default:
+                    errorCode = ErrorCode.INVALID_FRAME;
+                    return ParseResult.ERROR;
+            }
+        }
+        return ParseResult.BUFFER_UNDERFLOW;
+    }
+
     public ParseResult parseMeasurement(long bufHi) {
         assert bufAt != 0 && bufHi >= bufAt;
         while (bufAt < bufHi) {
@@ -189,8 +304,21 @@ public class NewLineProtoParser implements Closeable {
         return ParseResult.BUFFER_UNDERFLOW;
     }
 
+    public ParseResult skipBinaryMeasurement(long bufHi) {
+        assert binary;
+        if (bufAt + BINARY_FRAME_HEADER_SIZE <= bufHi) {
+            final long frameHi = bufAt + Unsafe.getUnsafe().getInt(bufAt);
+            if (frameHi <= bufHi) {
+                bufAt = frameHi - 1;
+                return ParseResult.MEASUREMENT_COMPLETE;
+            }
+        }
+        return ParseResult.BUFFER_UNDERFLOW;
+    }
+
     public void startNextMeasurement() {
         bufAt++;
+        binaryMeasurementComplete = false;
         nEscapedChars = 0;
         fieldValueStartingWithQuote = false;
         entityLo = bufAt;
@@ -202,6 +330,207 @@ public class NewLineProtoParser implements Closeable {
         timestamp = NULL_TIMESTAMP;
     }
 
+    private int copyBinaryName(long lo, int len) {
+        final long offset = binaryNamesSize;
+        if (offset + len > binaryNamesCapacity) {
+            if (offset + len > MAX_BINARY_SCHEMA_SIZE) {
+                return -1;
+            }
+            final long capacity = Math.min(Math.max(binaryNamesCapacity * 2, offset + len), MAX_BINARY_SCHEMA_SIZE);
+            if (binaryNamesMem == 0) {
+                binaryNamesMem = Unsafe.malloc(capacity);
+            } else {
+                binaryNamesMem = Unsafe.realloc(binaryNamesMem, binaryNamesCapacity, capacity);
+            }
+            binaryNamesCapacity = capacity;
+        }
+        Vect.memcpy(lo, binaryNamesMem + offset, len);
+        binaryNamesSize += len;
+        return (int) offset;
+    }
+
+    private ProtoEntity nextEntity() {
+        if (entityCache.size() <= nEntities) {
+            currentEntity = new ProtoEntity();
+            entityCache.add(currentEntity);
+        } else {
+            currentEntity = entityCache.get(nEntities);
+            currentEntity.clear();
+        }
+        nEntities++;
+        return currentEntity;
+    }
+
+    private boolean parseBinaryRow(long lo, long hi, int frameLen) {
+        if (lo + Short.BYTES + Long.BYTES + Short.BYTES > hi) {
+            errorCode = ErrorCode.INVALID_FRAME;
+            return false;
+        }
+        final int tableId = Unsafe.getUnsafe().getShort(lo);
+        final int definition = tableId > -1 ? binaryTables.getQuiet(tableId) : -1;
+        if (definition < 0) {
+            errorCode = ErrorCode.UNKNOWN_TABLE;
+            return false;
+        }
+        timestamp = Unsafe.getUnsafe().getLong(lo + Short.BYTES);
+        final int entityCount = Unsafe.getUnsafe().getShort(lo + Short.BYTES + Long.BYTES);
+        lo += Short.BYTES + Long.BYTES + Short.BYTES;
+
+        final int tableNameLen = binarySchema.getQuick(definition + 1);
+        final long tableNameLo = binaryNamesMem + binarySchema.getQuick(definition);
+        measurementName.of(tableNameLo, tableNameLo + tableNameLen);
+        final int columnCount = binarySchema.getQuick(definition + 2);
+        // names are not in the frame, but they are in the measurement event
+        long measurementSize = frameLen + tableNameLen;
+
+        for (int i = 0; i < entityCount; i++) {
+            if (lo + Short.BYTES + Byte.BYTES > hi) {
+                errorCode = ErrorCode.INVALID_FRAME;
+                return false;
+            }
+            final int columnId = Unsafe.getUnsafe().getShort(lo);
+            if (columnId < 0 || columnId >= columnCount) {
+                errorCode = ErrorCode.UNKNOWN_COLUMN;
+                return false;
+            }
+            final byte type = Unsafe.getUnsafe().getByte(lo + Short.BYTES);
+            lo += Short.BYTES + Byte.BYTES;
+
+            final ProtoEntity entity = nextEntity();
+            final int columnNameOffset = definition + 3 + 2 * columnId;
+            final int columnNameLen = binarySchema.getQuick(columnNameOffset + 1);
+            final long columnNameLo = binaryNamesMem + binarySchema.getQuick(columnNameOffset);
+            entity.name.of(columnNameLo, columnNameLo + columnNameLen);
+            measurementSize += columnNameLen;
+
+            switch (type) {
+                case ENTITY_TYPE_TAG:
+                case ENTITY_TYPE_STRING:
+                case ENTITY_TYPE_LONG256: {
+                    if (lo + Integer.BYTES > hi) {
+                        errorCode = ErrorCode.INVALID_FRAME;
+                        return false;
+                    }
+                    final int len = Unsafe.getUnsafe().getInt(lo);
+                    lo += Integer.BYTES;
+                    if (len < 0 || lo + len > hi) {
+                        errorCode = ErrorCode.INVALID_FRAME;
+                        return false;
+                    }
+                    entity.value.of(lo, lo + len);
+                    lo += len;
+                    break;
+                }
+                case ENTITY_TYPE_INTEGER:
+                    if (lo + Long.BYTES > hi) {
+                        errorCode = ErrorCode.INVALID_FRAME;
+                        return false;
+                    }
+                    entity.integerValue = Unsafe.getUnsafe().getLong(lo);
+                    lo += Long.BYTES;
+                    break;
+                case ENTITY_TYPE_FLOAT:
+                    if (lo + Double.BYTES > hi) {
+                        errorCode = ErrorCode.INVALID_FRAME;
+                        return false;
+                    }
+                    entity.floatValue = Unsafe.getUnsafe().getDouble(lo);
+                    lo += Double.BYTES;
+                    break;
+                case ENTITY_TYPE_BOOLEAN:
+                    if (lo + Byte.BYTES > hi) {
+                        errorCode = ErrorCode.INVALID_FRAME;
+                        return false;
+                    }
+                    entity.booleanValue = Unsafe.getUnsafe().getByte(lo) != 0;
+                    lo += Byte.BYTES;
+                    break;
+                default:
+                    errorCode = ErrorCode.INVALID_FIELD_VALUE;
+                    return false;
+            }
+            entity.type = type;
+        }
+
+        if (lo != hi) {
+            errorCode = ErrorCode.INVALID_FRAME;
+            return false;
+        }
+        if (nEntities == 0) {
+            errorCode = ErrorCode.NO_FIELDS;
+            return false;
+        }
+        if (measurementSize > maxBinaryMeasurementSize) {
+            errorCode = ErrorCode.MEASUREMENT_TOO_LARGE;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean parseBinaryTable(long lo, long hi) {
+        final int schemaSize = binarySchema.size();
+        final long namesSize = binaryNamesSize;
+        if (lo + Short.BYTES > hi) {
+            errorCode = ErrorCode.INVALID_FRAME;
+            return false;
+        }
+        final int tableId = Unsafe.getUnsafe().getShort(lo);
+        if (tableId < 0) {
+            errorCode = ErrorCode.INVALID_FRAME;
+            return false;
+        }
+        lo = parseBinaryName(lo + Short.BYTES, hi);
+        if (lo < 0 || lo + Short.BYTES > hi) {
+            return rollbackBinaryTable(schemaSize, namesSize);
+        }
+        final int columnCount = Unsafe.getUnsafe().getShort(lo);
+        lo += Short.BYTES;
+        if (columnCount < 0) {
+            return rollbackBinaryTable(schemaSize, namesSize);
+        }
+        binarySchema.add(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            lo = parseBinaryName(lo, hi);
+            if (lo < 0) {
+                return rollbackBinaryTable(schemaSize, namesSize);
+            }
+        }
+        if (lo != hi) {
+            return rollbackBinaryTable(schemaSize, namesSize);
+        }
+
+        for (int i = binaryTables.size(); i <= tableId; i++) {
+            binaryTables.add(-1);
+        }
+        binaryTables.setQuick(tableId, schemaSize);
+        return true;
+    }
+
+    private long parseBinaryName(long lo, long hi) {
+        if (lo + Short.BYTES > hi) {
+            return -1;
+        }
+        final int len = Unsafe.getUnsafe().getShort(lo);
+        lo += Short.BYTES;
+        if (len < 1 || lo + len > hi) {
+            return -1;
+        }
+        final int offset = copyBinaryName(lo, len);
+        if (offset < 0) {
+            return -1;
+        }
+        binarySchema.add(offset);
+        binarySchema.add(len);
+        return lo + len;
+    }
+
+    private boolean rollbackBinaryTable(int schemaSize, long namesSize) {
+        binarySchema.setPos(schemaSize);
+        binaryNamesSize = namesSize;
+        errorCode = ErrorCode.INVALID_FRAME;
+        return false;
+    }
+
     private boolean expectEndOfLine(byte endOfEntityByte, long bufHi) {
         assert endOfEntityByte == '\n';
         return true;
@@ -315,7 +644,8 @@ public class NewLineProtoParser implements Closeable {
     }
 
     public enum ErrorCode {
-        EMPTY_LINE, NO_FIELDS, INCOMPLETE_TAG, INCOMPLETE_FIELD, INVALID_FIELD_SEPERATOR, INVALID_TIMESTAMP, INVALID_FIELD_VALUE
+        EMPTY_LINE, NO_FIELDS, INCOMPLETE_TAG, INCOMPLETE_FIELD, INVALID_FIELD_SEPERATOR, INVALID_TIMESTAMP, INVALID_FIELD_VALUE,
+        INVALID_FRAME, INVALID_FRAME_LENGTH, UNKNOWN_TABLE, UNKNOWN_COLUMN, MEASUREMENT_TOO_LARGE
     }
 
     private interface EntityHandler {
@@ -36,6 +36,7 @@ import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.*;
 import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
 import io.questdb.std.ThreadLocal;
 import io.questdb.std.WeakObjectPool;
 import org.jetbrains.annotations.Nullable;
@@ -46,7 +47,7 @@ import static io.questdb.network.IODispatcher.*;
 
 public class PGWireServer implements Closeable {
     private static final Log LOG = LogFactory.getLog(PGWireServer.class);
-    private final IODispatcher<PGConnectionContext> dispatcher;
+    private final ObjList<IODispatcher<PGConnectionContext>> dispatchers;
     private final PGConnectionContextFactory contextFactory;
     private final WorkerPool workerPool;
     private final MessageBus messageBus;
@@ -61,14 +62,17 @@ public class PGWireServer implements Closeable {
     ) {
         this.messageBus = messageBus;
         this.contextFactory = new PGConnectionContextFactory(engine, configuration, messageBus, workerPool.getWorkerCount());
-        this.dispatcher = IODispatchers.create(
+        this.dispatchers = IODispatchers.create(
                 configuration.getDispatcherConfiguration(),
-                contextFactory
+                contextFactory,
+                workerPool.getWorkerCount()
         );
 
-        workerPool.assign(dispatcher);
-
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
+            // worker both runs and drains the same dispatcher, so that with multiple
+            // SO_REUSEPORT dispatchers connection IO stays on the thread that accepted it
+            final IODispatcher<PGConnectionContext> dispatcher = dispatchers.getQuick(i % dispatchers.size());
+            workerPool.assign(i, (Job) dispatcher);
             final PGJobContext jobContext = new PGJobContext(configuration, engine, messageBus, functionFactoryCache);
             workerPool.assign(i, new Job() {
                 private final IORequestProcessor<PGConnectionContext> processor = (operation, context) -> {
@@ -134,7 +138,7 @@ public class PGWireServer implements Closeable {
             workerPool.halt();
         }
         Misc.free(contextFactory);
-        Misc.free(dispatcher);
+        Misc.freeObjList(dispatchers);
 
         // when worker pool is not null we will also have local message bus
         if (workerPool != null) {
@@ -97,6 +97,23 @@ public class CairoTextWriter implements Closeable, Mutable {
         appendMemory.close();
     }
 
+    void append(TextChunkParser parser) {
+        if (parser.isFailed()) {
+            writer.rollback();
+            throw CairoException.instance(parser.getErrno()).put(parser.getErrorMessage());
+        }
+        parser.copyTo(writer);
+        final LongList chunkErrorCounts = parser.getColumnErrorCounts();
+        for (int i = 0, n = chunkErrorCounts.size(); i < n; i++) {
+            columnErrorCounts.setQuick(i, columnErrorCounts.getQuick(i) + chunkErrorCounts.getQuick(i));
+        }
+        checkMaxAndCommitLag();
+    }
+
+    void bind(TextChunkParser parser, byte columnDelimiter, boolean skipLinesWithExtraValues) {
+        parser.of(writer, tableName, types, atomicity, timestampAdapter, timestampIndex, columnDelimiter, skipLinesWithExtraValues);
+    }
+
     public void closeWriter() {
         writer = Misc.free(writer);
     }
@@ -86,6 +86,16 @@ public class DefaultTextConfiguration implements TextConfiguration {
         return 128;
     }
 
+    @Override
+    public int getParallelImportChunkCount() {
+        return 4;
+    }
+
+    @Override
+    public int getParallelImportChunkSize() {
+        return 4096;
+    }
+
     @Override
     public int getRollBufferLimit() {
         return 4096;
@@ -0,0 +1,535 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
+import io.questdb.cutlass.text.types.TimestampAdapter;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Parses chunk of text on behalf of parallel import. Values are converted by the same type adapters
+ * the sequential import uses, but rows are buffered instead of being appended to the table writer,
+ * which can only be used by the thread that owns the import. Buffered rows are sorted by timestamp
+ * when table is partitioned, which leaves table writer with a few ordered runs to merge instead
+ * of individually out-of-order rows.
+ * <p>
+ * Buffered row consists of source line number followed by the column values. Each value is prefixed
+ * by column index and tag of the row method adapter used to write it, column index of -1 ends the row.
+ */
+public class TextChunkParser implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(TextChunkParser.class);
+    private static final byte TAG_BOOL = 0;
+    private static final byte TAG_BYTE = 1;
+    private static final byte TAG_CHAR = 2;
+    private static final byte TAG_SHORT = 3;
+    private static final byte TAG_INT = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_LONG = 6;
+    private static final byte TAG_DOUBLE = 7;
+    private static final byte TAG_DATE = 8;
+    private static final byte TAG_TIMESTAMP = 9;
+    private static final byte TAG_STR = 10;
+    private static final byte TAG_SYM = 11;
+    private static final byte TAG_LONG256 = 12;
+    private static final byte TAG_LONG256_STR = 13;
+    private final TextLexer lexer;
+    private final DirectCharSink utf8Sink;
+    private final ContiguousVirtualMemory rowData;
+    // pairs of row timestamp and row offset in rowData
+    private final ContiguousVirtualMemory rowIndex;
+    private final LongList columnErrorCounts = new LongList();
+    private final StringSink errorMessage = new StringSink();
+    private final TextLexer.Listener nonPartitionedListener = this::onFieldsNonPartitioned;
+    private final TextLexer.Listener partitionedListener = this::onFieldsPartitioned;
+    private RowBuffer row;
+    private TableWriter writer;
+    private CharSequence tableName;
+    private ObjList<TypeAdapter> types;
+    private TimestampAdapter timestampAdapter;
+    private int timestampIndex;
+    private int atomicity;
+    private long lo;
+    private long hi;
+    private boolean last;
+    private long rowCount;
+    private int errno;
+    private boolean failed;
+
+    public TextChunkParser(TextConfiguration configuration, TypeManager typeManager) {
+        this.lexer = new TextLexer(configuration, typeManager);
+        this.utf8Sink = new DirectCharSink(configuration.getUtf8SinkSize());
+        final long pageSize = Numbers.ceilPow2(configuration.getParallelImportChunkSize());
+        this.rowData = new ContiguousVirtualMemory(pageSize, Integer.MAX_VALUE);
+        this.rowIndex = new ContiguousVirtualMemory(pageSize, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void clear() {
+        lexer.clear();
+        rowData.clear();
+        rowIndex.clear();
+        columnErrorCounts.clear();
+        errorMessage.clear();
+        rowCount = 0;
+        failed = false;
+        writer = null;
+        row = null;
+        types = null;
+        timestampAdapter = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(lexer);
+        Misc.free(utf8Sink);
+        Misc.free(rowData);
+        Misc.free(rowIndex);
+    }
+
+    public LongList getColumnErrorCounts() {
+        return columnErrorCounts;
+    }
+
+    public long getErrorLineCount() {
+        return lexer.getErrorCount();
+    }
+
+    public CharSequence getErrorMessage() {
+        return errorMessage;
+    }
+
+    public int getErrno() {
+        return errno;
+    }
+
+    public long getParsedLineCount() {
+        return lexer.getLineCount();
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void parse() {
+        try {
+            lexer.parse(lo, hi, Integer.MAX_VALUE, timestampAdapter != null ? partitionedListener : nonPartitionedListener);
+            if (last) {
+                lexer.parseLast();
+            }
+            if (timestampAdapter != null && rowCount > 1) {
+                Vect.sortLongIndexAscInPlace(rowIndex.addressOf(0), rowCount);
+            }
+        } catch (CairoException e) {
+            fail(e.getErrno(), e.getFlyweightMessage());
+        } catch (Throwable e) {
+            fail(0, e.getMessage());
+        }
+    }
+
+    void copyTo(TableWriter writer) {
+        final long rowCount = this.rowCount;
+        for (long i = 0; i < rowCount; i++) {
+            final long timestamp = rowIndex.getLong(i << 4);
+            long offset = rowIndex.getLong((i << 4) + 8);
+            final long line = rowData.getLong(offset);
+            offset += Long.BYTES;
+
+            final TableWriter.Row w;
+            if (timestampAdapter != null) {
+                try {
+                    w = writer.newRow(timestamp);
+                } catch (CairoException e) {
+                    LOG.error().$("could not append row [table=").$(tableName)
+                            .$(", line=").$(line)
+                            .$(", timestamp=").$ts(timestamp)
+                            .$(", msg=").$(e.getFlyweightMessage())
+                            .$(']').$();
+                    columnErrorCounts.increment(timestampIndex);
+                    continue;
+                }
+            } else {
+                w = writer.newRow();
+            }
+
+            int column;
+            while ((column = rowData.getInt(offset)) != -1) {
+                final byte tag = rowData.getByte(offset + Integer.BYTES);
+                offset += Integer.BYTES + Byte.BYTES;
+                switch (tag) {
+                    case TAG_BOOL:
+                        w.putBool(column, rowData.getBool(offset));
+                        offset += Byte.BYTES;
+                        break;
+                    case TAG_BYTE:
+                        w.putByte(column, rowData.getByte(offset));
+                        offset += Byte.BYTES;
+                        break;
+                    case TAG_CHAR:
+                        w.putChar(column, rowData.getChar(offset));
+                        offset += Character.BYTES;
+                        break;
+                    case TAG_SHORT:
+                        w.putShort(column, rowData.getShort(offset));
+                        offset += Short.BYTES;
+                        break;
+                    case TAG_INT:
+                        w.putInt(column, rowData.getInt(offset));
+                        offset += Integer.BYTES;
+                        break;
+                    case TAG_FLOAT:
+                        w.putFloat(column, rowData.getFloat(offset));
+                        offset += Float.BYTES;
+                        break;
+                    case TAG_LONG:
+                        w.putLong(column, rowData.getLong(offset));
+                        offset += Long.BYTES;
+                        break;
+                    case TAG_DOUBLE:
+                        w.putDouble(column, rowData.getDouble(offset));
+                        offset += Double.BYTES;
+                        break;
+                    case TAG_DATE:
+                        w.putDate(column, rowData.getLong(offset));
+                        offset += Long.BYTES;
+                        break;
+                    case TAG_TIMESTAMP:
+                        w.putTimestamp(column, rowData.getLong(offset));
+                        offset += Long.BYTES;
+                        break;
+                    case TAG_STR:
+                        w.putStr(column, rowData.getStr(offset));
+                        offset += strStorageLength(offset);
+                        break;
+                    case TAG_SYM:
+                        w.putSym(column, rowData.getStr(offset));
+                        offset += strStorageLength(offset);
+                        break;
+                    case TAG_LONG256:
+                        w.putLong256(
+                                column,
+                                rowData.getLong(offset),
+                                rowData.getLong(offset + Long.BYTES),
+                                rowData.getLong(offset + 2 * Long.BYTES),
+                                rowData.getLong(offset + 3 * Long.BYTES)
+                        );
+                        offset += 4 * Long.BYTES;
+                        break;
+                    case TAG_LONG256_STR:
+                        w.putLong256(column, rowData.getStr(offset));
+                        offset += strStorageLength(offset);
+                        break;
+                    default:
+                        assert false;
+                        break;
+                }
+            }
+            w.append();
+        }
+    }
+
+    void of(
+            TableWriter writer,
+            CharSequence tableName,
+            ObjList<TypeAdapter> types,
+            int atomicity,
+            TimestampAdapter timestampAdapter,
+            int timestampIndex,
+            byte columnDelimiter,
+            boolean skipLinesWithExtraValues
+    ) {
+        if (this.writer != writer) {
+            this.writer = writer;
+            this.row = new RowBuffer(writer);
+        }
+        this.tableName = tableName;
+        this.types = types;
+        this.atomicity = atomicity;
+        this.timestampAdapter = timestampAdapter;
+        this.timestampIndex = timestampIndex;
+        lexer.setTableName(tableName);
+        lexer.setSkipLinesWithExtraValues(skipLinesWithExtraValues);
+        lexer.ofChunk(columnDelimiter, types.size());
+    }
+
+    void of(long lo, long hi, boolean last) {
+        this.lo = lo;
+        this.hi = hi;
+        this.last = last;
+        lexer.ofChunk(lexer.getColumnDelimiter(), types.size());
+        rowData.jumpTo(0);
+        rowIndex.jumpTo(0);
+        rowCount = 0;
+        columnErrorCounts.seed(types.size(), 0);
+        errorMessage.clear();
+        failed = false;
+    }
+
+    private void fail(int errno, CharSequence message) {
+        LOG.error().$("could not parse chunk [table=").$(tableName).$(", errno=").$(errno).$(", msg=").$(message).$(']').$();
+        this.errno = errno;
+        this.errorMessage.clear();
+        this.errorMessage.put(message);
+        this.failed = true;
+    }
+
+    private void logError(long line, int i, DirectByteCharSequence dbcs) {
+        LOG.error()
+                .$("type syntax [type=").$(ColumnType.nameOf(types.getQuick(i).getType()))
+                .$("]\n\t[").$(line).$(':').$(i).$("] -> ").$(dbcs).$();
+        columnErrorCounts.increment(i);
+    }
+
+    private boolean onField(long line, DirectByteCharSequence dbcs, int i) {
+        try {
+            types.getQuick(i).write(row, i, dbcs, utf8Sink);
+        } catch (Exception ignore) {
+            logError(line, i, dbcs);
+            switch (atomicity) {
+                case Atomicity.SKIP_ALL:
+                    throw CairoException.instance(0).put("bad syntax [line=").put(line).put(", col=").put(i).put(']');
+                case Atomicity.SKIP_ROW:
+                    row.cancel();
+                    return true;
+                default:
+                    // SKIP column
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private void onFieldsNonPartitioned(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+        row.begin(0, line);
+        for (int i = 0; i < valuesLength; i++) {
+            final DirectByteCharSequence dbcs = values.getQuick(i);
+            if (dbcs.length() == 0) {
+                continue;
+            }
+            if (onField(line, dbcs, i)) return;
+        }
+        row.append();
+    }
+
+    private void onFieldsPartitioned(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+        final int timestampIndex = this.timestampIndex;
+        final DirectByteCharSequence timestampValue = values.getQuick(timestampIndex);
+        final long timestamp;
+        try {
+            timestamp = timestampAdapter.getTimestamp(timestampValue);
+        } catch (Exception e) {
+            logError(line, timestampIndex, timestampValue);
+            return;
+        }
+        row.begin(timestamp, line);
+        for (int i = 0; i < valuesLength; i++) {
+            final DirectByteCharSequence dbcs = values.getQuick(i);
+            if (i == timestampIndex || dbcs.length() == 0) {
+                continue;
+            }
+            if (onField(line, dbcs, i)) return;
+        }
+        row.append();
+    }
+
+    private int strStorageLength(long offset) {
+        final int len = rowData.getStrLen(offset);
+        return Integer.BYTES + (len > 0 ? len * Character.BYTES : 0);
+    }
+
+    private class RowBuffer extends TableWriter.Row {
+        private long rowOffset;
+        private long rowTimestamp;
+
+        RowBuffer(TableWriter writer) {
+            writer.super();
+        }
+
+        @Override
+        public void append() {
+            rowData.putInt(-1);
+            rowIndex.putLong128(rowTimestamp, rowOffset);
+            rowCount++;
+        }
+
+        @Override
+        public void cancel() {
+            rowData.jumpTo(rowOffset);
+        }
+
+        @Override
+        public void putBin(int index, long address, long len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putBin(int index, BinarySequence sequence) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putBool(int index, boolean value) {
+            putTag(index, TAG_BOOL);
+            rowData.putBool(value);
+        }
+
+        @Override
+        public void putByte(int index, byte value) {
+            putTag(index, TAG_BYTE);
+            rowData.putByte(value);
+        }
+
+        @Override
+        public void putChar(int index, char value) {
+            putTag(index, TAG_CHAR);
+            rowData.putChar(value);
+        }
+
+        @Override
+        public void putDate(int index, long value) {
+            putTag(index, TAG_DATE);
+            rowData.putLong(value);
+        }
+
+        @Override
+        public void putDouble(int index, double value) {
+            putTag(index, TAG_DOUBLE);
+            rowData.putDouble(value);
+        }
+
+        @Override
+        public void putFloat(int index, float value) {
+            putTag(index, TAG_FLOAT);
+            rowData.putFloat(value);
+        }
+
+        @Override
+        public void putInt(int index, int value) {
+            putTag(index, TAG_INT);
+            rowData.putInt(value);
+        }
+
+        @Override
+        public void putLong(int index, long value) {
+            putTag(index, TAG_LONG);
+            rowData.putLong(value);
+        }
+
+        @Override
+        public void putLong256(int index, long l0, long l1, long l2, long l3) {
+            putTag(index, TAG_LONG256);
+            rowData.putLong256(l0, l1, l2, l3);
+        }
+
+        @Override
+        public void putLong256(int index, Long256 value) {
+            putLong256(index, value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+        }
+
+        @Override
+        public void putLong256(int index, CharSequence hexString) {
+            putTag(index, TAG_LONG256_STR);
+            rowData.putStr(hexString);
+        }
+
+        @Override
+        public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
+            putTag(index, TAG_LONG256_STR);
+            rowData.putStr(hexString, start, end - start);
+        }
+
+        @Override
+        public void putShort(int index, short value) {
+            putTag(index, TAG_SHORT);
+            rowData.putShort(value);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value) {
+            putTag(index, TAG_STR);
+            rowData.putStr(value);
+        }
+
+        @Override
+        public void putStr(int index, char value) {
+            putTag(index, TAG_STR);
+            rowData.putStr(value);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value, int pos, int len) {
+            putTag(index, TAG_STR);
+            rowData.putStr(value, pos, len);
+        }
+
+        @Override
+        public void putSym(int index, CharSequence value) {
+            putTag(index, TAG_SYM);
+            rowData.putStr(value);
+        }
+
+        @Override
+        public void putSym(int index, char value) {
+            putTag(index, TAG_SYM);
+            rowData.putStr(value);
+        }
+
+        @Override
+        public void putSymIndex(int index, int symIndex) {
+            // symbol keys are private to table writer
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(int index, long value) {
+            putTag(index, TAG_TIMESTAMP);
+            rowData.putLong(value);
+        }
+
+        private void begin(long timestamp, long line) {
+            rowOffset = rowData.getAppendOffset();
+            rowTimestamp = timestamp;
+            rowData.putLong(line);
+        }
+
+        private void putTag(int index, byte tag) {
+            rowData.putInt(index);
+            rowData.putByte(tag);
+        }
+    }
+}
@@ -41,6 +41,22 @@ public interface TextConfiguration {
 
     int getMetadataStringPoolCapacity();
 
+    /**
+     * Number of chunks text loader parses concurrently on the shared worker pool. Values below 2
+     * disable parallel import and make loader parse text on the calling thread.
+     *
+     * @return number of chunks in flight
+     */
+    int getParallelImportChunkCount();
+
+    /**
+     * Approximate size of text chunk, which is parsed as a single unit of work during parallel import.
+     * Chunks are cut at line boundaries, so actual size depends on the length of the lines.
+     *
+     * @return chunk size in bytes
+     */
+    int getParallelImportChunkSize();
+
     int getRollBufferLimit();
 
     int getRollBufferSize();
@@ -63,6 +63,8 @@ public class TextLexer implements Closeable, Mutable {
     private long fieldLo;
     private long fieldHi;
     private boolean skipLinesWithExtraValues;
+    private boolean fieldCountFixed;
+    private long parseLo;
 
     public TextLexer(TextConfiguration textConfiguration, TypeManager typeManager) {
         this.metadataDetector = new TextMetadataDetector(typeManager, textConfiguration);
@@ -94,6 +96,7 @@ public class TextLexer implements Closeable, Mutable {
         this.metadataDetector.clear();
         errorCount = 0;
         fieldMax = -1;
+        fieldCountFixed = false;
     }
 
     @Override
@@ -105,6 +108,10 @@ public class TextLexer implements Closeable, Mutable {
         metadataDetector.close();
     }
 
+    public byte getColumnDelimiter() {
+        return columnDelimiter;
+    }
+
     public long getErrorCount() {
         return errorCount;
     }
@@ -126,10 +133,25 @@ public class TextLexer implements Closeable, Mutable {
         this.columnDelimiter = columnDelimiter;
     }
 
+    /**
+     * Prepares lexer to parse a chunk of larger text. Chunk starts at line boundary. Unlike the first line
+     * of the text, the first line of the chunk does not define number of fields, it is supplied by the caller.
+     */
+    public void ofChunk(byte columnDelimiter, int fieldCount) {
+        of(columnDelimiter);
+        for (int i = 0; i < fieldCount; i++) {
+            addField();
+        }
+        fieldCountFixed = true;
+        // chunk starts right after line end, CR or LF at the start of the chunk belong to that line end
+        eol = true;
+    }
+
     public void parse(long lo, long hi, int lineCountLimit, Listener textLexerListener) {
         this.textLexerListener = textLexerListener;
         this.fieldHi = useLineRollBuf ? lineRollBufCur : (this.fieldLo = lo);
         this.lineCountLimit = lineCountLimit;
+        this.parseLo = lo;
         parse(lo, hi);
     }
 
@@ -266,6 +288,20 @@ public class TextLexer implements Closeable, Mutable {
         return metadataDetector.isHeader();
     }
 
+    private boolean isLineTooLong(long ptr) {
+        final long requiredLength = ptr - parseLo - lastLineStart;
+        if (requiredLength > lineRollBufLimit) {
+            LOG.info()
+                    .$("too long [table=").$(tableName)
+                    .$(", line=").$(lineCount)
+                    .$(", requiredLen=").$(requiredLength)
+                    .$(", rollLimit=").$(lineRollBufLimit)
+                    .$(']').$();
+            return true;
+        }
+        return false;
+    }
+
     private void onColumnDelimiter(long lo) {
         checkEol(lo);
 
@@ -292,6 +328,16 @@ public class TextLexer implements Closeable, Mutable {
             return;
         }
 
+        if (fieldCountFixed && isLineTooLong(ptr)) {
+            // chunk lines are never rolled over, but lines longer than
+            // roll buffer limit are still skipped, the same way unchunked text does
+            errorCount++;
+            lineCount++;
+            eol = true;
+            fieldIndex = 0;
+            return;
+        }
+
         triggerLine(ptr);
 
         if (lineCount > lineCountLimit) {
@@ -397,7 +443,7 @@ public class TextLexer implements Closeable, Mutable {
     }
 
     private void stashField(int fieldIndex) {
-        if (lineCount == 0 && fieldIndex >= fields.size()) {
+        if (lineCount == 0 && fieldIndex >= fields.size() && !fieldCountFixed) {
             addField();
         }
 
@@ -24,21 +24,24 @@
 
 package io.questdb.cutlass.text;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoSecurityContext;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
 import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
-import io.questdb.std.LongList;
-import io.questdb.std.Misc;
-import io.questdb.std.Mutable;
-import io.questdb.std.ObjList;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
 import io.questdb.std.str.DirectCharSink;
 import io.questdb.std.str.Path;
+import io.questdb.tasks.TextImportTask;
 
 import java.io.Closeable;
 
@@ -57,12 +60,27 @@ public class TextLoader implements Closeable, Mutable {
     private final DirectCharSink utf8Sink;
     private final TypeManager typeManager;
     private final ObjList<ParserMethod> parseMethods = new ObjList<>();
+    private final TextConfiguration textConfiguration;
+    private final MessageBus messageBus;
+    private final ObjList<TextChunkParser> chunkParsers = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    // text staged for parallel import, always starts at line boundary
+    private final ContiguousVirtualMemory chunkBuffer;
+    private final int chunkCount;
+    private final int chunkSize;
+    private boolean parallel;
+    private long chunkParsedLineCount;
+    private long chunkErrorLineCount;
     private int state;
     private boolean forceHeaders = false;
     private byte columnDelimiter = -1;
 
     public TextLoader(CairoEngine engine) {
-        final TextConfiguration textConfiguration = engine.getConfiguration().getTextConfiguration();
+        this.textConfiguration = engine.getConfiguration().getTextConfiguration();
+        this.messageBus = engine.getMessageBus();
+        this.chunkCount = textConfiguration.getParallelImportChunkCount();
+        this.chunkSize = textConfiguration.getParallelImportChunkSize();
+        this.chunkBuffer = new ContiguousVirtualMemory(Numbers.ceilPow2(Math.max(chunkSize, 1)), Integer.MAX_VALUE);
         this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
         jsonLexer = new JsonLexer(
                 textConfiguration.getJsonCacheSize(),
@@ -89,6 +107,13 @@ public class TextLoader implements Closeable, Mutable {
         forceHeaders = false;
         columnDelimiter = -1;
         typeManager.clear();
+        // chunk parsers hold native memory, they are only kept for the duration of the import
+        Misc.freeObjList(chunkParsers);
+        chunkParsers.clear();
+        chunkBuffer.clear();
+        parallel = false;
+        chunkParsedLineCount = 0;
+        chunkErrorLineCount = 0;
     }
 
     @Override
@@ -100,6 +125,8 @@ public class TextLoader implements Closeable, Mutable {
         Misc.free(path);
         Misc.free(textDelimiterScanner);
         Misc.free(utf8Sink);
+        Misc.freeObjList(chunkParsers);
+        Misc.free(chunkBuffer);
     }
 
     public void closeWriter() {
@@ -140,11 +167,11 @@ public class TextLoader implements Closeable, Mutable {
     }
 
     public long getParsedLineCount() {
-        return textLexer.getLineCount();
+        return textLexer.getLineCount() + chunkParsedLineCount;
     }
 
     public long getErrorLineCount() {
-        return textLexer.getErrorCount();
+        return textLexer.getErrorCount() + chunkErrorLineCount;
     }
 
     public int getPartitionBy() {
@@ -208,7 +235,11 @@ public class TextLoader implements Closeable, Mutable {
                 break;
             case ANALYZE_STRUCTURE:
             case LOAD_DATA:
-                textLexer.parseLast();
+                if (parallel) {
+                    parseChunks(true);
+                } else {
+                    textLexer.parseLast();
+                }
                 textWriter.commit();
                 break;
             default:
@@ -216,8 +247,90 @@ public class TextLoader implements Closeable, Mutable {
         }
     }
 
+    private void parseChunks(boolean last) {
+        final long bufLo = chunkBuffer.addressOf(0);
+        final long bufHi = bufLo + chunkBuffer.getAppendOffset();
+        final long roundSize = (long) chunkCount * chunkSize;
+        final byte delimiter = textLexer.getColumnDelimiter();
+        long lo = bufLo;
+        while (lo < bufHi && (last || bufHi - lo >= roundSize)) {
+            int n = 0;
+            while (n < chunkCount && lo < bufHi) {
+                long hi = TextUtil.findLineEnd(lo, bufHi, lo + chunkSize, delimiter);
+                final boolean lastChunk = hi == -1;
+                if (lastChunk) {
+                    if (!last) {
+                        break;
+                    }
+                    // text does not end with line end, lexer will have to flush the last line
+                    hi = bufHi;
+                }
+                chunkParsers.getQuick(n++).of(lo, hi, lastChunk);
+                lo = hi;
+            }
+
+            if (n == 0) {
+                // line is longer than staged text, wait for more
+                break;
+            }
+
+            dispatchChunks(n);
+
+            for (int i = 0; i < n; i++) {
+                final TextChunkParser parser = chunkParsers.getQuick(i);
+                textWriter.append(parser);
+                chunkParsedLineCount += parser.getParsedLineCount();
+                chunkErrorLineCount += parser.getErrorLineCount();
+            }
+        }
+
+        // move unparsed tail to the start of the buffer
+        final long len = bufHi - lo;
+        if (len > 0 && lo > bufLo) {
+            Vect.memmove(bufLo, lo, len);
+        }
+        chunkBuffer.jumpTo(len);
+    }
+
+    private void dispatchChunks(int n) {
+        final RingQueue<TextImportTask> queue = messageBus.getTextImportQueue();
+        final Sequence pubSeq = messageBus.getTextImportPubSeq();
+        final Sequence subSeq = messageBus.getTextImportSubSeq();
+
+        doneLatch.reset();
+        int queuedCount = 0;
+        for (int i = 0; i < n; i++) {
+            final TextChunkParser parser = chunkParsers.getQuick(i);
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                parser.parse();
+            } else {
+                queue.get(seq).of(parser, doneLatch);
+                pubSeq.done(seq);
+                queuedCount++;
+            }
+        }
+
+        // process our own queue
+        // this should fix deadlock with 1 worker configuration
+        while (doneLatch.getCount() > -queuedCount) {
+            long seq = subSeq.next();
+            if (seq > -1) {
+                queue.get(seq).run();
+                subSeq.done(seq);
+            }
+        }
+
+        doneLatch.await(queuedCount);
+    }
+
     private void parseData(long lo, long hi, CairoSecurityContext cairoSecurityContext) {
-        textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+        if (parallel) {
+            chunkBuffer.putBlockOfBytes(lo, hi - lo);
+            parseChunks(false);
+        } else {
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+        }
     }
 
     private void parseJsonMetadata(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
@@ -243,10 +356,33 @@ public class TextLoader implements Closeable, Mutable {
                 textMetadataParser.getColumnTypes()
         );
         textWriter.prepareTable(cairoSecurityContext, textLexer.getColumnNames(), textLexer.getColumnTypes());
-        textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+        // the first buffer is parsed here up to the last line end, the rest of the text
+        // is staged for parallel import; the whole text is parsed here when there are no complete
+        // lines to split the text at
+        final long lineEnd = chunkCount > 1 ? TextUtil.findLineEnd(lo, hi, hi, textLexer.getColumnDelimiter()) : -1;
+        if (lineEnd > -1) {
+            textLexer.parse(lo, lineEnd, Integer.MAX_VALUE, textWriter.getTextListener());
+            startParallelImport();
+            parseData(lineEnd, hi, cairoSecurityContext);
+        } else {
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+        }
         state = LOAD_DATA;
     }
 
+    private void startParallelImport() {
+        for (int i = chunkParsers.size(); i < chunkCount; i++) {
+            chunkParsers.add(new TextChunkParser(textConfiguration, typeManager));
+        }
+        final byte delimiter = textLexer.getColumnDelimiter();
+        final boolean skipLinesWithExtraValues = textLexer.isSkipLinesWithExtraValues();
+        for (int i = 0; i < chunkCount; i++) {
+            textWriter.bind(chunkParsers.getQuick(i), delimiter, skipLinesWithExtraValues);
+        }
+        chunkBuffer.jumpTo(0);
+        parallel = true;
+    }
+
     @FunctionalInterface
     private interface ParserMethod {
         void parse(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException;
@@ -29,6 +29,48 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.str.CharSink;
 
 public class TextUtil {
+
+    /**
+     * Finds end of the first line, which ends at or past minHi. Text between lo and hi must start at line
+     * boundary. Line ends inside quoted fields are skipped following the same rules lexer applies: quote
+     * starts quoted field only when it is the first character of the field, and pair of quotes inside quoted
+     * field is an escaped quote.
+     *
+     * @return address following the line end, end of the last complete line when no line ends at or past minHi,
+     * or -1 when there are no complete lines in the text
+     */
+    public static long findLineEnd(long lo, long hi, long minHi, byte columnDelimiter) {
+        long lineEnd = -1;
+        boolean inQuote = false;
+        boolean fieldStart = true;
+        for (long p = lo; p < hi; p++) {
+            final byte c = Unsafe.getUnsafe().getByte(p);
+            if (inQuote) {
+                if (c == '"') {
+                    if (p + 1 < hi && Unsafe.getUnsafe().getByte(p + 1) == '"') {
+                        p++;
+                    } else {
+                        inQuote = false;
+                    }
+                }
+            } else if (c == '"') {
+                inQuote = fieldStart;
+                fieldStart = false;
+            } else if (c == columnDelimiter) {
+                fieldStart = true;
+            } else if (c == '\n' || c == '\r') {
+                fieldStart = true;
+                lineEnd = p + 1;
+                if (lineEnd >= minHi) {
+                    break;
+                }
+            } else {
+                fieldStart = false;
+            }
+        }
+        return lineEnd;
+    }
+
     public static void utf8Decode(long lo, long hi, CharSink sink) throws Utf8Exception {
         long p = lo;
         while (p < hi) {
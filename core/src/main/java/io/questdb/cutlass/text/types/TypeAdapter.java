@@ -26,6 +26,7 @@ package io.questdb.cutlass.text.types;
 
 import io.questdb.cairo.TableWriter;
 import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
 
 public interface TypeAdapter {
     int getType();
@@ -33,4 +34,13 @@ public interface TypeAdapter {
     boolean probe(CharSequence text);
 
     void write(TableWriter.Row row, int column, DirectByteCharSequence value) throws Exception;
+
+    /**
+     * Same as {@link #write(TableWriter.Row, int, DirectByteCharSequence)}, except adapters that decode
+     * UTF8 text use supplied sink instead of their own. This allows the same adapter to be used
+     * by multiple threads, each thread providing its own sink.
+     */
+    default void write(TableWriter.Row row, int column, DirectByteCharSequence value, DirectCharSink utf8Sink) throws Exception {
+        write(row, column, value);
+    }
 }
@@ -69,6 +69,15 @@ public interface FunctionFactory {
         return false;
     }
 
+    /**
+     * @return true if the {@link Function} produced by the factory is {@link io.questdb.griffin.engine.analytic.AnalyticFunction}.
+     * Analytic factories are only looked up for function calls followed by "over" clause and may share names
+     * with group-by functions.
+     */
+    default boolean isAnalytic() {
+        return false;
+    }
+
     default boolean isCursor() {
         return false;
     }
@@ -77,6 +86,14 @@ public interface FunctionFactory {
         return false;
     }
 
+    /**
+     * @return false if the {@link Function} produced by the factory can return different values for the same input
+     * data, for example now() or rnd_int(). Results of queries using such functions cannot be cached.
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
     /**
      * @return true if the {@link Function} produced by the factory is guaranteed to be constant for a query such that its result does not depend on any {@link Record} in the result set (i.e. now())
      */
@@ -37,6 +37,7 @@ public class FunctionFactoryCache {
     static final CharSequenceHashSet invalidFunctionNames = new CharSequenceHashSet();
     private static final Log LOG = LogFactory.getLog(FunctionFactoryCache.class);
     private final CharSequenceObjHashMap<ObjList<FunctionFactoryDescriptor>> factories = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<ObjList<FunctionFactoryDescriptor>> analyticFactories = new CharSequenceObjHashMap<>();
     private final CharSequenceHashSet groupByFunctionNames = new CharSequenceHashSet();
     private final CharSequenceHashSet cursorFunctionNames = new CharSequenceHashSet();
     private final CharSequenceHashSet runtimeConstantFunctionNames = new CharSequenceHashSet();
@@ -49,6 +50,10 @@ public class FunctionFactoryCache {
                 try {
                     final FunctionFactoryDescriptor descriptor = new FunctionFactoryDescriptor(factory);
                     final String name = descriptor.getName();
+                    if (factory.isAnalytic()) {
+                        addFactoryToList(analyticFactories, descriptor);
+                        continue;
+                    }
                     addFactoryToList(factories, descriptor);
 
                     // Add != counterparts to equality function factories
@@ -96,6 +101,10 @@ public class FunctionFactoryCache {
         return new SwappingArgsFunctionFactory(name, factory);
     }
 
+    public ObjList<FunctionFactoryDescriptor> getAnalyticOverloadList(CharSequence token) {
+        return analyticFactories.get(token);
+    }
+
     public ObjList<FunctionFactoryDescriptor> getOverloadList(CharSequence token) {
         return factories.get(token);
     }
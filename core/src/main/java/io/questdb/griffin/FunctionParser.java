@@ -46,7 +46,7 @@ import java.util.ArrayDeque;
 
 import static io.questdb.griffin.SqlKeywords.isNullKeyword;
 
-public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
+public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutable {
     private static final Log LOG = LogFactory.getLog(FunctionParser.class);
 
     // order of values matters here, partial match must have greater value than fuzzy match
@@ -66,7 +66,10 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
     private final IntList undefinedVariables = new IntList();
     private RecordMetadata metadata;
     private SqlCodeGenerator sqlCodeGenerator;
+    // function node that is resolved against analytic function factories
+    private ExpressionNode analyticNode;
     private SqlExecutionContext sqlExecutionContext;
+    private boolean deterministic = true;
 
     public FunctionParser(CairoConfiguration configuration, FunctionFactoryCache functionFactoryCache) {
         this.configuration = configuration;
@@ -155,6 +158,11 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         return new NamedParameterLinkFunction(Chars.toString(name), function.getType());
     }
 
+    @Override
+    public void clear() {
+        deterministic = true;
+    }
+
     public int getFunctionCount() {
         return functionFactoryCache.getFunctionCount();
     }
@@ -163,6 +171,13 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         return functionFactoryCache;
     }
 
+    /**
+     * @return false if any of the functions created since last {@link #clear()} is not deterministic
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
     public boolean isCursor(CharSequence token) {
         return functionFactoryCache.isCursor(token);
     }
@@ -176,7 +191,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
     }
 
     public boolean isValidNoArgFunction(ExpressionNode node) {
-        final ObjList<FunctionFactoryDescriptor> overload = functionFactoryCache.getOverloadList(node.token);
+        final ObjList<FunctionFactoryDescriptor> overload = node == analyticNode
+                ? functionFactoryCache.getAnalyticOverloadList(node.token)
+                : functionFactoryCache.getOverloadList(node.token);
         if (overload == null) {
             return false;
         }
@@ -252,6 +269,30 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         }
     }
 
+    /**
+     * Same as {@link #parseFunction(ExpressionNode, RecordMetadata, SqlExecutionContext)} except that the
+     * top level function is looked up among analytic function factories. Arguments of the function
+     * are resolved as usual.
+     *
+     * @param node             analytic function call, without "over" clause
+     * @param metadata         metadata for resolving types of columns
+     * @param executionContext execution context with configured analytic context
+     * @return function instance
+     * @throws SqlException when function cannot be created
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        this.analyticNode = node;
+        try {
+            return parseFunction(node, metadata, executionContext);
+        } finally {
+            this.analyticNode = null;
+        }
+    }
+
     public void setSqlCodeGenerator(SqlCodeGenerator sqlCodeGenerator) {
         this.sqlCodeGenerator = sqlCodeGenerator;
     }
@@ -373,6 +414,10 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
             LOG.error().$("NULL function").$(" [signature=").$(factory.getSignature()).$(",class=").$(factory.getClass().getName()).$(']').$();
             throw SqlException.position(position).put("bad function factory (NULL), check log");
         }
+
+        if (!factory.isDeterministic()) {
+            deterministic = false;
+        }
         return function;
     }
 
@@ -464,7 +509,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
             @Transient ObjList<Function> args,
             @Transient IntList argPositions
     ) throws SqlException {
-        final ObjList<FunctionFactoryDescriptor> overload = functionFactoryCache.getOverloadList(node.token);
+        final ObjList<FunctionFactoryDescriptor> overload = node == analyticNode
+                ? functionFactoryCache.getAnalyticOverloadList(node.token)
+                : functionFactoryCache.getOverloadList(node.token);
         if (overload == null) {
             throw invalidFunction(node, args);
         }
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableStatistics;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.std.Chars;
+import io.questdb.std.NumericException;
+
+/**
+ * Estimates number of rows table scan produces after where clause is applied. Estimate is based on
+ * {@link TableStatistics}: equality on symbol column keeps 1/cardinality of rows, comparison of designated
+ * timestamp with constant keeps rows of partitions overlapping the range and any other predicate is
+ * assumed to keep third of rows.
+ */
+class RowCountEstimator {
+    private static final int DEFAULT_SELECTIVITY = 3;
+    private final TableStatistics statistics = new TableStatistics();
+
+    private static int getColumnIndex(RecordMetadata metadata, CharSequence token) {
+        final int dot = Chars.indexOf(token, '.');
+        return metadata.getColumnIndexQuiet(token, dot + 1, token.length());
+    }
+
+    long estimate(TableReader reader, ExpressionNode filter, int timestampIndex) {
+        statistics.of(reader);
+        return estimate(filter, reader.getMetadata(), timestampIndex, statistics.getRowCount());
+    }
+
+    private long estimate(ExpressionNode node, RecordMetadata metadata, int timestampIndex, long rowCount) {
+        if (node == null) {
+            return rowCount;
+        }
+
+        if (SqlKeywords.isAndKeyword(node.token)) {
+            return estimate(node.rhs, metadata, timestampIndex, estimate(node.lhs, metadata, timestampIndex, rowCount));
+        }
+
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 2) {
+            final ExpressionNode literal;
+            final ExpressionNode constant;
+            final boolean flipped;
+            if (node.lhs.type == ExpressionNode.LITERAL && node.rhs.type == ExpressionNode.CONSTANT) {
+                literal = node.lhs;
+                constant = node.rhs;
+                flipped = false;
+            } else if (node.rhs.type == ExpressionNode.LITERAL && node.lhs.type == ExpressionNode.CONSTANT) {
+                literal = node.rhs;
+                constant = node.lhs;
+                flipped = true;
+            } else {
+                return rowCount / DEFAULT_SELECTIVITY;
+            }
+
+            final int columnIndex = getColumnIndex(metadata, literal.token);
+            if (columnIndex > -1) {
+                if (Chars.equals(node.token, '=')) {
+                    if (metadata.getColumnType(columnIndex) == ColumnType.SYMBOL) {
+                        final int cardinality = statistics.getSymbolCardinality(columnIndex);
+                        if (cardinality > 0) {
+                            return rowCount / cardinality;
+                        }
+                    }
+                } else if (columnIndex == timestampIndex && Chars.isQuoted(constant.token)) {
+                    final char c = node.token.charAt(0);
+                    if ((c == '<' || c == '>') && !Chars.equals(node.token, "<>")) {
+                        try {
+                            final long timestamp = IntervalUtils.parseFloorPartialDate(constant.token, 1, constant.token.length() - 1);
+                            final long total = statistics.getRowCount();
+                            if (total == 0) {
+                                return 0;
+                            }
+                            final long count = (c == '>') != flipped
+                                    ? statistics.getRowCount(timestamp, Long.MAX_VALUE)
+                                    : statistics.getRowCount(Long.MIN_VALUE, timestamp);
+                            return (long) ((double) rowCount * count / total);
+                        } catch (NumericException ignore) {
+                            // not a timestamp we can reason about
+                        }
+                    }
+                }
+            }
+        }
+        return rowCount / DEFAULT_SELECTIVITY;
+    }
+}
@@ -29,9 +29,11 @@ import io.questdb.cairo.map.RecordValueSink;
 import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
+import io.questdb.griffin.engine.ExchangeRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
@@ -101,6 +103,10 @@ public class SqlCodeGenerator implements Mutable {
     private final IntList groupByFunctionPositions = new IntList();
     private boolean fullFatJoins = false;
     private final CharSequenceHashSet prefixes = new CharSequenceHashSet();
+    private final ObjList<String> readTableNames = new ObjList<>();
+    private final RowCountEstimator rowCountEstimator = new RowCountEstimator();
+    private final ObjList<ExchangeRecordCursorFactory> exchangeFactories = new ObjList<>();
+    private boolean cursorFunctionUsed = false;
 
     public SqlCodeGenerator(
             CairoEngine engine,
@@ -116,6 +122,28 @@ public class SqlCodeGenerator implements Mutable {
     @Override
     public void clear() {
         whereClauseParser.clear();
+        functionParser.clear();
+        readTableNames.clear();
+        exchangeFactories.clear();
+        cursorFunctionUsed = false;
+    }
+
+    /**
+     * @return names of tables read by queries generated since last {@link #clear()}
+     */
+    public ObjList<String> getReadTableNames() {
+        return readTableNames;
+    }
+
+    /**
+     * Results of the generated query can be reused for as long as tables it reads do not change. This is
+     * the case when query reads tables only, as opposed to cursor functions, and all of its functions
+     * are deterministic.
+     *
+     * @return true when result of queries generated since last {@link #clear()} can be cached
+     */
+    public boolean isResultCacheable() {
+        return readTableNames.size() > 0 && !cursorFunctionUsed && functionParser.isDeterministic();
     }
 
     @NotNull
@@ -269,8 +297,58 @@ public class SqlCodeGenerator implements Mutable {
         return true;
     }
 
+    private boolean assembleSampleByFunctionReferences(
+            ObjList<QueryColumn> columns,
+            RecordMetadata metadata,
+            int timestampIndex
+    ) {
+        tempVaf.clear();
+        tempVecConstructors.clear();
+        tempVecConstructorArgIndexes.clear();
+        tempAggIndex.clear();
+        tempKeyIndex.clear();
+
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode ast = columns.getQuick(i).getAst();
+            if (ast.type == LITERAL) {
+                // the only literal non-keyed sample by can select is timestamp
+                if (metadata.getColumnIndexQuiet(ast.token) != timestampIndex || tempKeyIndex.size() > 0) {
+                    return false;
+                }
+                tempKeyIndex.add(i);
+            } else {
+                // average of sample slices is not an average of the sample
+                if (isSingleColumnFunction(ast, "avg")) {
+                    return false;
+                }
+                final VectorAggregateFunctionConstructor constructor = assembleFunctionReference(metadata, ast);
+                if (constructor == null) {
+                    return false;
+                }
+                tempVecConstructors.add(constructor);
+                tempAggIndex.add(i);
+            }
+        }
+        return tempVecConstructors.size() > 0;
+    }
+
     private RecordMetadata calculateSetMetadata(RecordMetadata masterMetadata) {
-        return GenericRecordMetadata.removeTimestamp(masterMetadata);
+        // set cursors switch symbol tables between branches, symbol keys
+        // of set records are not comparable without resolving them
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        for (int i = 0, n = masterMetadata.getColumnCount(); i < n; i++) {
+            metadata.add(
+                    new TableColumnMetadata(
+                            masterMetadata.getColumnName(i),
+                            masterMetadata.getColumnType(i),
+                            masterMetadata.isColumnIndexed(i),
+                            masterMetadata.getIndexValueBlockCapacity(i),
+                            false,
+                            masterMetadata.getMetadata(i)
+                    )
+            );
+        }
+        return metadata;
     }
 
     @Nullable
@@ -281,6 +359,82 @@ public class SqlCodeGenerator implements Mutable {
         return null;
     }
 
+    private static long getRowCountEstimate(QueryModel model) {
+        // selects that neither drop nor multiply rows produce as many rows as the table they read
+        while (model != null) {
+            if (model.getRowCountEstimate() > -1) {
+                return model.getRowCountEstimate();
+            }
+
+            final int selectModelType = model.getSelectModelType();
+            if (
+                    (selectModelType != QueryModel.SELECT_MODEL_NONE
+                            && selectModelType != QueryModel.SELECT_MODEL_CHOOSE
+                            && selectModelType != QueryModel.SELECT_MODEL_VIRTUAL)
+                            || model.getJoinModels().size() > 1
+                            || model.getUnionModel() != null
+                            || model.getWhereClause() != null
+                            || model.getLimitLo() != null
+            ) {
+                return -1;
+            }
+            model = model.getNestedModel();
+        }
+        return -1;
+    }
+
+    private static boolean isAggregate(QueryModel model) {
+        while (model != null) {
+            if (model.getSelectModelType() == QueryModel.SELECT_MODEL_GROUP_BY || model.getSampleBy() != null) {
+                return true;
+            }
+            if (model.getJoinModels().size() > 1 || model.getUnionModel() != null) {
+                return false;
+            }
+            model = model.getNestedModel();
+        }
+        return false;
+    }
+
+    private static boolean isSymbolKeyDistinct(RecordMetadata metadata) {
+        final int columnCount = metadata.getColumnCount();
+        if (columnCount > 2) {
+            return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (metadata.getColumnType(i) != ColumnType.SYMBOL || !metadata.isSymbolTableStatic(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBuildSideLarger(QueryModel masterModel, QueryModel slaveModel) {
+        final int ratio = configuration.getSqlJoinBuildSideRowRatio();
+        if (ratio > 0) {
+            final long masterRowCount = getRowCountEstimate(masterModel);
+            final long slaveRowCount = getRowCountEstimate(slaveModel);
+            return masterRowCount > -1 && slaveRowCount > -1 && slaveRowCount / ratio > masterRowCount;
+        }
+        return false;
+    }
+
+    private boolean isIndexedAsOfJoinSupported(
+            RecordCursorFactory slave,
+            RecordMetadata masterMetadata,
+            RecordMetadata slaveMetadata
+    ) {
+        // slave must be the entire table, joined on its indexed symbol column
+        if (listColumnFilterA.size() != 1 || !(slave instanceof TableReaderRecordCursorFactory)) {
+            return false;
+        }
+        final int slaveKeyIndex = listColumnFilterA.getColumnIndexFactored(0);
+        final int masterKeyType = masterMetadata.getColumnType(listColumnFilterB.getColumnIndexFactored(0));
+        return slaveMetadata.getColumnType(slaveKeyIndex) == ColumnType.SYMBOL
+                && slaveMetadata.isColumnIndexed(slaveKeyIndex)
+                && (masterKeyType == ColumnType.SYMBOL || masterKeyType == ColumnType.STRING);
+    }
+
     private RecordCursorFactory createAsOfJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -473,7 +627,9 @@ public class SqlCodeGenerator implements Mutable {
     private RecordCursorFactory createHashJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
+            ListColumnFilter masterKeyColumns,
             RecordCursorFactory slave,
+            ListColumnFilter slaveKeyColumns,
             int joinType
     ) {
         /*
@@ -492,14 +648,14 @@ public class SqlCodeGenerator implements Mutable {
         final RecordSink masterKeySink = RecordSinkFactory.getInstance(
                 asm,
                 masterMetadata,
-                listColumnFilterB,
+                masterKeyColumns,
                 true
         );
 
         final RecordSink slaveKeySink = RecordSinkFactory.getInstance(
                 asm,
                 slaveMetadata,
-                listColumnFilterA,
+                slaveKeyColumns,
                 true
         );
 
@@ -507,6 +663,16 @@ public class SqlCodeGenerator implements Mutable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        // inner joins on single symbol column can match master rows by symbol key
+        int masterSymbolKeyIndex = -1;
+        if (masterKeyColumns.getColumnCount() == 1) {
+            final int index = masterKeyColumns.getColumnIndexFactored(0);
+            // keys are only comparable between rows when they all come from one symbol table
+            if (masterMetadata.getColumnType(index) == ColumnType.SYMBOL && masterMetadata.isSymbolTableStatic(index)) {
+                masterSymbolKeyIndex = index;
+            }
+        }
+
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == QueryModel.JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
@@ -518,7 +684,8 @@ public class SqlCodeGenerator implements Mutable {
                         valueTypes,
                         masterKeySink,
                         slaveKeySink,
-                        masterMetadata.getColumnCount()
+                        masterMetadata.getColumnCount(),
+                        masterSymbolKeyIndex
                 );
             }
 
@@ -554,7 +721,8 @@ public class SqlCodeGenerator implements Mutable {
                     masterKeySink,
                     slaveKeySink,
                     slaveSink,
-                    masterMetadata.getColumnCount()
+                    masterMetadata.getColumnCount(),
+                    masterSymbolKeyIndex
             );
         }
 
@@ -663,8 +831,37 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private void addReadTableName(CharSequence tableName) {
+        for (int i = 0, n = readTableNames.size(); i < n; i++) {
+            if (Chars.equals(readTableNames.getQuick(i), tableName)) {
+                return;
+            }
+        }
+        readTableNames.add(Chars.toString(tableName));
+    }
+
     RecordCursorFactory generate(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
-        return generateQuery(model, executionContext, true);
+        final RecordCursorFactory factory = generateQuery(model, executionContext, true);
+        // functions are known only when the whole query is generated, those that
+        // are not deterministic can share state that is unsafe to use concurrently
+        if (!functionParser.isDeterministic()) {
+            for (int i = 0, n = exchangeFactories.size(); i < n; i++) {
+                exchangeFactories.getQuick(i).setParallel(false);
+            }
+        }
+        return factory;
+    }
+
+    private RecordCursorFactory generateExchange(RecordCursorFactory factory) {
+        final RecordMetadata metadata = factory.getMetadata();
+        entityColumnFilter.of(metadata.getColumnCount());
+        final ExchangeRecordCursorFactory exchangeFactory = new ExchangeRecordCursorFactory(
+                configuration,
+                factory,
+                RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, false)
+        );
+        exchangeFactories.add(exchangeFactory);
+        return exchangeFactory;
     }
 
     private RecordCursorFactory generateFilter(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
@@ -694,6 +891,7 @@ public class SqlCodeGenerator implements Mutable {
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
         final Function function = model.getTableNameFunction();
         assert function != null;
+        cursorFunctionUsed = true;
         if (function.getType() != ColumnType.CURSOR) {
             throw SqlException.position(model.getTableName().position).put("function must return CURSOR [actual=").put(ColumnType.nameOf(function.getType())).put(']');
         }
@@ -705,6 +903,7 @@ public class SqlCodeGenerator implements Mutable {
         IntList ordered = model.getOrderedJoinModels();
         RecordCursorFactory master = null;
         CharSequence masterAlias = null;
+        final boolean timestampRequired = executionContext.isTimestampRequired();
 
         try {
             int n = ordered.size();
@@ -753,6 +952,8 @@ public class SqlCodeGenerator implements Mutable {
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
                                 if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
+                                        final boolean indexed = isIndexedAsOfJoinSupported(slave, masterMetadata, slaveMetadata);
+                                        final RecordCursorFactory masterFactory = master;
                                         master = createAsOfJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                 master,
@@ -771,6 +972,17 @@ public class SqlCodeGenerator implements Mutable {
                                                 ),
                                                 masterMetadata.getColumnCount()
                                         );
+                                        if (indexed) {
+                                            master = new AsOfJoinIndexedRecordCursorFactory(
+                                                    master.getMetadata(),
+                                                    (AsOfJoinLightRecordCursorFactory) master,
+                                                    masterFactory,
+                                                    slave,
+                                                    listColumnFilterB.getColumnIndexFactored(0),
+                                                    listColumnFilterA.getColumnIndexFactored(0),
+                                                    masterMetadata.getColumnCount()
+                                            );
+                                        }
                                     } else {
                                         master = new AsOfJoinNoKeyRecordCursorFactory(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -867,12 +1079,56 @@ public class SqlCodeGenerator implements Mutable {
                                 break;
                             default:
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                                master = createHashJoin(
-                                        createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
-                                        master,
-                                        slave,
-                                        joinType
-                                );
+                                if (
+                                        joinType == QueryModel.JOIN_INNER
+                                                && i == 1
+                                                && !timestampRequired
+                                                && isBuildSideLarger(joinModels.getQuick(ordered.getQuick(0)), slaveModel)
+                                ) {
+                                    // hash table is built from the slave, build it from the smaller master instead
+                                    // and restore column order of the written join on top
+                                    final int masterColumnCount = masterMetadata.getColumnCount();
+                                    final int slaveColumnCount = slaveMetadata.getColumnCount();
+                                    final IntList columnCrossIndex = new IntList(masterColumnCount + slaveColumnCount);
+                                    for (int k = 0; k < masterColumnCount; k++) {
+                                        columnCrossIndex.add(slaveColumnCount + k);
+                                    }
+                                    for (int k = 0; k < slaveColumnCount; k++) {
+                                        columnCrossIndex.add(k);
+                                    }
+                                    // swapped join is ordered by slave rows, it does not have timestamp
+                                    master = new SwappedJoinRecordCursorFactory(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata, -1),
+                                            columnCrossIndex,
+                                            createHashJoin(
+                                                    createJoinMetadata(slaveModel.getName(), slaveMetadata, masterAlias, masterMetadata, -1),
+                                                    slave,
+                                                    listColumnFilterA,
+                                                    master,
+                                                    listColumnFilterB,
+                                                    joinType
+                                            )
+                                    );
+                                } else {
+                                    if (
+                                            joinType == QueryModel.JOIN_INNER
+                                                    && i == 1
+                                                    && configuration.isSqlExchangeEnabled()
+                                                    && isAggregate(joinModels.getQuick(ordered.getQuick(0)))
+                                                    && isAggregate(slaveModel)
+                                    ) {
+                                        // master aggregation is computed on the worker pool while slave is hashed
+                                        master = generateExchange(master);
+                                    }
+                                    master = createHashJoin(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            listColumnFilterB,
+                                            slave,
+                                            listColumnFilterA,
+                                            joinType
+                                    );
+                                }
                                 masterAlias = null;
                                 break;
                         }
@@ -1081,6 +1337,16 @@ public class SqlCodeGenerator implements Mutable {
                         prefixes
                 );
             }
+
+            if (filter == null) {
+                return new LatestByAllSymbolRecordCursorFactory(
+                        configuration,
+                        metadata,
+                        dataFrameCursorFactory,
+                        latestByIndex,
+                        columnIndexes
+                );
+            }
         }
 
         return new LatestByAllFilteredRecordCursorFactory(
@@ -1323,6 +1589,16 @@ public class SqlCodeGenerator implements Mutable {
 
             final int fillCount = sampleByFill.size();
             try {
+                if (
+                        (fillCount == 0 || fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "none"))
+                                && timezoneName == null
+                                && offset == null
+                                && factory.supportPageFrameCursor()
+                                && assembleSampleByFunctionReferences(model.getColumns(), metadata, timestampIndex)
+                ) {
+                    return generateSampleByVector(model, factory, timestampSampler, timestampIndex, executionContext);
+                }
+
                 keyTypes.clear();
                 valueTypes.clear();
                 listColumnFilterA.clear();
@@ -1561,6 +1837,53 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    private RecordCursorFactory generateSampleByVector(
+            QueryModel model,
+            RecordCursorFactory factory,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            SqlExecutionContext executionContext
+    ) {
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final GenericRecordMetadata meta = new GenericRecordMetadata();
+        final int timestampIndexInThis = tempKeyIndex.size() > 0 ? tempKeyIndex.getQuick(0) : -1;
+
+        for (int i = 0, n = tempVecConstructors.size(); i < n; i++) {
+            VectorAggregateFunctionConstructor constructor = tempVecConstructors.getQuick(i);
+            int indexInBase = tempVecConstructorArgIndexes.getQuick(i);
+            int indexInThis = tempAggIndex.getQuick(i);
+            VectorAggregateFunction vaf = constructor.create(0, indexInBase, executionContext.getWorkerCount());
+            tempVaf.add(vaf);
+            meta.add(indexInThis,
+                    new TableColumnMetadata(
+                            Chars.toString(columns.getQuick(indexInThis).getName()),
+                            vaf.getType(),
+                            null
+                    )
+            );
+        }
+
+        if (timestampIndexInThis != -1) {
+            meta.add(timestampIndexInThis,
+                    new TableColumnMetadata(
+                            Chars.toString(columns.getQuick(timestampIndexInThis).getName()),
+                            ColumnType.TIMESTAMP,
+                            null
+                    )
+            );
+            meta.setTimestampIndex(timestampIndexInThis);
+        }
+
+        return new SampleByFillNoneNotKeyedVectorRecordCursorFactory(
+                factory,
+                meta,
+                timestampSampler,
+                tempVaf,
+                timestampIndex,
+                timestampIndexInThis
+        );
+    }
+
     private RecordCursorFactory generateSelect(
             QueryModel model,
             SqlExecutionContext executionContext,
@@ -1651,13 +1974,18 @@ public class SqlCodeGenerator implements Mutable {
 
         // todo: these ar transient list, we can cache and reuse
         final ObjList<TableColumnMetadata> deferredAnalyticMetadata = new ObjList<>();
+        // analytic functions at their column indexes
+        final ObjList<AnalyticFunction> functionsByColumn = new ObjList<>();
+        // all functions can be computed while streaming base cursor
+        boolean streaming = true;
 
         for (int i = 0; i < columnCount; i++) {
             final QueryColumn qc = columns.getQuick(i);
             if (qc instanceof AnalyticColumn) {
                 final AnalyticColumn ac = (AnalyticColumn) qc;
                 final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
+                // only lag() and lead() take second argument, which is offset
+                if (ast.paramCount > 2 || (ast.paramCount > 1 && !isLagFunction(ast.token) && !isLeadFunction(ast.token))) {
                     throw SqlException.$(ast.position, "Too many arguments");
                 }
 
@@ -1698,16 +2026,43 @@ public class SqlCodeGenerator implements Mutable {
 
 
                 final int osz = ac.getOrderBy().size();
+                final VirtualRecord orderByRecord;
+                int timestampIndex = -1;
+                if (osz > 0) {
+                    final ObjList<Function> orderBy = new ObjList<>(osz);
+                    for (int j = 0; j < osz; j++) {
+                        orderBy.add(
+                                functionParser.parseFunction(ac.getOrderBy().getQuick(j), chainMetadata, executionContext)
+                        );
+                    }
+                    orderByRecord = new VirtualRecord(orderBy);
+
+                    if (osz == 1
+                            && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING
+                            && orderBy.getQuick(0).getType() == ColumnType.TIMESTAMP) {
+                        timestampIndex = chainMetadata.getColumnIndexQuiet(ac.getOrderBy().getQuick(0).token);
+                    }
+                } else {
+                    orderByRecord = null;
+                }
+
+                if (ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE && timestampIndex == -1) {
+                    throw SqlException.$(ac.getFramePosition(), "RANGE frame requires ORDER BY timestamp column");
+                }
+
                 executionContext.configureAnalyticContext(
                         partitionByRecord,
                         partitionBySink,
                         keyTypes,
                         osz > 0,
-                        base.recordCursorSupportsRandomAccess()
+                        base.recordCursorSupportsRandomAccess(),
+                        orderByRecord,
+                        ac.getFramingMode(),
+                        ac.getFrameLo(),
+                        timestampIndex
                 );
 
-                final Function f = functionParser.parseFunction(ac.getAst(), baseMetadata, executionContext);
-                // todo: throw an error when non-analytic function is called in analytic context
+                final Function f = functionParser.parseAnalyticFunction(ac.getAst(), chainMetadata, executionContext);
                 assert f instanceof AnalyticFunction;
                 AnalyticFunction analyticFunction = (AnalyticFunction) f;
 
@@ -1726,10 +2081,12 @@ public class SqlCodeGenerator implements Mutable {
                         }
                     }
                 } else {
-                    dismissOrder = false;
+                    // base cursor is already ordered by its designated timestamp
+                    dismissOrder = timestampIndex != -1 && listColumnFilterB.getQuick(timestampIndex) == baseMetadata.getTimestampIndex();
                 }
 
                 if (osz > 0 && !dismissOrder) {
+                    streaming = false;
                     IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
                     ObjList<AnalyticFunction> funcs = grouppedAnalytic.get(order);
                     if (funcs == null) {
@@ -1744,6 +2101,8 @@ public class SqlCodeGenerator implements Mutable {
                 }
 
                 analyticFunction.setColumnIndex(i);
+                functionsByColumn.extendAndSet(i, analyticFunction);
+                streaming &= analyticFunction.getPassCount() == AnalyticFunction.STREAM;
 
                 deferredAnalyticMetadata.extendAndSet(i, new TableColumnMetadata(
                         Chars.toString(qc.getAlias()),
@@ -1767,6 +2126,15 @@ public class SqlCodeGenerator implements Mutable {
             }
         }
 
+        if (streaming) {
+            final int chainColumnCount = chainTypes.getColumnCount();
+            final IntList columnCrossIndex = new IntList(chainColumnCount);
+            for (int i = 0; i < chainColumnCount; i++) {
+                columnCrossIndex.add(functionsByColumn.getQuiet(i) == null ? listColumnFilterB.getQuick(i) : -1);
+            }
+            return new AnalyticRecordCursorFactory(base, factoryMetadata, columnCrossIndex, functionsByColumn);
+        }
+
         final ObjList<RecordComparator> analyticComparators = new ObjList<>(grouppedAnalytic.size());
         final ObjList<ObjList<AnalyticFunction>> functionGroups = new ObjList<>(grouppedAnalytic.size());
         for (ObjObjHashMap.Entry<IntList, ObjList<AnalyticFunction>> e : grouppedAnalytic) {
@@ -1913,6 +2281,9 @@ public class SqlCodeGenerator implements Mutable {
 
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
         try {
+            if (isSymbolKeyDistinct(factory.getMetadata())) {
+                return new DistinctSymbolKeyRecordCursorFactory(configuration, factory);
+            }
             if (factory.recordCursorSupportsRandomAccess() && factory.getMetadata().getTimestampIndex() != -1) {
                 return new DistinctTimeSeriesRecordCursorFactory(
                         configuration,
@@ -2310,6 +2681,7 @@ public class SqlCodeGenerator implements Mutable {
             SqlExecutionContext executionContext
     ) throws SqlException {
         final ObjList<ExpressionNode> latestBy = model.getLatestBy();
+        addReadTableName(model.getTableName().token);
 
         try (TableReader reader = engine.getReader(
                 executionContext.getCairoSecurityContext(),
@@ -2336,6 +2708,10 @@ public class SqlCodeGenerator implements Mutable {
                 throw e;
             }
 
+            if (configuration.getSqlJoinBuildSideRowRatio() > 0) {
+                model.setRowCountEstimate(rowCountEstimator.estimate(reader, model.getWhereClause(), readerTimestampIndex));
+            }
+
             boolean requiresTimestamp = joinsRequiringTimestamp[model.getJoinType()];
             final GenericRecordMetadata myMeta = new GenericRecordMetadata();
             boolean framingSupported;
@@ -2751,6 +3127,16 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
+            if (latestByColumnCount == 1 && myMeta.getColumnType(listColumnFilterA.getColumnIndexFactored(0)) == ColumnType.SYMBOL) {
+                return new LatestByAllSymbolRecordCursorFactory(
+                        configuration,
+                        myMeta,
+                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
+                        listColumnFilterA.getColumnIndexFactored(0),
+                        columnIndexes
+                );
+            }
+
             return new LatestByAllFilteredRecordCursorFactory(
                     myMeta,
                     configuration,
@@ -2770,6 +3156,14 @@ public class SqlCodeGenerator implements Mutable {
             RecordCursorFactory slaveFactory
     ) throws SqlException {
         validateJoinColumnTypes(model, masterFactory, slaveFactory);
+        if (configuration.isSqlExchangeEnabled()) {
+            // branches of union all chain are prefetched in parallel, master of the next
+            // union in the chain is the union itself, its branches are already prefetched
+            if (!(masterFactory instanceof UnionAllRecordCursorFactory)) {
+                masterFactory = generateExchange(masterFactory);
+            }
+            slaveFactory = generateExchange(slaveFactory);
+        }
         final RecordCursorFactory unionAllFactory = new UnionAllRecordCursorFactory(
                 calculateSetMetadata(masterFactory.getMetadata()),
                 masterFactory,
@@ -35,6 +35,7 @@ import io.questdb.griffin.engine.functions.catalogue.ShowSearchPathCursorFactory
 import io.questdb.griffin.engine.functions.catalogue.ShowStandardConformingStringsCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowTimeZoneFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowTransactionIsolationLevelCursorFactory;
+import io.questdb.griffin.engine.mv.MatViewDefinition;
 import io.questdb.griffin.engine.table.ShowColumnsRecordCursorFactory;
 import io.questdb.griffin.engine.table.TableListRecordCursorFactory;
 import io.questdb.griffin.model.*;
@@ -698,6 +699,20 @@ public class SqlCompiler implements Closeable {
         return functionParser.getFunctionFactoryCache();
     }
 
+    /**
+     * @return names of tables read by the last compiled query
+     */
+    public ObjList<String> getReadTableNames() {
+        return codeGenerator.getReadTableNames();
+    }
+
+    /**
+     * @return true when result of the last compiled query can be cached until tables it reads change
+     */
+    public boolean isResultCacheable() {
+        return codeGenerator.isResultCacheable();
+    }
+
     private static boolean isCompatibleCase(int from, int to) {
         return castGroups.getQuick(from) == castGroups.getQuick(to);
     }
@@ -1281,6 +1296,7 @@ public class SqlCompiler implements Closeable {
         queryModelPool.clear();
         optimiser.clear();
         parser.clear();
+        codeGenerator.clear();
     }
 
     private void cloneMetaData(CharSequence tableName, CharSequence backupRoot, int mkDirMode, TableReader reader) {
@@ -1581,6 +1597,8 @@ public class SqlCompiler implements Closeable {
                     if (createTableModel.getQueryModel() == null) {
                         engine.createTableUnsafe(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
                         newTable = true;
+                    } else if (createTableModel.isMatView()) {
+                        writer = createMatView(createTableModel, executionContext);
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
                     }
@@ -1598,6 +1616,35 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCreateTable();
     }
 
+    private TableWriter createMatView(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        final MatViewDefinition definition = MatViewDefinition.of(model);
+
+        // base table txn is taken before view is populated, view data can only be the same or newer
+        final long baseTxn;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), definition.getBaseTableName())) {
+            baseTxn = reader.getTxn();
+        }
+
+        final TableWriter writer = createTableFromCursor(model, executionContext);
+        try {
+            path.of(configuration.getRoot()).concat(model.getName().token).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+            mem.of(ff, path, ff.getPageSize());
+            try {
+                definition.writeTo(mem, baseTxn);
+            } finally {
+                mem.close();
+            }
+            return writer;
+        } catch (CairoException e) {
+            writer.close();
+            LOG.error().$("could not write materialized view definition [path=").$(path).$(", e=").$((Sinkable) e).$(']').$();
+            if (removeTableDirectory(model)) {
+                throw e;
+            }
+            throw SqlException.$(0, "Could not create materialized view and clean up. See log for more details.");
+        }
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
              final RecordCursor cursor = factory.getCursor(executionContext)
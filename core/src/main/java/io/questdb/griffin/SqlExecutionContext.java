@@ -74,7 +74,11 @@ public interface SqlExecutionContext extends Closeable {
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes keyTypes,
             boolean isOrdered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            @Nullable VirtualRecord orderByRecord,
+            int framingMode,
+            long frameLo,
+            int timestampIndex
     );
 
     void initNow();
@@ -30,6 +30,7 @@ import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -217,6 +218,13 @@ public final class SqlParser {
         throw SqlException.$((lexer.lastTokenPosition()), "'offset' expected");
     }
 
+    private void expectPreceding(GenericLexer lexer) throws SqlException {
+        if (isPrecedingKeyword(tok(lexer, "'preceding'"))) {
+            return;
+        }
+        throw SqlException.$((lexer.lastTokenPosition()), "'preceding' expected");
+    }
+
     private CharSequence expectTableNameOrSubQuery(GenericLexer lexer) throws SqlException {
         return tok(lexer, "table name or sub-query");
     }
@@ -289,6 +297,28 @@ public final class SqlParser {
         return index;
     }
 
+    private static long getTimeUnitMicros(CharSequence tok) {
+        if (Chars.equalsLowerCaseAscii(tok, "microsecond") || Chars.equalsLowerCaseAscii(tok, "microseconds")) {
+            return 1;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "millisecond") || Chars.equalsLowerCaseAscii(tok, "milliseconds")) {
+            return Timestamps.MILLI_MICROS;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "second") || Chars.equalsLowerCaseAscii(tok, "seconds")) {
+            return Timestamps.SECOND_MICROS;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "minute") || Chars.equalsLowerCaseAscii(tok, "minutes")) {
+            return Timestamps.MINUTE_MICROS;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "hour") || Chars.equalsLowerCaseAscii(tok, "hours")) {
+            return Timestamps.HOUR_MICROS;
+        }
+        if (Chars.equalsLowerCaseAscii(tok, "day") || Chars.equalsLowerCaseAscii(tok, "days")) {
+            return Timestamps.DAY_MICROS;
+        }
+        return 0;
+    }
+
     private boolean isFieldTerm(CharSequence tok) {
         return Chars.equals(tok, ')') || Chars.equals(tok, ',');
     }
@@ -364,6 +394,64 @@ public final class SqlParser {
         return model;
     }
 
+    private CharSequence parseAnalyticFrame(GenericLexer lexer, AnalyticColumn col, CharSequence tok) throws SqlException {
+        final int framePosition = lexer.lastTokenPosition();
+        final int framingMode = isRowsKeyword(tok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE;
+
+        tok = tok(lexer, "'between', 'unbounded', 'current' or number");
+        final boolean between = isBetweenKeyword(tok);
+        if (between) {
+            tok = tok(lexer, "'unbounded', 'current' or number");
+        }
+
+        final long frameLo;
+        if (isUnboundedKeyword(tok)) {
+            expectPreceding(lexer);
+            frameLo = AnalyticColumn.FRAME_UNBOUNDED;
+        } else if (isCurrentKeyword(tok)) {
+            expectTok(lexer, "row");
+            frameLo = 0;
+        } else {
+            final int offsetPosition = lexer.lastTokenPosition();
+            long offset;
+            try {
+                offset = Numbers.parseLong(tok);
+            } catch (NumericException e) {
+                offset = -1;
+            }
+            if (offset < 0) {
+                throw SqlException.$(offsetPosition, "'unbounded', 'current' or non-negative number expected");
+            }
+            if (framingMode == AnalyticColumn.FRAMING_RANGE) {
+                final long unit = getTimeUnitMicros(tok(lexer, "time unit"));
+                if (unit == 0) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "time unit expected");
+                }
+                if (offset > Long.MAX_VALUE / unit - 1) {
+                    throw SqlException.$(offsetPosition, "frame range is too large");
+                }
+                offset *= unit;
+            }
+            expectPreceding(lexer);
+            frameLo = offset;
+        }
+
+        if (between) {
+            tok = tok(lexer, "'and'");
+            if (!isAndKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'and' expected");
+            }
+            tok = tok(lexer, "'current'");
+            if (!isCurrentKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "only 'current row' is supported as frame end");
+            }
+            expectTok(lexer, "row");
+        }
+
+        col.setFrame(framingMode, frameLo, framePosition);
+        return tok(lexer, "')'");
+    }
+
     private QueryModel parseAsSubQueryAndExpectClosingBrace(GenericLexer lexer, LowerCaseCharSequenceObjHashMap<WithClauseModel> withClauses) throws SqlException {
         final QueryModel model = parseAsSubQuery(lexer, withClauses);
         expectTok(lexer, ')');
@@ -404,12 +492,21 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
-        expectTok(lexer, "table");
-        return parseCreateTable(lexer, executionContext);
+        final CharSequence tok = optTok(lexer);
+        if (tok != null && isMaterializedKeyword(tok)) {
+            expectTok(lexer, "view");
+            return parseCreateTable(lexer, executionContext, true);
+        }
+        if (tok == null) {
+            throw SqlException.position(lexer.getPosition()).put("'table' expected");
+        }
+        expectTok(lexer, tok, "table");
+        return parseCreateTable(lexer, executionContext, false);
     }
 
-    private ExecutionModel parseCreateTable(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+    private ExecutionModel parseCreateTable(GenericLexer lexer, SqlExecutionContext executionContext, boolean matView) throws SqlException {
         final CreateTableModel model = createTableModelPool.next();
+        model.setMatView(matView);
         final CharSequence tableName;
         CharSequence tok = tok(lexer, "table name or 'if'");
         if (SqlKeywords.isIfKeyword(tok)) {
@@ -425,9 +522,9 @@ public final class SqlParser {
 
         model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tableName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
 
-        tok = tok(lexer, "'(' or 'as'");
+        tok = tok(lexer, matView ? "'as'" : "'(' or 'as'");
 
-        if (Chars.equals(tok, '(')) {
+        if (Chars.equals(tok, '(') && !matView) {
             lexer.unparse();
             parseCreateTableColumns(lexer, model);
         } else if (isAsKeyword(tok)) {
@@ -502,6 +599,7 @@ public final class SqlParser {
 
     private void parseCreateTableAsSelect(GenericLexer lexer, CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
         QueryModel queryModel = optimiser.optimise(parseDml(lexer, null), executionContext);
         ObjList<QueryColumn> columns = queryModel.getBottomUpColumns();
         assert columns.size() > 0;
@@ -514,6 +612,10 @@ public final class SqlParser {
 
         model.setQueryModel(queryModel);
         expectTok(lexer, ')');
+        if (model.isMatView()) {
+            // view is refreshed by re-running its query, keep query text as it was written
+            model.setMatViewQuery(Chars.toString(lexer.getContent().subSequence(queryLo, lexer.lastTokenPosition())));
+        }
     }
 
     private void parseCreateTableCastDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
@@ -1284,6 +1386,10 @@ public final class SqlParser {
                         }
                     } while (Chars.equals(tok, ','));
                 }
+
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    tok = parseAnalyticFrame(lexer, (AnalyticColumn) col, tok);
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Misc;
+import io.questdb.tasks.ExchangeTask;
+
+/**
+ * Opens base cursor on the worker pool and prefetches its output into bounded buffer while the
+ * query thread is busy elsewhere, for example with the preceding branch of UNION ALL. Records are
+ * returned in base cursor order: buffered records first, then the rest of base cursor, which is
+ * read by the consuming thread directly. Thread waiting for prefetch helps to drain the queue,
+ * which makes progress guaranteed without workers.
+ */
+public class ExchangeRecordCursor implements NoRandomAccessRecordCursor {
+    private final RecordCursorFactory base;
+    private final RecordChain chain;
+    private final long maxBufferSize;
+    private final DelegatingRecordImpl record = new DelegatingRecordImpl();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private SqlExecutionContext executionContext;
+    private MessageBus messageBus;
+    private RecordCursor baseCursor;
+    private Throwable error;
+    private boolean parallel = true;
+    private boolean published;
+    private boolean buffered;
+    private boolean started;
+
+    ExchangeRecordCursor(CairoConfiguration configuration, RecordCursorFactory base, RecordSink recordSink) {
+        this.base = base;
+        final int pageSize = configuration.getSqlExchangePageSize();
+        this.maxBufferSize = (long) pageSize * configuration.getSqlExchangeMaxPages();
+        // buffer size is checked before each record is added, the last record may go over it
+        this.chain = new RecordChain(base.getMetadata(), recordSink, pageSize, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        awaitPrefetch();
+        baseCursor = Misc.free(baseCursor);
+        chain.clear();
+        executionContext = null;
+        error = null;
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        awaitBaseCursor();
+        return baseCursor.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        start();
+        if (buffered) {
+            if (chain.hasNext()) {
+                return true;
+            }
+            switchToBase();
+        }
+        return baseCursor.hasNext();
+    }
+
+    @Override
+    public long size() {
+        awaitBaseCursor();
+        return baseCursor.size();
+    }
+
+    @Override
+    public void toTop() {
+        // union calls toTop() right after the cursor is opened, it must not wait for prefetch
+        if (started) {
+            if (buffered) {
+                switchToBase();
+            }
+            baseCursor.toTop();
+        }
+    }
+
+    /**
+     * Called by whichever thread picked the task from the queue: opens base cursor and copies its
+     * records into the buffer until the buffer is full or base cursor is exhausted.
+     */
+    public void prefetch() {
+        try {
+            final RecordCursor cursor = base.getCursor(executionContext);
+            baseCursor = cursor;
+            chain.setSymbolTableResolver(cursor);
+            final Record baseRecord = cursor.getRecord();
+            long offset = -1;
+            while (chain.getMemorySize() < maxBufferSize && cursor.hasNext()) {
+                offset = chain.put(baseRecord, offset);
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            doneLatch.countDown();
+        }
+    }
+
+    void of(SqlExecutionContext executionContext) throws SqlException {
+        this.executionContext = executionContext;
+        this.started = false;
+        this.buffered = false;
+        this.published = false;
+        this.error = null;
+
+        messageBus = executionContext.getMessageBus();
+        if (parallel && messageBus != null) {
+            final Sequence pubSeq = messageBus.getExchangePubSeq();
+            final long seq = pubSeq.next();
+            if (seq > -1) {
+                doneLatch.reset();
+                messageBus.getExchangeQueue().get(seq).of(this);
+                pubSeq.done(seq);
+                published = true;
+                return;
+            }
+        }
+
+        // queue is full, base cursor is read by the consuming thread
+        baseCursor = base.getCursor(executionContext);
+        record.of(baseCursor.getRecord());
+    }
+
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    private void awaitPrefetch() {
+        if (published) {
+            published = false;
+            final RingQueue<ExchangeTask> queue = messageBus.getExchangeQueue();
+            final Sequence subSeq = messageBus.getExchangeSubSeq();
+            while (doneLatch.getCount() > -1) {
+                final long seq = subSeq.next();
+                if (seq > -1) {
+                    queue.get(seq).run();
+                    subSeq.done(seq);
+                }
+            }
+            buffered = true;
+        }
+    }
+
+    private void awaitBaseCursor() {
+        awaitPrefetch();
+        if (error != null) {
+            throwError();
+        }
+    }
+
+    private void start() {
+        if (!started) {
+            awaitBaseCursor();
+            started = true;
+            if (buffered) {
+                chain.toTop();
+                record.of(chain.getRecord());
+            }
+        }
+    }
+
+    private void switchToBase() {
+        buffered = false;
+        chain.clear();
+        record.of(baseCursor.getRecord());
+    }
+
+    private void throwError() {
+        final Throwable e = error;
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof SqlException) {
+            throw CairoException.instance(0).put(((SqlException) e).getFlyweightMessage());
+        }
+        throw CairoException.instance(0).put(e.getMessage());
+    }
+}
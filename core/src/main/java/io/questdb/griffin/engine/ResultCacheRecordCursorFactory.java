@@ -0,0 +1,275 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Serves query results from {@link ResultCache} when tables query reads are unchanged since the result
+ * was cached. Otherwise streams the result of base cursor, copying rows into the cache as they are read.
+ * Symbols are cached as strings to keep cached result independent of the symbol tables of the readers that
+ * produced it. Copy is dropped when result outgrows maximum entry size or when cursor is closed before all
+ * rows have been read.
+ */
+public class ResultCacheRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ResultCache resultCache;
+    private final String query;
+    private final ObjList<String> tableNames;
+    private final ObjList<TxnNotifier.Sequence> txnSequences = new ObjList<>();
+    private final LongList txnVersions = new LongList();
+    private final LongList tableStates = new LongList();
+    // txn versions of the tables when result last outgrew maximum entry size
+    private final LongList tooLargeTxnVersions = new LongList();
+    private final ColumnTypes chainTypes;
+    private final RecordSink recordSink;
+    private final int pageSize;
+    private final int maxPages;
+    private final ResultCacheRecordCursor cursor = new ResultCacheRecordCursor();
+    private final CachingRecordCursor cachingCursor = new CachingRecordCursor();
+
+    public ResultCacheRecordCursorFactory(
+            CairoConfiguration configuration,
+            ResultCache resultCache,
+            RecordCursorFactory base,
+            CharSequence query,
+            ObjList<String> tableNames,
+            RecordSink recordSink
+    ) {
+        super(base.getMetadata());
+        this.base = base;
+        this.resultCache = resultCache;
+        this.query = query.toString();
+        this.tableNames = new ObjList<>(tableNames);
+        this.chainTypes = new SymbolAsStrTypes(base.getMetadata());
+        this.recordSink = recordSink;
+        this.pageSize = configuration.getResultCachePageSize();
+        this.maxPages = configuration.getResultCacheMaxPages();
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        // table states must be captured before query runs, result can only be newer than them, which
+        // makes such entry stale, but never wrong
+        captureTableStates(executionContext);
+
+        if (txnVersions.size() > 0 && txnVersions.equals(tooLargeTxnVersions)) {
+            // tables are unchanged since result did not fit the cache
+            return base.getCursor(executionContext);
+        }
+
+        final ResultCache.Entry entry = resultCache.acquire(query, txnVersions, tableStates);
+        if (entry != null) {
+            cursor.of(entry);
+            return cursor;
+        }
+        cachingCursor.of(base.getCursor(executionContext));
+        return cachingCursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    private void captureTableStates(SqlExecutionContext executionContext) {
+        final CairoEngine engine = executionContext.getCairoEngine();
+        if (txnSequences.size() == 0) {
+            final TxnNotifier txnNotifier = engine.getTxnNotifier();
+            for (int i = 0, n = tableNames.size(); i < n; i++) {
+                txnSequences.add(txnNotifier.getSequence(tableNames.getQuick(i)));
+            }
+        }
+
+        txnVersions.clear();
+        tableStates.clear();
+        for (int i = 0, n = txnSequences.size(); i < n; i++) {
+            final TxnNotifier.Sequence sequence = txnSequences.getQuick(i);
+            // version has to be read before txn, see TxnNotifier.Sequence.getVersion()
+            final long version = sequence.getVersion();
+            if (sequence.getTxn() == TxnNotifier.TXN_UNKNOWN) {
+                txnVersions.clear();
+                break;
+            }
+            txnVersions.add(version);
+        }
+
+        if (txnVersions.size() == 0) {
+            // at least one table has no open pool writer, only table reader knows its state
+            for (int i = 0, n = tableNames.size(); i < n; i++) {
+                try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableNames.getQuick(i))) {
+                    tableStates.add(reader.getMetadata().getId());
+                    tableStates.add(reader.getVersion());
+                    tableStates.add(reader.getTxn());
+                }
+            }
+        }
+    }
+
+    private class CachingRecordCursor implements RecordCursor {
+        private RecordCursor baseCursor;
+        private Record record;
+        private RecordChain chain;
+        private long offset;
+
+        @Override
+        public void close() {
+            chain = Misc.free(chain);
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                if (chain != null) {
+                    try {
+                        offset = chain.put(record, offset);
+                    } catch (LimitOverflowException e) {
+                        chain = Misc.free(chain);
+                        tooLargeTxnVersions.clear();
+                        tooLargeTxnVersions.add(txnVersions);
+                    }
+                }
+                return true;
+            }
+
+            if (chain != null) {
+                resultCache.put(query, txnVersions, tableStates, chain);
+                chain = null;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return baseCursor.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            baseCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            if (chain != null) {
+                chain.clear();
+                offset = -1;
+            }
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            this.record = baseCursor.getRecord();
+            this.chain = new RecordChain(chainTypes, recordSink, pageSize, maxPages);
+            this.offset = -1;
+        }
+    }
+
+    private class ResultCacheRecordCursor implements RecordCursor {
+        private final RecordChain.Reader reader = new RecordChain.Reader();
+        private ResultCache.Entry entry;
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                reader.close();
+                resultCache.release(entry);
+                entry = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return reader.getRecord();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return reader.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            reader.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            reader.toTop();
+        }
+
+        @Override
+        public long size() {
+            return reader.size();
+        }
+
+        private void of(ResultCache.Entry entry) {
+            this.entry = entry;
+            reader.of(entry.getChain());
+        }
+    }
+}
@@ -38,4 +38,28 @@ public interface AnalyticContext {
     boolean isOrdered();
 
     boolean baseSupportsRandomAccess();
+
+    /**
+     * @return record of "order by" columns of analytic clause or null when clause is not ordered
+     */
+    VirtualRecord getOrderByRecord();
+
+    /**
+     * @return {@link io.questdb.griffin.model.AnalyticColumn#FRAMING_ROWS} or {@link io.questdb.griffin.model.AnalyticColumn#FRAMING_RANGE}
+     */
+    int getFramingMode();
+
+    /**
+     * Frame always ends with current row. Frame start is either number of rows or microseconds
+     * before the current row, depending on framing mode.
+     *
+     * @return frame start or {@link io.questdb.griffin.model.AnalyticColumn#FRAME_UNBOUNDED}
+     */
+    long getFrameLo();
+
+    /**
+     * @return index of timestamp column analytic clause is ordered by in ascending order,
+     * -1 when clause is ordered otherwise
+     */
+    int getTimestampIndex();
 }
@@ -33,6 +33,23 @@ public interface AnalyticFunction extends Function {
     int TWO_PASS = 2;
     int THREE_PASS = 3;
 
+    /**
+     * Computes function value for the next record of the stream. Records are supplied in the order
+     * of analytic clause. Computed value is returned by getters of the function until next call.
+     * Only functions, which pass count is {@link #STREAM}, support this method.
+     *
+     * @param record current record
+     */
+    void computeNext(Record record);
+
+    /**
+     * @return {@link #STREAM} when function value can be computed from the current and preceding
+     * records, so that function can be evaluated without caching the input
+     */
+    default int getPassCount() {
+        return STREAM;
+    }
+
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
     void preparePass2(RecordCursor cursor);
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *    ___                  _   ____  ____
+ *   / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *  | | | | | | |/ _ \/ __| __| | | |  _ \
+ *  | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *   \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ * Copyright (C) 2014-2016 Appsicle
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Record of streaming analytic cursor. Columns are laid out in the same way as in the record
+ * chain of {@link CachedAnalyticRecordCursorFactory}. Analytic columns are served by respective
+ * functions, the other columns are mapped to the columns of base record.
+ */
+class AnalyticRecord implements Record {
+    private final IntList columnCrossIndex;
+    private final ObjList<? extends Function> functions;
+    private Record base;
+
+    AnalyticRecord(IntList columnCrossIndex, ObjList<? extends Function> functions) {
+        this.columnCrossIndex = columnCrossIndex;
+        this.functions = functions;
+    }
+
+    @Override
+    public BinarySequence getBin(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getBin(base);
+        }
+        return base.getBin(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public long getBinLen(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getBinLen(base);
+        }
+        return base.getBinLen(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getBool(base);
+        }
+        return base.getBool(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getByte(base);
+        }
+        return base.getByte(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public char getChar(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getChar(base);
+        }
+        return base.getChar(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public long getDate(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getDate(base);
+        }
+        return base.getDate(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getDouble(base);
+        }
+        return base.getDouble(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getFloat(base);
+        }
+        return base.getFloat(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public int getInt(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getInt(base);
+        }
+        return base.getInt(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getLong(base);
+        }
+        return base.getLong(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public void getLong256(int col, CharSink sink) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            function.getLong256(base, sink);
+            return;
+        }
+        base.getLong256(columnCrossIndex.getQuick(col), sink);
+    }
+
+    @Override
+    public Long256 getLong256A(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getLong256A(base);
+        }
+        return base.getLong256A(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public Long256 getLong256B(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getLong256B(base);
+        }
+        return base.getLong256B(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public Record getRecord(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getRecord(base);
+        }
+        return base.getRecord(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public short getShort(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getShort(base);
+        }
+        return base.getShort(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public CharSequence getStr(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getStr(base);
+        }
+        return base.getStr(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public void getStr(int col, CharSink sink) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            function.getStr(base, sink);
+            return;
+        }
+        base.getStr(columnCrossIndex.getQuick(col), sink);
+    }
+
+    @Override
+    public CharSequence getStrB(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getStrB(base);
+        }
+        return base.getStrB(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public int getStrLen(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getStrLen(base);
+        }
+        return base.getStrLen(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getSymbol(base);
+        }
+        return base.getSym(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public CharSequence getSymB(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getSymbolB(base);
+        }
+        return base.getSymB(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public long getTimestamp(int col) {
+        final Function function = functions.getQuiet(col);
+        if (function != null) {
+            return function.getTimestamp(base);
+        }
+        return base.getTimestamp(columnCrossIndex.getQuick(col));
+    }
+
+    @Override
+    public long getRowId() {
+        return base.getRowId();
+    }
+
+    void of(Record base) {
+        this.base = base;
+    }
+}
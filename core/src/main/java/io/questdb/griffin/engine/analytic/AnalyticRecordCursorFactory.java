@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *    ___                  _   ____  ____
+ *   / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *  | | | | | | |/ _ \/ __| __| | | |  _ \
+ *  | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *   \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ * Copyright (C) 2014-2016 Appsicle
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+
+/**
+ * Computes analytic functions in a single pass over base cursor. Unlike {@link CachedAnalyticRecordCursorFactory}
+ * it does not store base records. It is used when base cursor order matches order of every analytic clause,
+ * for example when clauses are ordered by designated timestamp, and all functions can be computed from the
+ * current and preceding records.
+ */
+public class AnalyticRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<AnalyticFunction> allFunctions;
+    private final AnalyticRecordCursor cursor;
+    private boolean closed = false;
+
+    /**
+     * @param base               base factory
+     * @param metadata           metadata of this factory
+     * @param columnCrossIndex   maps record chain column layout onto base record columns, analytic
+     *                           function arguments are parsed against this layout
+     * @param functionsByColumn  analytic functions at respective column indexes and nulls for other columns
+     */
+    public AnalyticRecordCursorFactory(
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            @Transient IntList columnCrossIndex,
+            @Transient ObjList<AnalyticFunction> functionsByColumn
+    ) {
+        this.base = base;
+        this.metadata = metadata;
+        this.allFunctions = new ObjList<>();
+        final ObjList<AnalyticFunction> functions = new ObjList<>(functionsByColumn.size());
+        for (int i = 0, n = functionsByColumn.size(); i < n; i++) {
+            final AnalyticFunction function = functionsByColumn.getQuick(i);
+            functions.add(function);
+            if (function != null) {
+                allFunctions.add(function);
+            }
+        }
+        final IntList crossIndex = new IntList(columnCrossIndex.size());
+        crossIndex.addAll(columnCrossIndex);
+        this.cursor = new AnalyticRecordCursor(new AnalyticRecord(crossIndex, functions), crossIndex);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        Misc.free(base);
+        Misc.freeObjList(allFunctions);
+        closed = true;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            allFunctions.getQuick(i).reset();
+        }
+        cursor.of(base.getCursor(executionContext));
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private class AnalyticRecordCursor implements NoRandomAccessRecordCursor {
+        private final AnalyticRecord record;
+        private final IntList columnCrossIndex;
+        private RecordCursor baseCursor;
+
+        public AnalyticRecordCursor(AnalyticRecord record, IntList columnCrossIndex) {
+            this.record = record;
+            this.columnCrossIndex = columnCrossIndex;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = allFunctions.size(); i < n; i++) {
+                    allFunctions.getQuick(i).computeNext(record);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            for (int i = 0, n = allFunctions.size(); i < n; i++) {
+                allFunctions.getQuick(i).reset();
+            }
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            record.of(baseCursor.getRecord());
+        }
+    }
+}
@@ -169,6 +169,11 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
             }
         }
 
+        // functions complete values of rows, which depend on rows that follow them
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            allFunctions.getQuick(i).preparePass2(recordChain);
+        }
+
         recordChain.toTop();
         return recordChain;
     }
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+
+import java.io.Closeable;
+
+/**
+ * Off-heap map of analytic function state keyed by "partition by" values of the current record.
+ * When analytic clause has no "partition by", all records share single map value.
+ */
+class AnalyticPartitionMap implements Mutable, Closeable {
+    private static final SingleColumnType NO_PARTITION_KEY_TYPE = new SingleColumnType(ColumnType.INT);
+    private final Map map;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+
+    AnalyticPartitionMap(CairoConfiguration configuration, AnalyticContext analyticContext, ColumnTypes valueTypes) {
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        this.map = MapFactory.createMap(
+                configuration,
+                partitionByRecord != null ? analyticContext.getPartitionByKeyTypes() : NO_PARTITION_KEY_TYPE,
+                valueTypes
+        );
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        if (partitionByRecord != null) {
+            Misc.freeObjList(partitionByRecord.getFunctions());
+        }
+    }
+
+    /**
+     * @return cursor over states of all partitions, records of the cursor are {@link io.questdb.cairo.map.MapRecord}
+     */
+    RecordCursor getCursor() {
+        return map.getCursor();
+    }
+
+    /**
+     * @param record current record
+     * @return state of partition the record belongs to, {@link MapValue#isNew()} is true for the first
+     * record of the partition
+     */
+    MapValue getValue(Record record) {
+        final MapKey key = map.withKey();
+        if (partitionByRecord != null) {
+            partitionByRecord.of(record);
+            key.put(partitionByRecord, partitionBySink);
+        } else {
+            key.putInt(0);
+        }
+        return key.createValue();
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Rows of RANGE frame with equal ORDER BY timestamp are peers. Frame of every peer ends with the last of them,
+ * so all peers share the value computed for the last one. Record chain offsets of the current peer group are
+ * kept in per-partition ring buffer and the value is written to all of them once the group is complete, i.e.
+ * when partition moves on to the next timestamp or when input is exhausted. State of the group is kept by the
+ * caller in {@link #STATE_SIZE} consecutive long values of partition map value.
+ */
+class AnalyticPeerGroups implements Mutable, Closeable {
+    // number of map values taken by peer group state
+    static final int STATE_SIZE = 2 + AnalyticRingBuffers.STATE_SIZE;
+    private static final int TIMESTAMP = 0;
+    private static final int VALUE = 1;
+    private static final int RING = 2;
+    private final AnalyticRingBuffers offsets;
+
+    AnalyticPeerGroups(CairoConfiguration configuration) {
+        this.offsets = new AnalyticRingBuffers(Long.BYTES, configuration.getSqlAnalyticStorePageSize() / Long.BYTES);
+    }
+
+    static void addValueTypes(ArrayColumnTypes valueTypes) {
+        for (int i = 0; i < STATE_SIZE; i++) {
+            valueTypes.add(ColumnType.LONG);
+        }
+    }
+
+    /**
+     * Adds row to the peer group of its partition, completing previous group when timestamp has changed.
+     *
+     * @param mapValue     partition state
+     * @param index        index of peer group state in partition state
+     * @param timestamp    ORDER BY timestamp of the row
+     * @param recordOffset record chain offset of the row
+     * @param value        raw 64-bit function value computed for the row
+     * @param spi          record chain
+     * @param columnIndex  index of function column in record chain
+     */
+    void add(MapValue mapValue, int index, long timestamp, long recordOffset, long value, AnalyticSPI spi, int columnIndex) {
+        if (mapValue.isNew()) {
+            offsets.init(mapValue, index + RING, AnalyticRingBuffers.INITIAL_BUFFER_SIZE);
+        } else if (mapValue.getLong(index + TIMESTAMP) != timestamp) {
+            complete(mapValue, index, spi, columnIndex);
+        }
+        Unsafe.getUnsafe().putLong(offsets.addLast(mapValue, index + RING), recordOffset);
+        mapValue.putLong(index + TIMESTAMP, timestamp);
+        mapValue.putLong(index + VALUE, value);
+    }
+
+    @Override
+    public void clear() {
+        offsets.clear();
+    }
+
+    @Override
+    public void close() {
+        offsets.close();
+    }
+
+    /**
+     * Completes peer groups of all partitions, to be called when input is exhausted.
+     */
+    void completeAll(AnalyticPartitionMap map, int index, AnalyticSPI spi, int columnIndex) {
+        final RecordCursor cursor = map.getCursor();
+        final MapRecord record = (MapRecord) cursor.getRecord();
+        while (cursor.hasNext()) {
+            complete(record.getValue(), index, spi, columnIndex);
+        }
+    }
+
+    private void complete(MapValue mapValue, int index, AnalyticSPI spi, int columnIndex) {
+        final long value = mapValue.getLong(index + VALUE);
+        final int ring = index + RING;
+        while (offsets.size(mapValue, ring) > 0) {
+            final long recordOffset = Unsafe.getUnsafe().getLong(offsets.firstAddress(mapValue, ring));
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
+            offsets.removeFirst(mapValue, ring);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+import java.io.Closeable;
+
+/**
+ * Off-heap memory for per-partition ring buffers of fixed size entries. Buffers are allocated one after
+ * another. State of the buffer is kept by the caller in four consecutive long values of partition map value:
+ * offset of buffer in this memory, capacity, index of the first entry and entry count. Buffer that runs out of
+ * capacity is copied to the end of memory with twice the capacity, space it occupied is not reused until
+ * memory is cleared.
+ */
+class AnalyticRingBuffers implements Mutable, Closeable {
+    // number of map values taken by ring buffer state
+    static final int STATE_SIZE = 4;
+    static final long INITIAL_BUFFER_SIZE = 16;
+    private static final int OFFSET = 0;
+    private static final int CAPACITY = 1;
+    private static final int FIRST = 2;
+    private static final int SIZE = 3;
+    private final long entrySize;
+    private long address;
+    private long capacity;
+    private long size;
+
+    AnalyticRingBuffers(long entrySize, long initialEntryCount) {
+        this.entrySize = entrySize;
+        this.capacity = entrySize * initialEntryCount;
+        this.address = Unsafe.malloc(capacity);
+    }
+
+    /**
+     * Frame key of the current record. Rows frame is keyed by row sequence number within partition,
+     * which is kept in map value and incremented by this method. Range frame is keyed by timestamp.
+     *
+     * @param record         current record
+     * @param mapValue       partition state
+     * @param rowSeqIndex    index of row sequence in partition state
+     * @param timestampIndex index of timestamp column for range frame or -1 for rows frame
+     * @return frame key
+     */
+    static long frameKey(Record record, MapValue mapValue, int rowSeqIndex, int timestampIndex) {
+        if (timestampIndex == -1) {
+            final long seq = mapValue.getLong(rowSeqIndex);
+            mapValue.putLong(rowSeqIndex, seq + 1);
+            return seq;
+        }
+        return record.getTimestamp(timestampIndex);
+    }
+
+    /**
+     * @return lowest frame key of the frame that ends with current row
+     */
+    static long frameStart(long key, long frameLo) {
+        return key > Long.MIN_VALUE + frameLo ? key - frameLo : Long.MIN_VALUE;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity);
+            address = 0;
+        }
+    }
+
+    /**
+     * Appends entry to the buffer, growing the buffer if necessary.
+     *
+     * @return address of new entry, valid until next append
+     */
+    long addLast(MapValue value, int index) {
+        long bufferSize = value.getLong(index + SIZE);
+        long bufferCapacity = value.getLong(index + CAPACITY);
+        if (bufferSize == bufferCapacity) {
+            grow(value, index, bufferCapacity, bufferSize);
+            bufferCapacity = value.getLong(index + CAPACITY);
+        }
+        value.putLong(index + SIZE, bufferSize + 1);
+        return entryAddress(value.getLong(index + OFFSET), (value.getLong(index + FIRST) + bufferSize) % bufferCapacity);
+    }
+
+    long firstAddress(MapValue value, int index) {
+        return entryAddress(value.getLong(index + OFFSET), value.getLong(index + FIRST));
+    }
+
+    void init(MapValue value, int index, long entryCount) {
+        value.putLong(index + OFFSET, allocate(entryCount));
+        value.putLong(index + CAPACITY, entryCount);
+        value.putLong(index + FIRST, 0);
+        value.putLong(index + SIZE, 0);
+    }
+
+    long lastAddress(MapValue value, int index) {
+        return entryAddress(
+                value.getLong(index + OFFSET),
+                (value.getLong(index + FIRST) + value.getLong(index + SIZE) - 1) % value.getLong(index + CAPACITY)
+        );
+    }
+
+    void removeFirst(MapValue value, int index) {
+        value.putLong(index + FIRST, (value.getLong(index + FIRST) + 1) % value.getLong(index + CAPACITY));
+        value.addLong(index + SIZE, -1);
+    }
+
+    void removeLast(MapValue value, int index) {
+        value.addLong(index + SIZE, -1);
+    }
+
+    long size(MapValue value, int index) {
+        return value.getLong(index + SIZE);
+    }
+
+    private long allocate(long entryCount) {
+        final long bytes = entryCount * entrySize;
+        if (size + bytes > capacity) {
+            final long newCapacity = Math.max(capacity * 2, size + bytes);
+            address = Unsafe.realloc(address, capacity, newCapacity);
+            capacity = newCapacity;
+        }
+        final long offset = size;
+        size += bytes;
+        return offset;
+    }
+
+    private long entryAddress(long offset, long entryIndex) {
+        return address + offset + entryIndex * entrySize;
+    }
+
+    private void grow(MapValue value, int index, long bufferCapacity, long bufferSize) {
+        final long newOffset = allocate(bufferCapacity * 2);
+        // memory may have moved, read buffer offset after allocation
+        final long offset = value.getLong(index + OFFSET);
+        final long first = value.getLong(index + FIRST);
+        final long headCount = Math.min(bufferSize, bufferCapacity - first);
+        Vect.memcpy(entryAddress(offset, first), entryAddress(newOffset, 0), headCount * entrySize);
+        if (headCount < bufferSize) {
+            Vect.memcpy(entryAddress(offset, 0), entryAddress(newOffset, headCount), (bufferSize - headCount) * entrySize);
+        }
+        value.putLong(index + OFFSET, newOffset);
+        value.putLong(index + CAPACITY, bufferCapacity * 2);
+        value.putLong(index + FIRST, 0);
+    }
+}
@@ -0,0 +1,428 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DateFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * lag() and lead() functions. Values are kept as 64-bit keys in per-partition ring buffer of "offset"
+ * capacity. lag() value is the oldest entry of the buffer, so it can be computed while streaming.
+ * lead() cannot look ahead, instead its buffer holds record chain offsets of preceding rows and value
+ * of the current row is written to the row "offset" rows back.
+ */
+final class LagLeadFunctions {
+
+    private LagLeadFunctions() {
+    }
+
+    static Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            boolean lead
+    ) throws SqlException {
+        final int argCount = args.size();
+        if (argCount == 0 || argCount > 2) {
+            throw SqlException.$(position, "one or two arguments expected");
+        }
+
+        long offset = 1;
+        if (argCount == 2) {
+            final Function offsetFunc = args.getQuick(1);
+            switch (offsetFunc.getType()) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                    if (offsetFunc.isConstant()) {
+                        offset = offsetFunc.getLong(null);
+                        break;
+                    }
+                default:
+                    throw SqlException.$(argPositions.getQuick(1), "integer constant expected");
+            }
+            if (offset < 1) {
+                throw SqlException.$(argPositions.getQuick(1), "positive offset expected");
+            }
+        }
+
+        final Function arg = args.getQuick(0);
+        final int argType = arg.getType();
+        switch (argType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                break;
+            default:
+                throw SqlException.$(argPositions.getQuick(0), "unsupported argument type [type=").put(ColumnType.nameOf(argType)).put(']');
+        }
+
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        for (int i = 0; i < AnalyticRingBuffers.STATE_SIZE; i++) {
+            valueTypes.add(ColumnType.LONG);
+        }
+        final Window window = new Window(
+                new AnalyticPartitionMap(configuration, analyticContext, valueTypes),
+                new AnalyticRingBuffers(Long.BYTES, configuration.getSqlAnalyticStorePageSize() / Long.BYTES),
+                arg,
+                offset,
+                lead
+        );
+
+        switch (argType) {
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return new LagLeadDoubleFunction(window);
+            case ColumnType.DATE:
+                return new LagLeadDateFunction(window);
+            case ColumnType.TIMESTAMP:
+                return new LagLeadTimestampFunction(window);
+            default:
+                return new LagLeadLongFunction(window);
+        }
+    }
+
+    private static class Window implements Closeable {
+        // ring buffer state is the only partition state
+        private static final int RING = 0;
+        private final AnalyticPartitionMap map;
+        private final AnalyticRingBuffers ringBuffers;
+        private final Function arg;
+        private final long offset;
+        private final boolean lead;
+        private final long nullValue;
+        private long value;
+
+        private Window(AnalyticPartitionMap map, AnalyticRingBuffers ringBuffers, Function arg, long offset, boolean lead) {
+            this.map = map;
+            this.ringBuffers = ringBuffers;
+            this.arg = arg;
+            this.offset = offset;
+            this.lead = lead;
+            final int type = arg.getType();
+            this.nullValue = type == ColumnType.DOUBLE || type == ColumnType.FLOAT ? Double.doubleToRawLongBits(Double.NaN) : Numbers.LONG_NaN;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(map);
+            Misc.free(ringBuffers);
+            Misc.free(arg);
+        }
+
+        private void computeNext(Record record) {
+            if (lead) {
+                throw new UnsupportedOperationException();
+            }
+            final long x = getArgValue(record);
+            final MapValue mapValue = getPartitionValue(record);
+            if (ringBuffers.size(mapValue, RING) == offset) {
+                value = Unsafe.getUnsafe().getLong(ringBuffers.firstAddress(mapValue, RING));
+                ringBuffers.removeFirst(mapValue, RING);
+            } else {
+                value = nullValue;
+            }
+            Unsafe.getUnsafe().putLong(ringBuffers.addLast(mapValue, RING), x);
+        }
+
+        private long getArgValue(Record record) {
+            switch (arg.getType()) {
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    return Double.doubleToRawLongBits(arg.getDouble(record));
+                case ColumnType.DATE:
+                    return arg.getDate(record);
+                case ColumnType.TIMESTAMP:
+                    return arg.getTimestamp(record);
+                default:
+                    return arg.getLong(record);
+            }
+        }
+
+        private int getPassCount() {
+            return lead ? AnalyticFunction.TWO_PASS : AnalyticFunction.STREAM;
+        }
+
+        private MapValue getPartitionValue(Record record) {
+            final MapValue mapValue = map.getValue(record);
+            if (mapValue.isNew()) {
+                ringBuffers.init(mapValue, RING, Math.min(offset, AnalyticRingBuffers.INITIAL_BUFFER_SIZE));
+            }
+            return mapValue;
+        }
+
+        private void pass1(Record record, long recordOffset, AnalyticSPI spi, int columnIndex) {
+            if (!lead) {
+                computeNext(record);
+                Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
+                return;
+            }
+
+            final long x = getArgValue(record);
+            final MapValue mapValue = getPartitionValue(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), nullValue);
+            if (ringBuffers.size(mapValue, RING) == offset) {
+                final long leadOffset = Unsafe.getUnsafe().getLong(ringBuffers.firstAddress(mapValue, RING));
+                ringBuffers.removeFirst(mapValue, RING);
+                Unsafe.getUnsafe().putLong(spi.getAddress(leadOffset, columnIndex), x);
+            }
+            Unsafe.getUnsafe().putLong(ringBuffers.addLast(mapValue, RING), recordOffset);
+        }
+
+        private void reset() {
+            map.clear();
+            ringBuffers.clear();
+        }
+    }
+
+    private static class LagLeadDoubleFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Closeable {
+        private final Window window;
+        private int columnIndex;
+
+        private LagLeadDoubleFunction(Window window) {
+            this.window = window;
+        }
+
+        @Override
+        public void close() {
+            window.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            window.computeNext(record);
+        }
+
+        @Override
+        public double getDouble(Record rec) {
+            return Double.longBitsToDouble(window.value);
+        }
+
+        @Override
+        public int getPassCount() {
+            return window.getPassCount();
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            window.pass1(record, recordOffset, spi, columnIndex);
+        }
+
+        @Override
+        public void preparePass2(RecordCursor cursor) {
+        }
+
+        @Override
+        public void pass2(Record record) {
+        }
+
+        @Override
+        public void reset() {
+            window.reset();
+        }
+
+        @Override
+        public void setColumnIndex(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+    }
+
+    private static class LagLeadLongFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Closeable {
+        private final Window window;
+        private int columnIndex;
+
+        private LagLeadLongFunction(Window window) {
+            this.window = window;
+        }
+
+        @Override
+        public void close() {
+            window.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            window.computeNext(record);
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            return window.value;
+        }
+
+        @Override
+        public int getPassCount() {
+            return window.getPassCount();
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            window.pass1(record, recordOffset, spi, columnIndex);
+        }
+
+        @Override
+        public void preparePass2(RecordCursor cursor) {
+        }
+
+        @Override
+        public void pass2(Record record) {
+        }
+
+        @Override
+        public void reset() {
+            window.reset();
+        }
+
+        @Override
+        public void setColumnIndex(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+    }
+
+    private static class LagLeadDateFunction extends DateFunction implements ScalarFunction, AnalyticFunction, Closeable {
+        private final Window window;
+        private int columnIndex;
+
+        private LagLeadDateFunction(Window window) {
+            this.window = window;
+        }
+
+        @Override
+        public void close() {
+            window.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            window.computeNext(record);
+        }
+
+        @Override
+        public long getDate(Record rec) {
+            return window.value;
+        }
+
+        @Override
+        public int getPassCount() {
+            return window.getPassCount();
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            window.pass1(record, recordOffset, spi, columnIndex);
+        }
+
+        @Override
+        public void preparePass2(RecordCursor cursor) {
+        }
+
+        @Override
+        public void pass2(Record record) {
+        }
+
+        @Override
+        public void reset() {
+            window.reset();
+        }
+
+        @Override
+        public void setColumnIndex(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+    }
+
+    private static class LagLeadTimestampFunction extends TimestampFunction implements ScalarFunction, AnalyticFunction, Closeable {
+        private final Window window;
+        private int columnIndex;
+
+        private LagLeadTimestampFunction(Window window) {
+            this.window = window;
+        }
+
+        @Override
+        public void close() {
+            window.close();
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            window.computeNext(record);
+        }
+
+        @Override
+        public long getTimestamp(Record rec) {
+            return window.value;
+        }
+
+        @Override
+        public int getPassCount() {
+            return window.getPassCount();
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            window.pass1(record, recordOffset, spi, columnIndex);
+        }
+
+        @Override
+        public void preparePass2(RecordCursor cursor) {
+        }
+
+        @Override
+        public void pass2(Record record) {
+        }
+
+        @Override
+        public void reset() {
+            window.reset();
+        }
+
+        @Override
+        public void setColumnIndex(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Moving or cumulative min and max. For bounded frames per-partition ring buffer is used as a monotonic
+ * deque: values that can no longer become frame extreme are dropped from the tail, values that left the frame
+ * are dropped from the head. First value of the deque is the frame extreme. RANGE frame includes peers of
+ * the current row that follow it, see {@link AnalyticPeerGroups}, so such function cannot stream.
+ */
+class MinMaxDoubleAnalyticFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Closeable {
+    // map value layout for unbounded frame
+    private static final int EXTREME = 0;
+    // map value layout for bounded frame
+    private static final int ROW_SEQ = 0;
+    private static final int RING = 1;
+    // ring buffer entry is frame key, which is either row sequence or timestamp, followed by value
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private final AnalyticPartitionMap map;
+    @Nullable
+    private final AnalyticRingBuffers ringBuffers;
+    @Nullable
+    private final AnalyticPeerGroups peerGroups;
+    private final Function arg;
+    private final boolean max;
+    private final int timestampIndex;
+    private final long frameLo;
+    private final long initialBufferSize;
+    private final int peerGroupsIndex;
+    private int columnIndex;
+    private AnalyticSPI spi;
+    private double value;
+
+    private MinMaxDoubleAnalyticFunction(
+            AnalyticPartitionMap map,
+            @Nullable AnalyticRingBuffers ringBuffers,
+            @Nullable AnalyticPeerGroups peerGroups,
+            Function arg,
+            boolean max,
+            int timestampIndex,
+            long frameLo,
+            long initialBufferSize,
+            int peerGroupsIndex
+    ) {
+        this.map = map;
+        this.ringBuffers = ringBuffers;
+        this.peerGroups = peerGroups;
+        this.arg = arg;
+        this.max = max;
+        this.timestampIndex = timestampIndex;
+        this.frameLo = frameLo;
+        this.initialBufferSize = initialBufferSize;
+        this.peerGroupsIndex = peerGroupsIndex;
+    }
+
+    static MinMaxDoubleAnalyticFunction newInstance(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            boolean max
+    ) {
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        final long frameLo = analyticContext.getFrameLo();
+        final boolean bounded = frameLo != AnalyticColumn.FRAME_UNBOUNDED;
+        if (bounded) {
+            valueTypes.add(ColumnType.LONG);
+            for (int i = 0; i < AnalyticRingBuffers.STATE_SIZE; i++) {
+                valueTypes.add(ColumnType.LONG);
+            }
+        } else {
+            valueTypes.add(ColumnType.DOUBLE);
+        }
+
+        final boolean rows = analyticContext.getFramingMode() == AnalyticColumn.FRAMING_ROWS;
+        final int peerGroupsIndex = valueTypes.getColumnCount();
+        if (!rows) {
+            AnalyticPeerGroups.addValueTypes(valueTypes);
+        }
+
+        return new MinMaxDoubleAnalyticFunction(
+                new AnalyticPartitionMap(configuration, analyticContext, valueTypes),
+                bounded ? new AnalyticRingBuffers(ENTRY_SIZE, configuration.getSqlAnalyticStorePageSize() / ENTRY_SIZE) : null,
+                rows ? null : new AnalyticPeerGroups(configuration),
+                arg,
+                max,
+                rows ? -1 : analyticContext.getTimestampIndex(),
+                frameLo,
+                !bounded ? 0 : rows ? Math.min(frameLo + 1, AnalyticRingBuffers.INITIAL_BUFFER_SIZE) : AnalyticRingBuffers.INITIAL_BUFFER_SIZE,
+                peerGroupsIndex
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(ringBuffers);
+        Misc.free(peerGroups);
+        Misc.free(arg);
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        computeNext(record, map.getValue(record));
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public int getPassCount() {
+        return peerGroups != null ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (peerGroups != null) {
+            final MapValue mapValue = map.getValue(record);
+            computeNext(record, mapValue);
+            peerGroups.add(
+                    mapValue,
+                    peerGroupsIndex,
+                    record.getTimestamp(timestampIndex),
+                    recordOffset,
+                    Double.doubleToRawLongBits(value),
+                    spi,
+                    columnIndex
+            );
+            this.spi = spi;
+            return;
+        }
+        computeNext(record);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+        if (peerGroups != null && spi != null) {
+            peerGroups.completeAll(map, peerGroupsIndex, spi, columnIndex);
+        }
+    }
+
+    @Override
+    public void pass2(Record record) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+        if (ringBuffers != null) {
+            ringBuffers.clear();
+        }
+        if (peerGroups != null) {
+            peerGroups.clear();
+        }
+        spi = null;
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    private void computeNext(Record record, MapValue mapValue) {
+        final double d = arg.getDouble(record);
+
+        if (ringBuffers == null) {
+            double extreme = mapValue.isNew() ? Double.NaN : mapValue.getDouble(EXTREME);
+            if (!Double.isNaN(d) && (Double.isNaN(extreme) || (max ? d > extreme : d < extreme))) {
+                extreme = d;
+            }
+            mapValue.putDouble(EXTREME, extreme);
+            value = extreme;
+            return;
+        }
+
+        if (mapValue.isNew()) {
+            mapValue.putLong(ROW_SEQ, 0);
+            ringBuffers.init(mapValue, RING, initialBufferSize);
+        }
+
+        final long key = AnalyticRingBuffers.frameKey(record, mapValue, ROW_SEQ, timestampIndex);
+        final long lo = AnalyticRingBuffers.frameStart(key, frameLo);
+        while (ringBuffers.size(mapValue, RING) > 0 && Unsafe.getUnsafe().getLong(ringBuffers.firstAddress(mapValue, RING)) < lo) {
+            ringBuffers.removeFirst(mapValue, RING);
+        }
+
+        if (!Double.isNaN(d)) {
+            while (ringBuffers.size(mapValue, RING) > 0) {
+                final double last = Unsafe.getUnsafe().getDouble(ringBuffers.lastAddress(mapValue, RING) + Long.BYTES);
+                if (max ? last > d : last < d) {
+                    break;
+                }
+                ringBuffers.removeLast(mapValue, RING);
+            }
+            final long address = ringBuffers.addLast(mapValue, RING);
+            Unsafe.getUnsafe().putLong(address, key);
+            Unsafe.getUnsafe().putDouble(address + Long.BYTES, d);
+        }
+
+        value = ringBuffers.size(mapValue, RING) > 0
+                ? Unsafe.getUnsafe().getDouble(ringBuffers.firstAddress(mapValue, RING) + Long.BYTES)
+                : Double.NaN;
+    }
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * rank() and dense_rank(). Rows are peers when their "order by" values are equal. Partition state keeps
+ * row count, rank and "order by" values of the previous row, values are compared as 64-bit keys, which
+ * is why "order by" columns have to be of fixed size types.
+ */
+class RankFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Closeable {
+    // map value layout
+    private static final int ROW_COUNT = 0;
+    private static final int RANK = 1;
+    private static final int ORDER_BY_KEYS = 2;
+    private final AnalyticPartitionMap map;
+    @Nullable
+    private final VirtualRecord orderByRecord;
+    private final int orderByCount;
+    private final boolean dense;
+    private int columnIndex;
+    private long value;
+
+    private RankFunction(AnalyticPartitionMap map, @Nullable VirtualRecord orderByRecord, boolean dense) {
+        this.map = map;
+        this.orderByRecord = orderByRecord;
+        this.orderByCount = orderByRecord != null ? orderByRecord.getFunctions().size() : 0;
+        this.dense = dense;
+    }
+
+    static RankFunction newInstance(
+            int position,
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            boolean dense
+    ) throws SqlException {
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.LONG);
+        valueTypes.add(ColumnType.LONG);
+
+        final VirtualRecord orderByRecord = analyticContext.getOrderByRecord();
+        if (orderByRecord != null) {
+            final ObjList<? extends Function> orderBy = orderByRecord.getFunctions();
+            for (int i = 0, n = orderBy.size(); i < n; i++) {
+                switch (orderBy.getQuick(i).getType()) {
+                    case ColumnType.BOOLEAN:
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                    case ColumnType.CHAR:
+                    case ColumnType.INT:
+                    case ColumnType.SYMBOL:
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                    case ColumnType.FLOAT:
+                    case ColumnType.DOUBLE:
+                        valueTypes.add(ColumnType.LONG);
+                        break;
+                    default:
+                        throw SqlException.$(position, "order by column type is not supported [type=")
+                                .put(ColumnType.nameOf(orderBy.getQuick(i).getType()))
+                                .put(']');
+                }
+            }
+        }
+        return new RankFunction(new AnalyticPartitionMap(configuration, analyticContext, valueTypes), orderByRecord, dense);
+    }
+
+    private static long getOrderByKey(Function function, Record record) {
+        switch (function.getType()) {
+            case ColumnType.BOOLEAN:
+                return function.getBool(record) ? 1 : 0;
+            case ColumnType.BYTE:
+                return function.getByte(record);
+            case ColumnType.SHORT:
+                return function.getShort(record);
+            case ColumnType.CHAR:
+                return function.getChar(record);
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return function.getInt(record);
+            case ColumnType.DATE:
+                return function.getDate(record);
+            case ColumnType.TIMESTAMP:
+                return function.getTimestamp(record);
+            case ColumnType.FLOAT:
+                return Float.floatToRawIntBits(function.getFloat(record));
+            case ColumnType.DOUBLE:
+                return Double.doubleToRawLongBits(function.getDouble(record));
+            default:
+                return function.getLong(record);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        if (orderByRecord != null) {
+            Misc.freeObjList(orderByRecord.getFunctions());
+        }
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final MapValue mapValue = map.getValue(record);
+        final ObjList<? extends Function> orderBy = orderByRecord != null ? orderByRecord.getFunctions() : null;
+
+        if (mapValue.isNew()) {
+            mapValue.putLong(ROW_COUNT, 1);
+            mapValue.putLong(RANK, 1);
+            for (int i = 0; i < orderByCount; i++) {
+                mapValue.putLong(ORDER_BY_KEYS + i, getOrderByKey(orderBy.getQuick(i), record));
+            }
+            value = 1;
+            return;
+        }
+
+        final long rowCount = mapValue.getLong(ROW_COUNT) + 1;
+        boolean peer = true;
+        for (int i = 0; i < orderByCount; i++) {
+            final long key = getOrderByKey(orderBy.getQuick(i), record);
+            if (key != mapValue.getLong(ORDER_BY_KEYS + i)) {
+                mapValue.putLong(ORDER_BY_KEYS + i, key);
+                peer = false;
+            }
+        }
+
+        long rank = mapValue.getLong(RANK);
+        if (!peer) {
+            rank = dense ? rank + 1 : rowCount;
+        }
+        mapValue.putLong(ROW_COUNT, rowCount);
+        mapValue.putLong(RANK, rank);
+        value = rank;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        computeNext(record);
+        Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+    }
+
+    @Override
+    public void pass2(Record record) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+}
@@ -26,16 +26,11 @@ package io.questdb.griffin.engine.functions.analytic;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
-import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.SingleColumnType;
-import io.questdb.cairo.map.Map;
-import io.questdb.cairo.map.MapFactory;
-import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlExecutionContext;
-import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
 import io.questdb.griffin.engine.functions.LongFunction;
 import io.questdb.std.IntList;
@@ -54,63 +49,49 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         return "row_number()";
     }
 
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
-        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
-
-        if (analyticContext.getPartitionByRecord() != null) {
-            Map map = MapFactory.createMap(
-                    configuration,
-                    analyticContext.getPartitionByKeyTypes(),
-                    LONG_COLUMN_TYPE
-            );
-            return new RowNumberFunction(
-                    map,
-                    analyticContext.getPartitionByRecord(),
-                    analyticContext.getPartitionBySink()
-            );
-        }
-        return null;
+        return new RowNumberFunction(
+                new AnalyticPartitionMap(configuration, sqlExecutionContext.getAnalyticContext(), LONG_COLUMN_TYPE)
+        );
     }
 
     private static class RowNumberFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Closeable {
-        private final Map map;
-        private final VirtualRecord partitionByRecord;
-        private final RecordSink partitionBySink;
+        private final AnalyticPartitionMap map;
         private int columnIndex;
+        private long value;
 
-        public RowNumberFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink) {
+        public RowNumberFunction(AnalyticPartitionMap map) {
             this.map = map;
-            this.partitionByRecord = partitionByRecord;
-            this.partitionBySink = partitionBySink;
         }
 
         @Override
         public void close() {
             Misc.free(map);
-            Misc.free(partitionByRecord.getFunctions());
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            final MapValue mapValue = map.getValue(record);
+            final long x = mapValue.isNew() ? 0 : mapValue.getLong(0);
+            mapValue.putLong(0, x + 1);
+            value = x;
         }
 
         @Override
         public long getLong(Record rec) {
-            // not called
-            throw new UnsupportedOperationException();
+            return value;
         }
 
         @Override
         public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
-            partitionByRecord.of(record);
-            MapKey key = map.withKey();
-            key.put(partitionByRecord, partitionBySink);
-            MapValue value = key.createValue();
-            long x;
-            if (value.isNew()) {
-                x = 0;
-            } else {
-                x = value.getLong(0);
-            }
-            value.putLong(0, x + 1);
-            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), x);
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
         }
 
         @Override
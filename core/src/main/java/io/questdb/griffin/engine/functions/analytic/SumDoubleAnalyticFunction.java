@@ -0,0 +1,250 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Moving or cumulative sum and average. Frame contents are kept in per-partition ring buffer,
+ * sum is maintained incrementally as rows enter and leave the frame. RANGE frame includes peers
+ * of the current row that follow it, see {@link AnalyticPeerGroups}, so such function cannot stream.
+ */
+class SumDoubleAnalyticFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Closeable {
+    // map value layout
+    private static final int SUM = 0;
+    private static final int COUNT = 1;
+    private static final int ROW_SEQ = 2;
+    private static final int RING = 3;
+    // ring buffer entry is frame key, which is either row sequence or timestamp, followed by value
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private final AnalyticPartitionMap map;
+    @Nullable
+    private final AnalyticRingBuffers ringBuffers;
+    @Nullable
+    private final AnalyticPeerGroups peerGroups;
+    private final Function arg;
+    private final boolean avg;
+    private final int timestampIndex;
+    private final long frameLo;
+    private final long initialBufferSize;
+    private final int peerGroupsIndex;
+    private int columnIndex;
+    private AnalyticSPI spi;
+    private double value;
+
+    private SumDoubleAnalyticFunction(
+            AnalyticPartitionMap map,
+            @Nullable AnalyticRingBuffers ringBuffers,
+            @Nullable AnalyticPeerGroups peerGroups,
+            Function arg,
+            boolean avg,
+            int timestampIndex,
+            long frameLo,
+            long initialBufferSize,
+            int peerGroupsIndex
+    ) {
+        this.map = map;
+        this.ringBuffers = ringBuffers;
+        this.peerGroups = peerGroups;
+        this.arg = arg;
+        this.avg = avg;
+        this.timestampIndex = timestampIndex;
+        this.frameLo = frameLo;
+        this.initialBufferSize = initialBufferSize;
+        this.peerGroupsIndex = peerGroupsIndex;
+    }
+
+    static SumDoubleAnalyticFunction newInstance(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            boolean avg
+    ) {
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.DOUBLE);
+        valueTypes.add(ColumnType.LONG);
+
+        final long frameLo = analyticContext.getFrameLo();
+        final boolean bounded = frameLo != AnalyticColumn.FRAME_UNBOUNDED;
+        if (bounded) {
+            valueTypes.add(ColumnType.LONG);
+            for (int i = 0; i < AnalyticRingBuffers.STATE_SIZE; i++) {
+                valueTypes.add(ColumnType.LONG);
+            }
+        }
+
+        final boolean rows = analyticContext.getFramingMode() == AnalyticColumn.FRAMING_ROWS;
+        final int peerGroupsIndex = valueTypes.getColumnCount();
+        if (!rows) {
+            AnalyticPeerGroups.addValueTypes(valueTypes);
+        }
+
+        return new SumDoubleAnalyticFunction(
+                new AnalyticPartitionMap(configuration, analyticContext, valueTypes),
+                bounded ? new AnalyticRingBuffers(ENTRY_SIZE, configuration.getSqlAnalyticStorePageSize() / ENTRY_SIZE) : null,
+                rows ? null : new AnalyticPeerGroups(configuration),
+                arg,
+                avg,
+                rows ? -1 : analyticContext.getTimestampIndex(),
+                frameLo,
+                !bounded ? 0 : rows ? Math.min(frameLo + 1, AnalyticRingBuffers.INITIAL_BUFFER_SIZE) : AnalyticRingBuffers.INITIAL_BUFFER_SIZE,
+                peerGroupsIndex
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(ringBuffers);
+        Misc.free(peerGroups);
+        Misc.free(arg);
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        computeNext(record, map.getValue(record));
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public int getPassCount() {
+        return peerGroups != null ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (peerGroups != null) {
+            final MapValue mapValue = map.getValue(record);
+            computeNext(record, mapValue);
+            peerGroups.add(
+                    mapValue,
+                    peerGroupsIndex,
+                    record.getTimestamp(timestampIndex),
+                    recordOffset,
+                    Double.doubleToRawLongBits(value),
+                    spi,
+                    columnIndex
+            );
+            this.spi = spi;
+            return;
+        }
+        computeNext(record);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+        if (peerGroups != null && spi != null) {
+            peerGroups.completeAll(map, peerGroupsIndex, spi, columnIndex);
+        }
+    }
+
+    @Override
+    public void pass2(Record record) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+        if (ringBuffers != null) {
+            ringBuffers.clear();
+        }
+        if (peerGroups != null) {
+            peerGroups.clear();
+        }
+        spi = null;
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    private void computeNext(Record record, MapValue mapValue) {
+        final double d = arg.getDouble(record);
+        if (mapValue.isNew()) {
+            mapValue.putDouble(SUM, 0);
+            mapValue.putLong(COUNT, 0);
+            if (ringBuffers != null) {
+                mapValue.putLong(ROW_SEQ, 0);
+                ringBuffers.init(mapValue, RING, initialBufferSize);
+            }
+        }
+
+        double sum = mapValue.getDouble(SUM);
+        long count = mapValue.getLong(COUNT);
+
+        if (ringBuffers != null) {
+            final long key = AnalyticRingBuffers.frameKey(record, mapValue, ROW_SEQ, timestampIndex);
+            final long lo = AnalyticRingBuffers.frameStart(key, frameLo);
+            while (ringBuffers.size(mapValue, RING) > 0) {
+                final long address = ringBuffers.firstAddress(mapValue, RING);
+                if (Unsafe.getUnsafe().getLong(address) >= lo) {
+                    break;
+                }
+                sum -= Unsafe.getUnsafe().getDouble(address + Long.BYTES);
+                count--;
+                ringBuffers.removeFirst(mapValue, RING);
+            }
+
+            if (!Double.isNaN(d)) {
+                final long address = ringBuffers.addLast(mapValue, RING);
+                Unsafe.getUnsafe().putLong(address, key);
+                Unsafe.getUnsafe().putDouble(address + Long.BYTES, d);
+            }
+        }
+
+        if (count == 0) {
+            // drop rounding error accumulated by removing values from the frame
+            sum = 0;
+        }
+
+        if (!Double.isNaN(d)) {
+            sum += d;
+            count++;
+        }
+
+        mapValue.putDouble(SUM, sum);
+        mapValue.putLong(COUNT, count);
+        value = count == 0 ? Double.NaN : (avg ? sum / count : sum);
+    }
+}
@@ -41,6 +41,11 @@ public class NowFunctionFactory implements FunctionFactory {
         return "now()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public boolean isRuntimeConstant() {
         return true;
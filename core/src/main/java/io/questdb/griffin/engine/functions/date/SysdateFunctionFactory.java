@@ -40,6 +40,11 @@ public class SysdateFunctionFactory implements FunctionFactory {
         return "sysdate()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new Func(configuration.getMillisecondClock());
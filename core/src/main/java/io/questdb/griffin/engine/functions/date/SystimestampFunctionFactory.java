@@ -40,6 +40,11 @@ public class SystimestampFunctionFactory implements FunctionFactory {
         return "systimestamp()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new Func(configuration.getMicrosecondClock());
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.std.Numbers;
+
+/**
+ * approx_count_distinct() of long values. Each group holds {@link HyperLogLog} sketch in its map value.
+ * Function runs on single-threaded keyed and non-keyed group by and sample by only: sketches of
+ * different workers are never merged, because there is no parallel path for non-vectorized functions.
+ */
+public class ApproxCountDistinctLongGroupByFunction extends LongFunction implements GroupByFunction {
+    private final Function arg;
+    private final int precision;
+    private int valueIndex;
+
+    public ApproxCountDistinctLongGroupByFunction(Function arg, int precision) {
+        this.arg = arg;
+        this.precision = precision;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        HyperLogLog.clear(mapValue, valueIndex, precision);
+        computeNext(mapValue, record);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        final long value = arg.getLong(record);
+        if (value != Numbers.LONG_NaN) {
+            HyperLogLog.add(mapValue, valueIndex, precision, HyperLogLog.hash(value));
+        }
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        HyperLogLog.pushValueTypes(columnTypes, precision);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        HyperLogLog.clear(mapValue, valueIndex, precision);
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return HyperLogLog.estimate(rec, valueIndex, precision);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+
+/**
+ * approx_percentile() and median() backed by {@link TDigest} in the map value of the group. Digests
+ * are built by single thread, parallel group by would need them merged and is not supported yet.
+ */
+public class ApproxPercentileDoubleGroupByFunction extends DoubleFunction implements GroupByFunction {
+    private final Function arg;
+    private final double percentile;
+    private final TDigest digest = new TDigest();
+    private int valueIndex;
+
+    public ApproxPercentileDoubleGroupByFunction(Function arg, double percentile) {
+        this.arg = arg;
+        this.percentile = percentile;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        digest.clear(mapValue, valueIndex);
+        computeNext(mapValue, record);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        final double value = arg.getDouble(record);
+        if (value == value) {
+            digest.add(mapValue, valueIndex, value);
+        }
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        TDigest.pushValueTypes(columnTypes);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        digest.clear(mapValue, valueIndex);
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return digest.quantile(rec, valueIndex, percentile);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+}
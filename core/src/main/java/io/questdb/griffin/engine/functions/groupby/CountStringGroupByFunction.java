@@ -31,52 +31,56 @@ import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.LongFunction;
-import io.questdb.std.CharSequenceHashSet;
-import io.questdb.std.Chars;
+import io.questdb.std.DirectCharSequenceHashSets;
+import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
-import io.questdb.std.ObjList;
 
+/**
+ * count(distinct) of strings. Distinct values of each group are kept in off-heap open addressing
+ * set of {@link DirectCharSequenceHashSets}, map value holds the set handle. Sets are filled by single
+ * thread, there is no per-worker merge because group by has no parallel path for this function.
+ */
 public class CountStringGroupByFunction extends LongFunction implements GroupByFunction {
+    private static final int INITIAL_SET_CAPACITY = 16;
     private final Function arg;
-    private final ObjList<CharSequenceHashSet> sets = new ObjList<>();
+    private final long pageSize;
+    private DirectCharSequenceHashSets sets;
     private int valueIndex;
-    private int setIndex = 0;
 
-    public CountStringGroupByFunction(Function arg) {
+    public CountStringGroupByFunction(Function arg, long pageSize) {
         this.arg = arg;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void close() {
+        sets = Misc.free(sets);
     }
 
     @Override
     public void computeFirst(MapValue mapValue, Record record) {
-        final CharSequenceHashSet set;
-        if (sets.size() <= setIndex) {
-            sets.extendAndSet(setIndex, set = new CharSequenceHashSet());
-        } else {
-            set = sets.getQuick(setIndex);
+        if (sets == null) {
+            sets = new DirectCharSequenceHashSets(INITIAL_SET_CAPACITY, pageSize);
         }
-        set.clear();
-        set.add(Chars.toString(arg.getStr(record)));
+        final long set = sets.add(sets.newSet(), arg.getStr(record));
         mapValue.putLong(valueIndex, 1L);
-        mapValue.putInt(valueIndex + 1, setIndex++);
+        mapValue.putLong(valueIndex + 1, set);
     }
 
     @Override
     public void computeNext(MapValue mapValue, Record record) {
-        final CharSequenceHashSet set = sets.getQuick(mapValue.getInt(valueIndex + 1));
-        final CharSequence val = arg.getStr(record);
-        final int index = set.keyIndex(val);
-        if (index < 0) {
-            return;
+        final long set = sets.add(mapValue.getLong(valueIndex + 1), arg.getStr(record));
+        if (set > -1) {
+            mapValue.addLong(valueIndex, 1);
+            mapValue.putLong(valueIndex + 1, set);
         }
-        set.addAt(index, Chars.toString(val));
-        mapValue.addLong(valueIndex, 1);
     }
 
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.LONG);
-        columnTypes.add(ColumnType.INT);
+        columnTypes.add(ColumnType.LONG);
     }
 
     @Override
@@ -106,6 +110,8 @@ public class CountStringGroupByFunction extends LongFunction implements GroupByF
 
     @Override
     public void toTop() {
-        setIndex = 0;
+        if (sets != null) {
+            sets.clear();
+        }
     }
 }
@@ -44,6 +44,6 @@ public class CountStringGroupByFunctionFactory implements FunctionFactory {
 
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
-        return new CountStringGroupByFunction(args.getQuick(0));
+        return new CountStringGroupByFunction(args.getQuick(0), configuration.getSqlMapPageSize());
     }
 }
@@ -31,57 +31,58 @@ import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.LongFunction;
-import io.questdb.std.IntList;
+import io.questdb.std.DirectBitSets;
+import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
-import io.questdb.std.ObjList;
 
 import static io.questdb.cairo.sql.SymbolTable.VALUE_IS_NULL;
 
+/**
+ * count(distinct) of symbols, which counts distinct symbol keys in per-group bit sets of
+ * {@link DirectBitSets}. Evaluated single-threaded, same as count(distinct) of strings.
+ */
 public class CountSymbolGroupByFunction extends LongFunction implements GroupByFunction {
+    private static final int INITIAL_SET_BITS = 256;
     private final Function arg;
-    private final ObjList<IntList> lists = new ObjList<>();
+    private final long pageSize;
+    private DirectBitSets sets;
     private int valueIndex;
-    private int setIndex;
 
-    public CountSymbolGroupByFunction(Function arg) {
+    public CountSymbolGroupByFunction(Function arg, long pageSize) {
         this.arg = arg;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void close() {
+        sets = Misc.free(sets);
     }
 
     @Override
     public void computeFirst(MapValue mapValue, Record record) {
-        final IntList list;
-        if (lists.size() <= setIndex) {
-            lists.extendAndSet(setIndex, list = new IntList());
-        } else {
-            list = lists.getQuick(setIndex);
+        if (sets == null) {
+            sets = new DirectBitSets(INITIAL_SET_BITS, pageSize);
         }
-        list.clear(0);
-        mapValue.putInt(valueIndex + 1, setIndex);
-        setIndex++;
-
-        int val = arg.getInt(record);
+        final long set = sets.newSet();
+        final int val = arg.getInt(record);
         if (val != VALUE_IS_NULL) {
-            list.extendAndSet(val, 1);
             mapValue.putLong(valueIndex, 1L);
+            mapValue.putLong(valueIndex + 1, sets.set(set, val));
         } else {
             mapValue.putLong(valueIndex, 0L);
+            mapValue.putLong(valueIndex + 1, set);
         }
     }
 
     @Override
     public void computeNext(MapValue mapValue, Record record) {
-        final IntList set = lists.getQuick(mapValue.getInt(valueIndex + 1));
         final int val = arg.getInt(record);
         if (val != VALUE_IS_NULL) {
-            if (val < set.size()) {
-                if (set.getQuick(val) == 1) {
-                    return;
-                }
-                set.setQuick(val, 1);
-            } else {
-                set.extendAndSet(val, 1);
+            final long set = sets.set(mapValue.getLong(valueIndex + 1), val);
+            if (set > -1) {
+                mapValue.addLong(valueIndex, 1);
+                mapValue.putLong(valueIndex + 1, set);
             }
-            mapValue.addLong(valueIndex, 1);
         }
     }
 
@@ -89,7 +90,7 @@ public class CountSymbolGroupByFunction extends LongFunction implements GroupByF
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.LONG);
-        columnTypes.add(ColumnType.INT);
+        columnTypes.add(ColumnType.LONG);
     }
 
     @Override
@@ -119,6 +120,8 @@ public class CountSymbolGroupByFunction extends LongFunction implements GroupByF
 
     @Override
     public void toTop() {
-        setIndex = 0;
+        if (sets != null) {
+            sets.clear();
+        }
     }
 }
@@ -44,6 +44,6 @@ public class CountSymbolGroupByFunctionFactory implements FunctionFactory {
 
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
-        return new CountSymbolGroupByFunction(args.getQuick(0));
+        return new CountSymbolGroupByFunction(args.getQuick(0), configuration.getSqlMapPageSize());
     }
 }
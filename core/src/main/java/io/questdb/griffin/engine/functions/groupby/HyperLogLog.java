@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+
+/**
+ * HyperLogLog distinct count sketch kept in a run of LONG map value columns, eight one-byte
+ * registers per column. Hashes are 64 bit, which removes the need for large range correction,
+ * and small cardinalities are estimated by linear counting. Because the sketch has fixed size
+ * and lives in the map value, it is copied together with the rest of the value.
+ */
+final class HyperLogLog {
+    static final int DEFAULT_PRECISION = 12;
+    static final int MAX_PRECISION = 14;
+    static final int MIN_PRECISION = 4;
+
+    private HyperLogLog() {
+    }
+
+    static void add(MapValue mapValue, int valueIndex, int precision, long hash) {
+        final int register = (int) (hash >>> (64 - precision));
+        // sentinel bit caps the rank at 64 - precision + 1
+        final long rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        final int index = valueIndex + (register >>> 3);
+        final int shift = (register & 7) << 3;
+        final long word = mapValue.getLong(index);
+        if (((word >>> shift) & 0xff) < rank) {
+            mapValue.putLong(index, (word & ~(0xffL << shift)) | (rank << shift));
+        }
+    }
+
+    static void clear(MapValue mapValue, int valueIndex, int precision) {
+        for (int i = 0, n = columnCount(precision); i < n; i++) {
+            mapValue.putLong(valueIndex + i, 0L);
+        }
+    }
+
+    static int columnCount(int precision) {
+        return (1 << precision) >>> 3;
+    }
+
+    static long estimate(Record record, int valueIndex, int precision) {
+        final int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0, n = columnCount(precision); i < n; i++) {
+            final long word = record.getLong(valueIndex + i);
+            for (int shift = 0; shift < 64; shift += 8) {
+                final int rank = (int) ((word >>> shift) & 0xff);
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    static int getPrecision(Function arg, int position) throws SqlException {
+        final int precision = arg.getInt(null);
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw SqlException.$(position, "precision must be between ").put(MIN_PRECISION).put(" and ").put(MAX_PRECISION);
+        }
+        return precision;
+    }
+
+    static long hash(long value) {
+        return mix(value + 0x9E3779B97F4A7C15L);
+    }
+
+    static long hash(CharSequence value) {
+        long h = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return mix(h);
+    }
+
+    static void pushValueTypes(ArrayColumnTypes columnTypes, int precision) {
+        for (int i = 0, n = columnCount(precision); i < n; i++) {
+            columnTypes.add(ColumnType.LONG);
+        }
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    // murmur3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest kept in map value columns. The value holds a bounded number of centroids,
+ * sorted by mean, and a buffer of values that are yet to be merged into them. Centroid sizes are
+ * limited by the arcsine scale function, which keeps tails accurate, so that digest never has more
+ * than compression + 1 centroids. Values are buffered and merged in batches to amortise sorting.
+ * <p>
+ * Instances only hold scratch arrays, they can be shared by all values of a function.
+ */
+final class TDigest {
+    static final double COMPRESSION = 100;
+    private static final int CENTROID_CAPACITY = (int) COMPRESSION + 8;
+    private static final int BUFFER_CAPACITY = (int) COMPRESSION;
+    // column layout relative to value index
+    private static final int CENTROID_COUNT = 0;
+    private static final int BUFFER_COUNT = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+    private static final int CENTROIDS = 4;
+    private static final int BUFFER = CENTROIDS + 2 * CENTROID_CAPACITY;
+    private static final int COLUMN_COUNT = BUFFER + BUFFER_CAPACITY;
+    private static final int SCRATCH_CAPACITY = 2 * (CENTROID_CAPACITY + BUFFER_CAPACITY);
+    private final double[] means = new double[SCRATCH_CAPACITY];
+    private final double[] weights = new double[SCRATCH_CAPACITY];
+    private final double[] mergedMeans = new double[SCRATCH_CAPACITY];
+    private final double[] mergedWeights = new double[SCRATCH_CAPACITY];
+    private final double[] values = new double[2 * BUFFER_CAPACITY];
+
+    static double getPercentile(Function arg, int position) throws SqlException {
+        final double percentile = arg.getDouble(null);
+        if (!(percentile >= 0 && percentile <= 1)) {
+            throw SqlException.$(position, "percentile must be between 0 and 1");
+        }
+        return percentile;
+    }
+
+    static void pushValueTypes(ArrayColumnTypes columnTypes) {
+        columnTypes.add(ColumnType.INT);
+        columnTypes.add(ColumnType.INT);
+        for (int i = MIN; i < COLUMN_COUNT; i++) {
+            columnTypes.add(ColumnType.DOUBLE);
+        }
+    }
+
+    void add(MapValue mapValue, int valueIndex, double value) {
+        if (value < mapValue.getDouble(valueIndex + MIN)) {
+            mapValue.putDouble(valueIndex + MIN, value);
+        }
+        if (value > mapValue.getDouble(valueIndex + MAX)) {
+            mapValue.putDouble(valueIndex + MAX, value);
+        }
+        final int bufferCount = mapValue.getInt(valueIndex + BUFFER_COUNT);
+        mapValue.putDouble(valueIndex + BUFFER + bufferCount, value);
+        mapValue.putInt(valueIndex + BUFFER_COUNT, bufferCount + 1);
+        if (bufferCount + 1 == BUFFER_CAPACITY) {
+            final int n = loadCentroids(mapValue, valueIndex, means, weights);
+            final int valueCount = loadBuffer(mapValue, valueIndex, values, 0);
+            Arrays.sort(values, 0, valueCount);
+            compress(mapValue, valueIndex, mergedMeans, mergedWeights, merge(means, weights, n, values, valueCount, mergedMeans, mergedWeights));
+        }
+    }
+
+    void clear(MapValue mapValue, int valueIndex) {
+        mapValue.putInt(valueIndex + CENTROID_COUNT, 0);
+        mapValue.putInt(valueIndex + BUFFER_COUNT, 0);
+        mapValue.putDouble(valueIndex + MIN, Double.POSITIVE_INFINITY);
+        mapValue.putDouble(valueIndex + MAX, Double.NEGATIVE_INFINITY);
+    }
+
+    double quantile(Record record, int valueIndex, double q) {
+        int n = record.getInt(valueIndex + CENTROID_COUNT);
+        for (int i = 0; i < n; i++) {
+            means[i] = record.getDouble(valueIndex + CENTROIDS + 2 * i);
+            weights[i] = record.getDouble(valueIndex + CENTROIDS + 2 * i + 1);
+        }
+        final int valueCount = record.getInt(valueIndex + BUFFER_COUNT);
+        for (int i = 0; i < valueCount; i++) {
+            values[i] = record.getDouble(valueIndex + BUFFER + i);
+        }
+        Arrays.sort(values, 0, valueCount);
+        n = merge(means, weights, n, values, valueCount, mergedMeans, mergedWeights);
+        if (n == 0) {
+            return Double.NaN;
+        }
+
+        final double min = record.getDouble(valueIndex + MIN);
+        final double max = record.getDouble(valueIndex + MAX);
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += mergedWeights[i];
+        }
+
+        // centroid mean is assumed to sit in the middle of its weight, min and max sit at the ends
+        final double target = q * total;
+        double center = mergedWeights[0] / 2;
+        if (target <= center) {
+            return min + (mergedMeans[0] - min) * (target / center);
+        }
+        for (int i = 0; i < n - 1; i++) {
+            final double next = center + (mergedWeights[i] + mergedWeights[i + 1]) / 2;
+            if (target < next) {
+                return mergedMeans[i] + (mergedMeans[i + 1] - mergedMeans[i]) * (target - center) / (next - center);
+            }
+            center = next;
+        }
+        final double last = mergedMeans[n - 1];
+        return Math.min(max, last + (max - last) * (target - center) / (total - center));
+    }
+
+    private static double k(double q) {
+        return COMPRESSION / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private static int loadBuffer(MapValue mapValue, int valueIndex, double[] values, int lo) {
+        final int n = mapValue.getInt(valueIndex + BUFFER_COUNT);
+        for (int i = 0; i < n; i++) {
+            values[lo + i] = mapValue.getDouble(valueIndex + BUFFER + i);
+        }
+        return lo + n;
+    }
+
+    private static int loadCentroids(MapValue mapValue, int valueIndex, double[] means, double[] weights) {
+        final int n = mapValue.getInt(valueIndex + CENTROID_COUNT);
+        for (int i = 0; i < n; i++) {
+            means[i] = mapValue.getDouble(valueIndex + CENTROIDS + 2 * i);
+            weights[i] = mapValue.getDouble(valueIndex + CENTROIDS + 2 * i + 1);
+        }
+        return n;
+    }
+
+    // merges centroids with sorted values of unit weight
+    private static int merge(double[] means, double[] weights, int n, double[] values, int valueCount, double[] outMeans, double[] outWeights) {
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < valueCount) {
+            if (j == valueCount || (i < n && means[i] <= values[j])) {
+                outMeans[k] = means[i];
+                outWeights[k++] = weights[i++];
+            } else {
+                outMeans[k] = values[j++];
+                outWeights[k++] = 1;
+            }
+        }
+        return k;
+    }
+
+    private static double q(double k) {
+        return (Math.sin(Math.min(k, COMPRESSION / 4) * (2 * Math.PI) / COMPRESSION) + 1) / 2;
+    }
+
+    private static void compress(MapValue mapValue, int valueIndex, double[] means, double[] weights, int n) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += weights[i];
+        }
+
+        int count = 0;
+        double mean = means[0];
+        double weight = weights[0];
+        double weightSoFar = 0;
+        double weightLimit = total * q(k(0) + 1);
+        for (int i = 1; i < n; i++) {
+            if (weightSoFar + weight + weights[i] <= weightLimit || count == CENTROID_CAPACITY - 1) {
+                weight += weights[i];
+                mean += (means[i] - mean) * weights[i] / weight;
+            } else {
+                putCentroid(mapValue, valueIndex, count++, mean, weight);
+                weightSoFar += weight;
+                mean = means[i];
+                weight = weights[i];
+                weightLimit = total * q(k(weightSoFar / total) + 1);
+            }
+        }
+        putCentroid(mapValue, valueIndex, count++, mean, weight);
+        mapValue.putInt(valueIndex + CENTROID_COUNT, count);
+        mapValue.putInt(valueIndex + BUFFER_COUNT, 0);
+    }
+
+    private static void putCentroid(MapValue mapValue, int valueIndex, int index, double mean, double weight) {
+        mapValue.putDouble(valueIndex + CENTROIDS + 2 * index, mean);
+        mapValue.putDouble(valueIndex + CENTROIDS + 2 * index + 1, weight);
+    }
+}
@@ -27,13 +27,10 @@ package io.questdb.griffin.engine.functions.regex;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.Function;
-import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
-import io.questdb.griffin.engine.functions.BooleanFunction;
-import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.constants.BooleanConstant;
 import io.questdb.std.Chars;
@@ -96,55 +93,33 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
         throw SqlException.$(argPositions.getQuick(1), "use constant or bind variable");
     }
 
-    private static class ConstLikeStrFunction extends BooleanFunction implements UnaryFunction {
-        private final Function value;
+    private static class ConstLikeStrFunction extends AbstractMatcherFunction {
         private final Matcher matcher;
 
         public ConstLikeStrFunction(Function value, Matcher matcher) {
-            this.value = value;
+            super(value);
             this.matcher = matcher;
         }
 
         @Override
-        public Function getArg() {
-            return value;
-        }
-
-        @Override
-        public boolean getBool(Record rec) {
-            CharSequence cs = getArg().getStr(rec);
-            return cs != null && matcher.reset(cs).matches();
+        boolean matches(CharSequence value) {
+            return value != null && matcher.reset(value).matches();
         }
     }
 
-    private static class BindLikeStrFunction extends BooleanFunction implements UnaryFunction {
-        private final Function value;
+    private static class BindLikeStrFunction extends AbstractMatcherFunction {
         private final Function pattern;
         private Matcher matcher;
         private String lastPattern = null;
 
         public BindLikeStrFunction(Function value, Function pattern) {
-            this.value = value;
+            super(value);
             this.pattern = pattern;
         }
 
-        @Override
-        public Function getArg() {
-            return value;
-        }
-
-        @Override
-        public boolean getBool(Record rec) {
-            if (matcher != null) {
-                CharSequence cs = getArg().getStr(rec);
-                return cs != null && matcher.reset(cs).matches();
-            }
-            return false;
-        }
-
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
-            value.init(symbolTableSource, executionContext);
+            super.init(symbolTableSource, executionContext);
             pattern.init(symbolTableSource, executionContext);
             // this is bind variable, we can use it as constant
             final CharSequence patternValue = pattern.getStr(null);
@@ -159,9 +134,10 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
                 matcher = null;
             }
         }
+
+        @Override
+        boolean matches(CharSequence value) {
+            return matcher != null && value != null && matcher.reset(value).matches();
+        }
     }
 }
-
-
-
-
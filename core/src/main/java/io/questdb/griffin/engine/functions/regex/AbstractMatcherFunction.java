@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.regex;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.BitSet;
+
+/**
+ * Base for pattern predicates. When the argument is a symbol column the pattern is tested once per
+ * symbol key and the outcome is remembered, which turns per-row regex evaluation into a bit probe
+ * on the int key. Outcomes are forgotten on {@link #init(SymbolTableSource, SqlExecutionContext)}
+ * because pattern can be re-bound there.
+ */
+abstract class AbstractMatcherFunction extends BooleanFunction implements UnaryFunction {
+    private final Function arg;
+    private final BitSet testedKeys = new BitSet();
+    private final BitSet matchedKeys = new BitSet();
+    private SymbolFunction symbolArg;
+
+    AbstractMatcherFunction(Function arg) {
+        this.arg = arg;
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public boolean getBool(Record rec) {
+        if (symbolArg == null) {
+            return matches(arg.getStr(rec));
+        }
+
+        final int key = symbolArg.getInt(rec);
+        if (key == SymbolTable.VALUE_IS_NULL) {
+            return matches(null);
+        }
+        if (testedKeys.get(key)) {
+            return matchedKeys.get(key);
+        }
+        final boolean matched = matches(symbolArg.valueOf(key));
+        testedKeys.set(key);
+        if (matched) {
+            matchedKeys.set(key);
+        }
+        return matched;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        testedKeys.clear();
+        matchedKeys.clear();
+        if (arg instanceof SymbolFunction && ((SymbolFunction) arg).isSymbolTableStatic()) {
+            symbolArg = (SymbolFunction) arg;
+        } else {
+            symbolArg = null;
+        }
+    }
+
+    /**
+     * @param value string value or symbol, can be null
+     * @return true when value satisfies the pattern
+     */
+    abstract boolean matches(CharSequence value);
+}
@@ -26,12 +26,9 @@ package io.questdb.griffin.engine.functions.regex;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.Function;
-import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
-import io.questdb.griffin.engine.functions.BooleanFunction;
-import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
@@ -69,24 +66,17 @@ public class NotMatchStrFunctionFactory implements FunctionFactory {
         }
     }
 
-    private static class MatchFunction extends BooleanFunction implements UnaryFunction {
-        private final Function arg;
+    private static class MatchFunction extends AbstractMatcherFunction {
         private final Matcher matcher;
 
         public MatchFunction(Function arg, Matcher matcher) {
-            this.arg = arg;
+            super(arg);
             this.matcher = matcher;
         }
 
         @Override
-        public Function getArg() {
-            return arg;
-        }
-
-        @Override
-        public boolean getBool(Record rec) {
-            CharSequence cs = getArg().getStr(rec);
-            return cs == null || !matcher.reset(cs).find();
+        boolean matches(CharSequence value) {
+            return value == null || !matcher.reset(value).find();
         }
     }
 }
@@ -43,6 +43,11 @@ public class RndBinCCCFunctionFactory implements FunctionFactory {
         return "rnd_bin(lli)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(
             int position,
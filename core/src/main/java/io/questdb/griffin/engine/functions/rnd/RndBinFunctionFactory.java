@@ -42,6 +42,11 @@ public class RndBinFunctionFactory implements FunctionFactory {
         return "rnd_bin()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new FixLenFunction();
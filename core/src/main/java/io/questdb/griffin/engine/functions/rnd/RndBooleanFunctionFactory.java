@@ -42,6 +42,11 @@ public class RndBooleanFunctionFactory implements FunctionFactory {
         return "rnd_boolean()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new RndFunction();
@@ -42,6 +42,11 @@ public class RndByteFunctionFactory implements FunctionFactory {
         return "rnd_byte()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
 
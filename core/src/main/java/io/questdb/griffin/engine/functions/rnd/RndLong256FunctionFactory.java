@@ -42,6 +42,11 @@ public class RndLong256FunctionFactory implements FunctionFactory {
         return "rnd_long256()";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new RndFunction();
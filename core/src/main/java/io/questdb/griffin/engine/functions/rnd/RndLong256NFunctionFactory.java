@@ -42,6 +42,11 @@ public class RndLong256NFunctionFactory implements FunctionFactory {
         return "rnd_long256(i)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         return new RndFunction(args.getQuick(0).getInt(null));
@@ -43,6 +43,11 @@ public class RndLongCCFunctionFactory implements FunctionFactory {
         return "rnd_long(lli)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
         final long lo = args.getQuick(0).getLong(null);
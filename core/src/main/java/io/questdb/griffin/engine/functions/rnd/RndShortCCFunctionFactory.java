@@ -43,6 +43,11 @@ public class RndShortCCFunctionFactory implements FunctionFactory {
         return "rnd_short(ii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
 
@@ -43,6 +43,11 @@ public class RndStringRndListFunctionFactory implements FunctionFactory {
         return "rnd_str(iiii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
 
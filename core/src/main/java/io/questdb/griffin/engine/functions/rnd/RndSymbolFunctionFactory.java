@@ -45,6 +45,11 @@ public class RndSymbolFunctionFactory implements FunctionFactory {
         return "rnd_symbol(iiii)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(
             int position,
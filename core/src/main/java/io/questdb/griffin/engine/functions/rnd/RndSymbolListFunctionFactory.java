@@ -43,6 +43,11 @@ public class RndSymbolListFunctionFactory implements FunctionFactory {
         return "rnd_symbol(V)";
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public Function newInstance(
             int position,
@@ -55,13 +55,29 @@ public class DistinctRecordCursorFactory implements RecordCursorFactory {
         final RecordMetadata metadata = base.getMetadata();
         // sink will be storing record columns to map key
         columnFilter.of(metadata.getColumnCount());
-        this.mapSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, false);
+        this.mapSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, isSymAsString(metadata));
         this.dataMap = MapFactory.createMap(configuration, metadata);
         this.base = base;
         this.metadata = metadata;
         this.cursor = new DistinctRecordCursor();
     }
 
+    /**
+     * Symbol keys identify values only within single symbol table. Columns with
+     * tables that can change between records must be keyed by symbol value.
+     *
+     * @param metadata metadata of distinct columns
+     * @return true when map keys have to be symbol values rather than symbol keys
+     */
+    static boolean isSymAsString(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) == ColumnType.SYMBOL && !metadata.isSymbolTableStatic(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void close() {
         dataMap.close();
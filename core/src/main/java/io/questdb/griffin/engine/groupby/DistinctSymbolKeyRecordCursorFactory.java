@@ -0,0 +1,174 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.LongHashSet;
+import io.questdb.std.Misc;
+
+/**
+ * Distinct over one or two symbol columns. Symbols are compared by their dictionary keys,
+ * which are packed into single long and kept in primitive hash set. Key strings are only
+ * resolved when output record is read.
+ */
+public class DistinctSymbolKeyRecordCursorFactory implements RecordCursorFactory {
+    // odd multiplier makes key mixing reversible, packed keys do not collide
+    private static final long KEY_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // both symbol keys cannot be -1, mixed value of such pair is never a valid key
+    private static final long NO_ENTRY_KEY = -KEY_MULTIPLIER;
+    private final RecordCursorFactory base;
+    private final DistinctSymbolKeyRecordCursor cursor;
+
+    public DistinctSymbolKeyRecordCursorFactory(CairoConfiguration configuration, RecordCursorFactory base) {
+        final RecordMetadata metadata = base.getMetadata();
+        assert metadata.getColumnCount() == 1 || metadata.getColumnCount() == 2;
+        this.base = base;
+        // key set is held to the same memory budget as map it replaces
+        final int maxResizes = configuration.getSqlMapMaxResizes();
+        long maxSize = configuration.getSqlMapPageSize();
+        for (int i = 0; i < maxResizes && maxSize < Integer.MAX_VALUE; i++) {
+            maxSize <<= 1;
+        }
+        this.cursor = new DistinctSymbolKeyRecordCursor(
+                metadata.getColumnCount() == 2 ? 1 : 0,
+                maxSize / Long.BYTES,
+                maxResizes
+        );
+    }
+
+    static long mixKeys(int key0, int key1) {
+        return ((((long) key0) << 32) | (key1 & 0xffffffffL)) * KEY_MULTIPLIER;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext.getSqlExecutionInterruptor());
+            return cursor;
+        } catch (Throwable e) {
+            baseCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    private static class DistinctSymbolKeyRecordCursor implements RecordCursor {
+        private final LongHashSet keys = new LongHashSet(16, 0.5, NO_ENTRY_KEY);
+        private final int secondColumnIndex;
+        private final long maxKeys;
+        private final int maxResizes;
+        private RecordCursor baseCursor;
+        private Record record;
+        private SqlExecutionInterruptor interruptor;
+
+        public DistinctSymbolKeyRecordCursor(int secondColumnIndex, long maxKeys, int maxResizes) {
+            this.secondColumnIndex = secondColumnIndex;
+            this.maxKeys = maxKeys;
+            this.maxResizes = maxResizes;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+            keys.clear();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (baseCursor.hasNext()) {
+                interruptor.checkInterrupted();
+                // single column is paired with itself, its key is unique all the same
+                final long key = mixKeys(record.getInt(0), record.getInt(secondColumnIndex));
+                final int index = keys.keyIndex(key);
+                if (index > -1) {
+                    if (keys.size() >= maxKeys) {
+                        throw LimitOverflowException.instance().put("limit of ").put(maxResizes).put(" resizes exceeded in distinct symbol key set");
+                    }
+                    keys.addAt(index, key);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return baseCursor.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            baseCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            keys.clear();
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        void of(RecordCursor baseCursor, SqlExecutionInterruptor interruptor) {
+            this.baseCursor = baseCursor;
+            this.record = baseCursor.getRecord();
+            this.interruptor = interruptor;
+            keys.clear();
+        }
+    }
+}
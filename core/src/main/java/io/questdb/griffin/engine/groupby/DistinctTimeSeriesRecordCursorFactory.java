@@ -55,7 +55,7 @@ public class DistinctTimeSeriesRecordCursorFactory implements RecordCursorFactor
         final RecordMetadata metadata = base.getMetadata();
         // sink will be storing record columns to map key
         columnFilter.of(metadata.getColumnCount());
-        RecordSink recordSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, false);
+        RecordSink recordSink = RecordSinkFactory.getInstance(asm, metadata, columnFilter, DistinctRecordCursorFactory.isSymAsString(metadata));
         this.dataMap = new FastMap(
                 configuration.getSqlMapPageSize(),
                 metadata,
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.BinarySearch;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Non-keyed SAMPLE BY with FILL(NONE) over page frames. Rows are ordered by timestamp,
+ * which makes every sample a contiguous row range. Range boundaries are located by
+ * binary search on timestamp column and each range is aggregated by vector functions.
+ */
+public class SampleByFillNoneNotKeyedVectorRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<VectorAggregateFunction> vafList;
+    private final ObjList<Function> recordFunctions;
+    private final SampleByVectorRecordCursor cursor;
+
+    public SampleByFillNoneNotKeyedVectorRecordCursorFactory(
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            TimestampSampler timestampSampler,
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            int timestampIndex,
+            int timestampIndexInThis
+    ) {
+        this.base = base;
+        this.metadata = metadata;
+        this.vafList = new ObjList<>(vafList.size());
+        this.vafList.addAll(vafList);
+
+        // output record is made of vector functions, except for timestamp column
+        // which is served by the cursor
+        final int columnCount = metadata.getColumnCount();
+        this.recordFunctions = new ObjList<>(columnCount);
+        this.cursor = new SampleByVectorRecordCursor(timestampSampler, timestampIndex);
+        for (int i = 0, k = 0; i < columnCount; i++) {
+            if (i == timestampIndexInThis) {
+                recordFunctions.add(cursor.timestampFunc);
+            } else {
+                recordFunctions.add(this.vafList.getQuick(k++));
+            }
+        }
+        this.cursor.of(recordFunctions);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(vafList);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        return cursor.of(pageFrameCursor, executionContext);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private class SampleByVectorRecordCursor implements NoRandomAccessRecordCursor {
+        private final TimestampSampler timestampSampler;
+        private final int timestampIndex;
+        private final SampleTimestampFunction timestampFunc = new SampleTimestampFunction();
+        private Record record;
+        private PageFrameCursor pageFrameCursor;
+        private SqlExecutionInterruptor interruptor;
+        private PageFrame frame;
+        private long timestampAddress;
+        // row range of current frame that is yet to be aggregated
+        private long rowLo;
+        private long rowHi;
+        private boolean samplerStarted;
+
+        public SampleByVectorRecordCursor(TimestampSampler timestampSampler, int timestampIndex) {
+            this.timestampSampler = timestampSampler;
+            this.timestampIndex = timestampIndex;
+        }
+
+        @Override
+        public void close() {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+            interruptor = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (rowLo >= rowHi && !nextFrame()) {
+                return false;
+            }
+
+            // first row of the frame is always the first row of the sample
+            final long sampleTimestamp = timestampSampler.round(Unsafe.getUnsafe().getLong(timestampAddress + (rowLo << 3)));
+            final long sampleTimestampHi = timestampSampler.nextTimestamp(sampleTimestamp);
+            timestampFunc.value = sampleTimestamp;
+
+            for (int i = 0, n = vafList.size(); i < n; i++) {
+                vafList.getQuick(i).clear();
+            }
+
+            while (true) {
+                // find last row of the sample in the current frame
+                final long hi = Vect.boundedBinarySearch64Bit(
+                        timestampAddress,
+                        sampleTimestampHi - 1,
+                        rowLo,
+                        rowHi - 1,
+                        BinarySearch.SCAN_DOWN
+                ) + 1;
+                aggregate(rowLo, hi);
+                rowLo = hi;
+
+                // sample ends inside the current frame or there is no more data
+                if (rowLo < rowHi || !nextFrame()) {
+                    return true;
+                }
+
+                // next frame starts with new sample
+                if (Unsafe.getUnsafe().getLong(timestampAddress + (rowLo << 3)) >= sampleTimestampHi) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void toTop() {
+            pageFrameCursor.toTop();
+            frame = null;
+            rowLo = rowHi = 0;
+            samplerStarted = false;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        private void aggregate(long lo, long hi) {
+            for (int i = 0, n = vafList.size(); i < n; i++) {
+                final VectorAggregateFunction vaf = vafList.getQuick(i);
+                // count() does not have column of its own, it counts timestamps instead
+                final int columnIndex = vaf.getColumnIndex() == -1 ? timestampIndex : vaf.getColumnIndex();
+                final int columnSizeShr = frame.getColumnSize(columnIndex);
+                final long pageAddress = frame.getPageAddress(columnIndex);
+                if (pageAddress != 0) {
+                    vaf.aggregate(pageAddress + (lo << columnSizeShr), (hi - lo) << columnSizeShr, columnSizeShr, 0);
+                } else {
+                    // column top, there is no data to aggregate, only row count
+                    vaf.aggregate(0, (hi - lo) << columnSizeShr, columnSizeShr, 0);
+                }
+            }
+        }
+
+        private boolean nextFrame() {
+            while ((frame = pageFrameCursor.next()) != null) {
+                interruptor.checkInterrupted();
+                rowLo = 0;
+                rowHi = frame.getPageSize(timestampIndex) >>> frame.getColumnSize(timestampIndex);
+                if (rowHi > 0) {
+                    timestampAddress = frame.getPageAddress(timestampIndex);
+                    if (!samplerStarted) {
+                        // align samples to the first observation
+                        timestampSampler.setStart(Unsafe.getUnsafe().getLong(timestampAddress));
+                        samplerStarted = true;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void of(ObjList<Function> recordFunctions) {
+            this.record = new VirtualRecordNoRowid(recordFunctions);
+        }
+
+        private SampleByVectorRecordCursor of(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) {
+            this.pageFrameCursor = pageFrameCursor;
+            this.interruptor = executionContext.getSqlExecutionInterruptor();
+            toTop();
+            return this;
+        }
+    }
+
+    private static class SampleTimestampFunction extends TimestampFunction {
+        private long value;
+
+        @Override
+        public long getTimestamp(Record rec) {
+            return value;
+        }
+    }
+}
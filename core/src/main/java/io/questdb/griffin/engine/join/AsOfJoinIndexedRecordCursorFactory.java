@@ -0,0 +1,303 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rows;
+import io.questdb.std.Vect;
+
+/**
+ * ASOF JOIN on single symbol key, which is indexed on the slave table. Instead of scanning slave
+ * rows in lockstep with master, each master row is matched by binary search of slave timestamp
+ * followed by backward lookup in the symbol index. This is cheap when master is small relative to
+ * slave. Either strategy is picked when cursor is opened, based on master and slave row counts.
+ * When master size is unknown, e.g. master is filtered, cursor starts with index lookups and
+ * switches to lockstep scan once it has matched as many master rows as full slave scan would cost.
+ * Lockstep scan is delegated to {@link AsOfJoinLightRecordCursorFactory}, which also owns master
+ * and slave factories.
+ */
+public class AsOfJoinIndexedRecordCursorFactory extends AbstractRecordCursorFactory {
+    // relative cost of single index lookup step compared to scanning one slave row
+    private static final int LOOKUP_STEP_COST = 4;
+    private final AsOfJoinLightRecordCursorFactory lockstepFactory;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final AsOfIndexedJoinRecordCursor cursor;
+
+    public AsOfJoinIndexedRecordCursorFactory(
+            RecordMetadata metadata,
+            AsOfJoinLightRecordCursorFactory lockstepFactory,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            int masterKeyIndex,
+            int slaveKeyIndex,
+            int columnSplit
+    ) {
+        super(metadata);
+        this.lockstepFactory = lockstepFactory;
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        final RecordMetadata masterMetadata = masterFactory.getMetadata();
+        final RecordMetadata slaveMetadata = slaveFactory.getMetadata();
+        this.cursor = new AsOfIndexedJoinRecordCursor(
+                columnSplit,
+                NullRecordFactory.getInstance(slaveMetadata),
+                masterMetadata.getTimestampIndex(),
+                masterKeyIndex,
+                masterMetadata.getColumnType(masterKeyIndex) == ColumnType.SYMBOL,
+                slaveMetadata.getColumnName(slaveMetadata.getTimestampIndex()),
+                slaveKeyIndex,
+                slaveMetadata.getColumnName(slaveKeyIndex)
+        );
+    }
+
+    /**
+     * Number of master rows, which can be matched by index lookups at the cost of reading all slave rows.
+     *
+     * @param slaveSize number of slave rows
+     * @return master row count, above which lockstep scan is cheaper
+     */
+    static long getLookupBudget(long slaveSize) {
+        if (slaveSize < 1) {
+            return 0;
+        }
+        final long lookupCost = (64 - Long.numberOfLeadingZeros(slaveSize)) * LOOKUP_STEP_COST;
+        return slaveSize / lookupCost;
+    }
+
+    @Override
+    public void close() {
+        // lockstep factory owns metadata, master and slave factories
+        lockstepFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        RecordCursor slaveCursor = null;
+        try {
+            slaveCursor = slaveFactory.getCursor(executionContext);
+            final long masterSize = masterCursor.size();
+            final long lookupBudget = getLookupBudget(slaveCursor.size());
+            if (masterSize < 0 ? lookupBudget > 0 : masterSize < lookupBudget) {
+                cursor.of(masterCursor, (TableReaderSelectedColumnRecordCursor) slaveCursor, lookupBudget);
+                return cursor;
+            }
+            return lockstepFactory.getCursor(masterCursor, slaveCursor);
+        } catch (Throwable e) {
+            Misc.free(slaveCursor);
+            Misc.free(masterCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    class AsOfIndexedJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final OuterJoinRecord record;
+        private final int columnSplit;
+        private final int masterTimestampIndex;
+        private final int masterKeyIndex;
+        private final boolean masterKeySymbol;
+        private final CharSequence slaveTimestampColumnName;
+        private final int slaveKeyIndex;
+        private final CharSequence slaveKeyColumnName;
+        private RecordCursor masterCursor;
+        private TableReaderSelectedColumnRecordCursor slaveCursor;
+        private Record masterRecord;
+        private Record slaveRecord;
+        private StaticSymbolTable slaveSymbolTable;
+        private TableReader reader;
+        private int slaveTimestampColumn;
+        private int slaveKeyColumn;
+        private long lookupBudget;
+        private RecordCursor lockstepCursor;
+
+        private AsOfIndexedJoinRecordCursor(
+                int columnSplit,
+                Record nullRecord,
+                int masterTimestampIndex,
+                int masterKeyIndex,
+                boolean masterKeySymbol,
+                CharSequence slaveTimestampColumnName,
+                int slaveKeyIndex,
+                CharSequence slaveKeyColumnName
+        ) {
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.columnSplit = columnSplit;
+            this.masterTimestampIndex = masterTimestampIndex;
+            this.masterKeyIndex = masterKeyIndex;
+            this.masterKeySymbol = masterKeySymbol;
+            this.slaveTimestampColumnName = slaveTimestampColumnName;
+            this.slaveKeyIndex = slaveKeyIndex;
+            this.slaveKeyColumnName = slaveKeyColumnName;
+        }
+
+        @Override
+        public void close() {
+            if (lockstepCursor != null) {
+                // lockstep cursor took over master and slave cursors
+                lockstepCursor = Misc.free(lockstepCursor);
+                masterCursor = null;
+                slaveCursor = null;
+            } else {
+                masterCursor = Misc.free(masterCursor);
+                slaveCursor = Misc.free(slaveCursor);
+            }
+            reader = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (lockstepCursor != null) {
+                if (lockstepCursor.hasNext()) {
+                    record.hasSlave(((OuterJoinRecord) lockstepCursor.getRecord()).hasSlave());
+                    return true;
+                }
+                return false;
+            }
+
+            if (lookupBudget-- == 0) {
+                // master is larger than estimated, slave is at top because lookups do not move it
+                lockstepCursor = lockstepFactory.getCursor(masterCursor, slaveCursor);
+                return hasNext();
+            }
+
+            if (masterCursor.hasNext()) {
+                final CharSequence value = masterKeySymbol
+                        ? masterRecord.getSym(masterKeyIndex)
+                        : masterRecord.getStr(masterKeyIndex);
+                final int key = slaveSymbolTable.keyOf(value);
+                final long rowId = key == SymbolTable.VALUE_NOT_FOUND
+                        ? -1
+                        : findLatestRow(TableUtils.toIndexKey(key), masterRecord.getTimestamp(masterTimestampIndex));
+                if (rowId > -1) {
+                    slaveCursor.recordAt(slaveRecord, rowId);
+                    record.hasSlave(true);
+                } else {
+                    record.hasSlave(false);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return masterCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            if (lockstepCursor != null) {
+                lockstepCursor.toTop();
+            } else {
+                masterCursor.toTop();
+            }
+        }
+
+        private long findLatestRow(int indexKey, long timestamp) {
+            if (timestamp == Numbers.LONG_NaN) {
+                return -1;
+            }
+
+            int partitionIndex = reader.getPartitionedBy() == PartitionBy.NONE
+                    ? reader.getPartitionCount() - 1
+                    : reader.getPartitionIndexByTimestamp(timestamp);
+            if (partitionIndex >= reader.getPartitionCount()) {
+                partitionIndex = reader.getPartitionCount() - 1;
+            }
+
+            boolean searchTimestamp = true;
+            for (; partitionIndex > -1; partitionIndex--) {
+                final long partitionSize = reader.openPartition(partitionIndex);
+                if (partitionSize < 1) {
+                    continue;
+                }
+                final int columnBase = reader.getColumnBase(partitionIndex);
+                long rowHi = partitionSize - 1;
+                if (searchTimestamp) {
+                    // rows of older partitions are all before the timestamp
+                    searchTimestamp = false;
+                    final long timestampAddress = reader.getColumn(
+                            TableReader.getPrimaryColumnIndex(columnBase, slaveTimestampColumn)
+                    ).getPageAddress(0);
+                    rowHi = Vect.boundedBinarySearch64Bit(timestampAddress, timestamp, 0, rowHi, BinarySearch.SCAN_DOWN);
+                    if (rowHi < 0) {
+                        continue;
+                    }
+                }
+
+                final RowCursor rowCursor = reader
+                        .getBitmapIndexReader(partitionIndex, columnBase, slaveKeyColumn, BitmapIndexReader.DIR_BACKWARD)
+                        .getCursor(true, indexKey, 0, rowHi);
+                if (rowCursor.hasNext()) {
+                    return Rows.toRowID(partitionIndex, rowCursor.next());
+                }
+            }
+            return -1;
+        }
+
+        boolean isIndexLookup() {
+            return lockstepCursor == null;
+        }
+
+        void of(RecordCursor masterCursor, TableReaderSelectedColumnRecordCursor slaveCursor, long lookupBudget) {
+            this.lockstepCursor = null;
+            this.lookupBudget = lookupBudget;
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecord = slaveCursor.getRecordB();
+            this.slaveSymbolTable = (StaticSymbolTable) slaveCursor.getSymbolTable(slaveKeyIndex);
+            this.reader = slaveCursor.getTableReader();
+            final TableReaderMetadata readerMetadata = reader.getMetadata();
+            this.slaveTimestampColumn = readerMetadata.getColumnIndex(slaveTimestampColumnName);
+            this.slaveKeyColumn = readerMetadata.getColumnIndex(slaveKeyColumnName);
+            record.of(masterRecord, slaveRecord);
+        }
+    }
+}
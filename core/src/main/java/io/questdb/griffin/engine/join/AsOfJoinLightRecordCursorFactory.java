@@ -84,10 +84,14 @@ public class AsOfJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
-        cursor.of(
+        return getCursor(
                 masterFactory.getCursor(executionContext),
                 slaveFactory.getCursor(executionContext)
         );
+    }
+
+    RecordCursor getCursor(RecordCursor masterCursor, RecordCursor slaveCursor) {
+        cursor.of(masterCursor, slaveCursor);
         return cursor;
     }
 
@@ -44,6 +44,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
     private final HashJoinRecordCursor cursor;
+    private final SymbolJoinKeyFilter symbolKeyFilter;
 
     public HashJoinLightRecordCursorFactory(
             CairoConfiguration configuration,
@@ -54,8 +55,8 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterKeySink,
             RecordSink slaveKeySink,
-            int columnSplit
-
+            int columnSplit,
+            int masterSymbolKeyIndex
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -65,6 +66,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+        this.symbolKeyFilter = masterSymbolKeyIndex > -1 ? new SymbolJoinKeyFilter(masterSymbolKeyIndex) : null;
     }
 
     @Override
@@ -78,14 +80,19 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
-        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        // master is opened first, when it is prefetched on the worker pool
+        // it is computed while slave records are being hashed
+        final RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        RecordCursor slaveCursor = null;
         try {
+            slaveCursor = slaveFactory.getCursor(executionContext);
             buildMapOfSlaveRecords(slaveCursor, executionContext.getSqlExecutionInterruptor());
         } catch (Throwable e) {
-            slaveCursor.close();
+            Misc.free(slaveCursor);
+            masterCursor.close();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        cursor.of(masterCursor, slaveCursor);
         return cursor;
     }
 
@@ -173,11 +180,11 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             }
 
             while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterKeySink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChainCursor = slaveChain.getCursor(value.getLong(0));
+                final long head = symbolKeyFilter != null
+                        ? symbolKeyFilter.match(masterRecord, joinKeyMap, masterKeySink)
+                        : SymbolJoinKeyFilter.findChainHead(masterRecord, joinKeyMap, masterKeySink);
+                if (head != SymbolJoinKeyFilter.NO_MATCH) {
+                    slaveChainCursor = slaveChain.getCursor(head);
                     // we know cursor has values
                     // advance to get first value
                     slaveChainCursor.hasNext();
@@ -195,6 +202,9 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             this.slaveRecord = slaveCursor.getRecordB();
             record.of(masterRecord, slaveRecord);
             slaveChainCursor = null;
+            if (symbolKeyFilter != null) {
+                symbolKeyFilter.clear();
+            }
         }
     }
 }
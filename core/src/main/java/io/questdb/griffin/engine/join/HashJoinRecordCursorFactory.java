@@ -44,6 +44,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordSink masterSink;
     private final RecordSink slaveKeySink;
     private final HashJoinRecordCursor cursor;
+    private final SymbolJoinKeyFilter symbolKeyFilter;
 
     public HashJoinRecordCursorFactory(
             CairoConfiguration configuration,
@@ -55,8 +56,8 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             RecordSink masterSink,
             RecordSink slaveKeySink,
             RecordSink slaveChainSink,
-            int columnSplit
-
+            int columnSplit,
+            int masterSymbolKeyIndex
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -66,6 +67,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         this.masterSink = masterSink;
         this.slaveKeySink = slaveKeySink;
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+        this.symbolKeyFilter = masterSymbolKeyIndex > -1 ? new SymbolJoinKeyFilter(masterSymbolKeyIndex) : null;
     }
 
     @Override
@@ -79,14 +81,19 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
-        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        // master is opened first, when it is prefetched on the worker pool
+        // it is computed while slave records are being hashed
+        final RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        RecordCursor slaveCursor = null;
         try {
+            slaveCursor = slaveFactory.getCursor(executionContext);
             buildMapOfSlaveRecords(slaveCursor, executionContext.getSqlExecutionInterruptor());
         } catch (Throwable e) {
-            slaveCursor.close();
+            Misc.free(slaveCursor);
+            masterCursor.close();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        cursor.of(masterCursor, slaveCursor);
         return cursor;
     }
 
@@ -147,11 +154,11 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             }
 
             while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterSink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChain.of(value.getLong(0));
+                final long head = symbolKeyFilter != null
+                        ? symbolKeyFilter.match(masterRecord, joinKeyMap, masterSink)
+                        : SymbolJoinKeyFilter.findChainHead(masterRecord, joinKeyMap, masterSink);
+                if (head != SymbolJoinKeyFilter.NO_MATCH) {
+                    slaveChain.of(head);
                     // we know cursor has values
                     // advance to get first value
                     slaveChain.hasNext();
@@ -176,6 +183,9 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             this.slaveChain.setSymbolTableResolver(slaveCursor);
             recordA.of(masterRecord, slaveRecord);
             useSlaveCursor = false;
+            if (symbolKeyFilter != null) {
+                symbolKeyFilter.clear();
+            }
         }
     }
 }
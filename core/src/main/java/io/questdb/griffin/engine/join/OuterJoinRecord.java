@@ -35,6 +35,10 @@ public class OuterJoinRecord extends JoinRecord {
         this.nullRecord = nullRecord;
     }
 
+    boolean hasSlave() {
+        return slave != nullRecord;
+    }
+
     void hasSlave(boolean value) {
         if (value) {
             if (flappingSlave != slave) {
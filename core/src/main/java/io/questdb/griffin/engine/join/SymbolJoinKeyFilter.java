@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+
+/**
+ * Runtime join filter for inner hash joins on a single symbol column. Master symbol value is looked up in join
+ * key map once per distinct symbol key, the outcome is then remembered against the int key. After that master
+ * records are matched by reading their symbol key alone, without writing the key value into the map and hashing
+ * it. Records whose symbols are absent from the build side are skipped at the cost of array lookup.
+ * <p>
+ * Symbol keys above the limit are looked up in the map as usual to keep memory use bounded for high
+ * cardinality symbols.
+ */
+class SymbolJoinKeyFilter implements Mutable {
+    static final long NO_MATCH = -1;
+    private static final long UNKNOWN = -2;
+    private static final int MAX_SYMBOL_KEY = 1024 * 1024;
+    private final LongList chainHeads = new LongList();
+    private final int columnIndex;
+
+    SymbolJoinKeyFilter(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public void clear() {
+        chainHeads.clear();
+    }
+
+    static long findChainHead(Record masterRecord, Map joinKeyMap, RecordSink masterKeySink) {
+        MapKey key = joinKeyMap.withKey();
+        key.put(masterRecord, masterKeySink);
+        MapValue value = key.findValue();
+        return value != null ? value.getLong(0) : NO_MATCH;
+    }
+
+    /**
+     * @return head of slave chain for master record or {@link #NO_MATCH}
+     */
+    long match(Record masterRecord, Map joinKeyMap, RecordSink masterKeySink) {
+        final int symbolKey = masterRecord.getInt(columnIndex);
+        final int index = symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
+        if (index < 0) {
+            return findChainHead(masterRecord, joinKeyMap, masterKeySink);
+        }
+
+        final int size = chainHeads.size();
+        if (index < size) {
+            final long head = chainHeads.getQuick(index);
+            if (head != UNKNOWN) {
+                return head;
+            }
+        }
+
+        final long head = findChainHead(masterRecord, joinKeyMap, masterKeySink);
+        if (index <= MAX_SYMBOL_KEY) {
+            chainHeads.extendAndSet(index, head);
+            if (index > size) {
+                chainHeads.fill(size, index, UNKNOWN);
+            }
+        }
+        return head;
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.cairo.vm.PagedMappedReadWriteMemory;
+import io.questdb.cairo.vm.VmUtils;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.griffin.model.CreateTableModel;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.QueryModel;
+import io.questdb.std.Chars;
+import io.questdb.std.GenericLexer;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.Timestamps;
+
+/**
+ * Materialized view is a table populated by SAMPLE BY query over single base table. Definition
+ * of the view is kept in "_mv" file in view's directory. The file layout is:
+ * <pre>
+ * long   txn of base table view is consistent with, -1 when unknown
+ * string base table name
+ * string sampling interval, e.g. "1h"
+ * string calendar offset, e.g. "00:00"
+ * string query text
+ * </pre>
+ * Samples are aligned to calendar, this makes sample boundaries independent of the data and allows
+ * view to be refreshed from any sample boundary onwards.
+ */
+public class MatViewDefinition {
+    private static final long TXN_OFFSET = 0;
+    private static final long BASE_TABLE_NAME_OFFSET = TXN_OFFSET + Long.BYTES;
+
+    private String baseTableName;
+    private String samplingInterval;
+    private String offset;
+    private String query;
+
+    public static long getBaseTxn(PagedMappedReadWriteMemory mem) {
+        return mem.getLong(TXN_OFFSET);
+    }
+
+    public static MatViewDefinition of(CreateTableModel model) throws SqlException {
+        if (model.getPartitionBy() == PartitionBy.NONE || model.getTimestamp() == null) {
+            throw SqlException.$(model.getName().position, "materialized view must have designated timestamp and be partitioned");
+        }
+
+        QueryModel sampleByModel = null;
+        ExpressionNode baseTableName = null;
+        QueryModel m = model.getQueryModel();
+        while (m != null) {
+            if (m.getJoinModels().size() > 1 || m.getUnionModel() != null) {
+                throw SqlException.$(m.getModelPosition(), "materialized view query must select from single table");
+            }
+            if (m.getSampleBy() != null) {
+                sampleByModel = m;
+            }
+            if (m.getTableName() != null) {
+                baseTableName = m.getTableName();
+            }
+            m = m.getNestedModel();
+        }
+
+        if (sampleByModel == null) {
+            throw SqlException.$(model.getQueryModel().getModelPosition(), "materialized view query must use 'sample by'");
+        }
+
+        final ExpressionNode sampleBy = sampleByModel.getSampleBy();
+        final ObjList<ExpressionNode> fill = sampleByModel.getSampleByFill();
+        if (fill.size() > 1 || fill.size() == 1 && !Chars.equalsLowerCaseAscii(fill.getQuick(0).token, "none")) {
+            // filled values depend on neighbouring samples, which are not refreshed
+            throw SqlException.$(fill.getQuick(0).position, "fill is not supported by materialized view");
+        }
+
+        if (sampleByModel.getSampleByTimezoneName() != null) {
+            throw SqlException.$(sampleByModel.getSampleByTimezoneName().position, "time zone is not supported by materialized view");
+        }
+
+        final ExpressionNode offset = sampleByModel.getSampleByOffset();
+        if (offset == null) {
+            throw SqlException.$(sampleBy.position, "materialized view query must use 'align to calendar'");
+        }
+
+        if (offset.type != ExpressionNode.CONSTANT || Timestamps.parseOffset(GenericLexer.unquote(offset.token)) == Numbers.LONG_NaN) {
+            throw SqlException.$(offset.position, "constant offset expected");
+        }
+
+        if (baseTableName == null || baseTableName.type != ExpressionNode.LITERAL) {
+            throw SqlException.$(model.getQueryModel().getModelPosition(), "materialized view query must select from table");
+        }
+
+        // validate sampling interval
+        TimestampSamplerFactory.getInstance(sampleBy.token, sampleBy.position);
+
+        final MatViewDefinition definition = new MatViewDefinition();
+        definition.baseTableName = Chars.toString(GenericLexer.unquote(baseTableName.token));
+        definition.samplingInterval = Chars.toString(sampleBy.token);
+        definition.offset = Chars.toString(GenericLexer.unquote(offset.token));
+        definition.query = model.getMatViewQuery();
+        return definition;
+    }
+
+    public static void setBaseTxn(PagedMappedReadWriteMemory mem, long txn) {
+        mem.putLong(TXN_OFFSET, txn);
+    }
+
+    public TimestampSampler createSampler() throws SqlException {
+        final TimestampSampler sampler = TimestampSamplerFactory.getInstance(samplingInterval, 0);
+        sampler.setStart(Numbers.decodeLowInt(Timestamps.parseOffset(offset)) * Timestamps.MINUTE_MICROS);
+        return sampler;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void readFrom(PagedMappedReadWriteMemory mem) {
+        long offset = BASE_TABLE_NAME_OFFSET;
+        baseTableName = Chars.toString(mem.getStr(offset));
+        offset += VmUtils.getStorageLength(baseTableName);
+        samplingInterval = Chars.toString(mem.getStr(offset));
+        offset += VmUtils.getStorageLength(samplingInterval);
+        this.offset = Chars.toString(mem.getStr(offset));
+        offset += VmUtils.getStorageLength(this.offset);
+        query = Chars.toString(mem.getStr(offset));
+    }
+
+    public void writeTo(AppendOnlyVirtualMemory mem, long baseTxn) {
+        mem.putLong(baseTxn);
+        mem.putStr(baseTableName);
+        mem.putStr(samplingInterval);
+        mem.putStr(offset);
+        mem.putStr(query);
+    }
+}
@@ -0,0 +1,379 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.PagedMappedReadWriteMemory;
+import io.questdb.griffin.*;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized views up to date with their base tables. Views are discovered by "_mv" file in
+ * table directory. At most once per refresh interval the job compares partitions of base table with
+ * the snapshot taken at previous refresh, finds the lowest timestamp affected by the changes, be it
+ * appended rows, out-of-order merge or removed partition, and re-computes view from the sample
+ * this timestamp belongs to. Rows of the view from that sample onwards are removed while view readers
+ * are locked, re-computed rows are appended. When readers cannot be locked refresh is retried on
+ * the next run.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private static final String WRITER_LOCK_REASON = "matViewRefresh";
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MicrosecondClock clock;
+    private final long refreshInterval;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final CharSequenceObjHashMap<MatViewState> views = new CharSequenceObjHashMap<>();
+    private final ObjList<CharSequence> droppedViews = new ObjList<>();
+    private final StringSink nameSink = new StringSink();
+    private final StringSink sqlSink = new StringSink();
+    private final Path path = new Path();
+    private final FindVisitor onFind = this::onFind;
+    private long discoveryVersion;
+    private long nextRefreshTime = Long.MIN_VALUE;
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.refreshInterval = configuration.getMatViewRefreshInterval();
+        this.compiler = new SqlCompiler(engine, engine.getMessageBus(), functionFactoryCache);
+        this.executionContext = new SqlExecutionContextImpl(engine, 1, engine.getMessageBus());
+        this.executionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+    }
+
+    @Override
+    public void close() {
+        final ObjList<CharSequence> names = views.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            Misc.free(views.get(names.getQuick(i)));
+        }
+        views.clear();
+        Misc.free(compiler);
+        Misc.free(path);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long now = clock.getTicks();
+        if (now < nextRefreshTime) {
+            return false;
+        }
+        nextRefreshTime = now + refreshInterval;
+
+        discoverViews();
+
+        boolean useful = false;
+        final ObjList<CharSequence> names = views.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            useful |= refresh(views.get(names.getQuick(i)));
+        }
+        return useful;
+    }
+
+    private static long findRefreshLo(MatViewState state, TableReader baseReader) {
+        if (state.baseTxn == -1
+                || baseReader.getDataVersion() != state.baseDataVersion
+                || baseReader.getVersion() != state.baseStructureVersion) {
+            return Long.MIN_VALUE;
+        }
+
+        if (baseReader.getPartitionedBy() == PartitionBy.NONE) {
+            final long size = baseReader.size();
+            if (size == state.baseSize) {
+                return Long.MAX_VALUE;
+            }
+            return size > state.baseSize ? state.baseMaxTimestamp : Long.MIN_VALUE;
+        }
+
+        // merge partition lists of the snapshot and the reader, both are ordered by timestamp
+        final LongList snapshot = state.basePartitions;
+        final int snapshotCount = snapshot.size() / MatViewState.PARTITION_SLOT_SIZE;
+        final int partitionCount = baseReader.getPartitionCount();
+        long lo = Long.MAX_VALUE;
+        int i = 0;
+        int j = 0;
+        while (i < partitionCount || j < snapshotCount) {
+            final long ts = i < partitionCount ? baseReader.getPartitionTimestamp(i) : Long.MAX_VALUE;
+            final long snapshotTs = j < snapshotCount ? snapshot.getQuick(j * MatViewState.PARTITION_SLOT_SIZE) : Long.MAX_VALUE;
+            if (ts < snapshotTs) {
+                // new partition
+                lo = Math.min(lo, ts);
+                i++;
+            } else if (ts > snapshotTs) {
+                // removed partition
+                lo = Math.min(lo, snapshotTs);
+                j++;
+            } else {
+                final int slot = j * MatViewState.PARTITION_SLOT_SIZE;
+                final long size = baseReader.getPartitionSize(i);
+                final long snapshotSize = snapshot.getQuick(slot + 1);
+                if (baseReader.getPartitionNameTxn(i) != snapshot.getQuick(slot + 2)) {
+                    // out-of-order data was merged into the partition
+                    lo = Math.min(lo, ts);
+                } else if (size != snapshotSize) {
+                    // rows were appended to the partition, for the last
+                    // partition we know exactly where the new rows start
+                    if (j == snapshotCount - 1 && size > snapshotSize) {
+                        lo = Math.min(lo, state.baseMaxTimestamp);
+                    } else {
+                        lo = Math.min(lo, ts);
+                    }
+                }
+                i++;
+                j++;
+            }
+        }
+        return lo;
+    }
+
+    private void discoverViews() {
+        discoveryVersion++;
+        ff.iterateDir(path.of(configuration.getRoot()).$(), onFind);
+
+        // views that were not found have been dropped
+        droppedViews.clear();
+        final ObjList<CharSequence> names = views.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            final CharSequence name = names.getQuick(i);
+            final MatViewState state = views.get(name);
+            if (state.discoveryVersion != discoveryVersion) {
+                Misc.free(state);
+                droppedViews.add(name);
+            }
+        }
+        for (int i = 0, n = droppedViews.size(); i < n; i++) {
+            views.remove(droppedViews.getQuick(i));
+        }
+    }
+
+    private void onFind(long pName, int type) {
+        if (type != Files.DT_DIR) {
+            return;
+        }
+        nameSink.clear();
+        if (!Chars.utf8DecodeZ(pName, nameSink) || !Chars.notDots(nameSink)) {
+            return;
+        }
+
+        MatViewState state = views.get(nameSink);
+        if (state == null) {
+            path.of(configuration.getRoot()).concat(nameSink).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+            if (!ff.exists(path)) {
+                return;
+            }
+            try {
+                state = new MatViewState(Chars.toString(nameSink), ff, path);
+                state.baseTxnSequence = engine.getTxnNotifier().getSequence(state.definition.getBaseTableName());
+            } catch (CairoException | SqlException e) {
+                LOG.error().$("could not open materialized view [view=").utf8(nameSink).$(", e=").$((Sinkable) e).$(']').$();
+                return;
+            }
+            views.put(state.viewName, state);
+            LOG.info().$("materialized view found [view=").utf8(state.viewName).$(", base=").utf8(state.definition.getBaseTableName()).$(']').$();
+        }
+        state.discoveryVersion = discoveryVersion;
+    }
+
+    private boolean refresh(MatViewState state) {
+        if (state.baseTxn != -1 && state.baseTxnSequence.getTxn() == state.baseTxn) {
+            // base table writer is open and has not committed since the last refresh
+            return false;
+        }
+
+        try (TableReader baseReader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, state.definition.getBaseTableName())) {
+            final long baseTxn = baseReader.getTxn();
+            if (baseTxn == state.baseTxn) {
+                return false;
+            }
+
+            final long lo;
+            if (state.baseTxn == -1 && baseTxn == MatViewDefinition.getBaseTxn(state.definitionMem)) {
+                // view is consistent with base table, e.g. it was refreshed before restart
+                lo = Long.MAX_VALUE;
+            } else {
+                lo = findRefreshLo(state, baseReader);
+            }
+
+            if (lo != Long.MAX_VALUE && !refresh(state, lo == Long.MIN_VALUE ? Long.MIN_VALUE : sampleLo(state.sampler, lo))) {
+                return false;
+            }
+
+            state.of(baseReader);
+            MatViewDefinition.setBaseTxn(state.definitionMem, baseTxn);
+            return lo != Long.MAX_VALUE;
+        } catch (CairoException | SqlException e) {
+            LOG.error().$("could not refresh materialized view [view=").utf8(state.viewName).$(", e=").$((Sinkable) e).$(']').$();
+            return false;
+        }
+    }
+
+    private boolean refresh(MatViewState state, long lo) throws SqlException {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, state.viewName, WRITER_LOCK_REASON)) {
+            try {
+                final RecordMetadata writerMetadata = writer.getMetadata();
+                final int timestampIndex = writerMetadata.getTimestampIndex();
+
+                if (writer.getMaxTimestamp() >= lo) {
+                    if (!engine.lockReaders(state.viewName)) {
+                        LOG.info().$("materialized view is in use, refresh is postponed [view=").utf8(state.viewName).$(']').$();
+                        return false;
+                    }
+                    try {
+                        if (lo == Long.MIN_VALUE) {
+                            writer.truncate();
+                        } else {
+                            writer.truncateFrom(lo);
+                        }
+                    } finally {
+                        engine.unlockReaders(state.viewName);
+                    }
+                }
+
+                sqlSink.clear();
+                if (lo == Long.MIN_VALUE) {
+                    sqlSink.put(state.definition.getQuery());
+                } else {
+                    // filter is pushed down to base table, "lo" is sample boundary, so
+                    // the first sample of the result is complete
+                    sqlSink.put("select * from (").put(state.definition.getQuery()).put(") where ")
+                            .put(writerMetadata.getColumnName(timestampIndex)).put(" >= '");
+                    TimestampFormatUtils.appendDateTimeUSec(sqlSink, lo);
+                    sqlSink.put('\'');
+                }
+
+                try (
+                        RecordCursorFactory factory = compiler.compile(sqlSink, executionContext).getRecordCursorFactory();
+                        RecordCursor cursor = factory.getCursor(executionContext)
+                ) {
+                    entityColumnFilter.of(writerMetadata.getColumnCount());
+                    final SqlCompiler.RecordToRowCopier copier = SqlCompiler.assembleRecordToRowCopier(
+                            asm,
+                            factory.getMetadata(),
+                            writerMetadata,
+                            entityColumnFilter
+                    );
+                    final Record record = cursor.getRecord();
+                    long rowCount = 0;
+                    while (cursor.hasNext()) {
+                        TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+                        copier.copy(record, row);
+                        row.append();
+                        rowCount++;
+                    }
+                    writer.commit();
+                    LOG.info()
+                            .$("refreshed materialized view [view=").utf8(state.viewName)
+                            .$(", from=").$ts(lo)
+                            .$(", rows=").$(rowCount)
+                            .$(']').$();
+                }
+                return true;
+            } catch (Throwable e) {
+                writer.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static long sampleLo(TimestampSampler sampler, long timestamp) {
+        final long lo = sampler.round(timestamp);
+        return lo > timestamp ? sampler.previousTimestamp(lo) : lo;
+    }
+
+    private static class MatViewState implements Closeable {
+        // partition timestamp, size and name txn
+        private static final int PARTITION_SLOT_SIZE = 3;
+        private final String viewName;
+        private final MatViewDefinition definition = new MatViewDefinition();
+        private final PagedMappedReadWriteMemory definitionMem;
+        private final TimestampSampler sampler;
+        private final LongList basePartitions = new LongList();
+        private long discoveryVersion;
+        private TxnNotifier.Sequence baseTxnSequence;
+        // snapshot of base table as of last refresh
+        private long baseTxn = -1;
+        private long baseDataVersion;
+        private long baseStructureVersion;
+        private long baseSize;
+        private long baseMaxTimestamp;
+
+        private MatViewState(String viewName, FilesFacade ff, Path path) throws SqlException {
+            this.viewName = viewName;
+            this.definitionMem = new PagedMappedReadWriteMemory(ff, path, ff.getPageSize());
+            try {
+                definition.readFrom(definitionMem);
+                this.sampler = definition.createSampler();
+            } catch (Throwable e) {
+                definitionMem.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            definitionMem.close();
+        }
+
+        private void of(TableReader baseReader) {
+            baseTxn = baseReader.getTxn();
+            baseDataVersion = baseReader.getDataVersion();
+            baseStructureVersion = baseReader.getVersion();
+            baseSize = baseReader.size();
+            baseMaxTimestamp = baseReader.getMaxTimestamp();
+            basePartitions.clear();
+            if (baseReader.getPartitionedBy() != PartitionBy.NONE) {
+                for (int i = 0, n = baseReader.getPartitionCount(); i < n; i++) {
+                    basePartitions.add(baseReader.getPartitionTimestamp(i));
+                    basePartitions.add(baseReader.getPartitionSize(i));
+                    basePartitions.add(baseReader.getPartitionNameTxn(i));
+                }
+            }
+        }
+    }
+}
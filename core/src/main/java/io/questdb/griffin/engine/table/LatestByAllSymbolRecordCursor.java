@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.Vect;
+import io.questdb.tasks.LatestBySymbolScanTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds latest rows for all values of non-indexed symbol column. Data frames are scanned backwards,
+ * newest first. Rows of each frame are split between workers, which share the list of winning row
+ * ids, one per symbol key. Scan stops as soon as all keys, including null, have a winner. Slices also
+ * stop early, see {@link LatestBySymbolScanTask}.
+ */
+class LatestByAllSymbolRecordCursor extends AbstractRecordListCursor {
+    private final int columnIndex;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final AtomicLong foundKeyCount = new AtomicLong();
+    // bit set of keys seen by each slice of the frame
+    private final DirectLongList seenKeys;
+
+    public LatestByAllSymbolRecordCursor(
+            int columnIndex,
+            @NotNull DirectLongList rows,
+            @NotNull DirectLongList seenKeys,
+            @NotNull IntList columnIndexes
+    ) {
+        super(rows, columnIndexes);
+        this.columnIndex = columnIndex;
+        this.seenKeys = seenKeys;
+    }
+
+    @Override
+    protected void buildTreeMap(SqlExecutionContext executionContext) {
+        final MessageBus bus = executionContext.getMessageBus();
+        assert bus != null;
+
+        final RingQueue<LatestBySymbolScanTask> queue = bus.getLatestBySymbolScanQueue();
+        final Sequence pubSeq = bus.getLatestBySymbolScanPubSeq();
+        final Sequence subSeq = bus.getLatestBySymbolScanSubSeq();
+
+        // null symbol takes the first slot
+        final long keyCount = getSymbolTable(columnIndex).size() + 1;
+        rows.extend(keyCount);
+        final long winnersAddress = rows.getAddress();
+        Vect.setMemoryLong(winnersAddress, -1, keyCount);
+        foundKeyCount.set(0);
+
+        final int workerCount = executionContext.getWorkerCount();
+        final long seenKeysWords = (keyCount + 63) >>> 6;
+        if (seenKeys.getCapacity() < seenKeysWords * workerCount) {
+            seenKeys.extend(seenKeysWords * workerCount);
+        }
+        // frame metadata is based on TableReader, which is "full" metadata
+        // this cursor works with subset of columns, which warrants column index remap
+        final int frameColumnIndex = columnIndexes.getQuick(columnIndex);
+        final TableReader reader = dataFrameCursor.getTableReader();
+
+        DataFrame frame;
+        while (foundKeyCount.get() < keyCount && (frame = dataFrameCursor.next()) != null) {
+            final int partitionIndex = frame.getPartitionIndex();
+            final long rowLo = frame.getRowLo();
+            final long rowHi = frame.getRowHi() - 1;
+            if (rowHi < rowLo) {
+                continue;
+            }
+
+            final int columnBase = reader.getColumnBase(partitionIndex);
+            final long columnTop = reader.getColumnTop(columnBase, frameColumnIndex);
+            final ReadOnlyVirtualMemory column = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, frameColumnIndex));
+            final long columnAddress = rowHi < columnTop ? 0 : column.getPageAddress(0);
+
+            final long sliceSize = (rowHi - rowLo + workerCount) / workerCount;
+            final long sliceCount = (rowHi - rowLo + sliceSize) / sliceSize;
+            Vect.memset(seenKeys.getAddress(), sliceCount * seenKeysWords * Long.BYTES, 0);
+            doneLatch.reset();
+            int queuedCount = 0;
+            long seenKeysAddress = seenKeys.getAddress();
+            // slices are published newest first, so that they are also picked up in this order
+            for (long hi = rowHi; hi >= rowLo; hi -= sliceSize, seenKeysAddress += seenKeysWords * Long.BYTES) {
+                final long lo = Math.max(rowLo, hi - sliceSize + 1);
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    LatestBySymbolScanTask.scan(columnAddress, columnTop, lo, hi, partitionIndex, winnersAddress, keyCount, seenKeysAddress, foundKeyCount);
+                } else {
+                    queue.get(seq).of(columnAddress, columnTop, lo, hi, partitionIndex, winnersAddress, keyCount, seenKeysAddress, foundKeyCount, doneLatch);
+                    pubSeq.done(seq);
+                    queuedCount++;
+                }
+            }
+
+            // process our own queue
+            // this should fix deadlock with 1 worker configuration
+            while (doneLatch.getCount() > -queuedCount) {
+                long seq = subSeq.next();
+                if (seq > -1) {
+                    queue.get(seq).run();
+                    subSeq.done(seq);
+                }
+            }
+
+            doneLatch.await(queuedCount);
+        }
+
+        // compact winners and restore their timestamp order
+        long rowCount = 0;
+        for (long i = 0; i < keyCount; i++) {
+            final long row = rows.get(i);
+            if (row > -1) {
+                rows.set(rowCount++, row);
+            }
+        }
+        rows.setPos(rowCount);
+        Vect.sortULongAscInPlace(winnersAddress, rowCount);
+    }
+}
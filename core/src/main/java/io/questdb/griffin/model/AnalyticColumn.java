@@ -30,9 +30,18 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAMING_ROWS = 0;
+    public static final int FRAMING_RANGE = 1;
+    // frame start when frame is not specified or is "unbounded preceding"
+    public static final long FRAME_UNBOUNDED = Long.MAX_VALUE;
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
+    private int framingMode = FRAMING_ROWS;
+    // frame always ends with current row, frame start is number of preceding rows for ROWS
+    // framing and microseconds before current row timestamp for RANGE framing
+    private long frameLo = FRAME_UNBOUNDED;
+    private int framePosition;
 
     private AnalyticColumn() {
     }
@@ -48,6 +57,21 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        framingMode = FRAMING_ROWS;
+        frameLo = FRAME_UNBOUNDED;
+        framePosition = 0;
+    }
+
+    public long getFrameLo() {
+        return frameLo;
+    }
+
+    public int getFramePosition() {
+        return framePosition;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
     }
 
     public ObjList<ExpressionNode> getPartitionBy() {
@@ -62,6 +86,12 @@ public final class AnalyticColumn extends QueryColumn {
         return orderByDirection;
     }
 
+    public void setFrame(int framingMode, long frameLo, int framePosition) {
+        this.framingMode = framingMode;
+        this.frameLo = frameLo;
+        this.framePosition = framePosition;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
@@ -45,6 +45,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private int maxUncommittedRows;
     private long commitLag;
     private boolean ignoreIfExists = false;
+    private boolean matView = false;
+    private String matViewQuery;
 
     private CreateTableModel() {
     }
@@ -86,6 +88,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         columnNames.clear();
         columnNameIndexMap.clear();
         ignoreIfExists = false;
+        matView = false;
+        matViewQuery = null;
     }
 
     public CharSequenceObjHashMap<ColumnCastModel> getColumnCastModels() {
@@ -187,6 +191,22 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.timestamp = timestamp;
     }
 
+    public String getMatViewQuery() {
+        return matViewQuery;
+    }
+
+    public void setMatViewQuery(String matViewQuery) {
+        this.matViewQuery = matViewQuery;
+    }
+
+    public boolean isMatView() {
+        return matView;
+    }
+
+    public void setMatView(boolean matView) {
+        this.matView = matView;
+    }
+
     public boolean isIgnoreIfExists() {
         return ignoreIfExists;
     }
@@ -213,7 +233,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
-        sink.put("create table ");
+        sink.put(matView ? "create materialized view " : "create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.put(" as (");
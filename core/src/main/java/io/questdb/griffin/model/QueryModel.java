@@ -114,6 +114,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private int modelPosition = 0;
     private int orderByAdviceMnemonic;
     private int tableId;
+    private long rowCountEstimate = -1;
 
     private QueryModel() {
         joinModels.add(this);
@@ -229,6 +230,7 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         tableNameFunction = null;
         tableId = -1;
         tableVersion = -1;
+        rowCountEstimate = -1;
         bottomUpColumnNames.clear();
         expressionModels.clear();
         distinct = false;
@@ -516,6 +518,17 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.postJoinWhereClause = postJoinWhereClause;
     }
 
+    /**
+     * @return number of rows table scan of this model is estimated to produce or -1 when model is not a table scan
+     */
+    public long getRowCountEstimate() {
+        return rowCountEstimate;
+    }
+
+    public void setRowCountEstimate(long rowCountEstimate) {
+        this.rowCountEstimate = rowCountEstimate;
+    }
+
     public ExpressionNode getSampleBy() {
         return sampleBy;
     }
@@ -793,6 +806,19 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+
+                    if (ac.getFramingMode() != AnalyticColumn.FRAMING_ROWS || ac.getFrameLo() != AnalyticColumn.FRAME_UNBOUNDED) {
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? " rows between " : " range between ");
+                        if (ac.getFrameLo() == AnalyticColumn.FRAME_UNBOUNDED) {
+                            sink.put("unbounded");
+                        } else {
+                            sink.put(ac.getFrameLo());
+                            if (ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE) {
+                                sink.put(" microseconds");
+                            }
+                        }
+                        sink.put(" preceding and current row");
+                    }
                     sink.put(')');
                 }
             } else {
@@ -66,10 +66,12 @@ public abstract class AbstractIODispatcher<C extends IOContext> extends Synchron
     private final long queuedConnectionTimeoutMs;
     private long closeListenFdEpochMs;
     private final boolean peerNoLinger;
+    private final boolean reusePort;
 
     public AbstractIODispatcher(
             IODispatcherConfiguration configuration,
-            IOContextFactory<C> ioContextFactory
+            IOContextFactory<C> ioContextFactory,
+            boolean reusePort
     ) {
         this.LOG = LogFactory.getLog(configuration.getDispatcherLogName());
         this.configuration = configuration;
@@ -99,6 +101,7 @@ public abstract class AbstractIODispatcher<C extends IOContext> extends Synchron
         this.sndBufSize = configuration.getSndBufSize();
         this.rcvBufSize = configuration.getRcvBufSize();
         this.peerNoLinger = configuration.getPeerNoLinger();
+        this.reusePort = reusePort;
 
         createListenFd();
         listening = true;
@@ -106,6 +109,9 @@ public abstract class AbstractIODispatcher<C extends IOContext> extends Synchron
 
     private void createListenFd() throws NetworkError {
         this.serverFd = nf.socketTcp(false);
+        if (reusePort && nf.setReusePort(this.serverFd) < 0) {
+            LOG.error().$("could not set SO_REUSEPORT [fd=").$(serverFd).$(", errno=").$(nf.errno()).$(']').$();
+        }
         if (nf.bindTcp(this.serverFd, configuration.getBindIPv4Address(), configuration.getBindPort())) {
             nf.listen(this.serverFd, configuration.getListenBacklog());
         } else {
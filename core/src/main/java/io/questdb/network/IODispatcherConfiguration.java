@@ -38,6 +38,18 @@ public interface IODispatcherConfiguration {
 
     MillisecondClock getClock();
 
+    /**
+     * Number of dispatchers serving the bind address. When greater than one every dispatcher
+     * opens its own listener socket with SO_REUSEPORT and owns an independent epoll/kqueue set,
+     * so that the kernel balances incoming connections between them. Active connection limit
+     * applies to each dispatcher individually.
+     *
+     * @return number of dispatchers, values less than 2 disable port sharing
+     */
+    default int getDispatcherCount() {
+        return 1;
+    }
+
     default String getDispatcherLogName() {
         return "IODispatcher";
     }
@@ -31,9 +31,10 @@ public class IODispatcherLinux<C extends IOContext> extends AbstractIODispatcher
 
     public IODispatcherLinux(
             IODispatcherConfiguration configuration,
-            IOContextFactory<C> ioContextFactory
+            IOContextFactory<C> ioContextFactory,
+            boolean reusePort
     ) {
-        super(configuration, ioContextFactory);
+        super(configuration, ioContextFactory, reusePort);
         this.epoll = new Epoll(configuration.getEpollFacade(), configuration.getEventCapacity());
         registerListenerFd();
     }
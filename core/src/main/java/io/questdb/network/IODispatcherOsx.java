@@ -33,9 +33,10 @@ public class IODispatcherOsx<C extends IOContext> extends AbstractIODispatcher<C
 
     public IODispatcherOsx(
             IODispatcherConfiguration configuration,
-            IOContextFactory<C> ioContextFactory
+            IOContextFactory<C> ioContextFactory,
+            boolean reusePort
     ) {
-        super(configuration, ioContextFactory);
+        super(configuration, ioContextFactory, reusePort);
         this.capacity = configuration.getEventCapacity();
 
         // bind socket
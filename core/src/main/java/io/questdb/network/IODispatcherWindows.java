@@ -40,7 +40,8 @@ public class IODispatcherWindows<C extends IOContext> extends AbstractIODispatch
             IODispatcherConfiguration configuration,
             IOContextFactory<C> ioContextFactory
     ) {
-        super(configuration, ioContextFactory);
+        // SO_REUSEPORT maps to SO_REUSEADDR on Windows, which would let other processes bind our port
+        super(configuration, ioContextFactory, false);
         this.readFdSet = new FDSet(configuration.getEventCapacity());
         this.writeFdSet = new FDSet(configuration.getEventCapacity());
         this.sf = configuration.getSelectFacade();
@@ -24,9 +24,14 @@
 
 package io.questdb.network;
 
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
 import io.questdb.std.Os;
 
 public class IODispatchers {
+    private static final Log LOG = LogFactory.getLog(IODispatchers.class);
 
     private IODispatchers() {
     }
@@ -34,15 +39,58 @@ public class IODispatchers {
     public static <C extends IOContext> IODispatcher<C> create(
             IODispatcherConfiguration configuration,
             IOContextFactory<C> ioContextFactory
+    ) {
+        return create(configuration, ioContextFactory, false);
+    }
+
+    /**
+     * Creates dispatchers sharing bind address of the configuration. Dispatcher count
+     * is capped by number of workers, because each dispatcher must be run and drained by
+     * at least one worker. Windows does not load-balance connections between listeners
+     * bound to the same port, so there we always create single dispatcher.
+     *
+     * @param configuration    dispatcher configuration, see {@link IODispatcherConfiguration#getDispatcherCount()}
+     * @param ioContextFactory context factory shared by all dispatchers
+     * @param workerCount      number of workers that will run dispatchers
+     * @param <C>              context type
+     * @return list of at least one dispatcher
+     */
+    public static <C extends IOContext> ObjList<IODispatcher<C>> create(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory,
+            int workerCount
+    ) {
+        int count = Math.max(1, Math.min(configuration.getDispatcherCount(), workerCount));
+        if (count > 1 && Os.type == Os.WINDOWS) {
+            LOG.info().$("SO_REUSEPORT is not supported, using single dispatcher [name=").$(configuration.getDispatcherLogName()).$(']').$();
+            count = 1;
+        }
+        final ObjList<IODispatcher<C>> dispatchers = new ObjList<>(count);
+        try {
+            // port is shared only when there are several dispatchers to share it
+            for (int i = 0; i < count; i++) {
+                dispatchers.add(create(configuration, ioContextFactory, count > 1));
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(dispatchers);
+            throw e;
+        }
+        return dispatchers;
+    }
+
+    private static <C extends IOContext> IODispatcher<C> create(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory,
+            boolean reusePort
     ) {
         switch (Os.type) {
             case Os.LINUX_AMD64:
             case Os.LINUX_ARM64:
-                return new IODispatcherLinux<>(configuration, ioContextFactory);
+                return new IODispatcherLinux<>(configuration, ioContextFactory, reusePort);
             case Os.OSX_AMD64:
             case Os.OSX_ARM64:
             case Os.FREEBSD:
-                return new IODispatcherOsx<>(configuration, ioContextFactory);
+                return new IODispatcherOsx<>(configuration, ioContextFactory, reusePort);
             case Os.WINDOWS:
                 return new IODispatcherWindows<>(configuration, ioContextFactory);
             default:
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.io.Closeable;
+
+/**
+ * Append-only region of native memory. Blocks are addressed by offset from the start
+ * of the region because the region can move when it grows; absolute addresses obtained
+ * via {@link #address(long)} are only valid until the next call to {@link #allocate(long)}.
+ * Memory is not zeroed. Blocks are released all at once by {@link #clear()}.
+ */
+public class DirectArena implements Mutable, Closeable {
+    private final long initialCapacity;
+    private long address;
+    private long capacity;
+    private long size;
+
+    public DirectArena(long initialCapacity) {
+        this.initialCapacity = Numbers.ceilPow2(Math.max(initialCapacity, Long.BYTES));
+    }
+
+    public long address(long offset) {
+        assert offset < size;
+        return address + offset;
+    }
+
+    /**
+     * Reserves block of memory.
+     *
+     * @param bytes block size, rounded up to 8-byte alignment
+     * @return offset of the block
+     */
+    public long allocate(long bytes) {
+        final long offset = size;
+        final long hi = offset + ((bytes + 7) & ~7L);
+        if (hi > capacity) {
+            long newCapacity = Math.max(capacity, initialCapacity);
+            while (newCapacity < hi) {
+                newCapacity <<= 1;
+            }
+            if (address == 0) {
+                address = Unsafe.malloc(newCapacity);
+            } else {
+                address = Unsafe.realloc(address, capacity, newCapacity);
+            }
+            capacity = newCapacity;
+        }
+        size = hi;
+        return offset;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity);
+            address = 0;
+            capacity = 0;
+            size = 0;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.io.Closeable;
+
+/**
+ * Any number of growable bit sets kept in native memory. A bit set is identified by its
+ * offset, which changes when the set grows to accommodate higher bit. Bit sets are released
+ * together by {@link #clear()}.
+ */
+public class DirectBitSets implements Mutable, Closeable {
+    private static final int HEADER_SIZE = Long.BYTES;
+    private final DirectArena sets;
+    private final int initialWords;
+
+    public DirectBitSets(int initialBits, long pageSize) {
+        this.initialWords = Numbers.ceilPow2(Math.max((initialBits + 63) >>> 6, 1));
+        this.sets = new DirectArena(pageSize);
+    }
+
+    public long cardinality(long set) {
+        final long p = sets.address(set);
+        final long words = Unsafe.getUnsafe().getLong(p);
+        long count = 0;
+        for (long i = 0; i < words; i++) {
+            count += Long.bitCount(Unsafe.getUnsafe().getLong(p + HEADER_SIZE + (i << 3)));
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        sets.clear();
+    }
+
+    @Override
+    public void close() {
+        sets.close();
+    }
+
+    /**
+     * @return offset of new set with all bits clear
+     */
+    public long newSet() {
+        return newSet(initialWords);
+    }
+
+    /**
+     * Sets bit.
+     *
+     * @param set set offset
+     * @param bit non-negative bit index
+     * @return offset of the set when bit was clear, this is different from the argument when set had to grow;
+     * (-set - 1) when bit was already set
+     */
+    public long set(long set, int bit) {
+        final int word = bit >>> 6;
+        set = ensureWords(set, word + 1);
+        final long p = sets.address(set) + HEADER_SIZE + ((long) word << 3);
+        final long value = Unsafe.getUnsafe().getLong(p);
+        final long mask = 1L << bit;
+        if ((value & mask) != 0) {
+            return -set - 1;
+        }
+        Unsafe.getUnsafe().putLong(p, value | mask);
+        return set;
+    }
+
+    private long ensureWords(long set, long words) {
+        final long currentWords = Unsafe.getUnsafe().getLong(sets.address(set));
+        if (words <= currentWords) {
+            return set;
+        }
+        final long newSet = newSet(Numbers.ceilPow2(words));
+        // allocation may have moved the region
+        Vect.memcpy(sets.address(set) + HEADER_SIZE, sets.address(newSet) + HEADER_SIZE, currentWords << 3);
+        return newSet;
+    }
+
+    private long newSet(long words) {
+        final long bytes = HEADER_SIZE + (words << 3);
+        final long set = sets.allocate(bytes);
+        final long p = sets.address(set);
+        Vect.memset(p, bytes, 0);
+        Unsafe.getUnsafe().putLong(p, words);
+        return set;
+    }
+}
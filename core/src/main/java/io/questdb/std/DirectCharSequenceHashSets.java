@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.io.Closeable;
+
+/**
+ * Any number of open-addressing CharSequence hash sets kept in native memory. A set is
+ * identified by its offset, which changes when the set outgrows its capacity and is
+ * rehashed into a larger block. Values are copied as UTF-16 chars into a separate region
+ * together with their hash code, so neither adding nor probing allocates on heap. Null
+ * is a valid value and is counted once.
+ * <p>
+ * Sets are released together by {@link #clear()}.
+ */
+public class DirectCharSequenceHashSets implements Mutable, Closeable {
+    private static final int SET_CAPACITY = 0;
+    private static final int SET_SIZE = 4;
+    private static final int SET_HAS_NULL = 8;
+    private static final int SET_HEADER_SIZE = 16;
+    private static final int ENTRY_HASH = 0;
+    private static final int ENTRY_LEN = 4;
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private final DirectArena sets;
+    private final DirectArena entries;
+    private final int initialCapacity;
+
+    public DirectCharSequenceHashSets(int initialCapacity, long pageSize) {
+        this.initialCapacity = Math.max(Numbers.ceilPow2(initialCapacity), 4);
+        this.sets = new DirectArena(pageSize);
+        this.entries = new DirectArena(pageSize);
+    }
+
+    /**
+     * Adds value to set.
+     *
+     * @param set   set offset
+     * @param value value to add, can be null
+     * @return offset of the set when value was added, this is different from the argument when set was rehashed;
+     * (-set - 1) when set already contains the value
+     */
+    public long add(long set, CharSequence value) {
+        final long p = sets.address(set);
+        if (value == null) {
+            if (Unsafe.getUnsafe().getInt(p + SET_HAS_NULL) != 0) {
+                return -set - 1;
+            }
+            Unsafe.getUnsafe().putInt(p + SET_HAS_NULL, 1);
+            Unsafe.getUnsafe().putInt(p + SET_SIZE, Unsafe.getUnsafe().getInt(p + SET_SIZE) + 1);
+            return set;
+        }
+
+        final int hash = Hash.spread(Chars.hashCode(value));
+        final int mask = Unsafe.getUnsafe().getInt(p + SET_CAPACITY) - 1;
+        int index = hash & mask;
+        long slot;
+        while ((slot = Unsafe.getUnsafe().getLong(slotAddress(p, index))) != 0) {
+            if (equals(slot - 1, hash, value)) {
+                return -set - 1;
+            }
+            index = (index + 1) & mask;
+        }
+
+        final int len = value.length();
+        final long entry = entries.allocate(ENTRY_HEADER_SIZE + ((long) len << 1));
+        long e = entries.address(entry);
+        Unsafe.getUnsafe().putInt(e + ENTRY_HASH, hash);
+        Unsafe.getUnsafe().putInt(e + ENTRY_LEN, len);
+        e += ENTRY_HEADER_SIZE;
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putChar(e + ((long) i << 1), value.charAt(i));
+        }
+        return addAt(set, index, entry);
+    }
+
+    @Override
+    public void clear() {
+        sets.clear();
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        sets.close();
+        entries.close();
+    }
+
+    /**
+     * @return offset of new empty set
+     */
+    public long newSet() {
+        return newSet(initialCapacity);
+    }
+
+    public int size(long set) {
+        return Unsafe.getUnsafe().getInt(sets.address(set) + SET_SIZE);
+    }
+
+    private static long slotAddress(long p, int index) {
+        return p + SET_HEADER_SIZE + ((long) index << 3);
+    }
+
+    private long addAt(long set, int index, long entry) {
+        final long p = sets.address(set);
+        Unsafe.getUnsafe().putLong(slotAddress(p, index), entry + 1);
+        final int size = Unsafe.getUnsafe().getInt(p + SET_SIZE) + 1;
+        Unsafe.getUnsafe().putInt(p + SET_SIZE, size);
+        final int capacity = Unsafe.getUnsafe().getInt(p + SET_CAPACITY);
+        if (size << 1 > capacity) {
+            return rehash(set, capacity);
+        }
+        return set;
+    }
+
+    private boolean equals(long entry, int hash, CharSequence value) {
+        long e = entries.address(entry);
+        final int len = value.length();
+        if (Unsafe.getUnsafe().getInt(e + ENTRY_HASH) != hash || Unsafe.getUnsafe().getInt(e + ENTRY_LEN) != len) {
+            return false;
+        }
+        e += ENTRY_HEADER_SIZE;
+        for (int i = 0; i < len; i++) {
+            if (Unsafe.getUnsafe().getChar(e + ((long) i << 1)) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long newSet(int capacity) {
+        final long bytes = SET_HEADER_SIZE + ((long) capacity << 3);
+        final long set = sets.allocate(bytes);
+        final long p = sets.address(set);
+        Vect.memset(p, bytes, 0);
+        Unsafe.getUnsafe().putInt(p + SET_CAPACITY, capacity);
+        return set;
+    }
+
+    private long rehash(long set, int capacity) {
+        final int newCapacity = capacity << 1;
+        final int mask = newCapacity - 1;
+        final long newSet = newSet(newCapacity);
+        // allocation may have moved the region
+        final long p = sets.address(set);
+        final long np = sets.address(newSet);
+        Unsafe.getUnsafe().putInt(np + SET_SIZE, Unsafe.getUnsafe().getInt(p + SET_SIZE));
+        Unsafe.getUnsafe().putInt(np + SET_HAS_NULL, Unsafe.getUnsafe().getInt(p + SET_HAS_NULL));
+        for (int i = 0; i < capacity; i++) {
+            final long slot = Unsafe.getUnsafe().getLong(slotAddress(p, i));
+            if (slot != 0) {
+                int index = Unsafe.getUnsafe().getInt(entries.address(slot - 1) + ENTRY_HASH) & mask;
+                while (Unsafe.getUnsafe().getLong(slotAddress(np, index)) != 0) {
+                    index = (index + 1) & mask;
+                }
+                Unsafe.getUnsafe().putLong(slotAddress(np, index), slot);
+            }
+        }
+        return newSet;
+    }
+}
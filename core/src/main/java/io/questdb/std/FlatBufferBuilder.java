@@ -0,0 +1,260 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.std.str.DirectByteCharSink;
+
+import java.io.Closeable;
+
+/**
+ * Minimal off-heap FlatBuffers builder. As in the reference implementation buffer is
+ * filled back to front, so that tables refer to strings, vectors and other tables created
+ * before them. Vtables are not shared between tables and scalar fields are always written,
+ * readers that fall back to schema defaults are not affected by that.
+ * <p>
+ * Finished buffer is available via {@link #getBufferAddress()} and {@link #getBufferSize()}
+ * until builder is cleared.
+ */
+public class FlatBufferBuilder implements Mutable, Closeable {
+    private final IntList vtable = new IntList();
+    private final DirectByteCharSink utf8Sink = new DirectByteCharSink(64);
+    private long address;
+    private int capacity;
+    // buffer content occupies [space, capacity)
+    private int space;
+    private int minAlign = 1;
+    private int objectStart;
+    private int vectorElementCount;
+
+    public FlatBufferBuilder(int initialCapacity) {
+        this.capacity = Numbers.ceilPow2(initialCapacity);
+        this.address = Unsafe.malloc(capacity);
+        this.space = capacity;
+    }
+
+    public void addBool(boolean value) {
+        addByte((byte) (value ? 1 : 0));
+    }
+
+    public void addByte(byte value) {
+        prep(Byte.BYTES, 0);
+        space -= Byte.BYTES;
+        Unsafe.getUnsafe().putByte(address + space, value);
+    }
+
+    public void addFieldBool(int slot, boolean value) {
+        addBool(value);
+        slot(slot);
+    }
+
+    public void addFieldByte(int slot, byte value) {
+        addByte(value);
+        slot(slot);
+    }
+
+    public void addFieldInt(int slot, int value) {
+        addInt(value);
+        slot(slot);
+    }
+
+    public void addFieldLong(int slot, long value) {
+        addLong(value);
+        slot(slot);
+    }
+
+    public void addFieldOffset(int slot, int offset) {
+        if (offset != 0) {
+            addOffset(offset);
+            slot(slot);
+        }
+    }
+
+    public void addFieldShort(int slot, short value) {
+        addShort(value);
+        slot(slot);
+    }
+
+    public void addInt(int value) {
+        prep(Integer.BYTES, 0);
+        space -= Integer.BYTES;
+        Unsafe.getUnsafe().putInt(address + space, value);
+    }
+
+    public void addLong(long value) {
+        prep(Long.BYTES, 0);
+        space -= Long.BYTES;
+        Unsafe.getUnsafe().putLong(address + space, value);
+    }
+
+    /**
+     * Adds offset, relative to the position it is written at, of an object created earlier.
+     *
+     * @param offset value returned when object was created
+     */
+    public void addOffset(int offset) {
+        prep(Integer.BYTES, 0);
+        assert offset <= offset();
+        addInt(offset() - offset + Integer.BYTES);
+    }
+
+    public void addShort(short value) {
+        prep(Short.BYTES, 0);
+        space -= Short.BYTES;
+        Unsafe.getUnsafe().putShort(address + space, value);
+    }
+
+    @Override
+    public void clear() {
+        space = capacity;
+        minAlign = 1;
+        vtable.clear();
+        utf8Sink.clear();
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity);
+            address = 0;
+            capacity = space = 0;
+        }
+        utf8Sink.close();
+    }
+
+    public int createString(CharSequence value) {
+        utf8Sink.clear();
+        utf8Sink.encodeUtf8(value);
+        final int len = (int) utf8Sink.length();
+        // strings are zero terminated, terminator is not included in length
+        addByte((byte) 0);
+        startVector(Byte.BYTES, len, Byte.BYTES);
+        space -= len;
+        Vect.memcpy(utf8Sink.getAddress(), address + space, len);
+        return endVector();
+    }
+
+    public int endTable() {
+        // placeholder for offset to vtable
+        addInt(0);
+        final int tableOffset = offset();
+        int i = vtable.size() - 1;
+        while (i >= 0 && vtable.getQuick(i) == 0) {
+            i--;
+        }
+        final int fieldCount = i + 1;
+        for (; i >= 0; i--) {
+            final int fieldOffset = vtable.getQuick(i);
+            addShort((short) (fieldOffset != 0 ? tableOffset - fieldOffset : 0));
+        }
+        addShort((short) (tableOffset - objectStart));
+        addShort((short) ((fieldCount + 2) * Short.BYTES));
+        // vtable is written right in front of the table
+        Unsafe.getUnsafe().putInt(address + capacity - tableOffset, offset() - tableOffset);
+        vtable.clear();
+        return tableOffset;
+    }
+
+    public int endVector() {
+        // prep() in startVector() took care of length alignment
+        space -= Integer.BYTES;
+        Unsafe.getUnsafe().putInt(address + space, vectorElementCount);
+        return offset();
+    }
+
+    public void finish(int rootTable) {
+        prep(minAlign, Integer.BYTES);
+        addOffset(rootTable);
+    }
+
+    public long getBufferAddress() {
+        return address + space;
+    }
+
+    public int getBufferSize() {
+        return capacity - space;
+    }
+
+    /**
+     * @return offset of last written byte from the end of buffer
+     */
+    public int offset() {
+        return capacity - space;
+    }
+
+    /**
+     * Aligns buffer for a value of given size that is preceded, in the order of writing,
+     * by number of additional bytes.
+     *
+     * @param size            size of the value to align for
+     * @param additionalBytes bytes that will be written before value
+     */
+    public void prep(int size, int additionalBytes) {
+        if (size > minAlign) {
+            minAlign = size;
+        }
+        final int alignSize = (~(capacity - space + additionalBytes) + 1) & (size - 1);
+        while (space < alignSize + size + additionalBytes) {
+            grow();
+        }
+        for (int i = 0; i < alignSize; i++) {
+            Unsafe.getUnsafe().putByte(address + --space, (byte) 0);
+        }
+    }
+
+    public void startTable(int fieldCount) {
+        vtable.setAll(fieldCount, 0);
+        objectStart = offset();
+    }
+
+    /**
+     * Starts vector, elements are to be added in reverse order. Vector of structs is written
+     * by aligning for each struct via {@link #prep(int, int)} followed by adding struct fields
+     * in reverse order.
+     *
+     * @param elementSize  size of vector element in bytes
+     * @param elementCount number of elements
+     * @param alignment    alignment of vector element
+     */
+    public void startVector(int elementSize, int elementCount, int alignment) {
+        vectorElementCount = elementCount;
+        prep(Integer.BYTES, elementSize * elementCount);
+        prep(alignment, elementSize * elementCount);
+    }
+
+    private void grow() {
+        final int newCapacity = capacity << 1;
+        final long newAddress = Unsafe.malloc(newCapacity);
+        final int size = capacity - space;
+        Vect.memcpy(address + space, newAddress + newCapacity - size, size);
+        Unsafe.free(address, capacity);
+        address = newAddress;
+        space += newCapacity - capacity;
+        capacity = newCapacity;
+    }
+
+    private void slot(int slot) {
+        vtable.setQuick(slot, offset());
+    }
+}
@@ -25,23 +25,11 @@
 package io.questdb.std;
 
 import io.questdb.std.str.CharSink;
-//#if jdk.version==8
-//$import sun.misc.FDBigInteger;
-//#else
-import jdk.internal.math.FDBigInteger;
-//#endif
-
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
 public final class Numbers {
-    //#if jdk.version!=8
-    static {
-        Module currentModule = Numbers.class.getModule();
-        Unsafe.addExports(Unsafe.JAVA_BASE_MODULE, currentModule, "jdk.internal.math");
-    }
-    //#endif
-
     public static final int INT_NaN = Integer.MIN_VALUE;
     public static final long LONG_NaN = Long.MIN_VALUE;
     public static final double TOLERANCE = 1E-15d;
@@ -56,10 +44,6 @@ public final class Numbers {
     private static final int EXP_BIAS = 1023;
     private static final long EXP_BIT_MASK = 0x7FF0000000000000L;
     private static final long SIGNIF_BIT_MASK = 0x000FFFFFFFFFFFFFL;
-    private static final int[] SMALL_5_POW = new int[]{1, 5, 25, 125, 625, 3125, 15625, 78125, 390625, 1953125, 9765625, 48828125, 244140625, 1220703125};
-    private static final long[] LONG_5_POW = new long[]{1L, 5L, 25L, 125L, 625L, 3125L, 15625L, 78125L, 390625L, 1953125L, 9765625L, 48828125L, 244140625L, 1220703125L, 6103515625L, 30517578125L, 152587890625L, 762939453125L, 3814697265625L, 19073486328125L, 95367431640625L, 476837158203125L, 2384185791015625L, 11920928955078125L, 59604644775390625L, 298023223876953125L, 1490116119384765625L};
-    private static final int MAX_SMALL_BIN_EXP = 62;
-    private static final int MIN_SMALL_BIN_EXP = -(63 / 3);
     private static final long[] pow10;
     private static final long LONG_OVERFLOW_MAX = Long.MAX_VALUE / 10 + 1;
     private static final long INT_OVERFLOW_MAX = Integer.MAX_VALUE / 10;
@@ -71,11 +55,17 @@ public final class Numbers {
     private static final float[] pow10f = new float[]{1, 1E1f, 1E2f, 1E3f, 1E4f, 1E5f, 1E6f, 1E7f, 1E8f, 1E9f, 1E10f, 1E11f, 1E12f, 1E13f, 1E14f, 1E15f, 1E16f, 1E17f, 1E18f, 1E19f, 1E20f, 1E21f, 1E22f, 1E23f, 1E24f, 1E25f, 1E26f, 1E27f, 1E28f, 1E29f, 1E30f, 1E31f, 1E32f, 1E33f, 1E34f, 1E35f, 1E36f, 1E37f, 1E38f};
     private static final LongHexAppender[] longHexAppender = new LongHexAppender[Long.SIZE + 1];
     private static final LongHexAppender[] longHexAppenderPad64 = new LongHexAppender[Long.SIZE + 1];
-    private static final int[] N_5_BITS = new int[]{0, 3, 5, 7, 10, 12, 14, 17, 19, 21, 24, 26, 28, 31, 33, 35, 38, 40, 42, 45, 47, 49, 52, 54, 56, 59, 61};
     private static final int EXP_SHIFT = SIGNIFICAND_WIDTH - 1;
-    static final long EXP_ONE = ((long) EXP_BIAS) << EXP_SHIFT; // exponent of 1.0
     private static final long FRACT_HOB = (1L << EXP_SHIFT); // assumed High-Order bit
-    private static final int[] insignificantDigitsNumber = new int[]{0, 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 5, 5, 5, 6, 6, 6, 6, 7, 7, 7, 8, 8, 8, 9, 9, 9, 9, 10, 10, 10, 11, 11, 11, 12, 12, 12, 12, 13, 13, 13, 14, 14, 14, 15, 15, 15, 15, 16, 16, 16, 17, 17, 17, 18, 18, 18, 19};
+    // Schubfach constants, binary exponent of the smallest subnormal, range of decimal
+    // exponents and the subnormal significand below which one extra digit is generated
+    private static final int SF_Q_MIN = -1074;
+    private static final int SF_K_MIN = -324;
+    private static final int SF_K_MAX = 292;
+    private static final long SF_C_TINY = 3;
+    // g = floor(10^-k * 2^(125 - floor(log2(10^-k)))) + 1 for k in [SF_K_MIN, SF_K_MAX],
+    // split into high and low 63 bits
+    private static final long[] SF_G = new long[2 * (SF_K_MAX - SF_K_MIN + 1)];
 
     private Numbers() {
     }
@@ -215,14 +205,13 @@ public final class Numbers {
     }
 
     public static void append(CharSink sink, double value, int scale) {
-        final char[] digits = sink.getDoubleDigitsBuffer();
         final long doubleBits = Double.doubleToRawLongBits(value);
-        boolean negative = (doubleBits & SIGN_BIT_MASK) != 0L;
-        long significantBitCount = doubleBits & SIGNIF_BIT_MASK;
-        int binExp = (int) ((doubleBits & EXP_BIT_MASK) >> EXP_SHIFT);
+        final boolean negative = (doubleBits & SIGN_BIT_MASK) != 0L;
+        final long fraction = doubleBits & SIGNIF_BIT_MASK;
+        final int binExp = (int) ((doubleBits & EXP_BIT_MASK) >> EXP_SHIFT);
 
         if (binExp == 2047) {
-            if (significantBitCount == 0L) {
+            if (fraction == 0L) {
                 if (negative) {
                     sink.put("-Infinity");
                 } else {
@@ -231,31 +220,34 @@ public final class Numbers {
             } else {
                 sink.put("NaN");
             }
-        } else {
-            int fractionBits;
-            if (binExp == 0) {
-                if (significantBitCount == 0L) {
-                    if (negative) {
-                        sink.put("-0.0");
-                    } else {
-                        sink.put("0.0");
-                    }
+            return;
+        }
+
+        final char[] digits = sink.getDoubleDigitsBuffer();
+        if (binExp != 0) {
+            // normal value, v = c * 2^q
+            final int q = binExp - EXP_BIAS - EXP_SHIFT;
+            final long c = FRACT_HOB | fraction;
+            if (q < 0 && q > -SIGNIFICAND_WIDTH) {
+                // integer values need no conversion
+                final long f = c >> -q;
+                if (f << -q == c) {
+                    appendDecimal(f, 0, negative, digits, sink, scale);
                     return;
                 }
-
-                int leadingZeros = Long.numberOfLeadingZeros(significantBitCount);
-                int shift = leadingZeros - (63 - EXP_SHIFT);
-                significantBitCount <<= shift;
-                binExp = 1 - shift;
-                fractionBits = 64 - leadingZeros;
+            }
+            appendShortest(q, c, 0, negative, digits, sink, scale);
+        } else if (fraction != 0L) {
+            // subnormal value
+            if (fraction < SF_C_TINY) {
+                appendShortest(SF_Q_MIN, 10 * fraction, -1, negative, digits, sink, scale);
             } else {
-                significantBitCount |= FRACT_HOB;
-                fractionBits = 53;
+                appendShortest(SF_Q_MIN, fraction, 0, negative, digits, sink, scale);
             }
-
-            binExp -= EXP_BIAS;
-
-            append(binExp, significantBitCount, fractionBits, negative, digits, sink, scale);
+        } else if (negative) {
+            sink.put("-0.0");
+        } else {
+            sink.put("0.0");
         }
     }
 
@@ -1969,282 +1961,118 @@ public final class Numbers {
         appendHex(sink, a, true);
     }
 
-    private static int insignificantDigitsForPow2(int p2) {
-        return p2 > 1 && p2 < insignificantDigitsNumber.length ? insignificantDigitsNumber[p2] : 0;
-    }
-
-    private static void append(
-            int binExp,
-            long fractionBits,
-            int significantBitCount,
-            boolean negative,
-            char[] digits,
-            CharSink out,
-            int outScale
-    ) {
-        assert fractionBits > 0L;
-        assert (fractionBits & FRACT_HOB) != 0L;
-
-        final int tailZeroes = Long.numberOfTrailingZeros(fractionBits);
-        final int fractBitCount = EXP_SHIFT + 1 - tailZeroes;
-        int decExp;
-        int firstDigitIndex;
-        int nDigits;
-
-        final int tinyBitCount = Math.max(0, fractBitCount - binExp - 1);
-        if (binExp < MAX_SMALL_BIN_EXP + 1 && binExp > MIN_SMALL_BIN_EXP - 1 && tinyBitCount < LONG_5_POW.length && fractBitCount + N_5_BITS[tinyBitCount] < 64 && tinyBitCount == 0) {
-            int insignificant;
-            if (binExp > significantBitCount) {
-                insignificant = insignificantDigitsForPow2(binExp - significantBitCount - 1);
-            } else {
-                insignificant = 0;
-            }
-
-            if (binExp >= EXP_SHIFT) {
-                fractionBits <<= binExp - EXP_SHIFT;
-            } else {
-                fractionBits >>>= EXP_SHIFT - binExp;
-            }
-
-            //
-            int binExp2 = 0;
-            if (insignificant != 0) {
-                long pow10 = LONG_5_POW[insignificant] << insignificant;
-                long residue = fractionBits % pow10;
-                fractionBits /= pow10;
-                binExp2 += insignificant;
-                if (residue >= pow10 >> 1) {
-                    ++fractionBits;
-                }
-            }
-
-            int digitIndex = digits.length - 1;
-            int digit;
-            if (fractionBits <= Integer.MAX_VALUE) {
-                assert fractionBits > 0L : fractionBits;
-
-                int fractRemaining = (int) fractionBits;
-                digit = fractRemaining % 10;
-
-                for (fractRemaining /= 10; digit == 0; fractRemaining /= 10) {
-                    ++binExp2;
-                    digit = fractRemaining % 10;
-                }
-
-                while (fractRemaining != 0) {
-                    digits[digitIndex--] = (char) (digit + '0');
-                    ++binExp2;
-                    digit = fractRemaining % 10;
-                    fractRemaining /= 10;
-                }
-
-            } else {
-                digit = (int) (fractionBits % 10L);
-
-                for (fractionBits /= 10L; digit == 0; fractionBits /= 10L) {
-                    ++binExp2;
-                    digit = (int) (fractionBits % 10L);
-                }
-
-                while (fractionBits != 0L) {
-                    digits[digitIndex--] = (char) (digit + '0');
-                    ++binExp2;
-                    digit = (int) (fractionBits % 10L);
-                    fractionBits /= 10L;
-                }
-
-            }
-            digits[digitIndex] = (char) (digit + '0');
-
-            decExp = binExp2 + 1;
-            firstDigitIndex = digitIndex;
-            nDigits = digits.length - digitIndex;
-
-            //
+    /**
+     * Finds the shortest decimal that rounds back to v = c * 2^q and sends it to the
+     * formatter. This is Schubfach by R. Giulietti, the same algorithm Double.toString()
+     * uses as of JDK 19. Unlike the digit generator it replaces it never needs big
+     * integer arithmetic: the decimal is derived from three 64x128 bit products
+     * against a table of 10^-k approximations.
+     */
+    private static void appendShortest(int q, long c, int dk, boolean negative, char[] digits, CharSink sink, int scale) {
+        final int out = (int) c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != FRACT_HOB || q == SF_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
         } else {
-            int estDecExp = estimateDecExp(fractionBits, binExp);
-            int B5 = Math.max(0, -estDecExp);
-            int B2 = B5 + tinyBitCount + binExp;
-            int S5 = Math.max(0, estDecExp);
-            int S2 = S5 + tinyBitCount;
-            int M2 = B2 - significantBitCount;
-            fractionBits >>>= tailZeroes;
-            B2 -= fractBitCount - 1;
-            int common2factor = Math.min(B2, S2);
-            B2 -= common2factor;
-            S2 -= common2factor;
-            M2 -= common2factor;
-            if (fractBitCount == 1) {
-                --M2;
-            }
-
-            if (M2 < 0) {
-                B2 -= M2;
-                S2 -= M2;
-                M2 = 0;
+            // the interval of rounding is asymmetric at powers of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+
+        final int gi = (k - SF_K_MIN) << 1;
+        final long g1 = SF_G[gi];
+        final long g0 = SF_G[gi + 1];
+
+        final long vb = roundToOdd(g1, g0, cb << h);
+        final long vbl = roundToOdd(g1, g0, cbl << h);
+        final long vbr = roundToOdd(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less first, sp10 = floor(s / 10) * 10
+            final long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                appendDecimal(upin ? sp10 : tp10, k, negative, digits, sink, scale);
+                return;
             }
+        }
 
-            int bBits = fractBitCount + B2 + (B5 < N_5_BITS.length ? N_5_BITS[B5] : B5 * 3);
-            int tenBits = S2 + 1 + (S5 + 1 < N_5_BITS.length ? N_5_BITS[S5 + 1] : (S5 + 1) * 3);
-            boolean low;
-            boolean high;
-            long lowDigitDifference;
-            int q;
-            int digitIndex;
-            if (bBits < 64 && tenBits < 64) {
-                if (bBits < 32 && tenBits < 32) {
-                    int b = (int) fractionBits * SMALL_5_POW[B5] << B2;
-                    int s = SMALL_5_POW[S5] << S2;
-                    int m = SMALL_5_POW[B5] << M2;
-                    int tens = s * 10;
-                    digitIndex = 0;
-                    q = b / s;
-                    b = 10 * (b % s);
-                    m *= 10;
-                    low = b < m;
-                    high = b + m > tens;
-
-                    assert q < 10 : q;
-
-                    if (q == 0 && !high) {
-                        --estDecExp;
-                    } else {
-                        digits[digitIndex++] = (char) ('0' + q);
-                    }
-
-                    if (estDecExp < -3 || estDecExp >= 8) {
-                        low = false;
-                        high = false;
-                    }
-
-                    for (; !low && !high; digits[digitIndex++] = (char) ('0' + q)) {
-                        q = b / s;
-                        b = 10 * (b % s);
-                        m *= 10;
-
-                        assert q < 10 : q;
-
-                        if ((long) m > 0L) {
-                            low = b < m;
-                            high = b + m > tens;
-                        } else {
-                            low = true;
-                            high = true;
-                        }
-                    }
-
-                    lowDigitDifference = ((long) b << 1) - tens;
-                } else {
-                    long b = fractionBits * LONG_5_POW[B5] << B2;
-                    long s = LONG_5_POW[S5] << S2;
-                    long m = LONG_5_POW[B5] << M2;
-                    long tens = s * 10L;
-                    digitIndex = 0;
-                    q = (int) (b / s);
-                    b = 10L * (b % s);
-                    m *= 10L;
-                    low = b < m;
-                    high = b + m > tens;
-
-                    assert q < 10 : q;
-
-                    if (q == 0 && !high) {
-                        --estDecExp;
-                    } else {
-                        digits[digitIndex++] = (char) ('0' + q);
-                    }
-
-                    if (estDecExp < -3 || estDecExp >= 8) {
-                        low = false;
-                        high = false;
-                    }
-
-                    for (; !low && !high; digits[digitIndex++] = (char) ('0' + q)) {
-                        q = (int) (b / s);
-                        b = 10L * (b % s);
-                        m *= 10L;
-
-                        assert q < 10 : q;
-
-                        if (m > 0L) {
-                            low = b < m;
-                            high = b + m > tens;
-                        } else {
-                            low = true;
-                            high = true;
-                        }
-                    }
-                    lowDigitDifference = (b << 1) - tens;
-                }
-            } else {
-                FDBigInteger sVal = FDBigInteger.valueOfPow52(S5, S2);
-                final int shiftBias = sVal.getNormalizationBias();
-                sVal = sVal.leftShift(shiftBias);
-                FDBigInteger bVal = FDBigInteger.valueOfMulPow52(fractionBits, B5, B2 + shiftBias);
-                FDBigInteger mVal = FDBigInteger.valueOfPow52(B5 + 1, M2 + shiftBias + 1);
-                FDBigInteger tensVal = FDBigInteger.valueOfPow52(S5 + 1, S2 + shiftBias + 1);
-                digitIndex = 0;
-                q = bVal.quoRemIteration(sVal);
-                low = bVal.cmp(mVal) < 0;
-                high = tensVal.addAndCmp(bVal, mVal) <= 0;
-
-                assert q < 10 : q;
-
-                if (q == 0 && !high) {
-                    --estDecExp;
-                } else {
-                    digits[digitIndex++] = (char) ('0' + q);
-                }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            appendDecimal(uin ? s : t, k + dk, negative, digits, sink, scale);
+            return;
+        }
 
-                if (estDecExp < -3 || estDecExp >= 8) {
-                    low = false;
-                    high = false;
-                }
+        // both candidates round back to v, pick the closest one, the even one on a tie
+        final long cmp = vb - (s + t << 1);
+        appendDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, negative, digits, sink, scale);
+    }
 
-                while (!low && !high) {
-                    q = bVal.quoRemIteration(sVal);
+    /**
+     * Formats f * 10^e, f is positive and has at most 17 digits.
+     */
+    private static void appendDecimal(long f, int e, boolean negative, char[] digits, CharSink sink, int scale) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int n = 0;
+        for (long v = f; v > 0; v /= 10) {
+            n++;
+        }
+        for (int i = n - 1; i > -1; i--) {
+            digits[i] = (char) ('0' + f % 10);
+            f /= 10;
+        }
+        append(digits, 0, n, negative, n + e, sink, scale);
+    }
 
-                    assert q < 10 : q;
+    private static long roundToOdd(long g1, long g0, long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & Long.MAX_VALUE) + Long.MAX_VALUE >>> 63;
+    }
 
-                    mVal = mVal.multBy10();
-                    low = bVal.cmp(mVal) < 0;
-                    high = tensVal.addAndCmp(bVal, mVal) <= 0;
-                    digits[digitIndex++] = (char) ('0' + q);
-                }
+    // floor(q * log10(2))
+    private static int flog10pow2(int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
 
-                if (high && low) {
-                    bVal = bVal.leftShift(1);
-                    lowDigitDifference = bVal.cmp(tensVal);
-                } else {
-                    lowDigitDifference = 0L;
-                }
-            }
+    // floor(q * log10(2) + log10(3/4))
+    private static int flog10threeQuartersPow2(int q) {
+        return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
 
-            decExp = estDecExp + 1;
-            firstDigitIndex = 0;
-            nDigits = digitIndex;
-            if (high) {
-                if (low) {
-                    if (lowDigitDifference == 0L) {
-                        if ((digits[firstDigitIndex + nDigits - 1] & 1) != 0) {
-                            if (roundup(firstDigitIndex, digits, nDigits)) {
-                                decExp++;
-                            }
-                        }
-                    } else if (lowDigitDifference > 0L) {
-                        if (roundup(firstDigitIndex, digits, nDigits)) {
-                            decExp++;
-                        }
-                    }
-                } else {
-                    if (roundup(firstDigitIndex, digits, nDigits)) {
-                        decExp++;
-                    }
-                }
-            }
-        }
+    // floor(e * log2(10))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
 
-        append(digits, firstDigitIndex, nDigits, negative, decExp, out, outScale);
+    // Math.multiplyHigh() is not available on Java 8
+    private static long multiplyHigh(long x, long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
     }
 
     private static void append(
@@ -2316,52 +2144,27 @@ public final class Numbers {
         }
     }
 
-    private static boolean roundup(int firstDigitIndex, char[] digits, int nDigits) {
-        int charIndex = firstDigitIndex + nDigits - 1;
-        char c = digits[charIndex];
-        if (c == '9') {
-            while (true) {
-                if (c != '9' || charIndex <= firstDigitIndex) {
-                    if (c == '9') {
-                        digits[firstDigitIndex] = '1';
-                        return true;
-                    }
-                    break;
-                }
-
-                digits[charIndex] = '0';
-                --charIndex;
-                c = digits[charIndex];
-            }
-        }
-
-        digits[charIndex] = (char) (c + 1);
-        return false;
-    }
-
-    private static int estimateDecExp(long fractBits, int binExp) {
-        double d2 = Double.longBitsToDouble(EXP_ONE | fractBits & SIGNIF_BIT_MASK);
-        double d = (d2 - 1.5D) * 0.289529654D + 0.176091259D + (double) binExp * 0.301029995663981D;
-        long dBits = Double.doubleToRawLongBits(d);
-        int exponent = (int) ((dBits & EXP_BIT_MASK) >> EXP_SHIFT) - EXP_BIAS;
-        final boolean isNegative = (dBits & SIGN_BIT_MASK) != 0L;
-        if (exponent > -1 && exponent < 52) {
-            final long mask = SIGNIF_BIT_MASK >> exponent;
-            final int r = (int) ((dBits & SIGNIF_BIT_MASK | FRACT_HOB) >> EXP_SHIFT - exponent);
-            return isNegative ? ((mask & dBits) == 0L ? -r : -r - 1) : r;
-        } else if (exponent < 0) {
-            return (dBits & ~SIGN_BIT_MASK) == 0L ? 0 : (isNegative ? -1 : 0);
-        } else {
-            return (int) d;
-        }
-    }
-
     @FunctionalInterface
     private interface LongHexAppender {
         void append(CharSink sink, long value);
     }
 
     static {
+        for (int k = SF_K_MIN; k <= SF_K_MAX; k++) {
+            final int e = flog2pow10(-k);
+            final BigInteger beta;
+            if (k <= 0) {
+                final BigInteger p = BigInteger.TEN.pow(-k);
+                beta = e <= 125 ? p.shiftLeft(125 - e) : p.shiftRight(e - 125);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(125 - e).divide(BigInteger.TEN.pow(k));
+            }
+            final BigInteger g = beta.add(BigInteger.ONE);
+            final int i = (k - SF_K_MIN) << 1;
+            SF_G[i] = g.shiftRight(63).longValue();
+            SF_G[i + 1] = g.longValue() & Long.MAX_VALUE;
+        }
+
         pow10 = new long[20];
         pow10max = 18;
         pow10[0] = 1;
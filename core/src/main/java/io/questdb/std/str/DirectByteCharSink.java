@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std.str;
+
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Growable off-heap sink of single byte characters. Content is addressable
+ * via {@link #getAddress()} and {@link #length()} so that it can be copied in bulk.
+ */
+public class DirectByteCharSink extends AbstractCharSink implements Mutable, Closeable {
+    private long ptr;
+    private long capacity;
+    private long lo;
+
+    public DirectByteCharSink(long capacity) {
+        this.ptr = Unsafe.malloc(capacity);
+        this.capacity = capacity;
+        this.lo = ptr;
+    }
+
+    @Override
+    public void clear() {
+        lo = ptr;
+    }
+
+    @Override
+    public void close() {
+        if (ptr != 0) {
+            Unsafe.free(ptr, capacity);
+            ptr = lo = 0;
+        }
+    }
+
+    public long getAddress() {
+        return ptr;
+    }
+
+    public long length() {
+        return lo - ptr;
+    }
+
+    @Override
+    public CharSink put(CharSequence cs) {
+        if (cs != null) {
+            final int len = cs.length();
+            ensureCapacity(len);
+            Chars.asciiStrCpy(cs, len, lo);
+            lo += len;
+        }
+        return this;
+    }
+
+    @Override
+    public CharSink put(char c) {
+        ensureCapacity(1);
+        Unsafe.getUnsafe().putByte(lo++, (byte) c);
+        return this;
+    }
+
+    @Override
+    public CharSink put(char[] chars, int start, int len) {
+        ensureCapacity(len);
+        Chars.asciiCopyTo(chars, start, len, lo);
+        lo += len;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        CharSink b = Misc.getThreadLocalBuilder();
+        for (long p = ptr; p < lo; p++) {
+            b.put((char) Unsafe.getUnsafe().getByte(p));
+        }
+        return b.toString();
+    }
+
+    private void ensureCapacity(long len) {
+        final long size = lo - ptr;
+        if (size + len > capacity) {
+            final long cap = Math.max(capacity * 2, size + len);
+            ptr = Unsafe.realloc(ptr, capacity, cap);
+            capacity = cap;
+            lo = ptr + size;
+        }
+    }
+}
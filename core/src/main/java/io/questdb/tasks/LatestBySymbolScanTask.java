@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.tasks;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scans slice of non-indexed symbol column backwards and records the latest row id of each symbol key.
+ * Winners are shared between all tasks of the same query, each entry is only ever increased, which
+ * allows tasks to scan different slices and partitions concurrently. Entry for null symbol is
+ * at the start of the list, symbol key "k" occupies "k + 1" entry.
+ * <p>
+ * Slice keeps bit set of keys it has seen. Scanning backwards, the first row of the key is the winner
+ * of the slice, so each key is published once per slice. Scan stops when the slice has seen all keys,
+ * or when every shared winner is newer than the rows that are left to scan.
+ */
+public class LatestBySymbolScanTask {
+    // rows scanned between checks of shared winners
+    private static final long CHECK_INTERVAL = 4096;
+    private long columnAddress;
+    private long columnTop;
+    private long rowLo;
+    private long rowHi;
+    private int partitionIndex;
+    private long winnersAddress;
+    private long keyCount;
+    private long seenKeysAddress;
+    private AtomicLong foundKeyCount;
+    private CountDownLatchSPI doneLatch;
+
+    /**
+     * @param seenKeysAddress zeroed bit set of at least keyCount bits, private to this slice
+     * @return number of rows scanned
+     */
+    public static long scan(
+            long columnAddress,
+            long columnTop,
+            long rowLo,
+            long rowHi,
+            int partitionIndex,
+            long winnersAddress,
+            long keyCount,
+            long seenKeysAddress,
+            AtomicLong foundKeyCount
+    ) {
+        final long checkInterval = Math.max(CHECK_INTERVAL, keyCount);
+        long seenKeyCount = 0;
+        long nextCheck = rowHi - checkInterval;
+        long row = rowHi;
+        for (final long lo = Math.max(rowLo, columnTop); row >= lo; row--) {
+            final int key = Unsafe.getUnsafe().getInt(columnAddress + ((row - columnTop) << 2));
+            final long slot = key == SymbolTable.VALUE_IS_NULL ? 0 : key + 1;
+            if (markSeen(seenKeysAddress, slot)) {
+                publishWinner(winnersAddress, slot, Rows.toRowID(partitionIndex, row), foundKeyCount);
+                if (++seenKeyCount == keyCount) {
+                    // older rows of this slice cannot win
+                    return rowHi - row + 1;
+                }
+            }
+
+            if (row == nextCheck) {
+                if (foundKeyCount.get() == keyCount && allWinnersAfter(winnersAddress, keyCount, Rows.toRowID(partitionIndex, row))) {
+                    return rowHi - row + 1;
+                }
+                nextCheck -= checkInterval;
+            }
+        }
+
+        if (rowLo < columnTop && markSeen(seenKeysAddress, 0)) {
+            // rows above column top are nulls, last of them is the only one that matters
+            publishWinner(winnersAddress, 0, Rows.toRowID(partitionIndex, Math.min(rowHi, columnTop - 1)), foundKeyCount);
+        }
+        return rowHi - row;
+    }
+
+    public void of(
+            long columnAddress,
+            long columnTop,
+            long rowLo,
+            long rowHi,
+            int partitionIndex,
+            long winnersAddress,
+            long keyCount,
+            long seenKeysAddress,
+            AtomicLong foundKeyCount,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.columnAddress = columnAddress;
+        this.columnTop = columnTop;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.partitionIndex = partitionIndex;
+        this.winnersAddress = winnersAddress;
+        this.keyCount = keyCount;
+        this.seenKeysAddress = seenKeysAddress;
+        this.foundKeyCount = foundKeyCount;
+        this.doneLatch = doneLatch;
+    }
+
+    public boolean run() {
+        scan(columnAddress, columnTop, rowLo, rowHi, partitionIndex, winnersAddress, keyCount, seenKeysAddress, foundKeyCount);
+        doneLatch.countDown();
+        return true;
+    }
+
+    private static boolean allWinnersAfter(long winnersAddress, long keyCount, long rowId) {
+        for (long i = 0; i < keyCount; i++) {
+            if (Unsafe.getUnsafe().getLongVolatile(null, winnersAddress + (i << 3)) <= rowId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean markSeen(long seenKeysAddress, long slot) {
+        final long address = seenKeysAddress + ((slot >>> 6) << 3);
+        final long word = Unsafe.getUnsafe().getLong(address);
+        final long bit = 1L << slot;
+        if ((word & bit) != 0) {
+            return false;
+        }
+        Unsafe.getUnsafe().putLong(address, word | bit);
+        return true;
+    }
+
+    private static void publishWinner(long winnersAddress, long slot, long rowId, AtomicLong foundKeyCount) {
+        final long address = winnersAddress + (slot << 3);
+        while (true) {
+            final long current = Unsafe.getUnsafe().getLongVolatile(null, address);
+            if (current >= rowId) {
+                // the same key has been seen in newer row already
+                return;
+            }
+            if (Unsafe.getUnsafe().compareAndSwapLong(null, address, current, rowId)) {
+                if (current == -1) {
+                    foundKeyCount.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.tasks;
+
+import io.questdb.cutlass.text.TextChunkParser;
+import io.questdb.mp.CountDownLatchSPI;
+
+/**
+ * Parses and converts one chunk of text during parallel import. Rows of the chunk are buffered
+ * by the parser and then appended to the table writer by the thread, which owns the import.
+ */
+public class TextImportTask {
+    private TextChunkParser parser;
+    private CountDownLatchSPI doneLatch;
+
+    public void of(TextChunkParser parser, CountDownLatchSPI doneLatch) {
+        this.parser = parser;
+        this.doneLatch = doneLatch;
+    }
+
+    public boolean run() {
+        parser.parse();
+        doneLatch.countDown();
+        return true;
+    }
+}
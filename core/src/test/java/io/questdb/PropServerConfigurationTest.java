@@ -86,6 +86,7 @@ public class PropServerConfigurationTest {
         Assert.assertTrue(configuration.getHttpServerConfiguration().isEnabled());
         Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().getDumpNetworkTraffic());
         Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().allowDeflateBeforeSend());
+        Assert.assertEquals(1024, configuration.getHttpServerConfiguration().getHttpContextConfiguration().getCompressionMinSize());
         Assert.assertEquals(16, configuration.getHttpServerConfiguration().getQueryCacheRows());
         Assert.assertEquals(4, configuration.getHttpServerConfiguration().getQueryCacheBlocks());
 
@@ -112,6 +113,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(0.1222d, configuration.getCairoConfiguration().getTextConfiguration().getMaxRequiredDelimiterStdDev(), 0.000000001);
         Assert.assertEquals(0.8, configuration.getCairoConfiguration().getTextConfiguration().getMaxRequiredLineLengthStdDev(), 0.000000001);
         Assert.assertEquals(128, configuration.getCairoConfiguration().getTextConfiguration().getMetadataStringPoolCapacity());
+        Assert.assertEquals(4, configuration.getCairoConfiguration().getTextConfiguration().getParallelImportChunkCount());
+        Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getTextConfiguration().getParallelImportChunkSize());
         Assert.assertEquals(1024 * 4096, configuration.getCairoConfiguration().getTextConfiguration().getRollBufferLimit());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getTextConfiguration().getRollBufferSize());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getTextConfiguration().getTextAnalysisMaxLines());
@@ -126,8 +129,16 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(12, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getDoubleScale());
         Assert.assertEquals("Keep-Alive: timeout=5, max=10000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
 
+        Assert.assertEquals(CommitMode.SYNC, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getCommitMode());
+        Assert.assertEquals(PartitionBy.DAY, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getDefaultPartitionBy());
+        Assert.assertEquals(100, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getMaxLineErrors());
+        Assert.assertEquals(64 * 1024, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getMaxMeasurementSize());
+
         Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
         Assert.assertEquals(Long.MAX_VALUE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+        Assert.assertEquals(1024, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getExportBatchSize());
+        Assert.assertEquals(65536, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getArrowBatchSize());
+        Assert.assertEquals(1024, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getJsonQueryBatchSize());
         Assert.assertTrue(configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().isEnabled());
         Assert.assertEquals(2_000_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getCountOfIterationsPerCheck());
         Assert.assertEquals(64, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getBufferSize());
@@ -225,6 +236,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getActiveConnectionLimit());
         Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getBindIPv4Address());
         Assert.assertEquals(9009, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getBindPort());
+        Assert.assertEquals(1, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getDispatcherCount());
         Assert.assertEquals(1024, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getEventCapacity());
         Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getIOQueueCapacity());
         Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getIdleConnectionTimeout());
@@ -438,6 +450,9 @@ public class PropServerConfigurationTest {
 
             Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
             Assert.assertEquals(50000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+            Assert.assertEquals(256, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getExportBatchSize());
+            Assert.assertEquals(4096, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getArrowBatchSize());
+            Assert.assertEquals(512, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getJsonQueryBatchSize());
             Assert.assertFalse(configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().isEnabled());
             Assert.assertEquals(500, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getCountOfIterationsPerCheck());
             Assert.assertEquals(32, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getBufferSize());
@@ -447,6 +462,7 @@ public class PropServerConfigurationTest {
 
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getStaticContentProcessorConfiguration().getKeepAliveHeader());
             Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().allowDeflateBeforeSend());
+            Assert.assertEquals(4096, configuration.getHttpServerConfiguration().getHttpContextConfiguration().getCompressionMinSize());
 
             Assert.assertEquals(64, configuration.getHttpServerConfiguration().getDispatcherConfiguration().getActiveConnectionLimit());
             Assert.assertEquals(2048, configuration.getHttpServerConfiguration().getDispatcherConfiguration().getEventCapacity());
@@ -464,6 +480,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(0.3d, configuration.getCairoConfiguration().getTextConfiguration().getMaxRequiredDelimiterStdDev(), 0.000000001);
             Assert.assertEquals(0.9d, configuration.getCairoConfiguration().getTextConfiguration().getMaxRequiredLineLengthStdDev(), 0.000000001);
             Assert.assertEquals(512, configuration.getCairoConfiguration().getTextConfiguration().getMetadataStringPoolCapacity());
+            Assert.assertEquals(8, configuration.getCairoConfiguration().getTextConfiguration().getParallelImportChunkCount());
+            Assert.assertEquals(65536, configuration.getCairoConfiguration().getTextConfiguration().getParallelImportChunkSize());
             Assert.assertEquals(6144, configuration.getCairoConfiguration().getTextConfiguration().getRollBufferLimit());
             Assert.assertEquals(3072, configuration.getCairoConfiguration().getTextConfiguration().getRollBufferSize());
             Assert.assertEquals(400, configuration.getCairoConfiguration().getTextConfiguration().getTextAnalysisMaxLines());
@@ -556,6 +574,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(11, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getActiveConnectionLimit());
             Assert.assertEquals(167903521, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getBindIPv4Address());
             Assert.assertEquals(9916, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getBindPort());
+            Assert.assertEquals(4, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getDispatcherCount());
             Assert.assertEquals(1025, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getEventCapacity());
             Assert.assertEquals(1026, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getIOQueueCapacity());
             Assert.assertEquals(400_000, configuration.getLineTcpReceiverConfiguration().getNetDispatcherConfiguration().getIdleConnectionTimeout());
@@ -107,7 +107,7 @@ public final class AllowAllSqlSecurityContext {
         }
 
         @Override
-        public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess) {
+        public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess, @Nullable VirtualRecord orderByRecord, int framingMode, long frameLo, int timestampIndex) {
 
         }
 
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.ReaderPool;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.Chars;
+import io.questdb.std.Numbers;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ColumnMappingCacheTest extends AbstractCairoTest {
+
+    @Test
+    public void testConcurrentReadersOfSameTable() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)) {
+                model.col("a", ColumnType.INT).col("s", ColumnType.STRING).timestamp();
+                CairoTestUtils.create(model);
+            }
+
+            final int threadCount = 4;
+            final int iterations = 1000;
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    ReaderPool pool = new ReaderPool(configuration)
+            ) {
+                appendRows(writer, 0, 100);
+                // cache is created with pool entry of the table
+                Assert.assertNull(pool.getColumnMappingCache("x"));
+                pool.get("x").close();
+                final ColumnMappingCache cache = pool.getColumnMappingCache("x");
+                Assert.assertNotNull(cache);
+
+                final CyclicBarrier barrier = new CyclicBarrier(threadCount + 1);
+                final CountDownLatch halt = new CountDownLatch(threadCount);
+                final AtomicInteger errors = new AtomicInteger();
+
+                for (int k = 0; k < threadCount; k++) {
+                    new Thread(() -> {
+                        try {
+                            barrier.await();
+                            for (int i = 0; i < iterations; i++) {
+                                try (TableReader reader = pool.get("x")) {
+                                    // rows are committed in batches of 100
+                                    final int count = countRows(reader);
+                                    Assert.assertTrue(count >= 100);
+                                    Assert.assertEquals(0, count % 100);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            e.printStackTrace();
+                            errors.incrementAndGet();
+                        } finally {
+                            halt.countDown();
+                        }
+                    }).start();
+                }
+
+                // grow files while readers share mappings, so that mappings get replaced under contention
+                barrier.await();
+                for (int i = 100; i < 10_000 && halt.getCount() > 0; i += 100) {
+                    appendRows(writer, i, i + 100);
+                }
+                halt.await();
+                Assert.assertEquals(0, errors.get());
+
+                pool.releaseAll();
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testDropAndReAddColumnInvalidatesMappings() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)) {
+                model.col("a", ColumnType.INT).col("s", ColumnType.STRING).timestamp();
+                CairoTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    ReaderPool pool = new ReaderPool(configuration)
+            ) {
+                appendRows(writer, 0, 100);
+                try (TableReader reader1 = pool.get("x")) {
+                    assertRows(reader1, 100);
+                    final long page1 = reader1.getColumn(TableReader.getPrimaryColumnIndex(reader1.getColumnBase(0), 0)).getPageAddress(0);
+
+                    // same file name, different file
+                    writer.removeColumn("a");
+                    writer.addColumn("a", ColumnType.INT);
+                    final int columnIndex = writer.getMetadata().getColumnIndex("a");
+                    for (int i = 100; i < 150; i++) {
+                        TableWriter.Row row = writer.newRow(Timestamps.DAY_MICROS + i);
+                        row.putStr(0, "s" + i);
+                        row.putInt(columnIndex, -i);
+                        row.append();
+                    }
+                    writer.commit();
+
+                    try (TableReader reader2 = pool.get("x")) {
+                        Assert.assertEquals(columnIndex, reader2.getMetadata().getColumnIndex("a"));
+                        final RecordCursor cursor = reader2.getCursor();
+                        final Record record = cursor.getRecord();
+                        int i = 0;
+                        while (cursor.hasNext()) {
+                            Assert.assertTrue(Chars.equals("s" + i, record.getStr(0)));
+                            Assert.assertEquals(i < 100 ? Numbers.INT_NaN : -i, record.getInt(columnIndex));
+                            i++;
+                        }
+                        Assert.assertEquals(150, i);
+
+                        // partition is open once cursor has been through it
+                        final long page2 = reader2.getColumn(TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), columnIndex)).getPageAddress(0);
+                        Assert.assertNotEquals(page1, page2);
+                    }
+
+                    // reader of previous structure keeps its mapping of dropped column
+                    assertRows(reader1, 100);
+                }
+
+                final ColumnMappingCache cache = pool.getColumnMappingCache("x");
+                Assert.assertNotNull(cache);
+                pool.releaseAll();
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testReadersShareMappings() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)) {
+                model.col("a", ColumnType.INT).col("s", ColumnType.STRING).timestamp();
+                CairoTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    ReaderPool pool = new ReaderPool(configuration)
+            ) {
+                appendRows(writer, 0, 100);
+                final ColumnMappingCache cache;
+                try (
+                        TableReader reader1 = pool.get("x");
+                        TableReader reader2 = pool.get("x")
+                ) {
+                    cache = pool.getColumnMappingCache("x");
+                    Assert.assertNotNull(cache);
+
+                    Assert.assertNotSame(reader1, reader2);
+                    assertRows(reader1, 100);
+                    assertRows(reader2, 100);
+
+                    // 2 partitions, a.d, s.d, s.i and timestamp.d in each
+                    Assert.assertEquals(8, cache.size());
+                    for (int p = 0; p < 2; p++) {
+                        for (int c = 0; c < 3; c++) {
+                            final int index = TableReader.getPrimaryColumnIndex(reader1.getColumnBase(p), c);
+                            Assert.assertEquals(
+                                    reader1.getColumn(index).getPageAddress(0),
+                                    reader2.getColumn(index).getPageAddress(0)
+                            );
+                        }
+                    }
+
+                    // grow last partition, reader that reloads moves on to larger mapping
+                    // while the other keeps reading from the one it has
+                    appendRows(writer, 100, 20_000);
+                    Assert.assertTrue(reader1.reload());
+                    assertRows(reader1, 20_000);
+                    assertRows(reader2, 100);
+
+                    Assert.assertTrue(reader2.reload());
+                    assertRows(reader2, 20_000);
+                    final int index = TableReader.getPrimaryColumnIndex(reader1.getColumnBase(reader1.getPartitionCount() - 1), 1);
+                    Assert.assertEquals(
+                            reader1.getColumn(index).getPageAddress(0),
+                            reader2.getColumn(index).getPageAddress(0)
+                    );
+                }
+
+                Assert.assertTrue(cache.size() > 0);
+                pool.releaseAll();
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    @Test
+    public void testTruncateInvalidatesMappings() throws Exception {
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)) {
+                model.col("a", ColumnType.INT).col("s", ColumnType.STRING).timestamp();
+                CairoTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    ReaderPool pool = new ReaderPool(configuration)
+            ) {
+                appendRows(writer, 0, 100);
+                try (TableReader reader1 = pool.get("x")) {
+                    assertRows(reader1, 100);
+
+                    writer.truncate();
+                    appendRows(writer, 0, 50);
+
+                    try (TableReader reader2 = pool.get("x")) {
+                        assertRows(reader2, 50);
+                        final int index = TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), 0);
+                        Assert.assertNotEquals(
+                                reader1.getColumn(index).getPageAddress(0),
+                                reader2.getColumn(index).getPageAddress(0)
+                        );
+                    }
+                    assertRows(reader1, 100);
+                }
+
+                final ColumnMappingCache cache = pool.getColumnMappingCache("x");
+                Assert.assertNotNull(cache);
+                pool.releaseAll();
+                Assert.assertEquals(0, cache.size());
+            }
+        });
+    }
+
+    private static void appendRows(TableWriter writer, int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            // first 50 rows go to the first partition, the rest to the second
+            TableWriter.Row row = writer.newRow(i < 50 ? i : Timestamps.DAY_MICROS + i);
+            row.putInt(0, i);
+            row.putStr(1, "s" + i);
+            row.append();
+        }
+        writer.commit();
+    }
+
+    private static void assertRows(TableReader reader, int expectedCount) {
+        Assert.assertEquals(expectedCount, countRows(reader));
+    }
+
+    private static int countRows(TableReader reader) {
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        int i = 0;
+        while (cursor.hasNext()) {
+            Assert.assertEquals(i, record.getInt(0));
+            Assert.assertTrue(Chars.equals("s" + i, record.getStr(1)));
+            i++;
+        }
+        return i;
+    }
+}
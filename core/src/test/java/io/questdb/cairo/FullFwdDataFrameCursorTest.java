@@ -2585,5 +2585,50 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public Sequence getLatestBySubSeq() {
             return null;
         }
+
+        @Override
+        public Sequence getLatestBySymbolScanPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<LatestBySymbolScanTask> getLatestBySymbolScanQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestBySymbolScanSubSeq() {
+            return null;
+        }
+
+        @Override
+        public Sequence getExchangePubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<ExchangeTask> getExchangeQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getExchangeSubSeq() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTextImportPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<TextImportTask> getTextImportQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getTextImportSubSeq() {
+            return null;
+        }
     }
 }
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TxnNotifierTest extends AbstractCairoTest {
+
+    @Test
+    public void testAwait() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final TxnNotifier.Sequence sequence = engine.getTxnNotifier().getSequence("x");
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                final long txn = sequence.getTxn();
+                Assert.assertEquals(txn, sequence.await(txn, 1));
+
+                final CountDownLatch started = new CountDownLatch(1);
+                final AtomicLong awaited = new AtomicLong();
+                final Thread thread = new Thread(() -> {
+                    started.countDown();
+                    awaited.set(sequence.await(txn, 60_000));
+                });
+                thread.start();
+                started.await();
+
+                addRow(writer);
+                thread.join();
+                Assert.assertEquals(txn + 1, awaited.get());
+            }
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testWriterPublishesTxn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final TxnNotifier.Sequence sequence = engine.getTxnNotifier().getSequence("x");
+            Assert.assertEquals(TxnNotifier.TXN_UNKNOWN, sequence.getTxn());
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                Assert.assertEquals(0, sequence.getTxn());
+                addRow(writer);
+                Assert.assertEquals(1, sequence.getTxn());
+                writer.addColumn("y", ColumnType.INT);
+                Assert.assertEquals(2, sequence.getTxn());
+                writer.truncate();
+                Assert.assertEquals(3, sequence.getTxn());
+                addRow(writer);
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(reader.getTxn(), sequence.getTxn());
+                }
+            }
+
+            // writer is back in pool and still holds the lock
+            Assert.assertEquals(4, sequence.getTxn());
+            final long version = sequence.getVersion();
+
+            engine.releaseAllWriters();
+            Assert.assertEquals(TxnNotifier.TXN_UNKNOWN, sequence.getTxn());
+            Assert.assertEquals(version + 1, sequence.getVersion());
+
+            // writer outside of pool does not publish
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                addRow(writer);
+                Assert.assertEquals(TxnNotifier.TXN_UNKNOWN, sequence.getTxn());
+            }
+            Assert.assertEquals(version + 1, sequence.getVersion());
+        });
+    }
+
+    private static void addRow(TableWriter writer) {
+        TableWriter.Row row = writer.newRow(0);
+        row.putInt(0, 1);
+        row.append();
+        writer.commit();
+    }
+
+    private static void createTable() {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE)) {
+            model.col("a", ColumnType.INT).timestamp();
+            CairoTestUtils.create(model);
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.InsertMethod;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ArrowQueryProcessorTest {
+    private static final String DDL = "create table x (" +
+            "b boolean, bt byte, sh short, c char, i int, l long, dt date, f float, d double, sym symbol, s string, ts timestamp" +
+            ") timestamp(ts) partition by DAY";
+    private static final String[] INSERTS = {
+            "insert into x values (true, cast(1 as byte), cast(10 as short), 'a', 100, 1000, cast(86400000 as date), cast(1.5 as float), 2.25, 'aa', 'x1', cast(0 as timestamp))",
+            "insert into x values (false, cast(2 as byte), cast(20 as short), null, null, null, null, null, null, null, null, cast(3600000000 as timestamp))",
+            "insert into x values (true, cast(3 as byte), cast(30 as short), 'c', 300, 3000, cast(0 as date), cast(3.5 as float), 4.5, 'bb', 'x3', cast(7200000000 as timestamp))",
+            "insert into x values (false, cast(4 as byte), cast(40 as short), 'd', 400, 4000, cast(1000 as date), cast(4.5 as float), 5.5, 'aa', 'юникод', cast(86400000000 as timestamp))",
+            "insert into x values (true, cast(5 as byte), cast(50 as short), 'é', -5, -5000, cast(2000 as date), cast(-1.0 as float), -2.0, 'cc', 'x5', cast(90000000000 as timestamp))",
+            "alter table x add column k int",
+            "insert into x values (true, cast(6 as byte), cast(60 as short), 'f', 600, 6000, cast(3000 as date), cast(6.5 as float), 7.5, 'bb', 'x6', cast(172800000000 as timestamp), 7)",
+            "insert into x values (false, cast(7 as byte), cast(70 as short), 'g', 700, 7000, cast(4000 as date), cast(7.5 as float), 8.5, null, 'x7', cast(176400000000 as timestamp), null)"
+    };
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDdl() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> new SendAndReceiveRequestBuilder().execute(
+                        "GET /arrow?query=create+table+y+(a+int) HTTP/1.1\r\n\r\n",
+                        "HTTP/1.1 200 OK\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "Keep-Alive: timeout=5, max=10000\r\n" +
+                                "\r\n" +
+                                "0c\r\n" +
+                                "{\"ddl\":\"OK\"}\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                ));
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        assertArrow(
+                1024,
+                "select i, sym from x where i = 42",
+                "schema: i:int32, sym:utf8\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testPageFrames() throws Exception {
+        // batches are sliced out of partitions, last partition has no column top
+        assertArrow(
+                2,
+                "select b, bt, sh, c, i, l, dt, f, d, sym, ts, k from x",
+                "schema: b:bool, bt:int8, sh:int16, c:utf8, i:int32, l:int64, dt:date[ms], f:float32, d:float64, sym:utf8[dictionary 9], ts:timestamp[us, UTC], k:int32\n" +
+                        "dictionary 9: aa,bb,cc\n" +
+                        "batch 2\n" +
+                        "true\t1\t10\ta\t100\t1000\t86400000\t1.5\t2.25\taa\t0\tnull\n" +
+                        "false\t2\t20\tnull\tnull\tnull\tnull\tnull\tnull\tnull\t3600000000\tnull\n" +
+                        "batch 1\n" +
+                        "true\t3\t30\tc\t300\t3000\t0\t3.5\t4.5\tbb\t7200000000\tnull\n" +
+                        "batch 2\n" +
+                        "false\t4\t40\td\t400\t4000\t1000\t4.5\t5.5\taa\t86400000000\tnull\n" +
+                        "true\t5\t50\té\t-5\t-5000\t2000\t-1.0\t-2.0\tcc\t90000000000\tnull\n" +
+                        "batch 2\n" +
+                        "true\t6\t60\tf\t600\t6000\t3000\t6.5\t7.5\tbb\t172800000000\t7\n" +
+                        "false\t7\t70\tg\t700\t7000\t4000\t7.5\t8.5\tnull\t176400000000\tnull\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testPageFramesInterval() throws Exception {
+        assertArrow(
+                1024,
+                "select ts, sym, i from x where ts > '1970-01-01T01' and ts < '1970-01-02T01'",
+                "schema: ts:timestamp[us, UTC], sym:utf8[dictionary 1], i:int32\n" +
+                        "dictionary 1: aa,bb,cc\n" +
+                        "batch 1\n" +
+                        "7200000000\tbb\t300\n" +
+                        "batch 1\n" +
+                        "86400000000\taa\t400\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testRecordCursor() throws Exception {
+        // strings cannot be framed, symbols are sent as strings
+        assertArrow(
+                3,
+                "x",
+                "schema: b:bool, bt:int8, sh:int16, c:utf8, i:int32, l:int64, dt:date[ms], f:float32, d:float64, sym:utf8, s:utf8, ts:timestamp[us, UTC], k:int32\n" +
+                        "batch 3\n" +
+                        "true\t1\t10\ta\t100\t1000\t86400000\t1.5\t2.25\taa\tx1\t0\tnull\n" +
+                        "false\t2\t20\tnull\tnull\tnull\tnull\tnull\tnull\tnull\tnull\t3600000000\tnull\n" +
+                        "true\t3\t30\tc\t300\t3000\t0\t3.5\t4.5\tbb\tx3\t7200000000\tnull\n" +
+                        "batch 3\n" +
+                        "false\t4\t40\td\t400\t4000\t1000\t4.5\t5.5\taa\tюникод\t86400000000\tnull\n" +
+                        "true\t5\t50\té\t-5\t-5000\t2000\t-1.0\t-2.0\tcc\tx5\t90000000000\tnull\n" +
+                        "true\t6\t60\tf\t600\t6000\t3000\t6.5\t7.5\tbb\tx6\t172800000000\t7\n" +
+                        "batch 1\n" +
+                        "false\t7\t70\tg\t700\t7000\t4000\t7.5\t8.5\tnull\tx7\t176400000000\tnull\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testRecordCursorFunctions() throws Exception {
+        assertArrow(
+                1024,
+                "select sym, count() n, sum(i) total from x where sym = 'aa' or sym = 'bb'",
+                "schema: sym:utf8, n:int64, total:int64\n" +
+                        "batch 2\n" +
+                        "aa\t2\t500\n" +
+                        "bb\t2\t900\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testRecordCursorNullBinaryAndLong256() throws Exception {
+        assertArrow(
+                1024,
+                "select cast(null as binary) nb, rnd_bin(4, 4, 0) bin, rnd_long256() l256, cast(null as long256) nl256, null n from long_sequence(2)",
+                "schema: nb:binary, bin:binary, l256:fixed_size_binary[32], nl256:fixed_size_binary[32], n:null\n" +
+                        "batch 2\n" +
+                        "null\t4 bytes\t32 bytes\tnull\tnull\n" +
+                        "null\t4 bytes\t32 bytes\tnull\tnull\n" +
+                        "end\n"
+        );
+    }
+
+    @Test
+    public void testSyntaxError() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> new SendAndReceiveRequestBuilder().execute(
+                        "GET /arrow?query=select+x+frm+long_sequence(1) HTTP/1.1\r\n\r\n",
+                        "HTTP/1.1 400 Bad request\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "Keep-Alive: timeout=5, max=10000\r\n" +
+                                "\r\n" +
+                                "60\r\n" +
+                                "{\"query\":\"select x frm long_sequence(1)\",\"error\":\"',', 'from' or 'over' expected\",\"position\":13}\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                ));
+    }
+
+    private void assertArrow(int batchSize, String query, String expected) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(2)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withArrowBatchSize(batchSize)
+                        // messages do not fit single chunk
+                        .withSendBufferSize(256)
+                )
+                .withTelemetry(false)
+                .run(engine -> {
+                    createTable(engine);
+                    try (
+                            Socket socket = new Socket("127.0.0.1", 9001);
+                            InputStream in = socket.getInputStream();
+                            OutputStream out = socket.getOutputStream()
+                    ) {
+                        socket.setSoTimeout(30_000);
+                        final String request = "GET /arrow?query=" + URLEncoder.encode(query, "UTF-8") + " HTTP/1.1\r\n\r\n";
+                        // same connection serves repeated query, factory comes from query cache second time
+                        for (int i = 0; i < 2; i++) {
+                            final StringSink headers = new StringSink();
+                            final byte[] body = sendAndReceiveChunked(in, out, request, headers);
+                            TestUtils.assertContains(headers, "Content-Type: application/vnd.apache.arrow.stream");
+                            TestUtils.assertEquals(expected, new ArrowStreamDecoder(body).decode());
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    private static void createTable(CairoEngine engine) throws SqlException {
+        try (SqlCompiler compiler = new SqlCompiler(engine)) {
+            final SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1).with(
+                    AllowAllCairoSecurityContext.INSTANCE,
+                    new BindVariableServiceImpl(engine.getConfiguration()),
+                    null
+            );
+            compiler.compile(DDL, executionContext);
+            for (String sql : INSERTS) {
+                final CompiledQuery cq = compiler.compile(sql, executionContext);
+                if (cq.getType() == CompiledQuery.INSERT) {
+                    try (InsertMethod method = cq.getInsertStatement().createMethod(executionContext)) {
+                        method.execute();
+                        method.commit();
+                    }
+                }
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            Assert.assertTrue(c > -1);
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static byte[] sendAndReceiveChunked(InputStream in, OutputStream out, String request, StringSink headers) throws IOException {
+        out.write(request.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            headers.put(line).put('\n');
+        }
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int size;
+        while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+            for (int i = 0; i < size; i++) {
+                body.write(in.read());
+            }
+            Assert.assertEquals("", readLine(in));
+        }
+        Assert.assertEquals("", readLine(in));
+        return body.toByteArray();
+    }
+
+    /**
+     * Reads Arrow IPC stream straight from flatbuffers as laid out by Message.fbs and
+     * Schema.fbs and renders it as text, one row per line.
+     */
+    private static class ArrowStreamDecoder {
+        private final ByteBuffer buf;
+        private final StringBuilder out = new StringBuilder();
+        private final Map<Long, List<String>> dictionaries = new HashMap<>();
+        private final List<Integer> fields = new ArrayList<>();
+
+        ArrowStreamDecoder(byte[] bytes) {
+            this.buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        String decode() {
+            int pos = 0;
+            while (true) {
+                Assert.assertEquals(0xFFFFFFFF, buf.getInt(pos));
+                final int metadataSize = buf.getInt(pos + 4);
+                if (metadataSize == 0) {
+                    out.append("end\n");
+                    Assert.assertEquals(buf.capacity(), pos + 8);
+                    return out.toString();
+                }
+                Assert.assertEquals(0, metadataSize % 8);
+                final int metadata = pos + 8;
+                final int message = indirect(metadata);
+                Assert.assertEquals(4, buf.getShort(field(message, 0)));
+                final byte headerType = buf.get(field(message, 1));
+                final int header = indirect(field(message, 2));
+                final long bodyLength = buf.getLong(field(message, 3));
+                Assert.assertEquals(0, bodyLength % 8);
+                final int body = metadata + metadataSize;
+                switch (headerType) {
+                    case 1:
+                        schema(header);
+                        break;
+                    case 2:
+                        final long id = buf.getLong(field(header, 0));
+                        final List<String> values = new ArrayList<>();
+                        final int data = indirect(field(header, 1));
+                        for (int row = 0, n = (int) buf.getLong(field(data, 0)); row < n; row++) {
+                            values.add(value(data, body, 5, 0, 0, row, new int[]{0}));
+                        }
+                        dictionaries.put(id, values);
+                        out.append("dictionary ").append(id).append(": ").append(String.join(",", values)).append('\n');
+                        break;
+                    case 3:
+                        recordBatch(header, body);
+                        break;
+                    default:
+                        Assert.fail("unexpected message header " + headerType);
+                }
+                pos = (int) (body + bodyLength);
+            }
+        }
+
+        private int field(int table, int slot) {
+            final int vtable = table - buf.getInt(table);
+            final int offset = 4 + 2 * slot;
+            if (offset >= buf.getShort(vtable)) {
+                return 0;
+            }
+            final short fieldOffset = buf.getShort(vtable + offset);
+            return fieldOffset == 0 ? 0 : table + fieldOffset;
+        }
+
+        private int indirect(int position) {
+            return position + buf.getInt(position);
+        }
+
+        private boolean isValid(int nodes, int buffers, int body, int nodeIndex, int bufferIndex, int row) {
+            final long nullCount = buf.getLong(vectorElement(nodes, nodeIndex, 16) + 8);
+            final int validity = vectorElement(buffers, bufferIndex, 16);
+            final long validityLength = buf.getLong(validity + 8);
+            if (validityLength == 0) {
+                Assert.assertEquals(0, nullCount);
+                return true;
+            }
+            final long offset = buf.getLong(validity);
+            Assert.assertEquals(0, offset % 8);
+            return (buf.get((int) (body + offset + row / 8)) & (1 << (row % 8))) != 0;
+        }
+
+        private void recordBatch(int batch, int body) {
+            final int length = (int) buf.getLong(field(batch, 0));
+            out.append("batch ").append(length).append('\n');
+            for (int row = 0; row < length; row++) {
+                final int[] bufferIndex = {0};
+                for (int i = 0, n = fields.size(); i < n; i++) {
+                    if (i > 0) {
+                        out.append('\t');
+                    }
+                    final int f = fields.get(i);
+                    final int dictionary = field(f, 4);
+                    if (dictionary != 0) {
+                        final String key = value(batch, body, 2, indirect(field(indirect(dictionary), 1)), i, row, bufferIndex);
+                        final long id = buf.getLong(field(indirect(dictionary), 0));
+                        out.append("null".equals(key) ? "null" : dictionaries.get(id).get(Integer.parseInt(key)));
+                    } else {
+                        out.append(value(batch, body, buf.get(field(f, 2)), indirect(field(f, 3)), i, row, bufferIndex));
+                    }
+                }
+                out.append('\n');
+            }
+        }
+
+        private void schema(int schema) {
+            out.append("schema: ");
+            final int vector = indirect(field(schema, 1));
+            for (int i = 0, n = buf.getInt(vector); i < n; i++) {
+                final int f = indirect(vector + 4 + 4 * i);
+                fields.add(f);
+                Assert.assertEquals(0, buf.getInt(indirect(field(f, 5))));
+                if (i > 0) {
+                    out.append(", ");
+                }
+                out.append(string(field(f, 0))).append(':').append(typeName(buf.get(field(f, 2)), indirect(field(f, 3))));
+                final int dictionary = field(f, 4);
+                if (dictionary != 0) {
+                    out.append("[dictionary ").append(buf.getLong(field(indirect(dictionary), 0))).append(']');
+                }
+            }
+            out.append('\n');
+        }
+
+        private String string(int position) {
+            final int s = indirect(position);
+            final byte[] bytes = new byte[buf.getInt(s)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buf.get(s + 4 + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String typeName(byte typeType, int type) {
+            switch (typeType) {
+                case 1:
+                    return "null";
+                case 2:
+                    return "int" + buf.getInt(field(type, 0));
+                case 3:
+                    return buf.getShort(field(type, 0)) == 1 ? "float32" : "float64";
+                case 4:
+                    return "binary";
+                case 5:
+                    return "utf8";
+                case 6:
+                    return "bool";
+                case 8:
+                    return "date[" + (buf.getShort(field(type, 0)) == 1 ? "ms" : "day") + "]";
+                case 10:
+                    return "timestamp[" + (buf.getShort(field(type, 0)) == 2 ? "us" : "?") + ", " + string(field(type, 1)) + "]";
+                case 15:
+                    return "fixed_size_binary[" + buf.getInt(field(type, 0)) + "]";
+                default:
+                    return "?";
+            }
+        }
+
+        // renders value of given row, advances buffer index past buffers of the field at last row
+        private String value(int batch, int body, int typeType, int type, int fieldIndex, int row, int[] bufferIndex) {
+            final int nodes = indirect(field(batch, 1));
+            final int buffers = indirect(field(batch, 2));
+            final int first = bufferIndex[0];
+            final int bufferCount;
+            switch (typeType) {
+                case 1:
+                    bufferCount = 0;
+                    break;
+                case 4:
+                case 5:
+                    bufferCount = 3;
+                    break;
+                default:
+                    bufferCount = 2;
+                    break;
+            }
+            bufferIndex[0] += bufferCount;
+            if (typeType == 1) {
+                return "null";
+            }
+            if (!isValid(nodes, buffers, body, fieldIndex, first, row)) {
+                return "null";
+            }
+            final int data = body + (int) buf.getLong(vectorElement(buffers, first + 1, 16));
+            switch (typeType) {
+                case 2:
+                    switch (buf.getInt(field(type, 0))) {
+                        case 8:
+                            return Byte.toString(buf.get(data + row));
+                        case 16:
+                            return Short.toString(buf.getShort(data + 2 * row));
+                        case 32:
+                            return Integer.toString(buf.getInt(data + 4 * row));
+                        default:
+                            return Long.toString(buf.getLong(data + 8 * row));
+                    }
+                case 3:
+                    return buf.getShort(field(type, 0)) == 1 ? Float.toString(buf.getFloat(data + 4 * row)) : Double.toString(buf.getDouble(data + 8 * row));
+                case 4:
+                case 5:
+                    final int lo = buf.getInt(data + 4 * row);
+                    final int hi = buf.getInt(data + 4 * row + 4);
+                    final int values = body + (int) buf.getLong(vectorElement(buffers, first + 2, 16));
+                    final byte[] bytes = new byte[hi - lo];
+                    for (int i = 0; i < bytes.length; i++) {
+                        bytes[i] = buf.get(values + lo + i);
+                    }
+                    return typeType == 5 ? new String(bytes, StandardCharsets.UTF_8) : bytes.length + " bytes";
+                case 6:
+                    return Boolean.toString((buf.get(data + row / 8) & (1 << (row % 8))) != 0);
+                case 8:
+                case 10:
+                    return Long.toString(buf.getLong(data + 8 * row));
+                case 15:
+                    return buf.getInt(field(type, 0)) + " bytes";
+                default:
+                    return "?";
+            }
+        }
+
+        private int vectorElement(int vector, int index, int elementSize) {
+            Assert.assertTrue(index < buf.getInt(vector));
+            return vector + 4 + index * elementSize;
+        }
+    }
+}
@@ -211,6 +211,35 @@ public class HttpQueryTestBuilder {
                     }
                 });
 
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new ArrowQueryProcessor(
+                                httpConfiguration.getJsonQueryProcessorConfiguration(),
+                                engine,
+                                null,
+                                workerPool.getWorkerCount()
+                        );
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/arrow";
+                    }
+                });
+
+
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new LineHttpProcessor(engine, httpConfiguration.getLineHttpProcessorConfiguration());
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/write";
+                    }
+                });
 
                 httpServer.bind(new HttpRequestProcessorFactory() {
                     @Override
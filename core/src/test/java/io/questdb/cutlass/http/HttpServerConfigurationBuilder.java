@@ -23,7 +23,10 @@
  ******************************************************************************/
 package io.questdb.cutlass.http;
 
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.PartitionBy;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.griffin.DefaultSqlInterruptorConfiguration;
 import io.questdb.griffin.SqlInterruptorConfiguration;
@@ -35,6 +38,8 @@ import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.Numbers;
 import io.questdb.std.StationaryMillisClock;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 
@@ -44,12 +49,17 @@ public class HttpServerConfigurationBuilder {
     private int sendBufferSize = 1024 * 1024;
     private boolean dumpTraffic;
     private boolean allowDeflateBeforeSend;
+    private int compressionMinSize;
     private boolean serverKeepAlive = true;
     private String httpProtocolVersion = "HTTP/1.1 ";
     private long configuredMaxQueryResponseRowLimit = Long.MAX_VALUE;
+    private int exportBatchSize = 1024;
+    private int arrowBatchSize = 65536;
+    private int jsonQueryBatchSize = 1024;
     private int rerunProcessingQueueSize = 4096;
     private int receiveBufferSize = 1024 * 1024;
     private long multipartIdleSpinCount = -1;
+    private int ilpMaxMeasurementSize = 64 * 1024;
     private Runnable onPeerDisconnect = HttpContextConfiguration.NONE;
 
     public HttpServerConfigurationBuilder withNetwork(NetworkFacade nf) {
@@ -72,6 +82,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withCompressionMinSize(int compressionMinSize) {
+        this.compressionMinSize = compressionMinSize;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withAllowDeflateBeforeSend(boolean allowDeflateBeforeSend) {
         this.allowDeflateBeforeSend = allowDeflateBeforeSend;
         return this;
@@ -92,6 +107,21 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withExportBatchSize(int exportBatchSize) {
+        this.exportBatchSize = exportBatchSize;
+        return this;
+    }
+
+    public HttpServerConfigurationBuilder withArrowBatchSize(int arrowBatchSize) {
+        this.arrowBatchSize = arrowBatchSize;
+        return this;
+    }
+
+    public HttpServerConfigurationBuilder withJsonQueryBatchSize(int jsonQueryBatchSize) {
+        this.jsonQueryBatchSize = jsonQueryBatchSize;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withRerunProcessingQueueSize(int rerunProcessingQueueSize) {
         this.rerunProcessingQueueSize = rerunProcessingQueueSize;
         return this;
@@ -107,6 +137,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withIlpMaxMeasurementSize(int ilpMaxMeasurementSize) {
+        this.ilpMaxMeasurementSize = ilpMaxMeasurementSize;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withMultipartIdleSpinCount(long multipartIdleSpinCount) {
         this.multipartIdleSpinCount = multipartIdleSpinCount;
         return this;
@@ -153,6 +188,33 @@ public class HttpServerConfigurationBuilder {
                 }
             };
 
+            private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new LineHttpProcessorConfiguration() {
+                @Override
+                public int getCommitMode() {
+                    return CommitMode.SYNC;
+                }
+
+                @Override
+                public int getDefaultPartitionBy() {
+                    return PartitionBy.DAY;
+                }
+
+                @Override
+                public int getMaxLineErrors() {
+                    return 100;
+                }
+
+                @Override
+                public int getMaxMeasurementSize() {
+                    return ilpMaxMeasurementSize;
+                }
+
+                @Override
+                public MicrosecondClock getMicrosecondClock() {
+                    return MicrosecondClockImpl.INSTANCE;
+                }
+            };
+
             private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new JsonQueryProcessorConfiguration() {
                 private final DefaultSqlInterruptorConfiguration sqlInterruptorConfiguration = new DefaultSqlInterruptorConfiguration();
 
@@ -191,6 +253,21 @@ public class HttpServerConfigurationBuilder {
                     return configuredMaxQueryResponseRowLimit;
                 }
 
+                @Override
+                public int getExportBatchSize() {
+                    return exportBatchSize;
+                }
+
+                @Override
+                public int getArrowBatchSize() {
+                    return arrowBatchSize;
+                }
+
+                @Override
+                public int getJsonQueryBatchSize() {
+                    return jsonQueryBatchSize;
+                }
+
                 @Override
                 public SqlInterruptorConfiguration getInterruptorConfiguration() {
                     return sqlInterruptorConfiguration;
@@ -260,6 +337,11 @@ public class HttpServerConfigurationBuilder {
                         return allowDeflateBeforeSend;
                     }
 
+                    @Override
+                    public int getCompressionMinSize() {
+                        return compressionMinSize;
+                    }
+
                     @Override
                     public boolean getServerKeepAlive() {
                         return serverKeepAlive;
@@ -291,6 +373,11 @@ public class HttpServerConfigurationBuilder {
             public JsonQueryProcessorConfiguration getJsonQueryProcessorConfiguration() {
                 return jsonQueryProcessorConfiguration;
             }
+
+            @Override
+            public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+                return lineHttpProcessorConfiguration;
+            }
         };
     }
 }
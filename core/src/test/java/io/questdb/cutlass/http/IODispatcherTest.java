@@ -26,7 +26,14 @@ package io.questdb.cutlass.http;
 
 import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
@@ -34,6 +41,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
 
 import io.questdb.cairo.*;
 import io.questdb.std.*;
@@ -250,6 +258,139 @@ public class IODispatcherTest {
         });
     }
 
+    @Test
+    public void testBiasWriteMultipleDispatchers() throws Exception {
+        // windows maps SO_REUSEPORT to SO_REUSEADDR, which does not balance connections
+        Assume.assumeTrue(Os.type != Os.WINDOWS);
+
+        LOG.info().$("started testBiasWriteMultipleDispatchers").$();
+
+        assertMemoryLeak(() -> {
+            final int clientCount = 32;
+            final int dispatcherCount = 2;
+            final SOCountDownLatch contextClosedLatch = new SOCountDownLatch(clientCount);
+            final AtomicInteger acceptCount = new AtomicInteger();
+            final ConcurrentHashMap<IODispatcher<HelloContext>, AtomicInteger> dispatcherAcceptCounts = new ConcurrentHashMap<>();
+
+            final ObjList<IODispatcher<HelloContext>> dispatchers = IODispatchers.create(
+                    new DefaultIODispatcherConfiguration() {
+                        @Override
+                        public int getDispatcherCount() {
+                            return dispatcherCount;
+                        }
+
+                        @Override
+                        public int getInitialBias() {
+                            return IODispatcherConfiguration.BIAS_WRITE;
+                        }
+                    },
+                    (fd, dispatcher1) -> {
+                        acceptCount.incrementAndGet();
+                        dispatcherAcceptCounts.computeIfAbsent(dispatcher1, k -> new AtomicInteger()).incrementAndGet();
+                        return new HelloContext(fd, contextClosedLatch, dispatcher1);
+                    },
+                    4
+            );
+
+            try {
+                // both dispatchers are bound to the same port
+                Assert.assertEquals(dispatcherCount, dispatchers.size());
+
+                final AtomicBoolean serverRunning = new AtomicBoolean(true);
+                final SOCountDownLatch serverHaltLatch = new SOCountDownLatch(dispatcherCount);
+                for (int i = 0; i < dispatcherCount; i++) {
+                    final IODispatcher<HelloContext> dispatcher = dispatchers.getQuick(i);
+                    new Thread(() -> {
+                        while (serverRunning.get()) {
+                            dispatcher.run(0);
+                            dispatcher.processIOQueue(
+                                    (operation, context) -> {
+                                        if (operation == IOOperation.WRITE) {
+                                            Assert.assertEquals(1024, Net.send(context.getFd(), context.buffer, 1024));
+                                            context.dispatcher.disconnect(context, IODispatcher.DISCONNECT_REASON_TEST);
+                                        }
+                                    }
+                            );
+                        }
+                        serverHaltLatch.countDown();
+                    }).start();
+                }
+
+                long sockAddr = Net.sockaddr("127.0.0.1", 9001);
+                long buffer = Unsafe.malloc(1024);
+                try {
+                    try {
+                        for (int i = 0; i < clientCount; i++) {
+                            long fd = Net.socketTcp(true);
+                            try {
+                                TestUtils.assertConnect(fd, sockAddr);
+                                Assert.assertEquals(1024, Net.recv(fd, buffer, 1024));
+                            } finally {
+                                Net.close(fd);
+                            }
+                        }
+                        contextClosedLatch.await();
+                    } finally {
+                        serverRunning.set(false);
+                        serverHaltLatch.await();
+                    }
+
+                    Assert.assertEquals(clientCount, acceptCount.get());
+                    for (int i = 0; i < dispatcherCount; i++) {
+                        final IODispatcher<HelloContext> dispatcher = dispatchers.getQuick(i);
+                        Assert.assertEquals(0, dispatcher.getConnectionCount());
+                        // kernel spreads connections between listeners sharing the port
+                        final AtomicInteger dispatcherAcceptCount = dispatcherAcceptCounts.get(dispatcher);
+                        Assert.assertNotNull(dispatcherAcceptCount);
+                        Assert.assertTrue(dispatcherAcceptCount.get() > 0);
+                    }
+                } finally {
+                    Unsafe.free(buffer, 1024);
+                    Net.freeSockAddr(sockAddr);
+                }
+            } finally {
+                Misc.freeObjList(dispatchers);
+            }
+        });
+    }
+
+    @Test
+    public void testBiasWriteSingleDispatcherDoesNotReusePort() throws Exception {
+        assertMemoryLeak(() -> {
+            final AtomicInteger reusePortCount = new AtomicInteger();
+            final NetworkFacade nf = new NetworkFacadeImpl() {
+                @Override
+                public int setReusePort(long fd) {
+                    reusePortCount.incrementAndGet();
+                    return super.setReusePort(fd);
+                }
+            };
+
+            // two dispatchers are configured, but single worker can run only one of them
+            final ObjList<IODispatcher<HelloContext>> dispatchers = IODispatchers.create(
+                    new DefaultIODispatcherConfiguration() {
+                        @Override
+                        public int getDispatcherCount() {
+                            return 2;
+                        }
+
+                        @Override
+                        public NetworkFacade getNetworkFacade() {
+                            return nf;
+                        }
+                    },
+                    (fd, dispatcher1) -> new HelloContext(fd, new SOCountDownLatch(1), dispatcher1),
+                    1
+            );
+            try {
+                Assert.assertEquals(1, dispatchers.size());
+                Assert.assertEquals(0, reusePortCount.get());
+            } finally {
+                Misc.freeObjList(dispatchers);
+            }
+        });
+    }
+
     @Test
     public void testCannotSetNonBlocking() throws Exception {
         assertMemoryLeak(() -> {
@@ -6127,6 +6268,195 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testQueryGzipNegotiation() throws Exception {
+        // static gzip header is allocated once, keep it out of leak check
+        Assert.assertNotEquals(0, Zip.gzipHeader);
+
+        // server parks every other send to exercise resume of compressed output
+        final NetworkFacade nf = new NetworkFacadeImpl() {
+            boolean park;
+
+            @Override
+            public int send(long fd, long buffer, int bufferLen) {
+                if (bufferLen > 0 && (park = !park)) {
+                    return 0;
+                }
+                return super.send(fd, buffer, Math.min(bufferLen, 1024));
+            }
+        };
+
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(2)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withNetwork(nf)
+                        .withSendBufferSize(4096)
+                        .withAllowDeflateBeforeSend(true)
+                        .withCompressionMinSize(512)
+                )
+                .withTelemetry(false)
+                .run((engine) -> {
+                    try (
+                            Socket socket = new Socket("127.0.0.1", 9001);
+                            InputStream in = socket.getInputStream();
+                            OutputStream out = socket.getOutputStream()
+                    ) {
+                        socket.setSoTimeout(30_000);
+                        final String csv = "GET /exp?query=select+x%2C+x*x+sq+from+long_sequence(20000) HTTP/1.1\r\n";
+                        final String json = "GET /exec?query=select+x%2C+x*x+sq+from+long_sequence(20000) HTTP/1.1\r\n";
+                        final String small = "GET /exp?query=select+x+from+long_sequence(3) HTTP/1.1\r\n";
+                        final String gzip = "Accept-Encoding: gzip, deflate, br\r\n\r\n";
+
+                        // same keep-alive connection alternates between compressed and plain responses
+                        for (String request : new String[]{csv, json}) {
+                            final StringSink headers = new StringSink();
+                            final String plain = sendAndReceiveChunked(in, out, request + "\r\n", headers);
+                            Assert.assertFalse(Chars.contains(headers, "Content-Encoding"));
+
+                            headers.clear();
+                            final String compressed = sendAndReceiveChunked(in, out, request + gzip, headers);
+                            Assert.assertTrue(Chars.contains(headers, "Content-Encoding: gzip"));
+                            Assert.assertTrue(plain.length() > 100_000);
+                            TestUtils.assertEquals(plain, compressed);
+                        }
+
+                        final StringSink headers = new StringSink();
+                        TestUtils.assertEquals(
+                                "\"x\"\r\n1\r\n2\r\n3\r\n",
+                                sendAndReceiveChunked(in, out, small + gzip, headers)
+                        );
+                        Assert.assertFalse(Chars.contains(headers, "Content-Encoding"));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @Test
+    public void testJsonQueryPageFrames() throws Exception {
+        // record cursor, single row batches and batches spanning column top
+        for (int batchSize : new int[]{0, 1, 4, 1024}) {
+            assertJsonQueryPageFrames(batchSize, "GET /exec?query=x&count=true HTTP/1.1\r\n\r\n",
+                    "HTTP/1.1 200 OK\r\n" +
+                    "Server: questDB/1.0\r\n" +
+                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                    "Transfer-Encoding: chunked\r\n" +
+                    "Content-Type: application/json; charset=utf-8\r\n" +
+                    "Keep-Alive: timeout=5, max=10000\r\n" +
+                    "\r\n" +
+                    "068d\r\n" +
+                    "{\"query\":\"x\",\"columns\":[{\"name\":\"s\",\"type\":\"SYMBOL\"},{\"name\":\"i\",\"type\":\"INT\"},{\"name\":\"l\",\"type\":\"LONG\"},{\"name\":\"d\",\"type\":\"DOUBLE\"},{\"name\":\"f\",\"type\":\"FLOAT\"},{\"name\":\"sh\",\"type\":\"SHORT\"},{\"name\":\"b\",\"type\":\"BYTE\"},{\"name\":\"bo\",\"type\":\"BOOLEAN\"},{\"name\":\"c\",\"type\":\"CHAR\"},{\"name\":\"dt\",\"type\":\"DATE\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"},{\"name\":\"j\",\"type\":\"LONG\"},{\"name\":\"jb\",\"type\":\"BOOLEAN\"},{\"name\":\"jy\",\"type\":\"BYTE\"},{\"name\":\"js\",\"type\":\"SHORT\"}],\"dataset\":[[\"a\",72,87,0.299199045961845,0.93446046,-14644,84,false,\"E\",null,\"1970-01-01T00:00:00.000000Z\",null,false,0,0],[\"a\",85,74,null,0.7611029,-21733,101,true,\"B\",null,\"1970-01-01T01:00:00.000000Z\",null,false,0,0],[\"b\",5,14,0.6778564558839208,0.87567717,5781,120,false,\"E\",\"2020-09-03T21:24:20.751Z\",\"1970-01-01T02:00:00.000000Z\",null,false,0,0],[\"b\",7,8,0.6217326707853098,0.81468076,21748,120,true,\"U\",\"2020-02-15T22:10:57.816Z\",\"1970-01-01T03:00:00.000000Z\",null,false,0,0],[null,null,29,0.6700476391801052,null,1404,62,true,\"O\",\"2020-12-02T22:34:18.832Z\",\"1970-01-01T04:00:00.000000Z\",null,false,0,0],[null,94,61,null,0.24593449,22298,82,true,\"F\",\"2020-10-29T11:03:50.951Z\",\"1970-01-01T05:00:00.000000Z\",null,false,0,0],[null,82,21,0.8001121139739173,0.18769705,-24094,125,true,\"Y\",\"2020-03-08T05:20:05.979Z\",\"1970-01-01T06:00:00.000000Z\",null,true,3,4],[null,39,21,0.04645849844580874,0.68216604,10633,99,false,\"V\",\"2020-08-27T05:50:12.509Z\",\"1970-01-01T07:00:00.000000Z\",15,true,3,4],[null,36,98,0.910141759290032,0.43717694,-14377,67,true,\"W\",null,\"1970-01-01T08:00:00.000000Z\",96,true,3,4],[\"b\",null,75,0.4971342426836798,0.48558682,8010,73,false,\"L\",null,\"1970-01-01T09:00:00.000000Z\",8,true,3,4]],\"count\":10}\r\n" +
+                    "00\r\n" +
+                    "\r\n"
+            );
+        }
+    }
+
+    @Test
+    public void testJsonQueryPageFramesLimit() throws Exception {
+        assertJsonQueryPageFrames(4, "GET /exec?query=select+s%2C+ts%2C+j+from+x&limit=3&count=true&nm=true HTTP/1.1\r\n\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                "Server: questDB/1.0\r\n" +
+                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Content-Type: application/json; charset=utf-8\r\n" +
+                "Keep-Alive: timeout=5, max=10000\r\n" +
+                "\r\n" +
+                "93\r\n" +
+                "{\"dataset\":[[\"a\",\"1970-01-01T00:00:00.000000Z\",null],[\"a\",\"1970-01-01T01:00:00.000000Z\",null],[\"b\",\"1970-01-01T02:00:00.000000Z\",null]],\"count\":10}\r\n" +
+                "00\r\n" +
+                "\r\n"
+        );
+    }
+
+    @Test
+    public void testJsonQueryColumnar() throws Exception {
+        // page frames with and without batching, record cursor with row offset and column list
+        for (int batchSize : new int[]{0, 3, 1024}) {
+            assertJsonQueryPageFrames(batchSize, "GET /exec?query=select+s%2C+d%2C+c%2C+ts%2C+j+from+x&columnar=true&count=true HTTP/1.1\r\n\r\n",
+                    "HTTP/1.1 200 OK\r\n" +
+                    "Server: questDB/1.0\r\n" +
+                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                    "Transfer-Encoding: chunked\r\n" +
+                    "Content-Type: application/json; charset=utf-8\r\n" +
+                    "Keep-Alive: timeout=5, max=10000\r\n" +
+                    "\r\n" +
+                    "0333\r\n" +
+                    "{\"query\":\"select s, d, c, ts, j from x\",\"columns\":[{\"name\":\"s\",\"type\":\"SYMBOL\"},{\"name\":\"d\",\"type\":\"DOUBLE\"},{\"name\":\"c\",\"type\":\"CHAR\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"},{\"name\":\"j\",\"type\":\"LONG\"}],\"dataset\":[[\"a\",\"a\",\"b\",\"b\",null,null,null,null,null,\"b\"],[0.299199045961845,null,0.6778564558839208,0.6217326707853098,0.6700476391801052,null,0.8001121139739173,0.04645849844580874,0.910141759290032,0.4971342426836798],[\"E\",\"B\",\"E\",\"U\",\"O\",\"F\",\"Y\",\"V\",\"W\",\"L\"],[\"1970-01-01T00:00:00.000000Z\",\"1970-01-01T01:00:00.000000Z\",\"1970-01-01T02:00:00.000000Z\",\"1970-01-01T03:00:00.000000Z\",\"1970-01-01T04:00:00.000000Z\",\"1970-01-01T05:00:00.000000Z\",\"1970-01-01T06:00:00.000000Z\",\"1970-01-01T07:00:00.000000Z\",\"1970-01-01T08:00:00.000000Z\",\"1970-01-01T09:00:00.000000Z\"],[null,null,null,null,null,null,null,15,96,8]],\"count\":10}\r\n" +
+                    "00\r\n" +
+                    "\r\n"
+            );
+        }
+        assertJsonQueryPageFrames(1024, "GET /exec?query=x&columnar=true&limit=2%2C4&cols=j%2Cs HTTP/1.1\r\n\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                "Server: questDB/1.0\r\n" +
+                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Content-Type: application/json; charset=utf-8\r\n" +
+                "Keep-Alive: timeout=5, max=10000\r\n" +
+                "\r\n" +
+                "86\r\n" +
+                "{\"query\":\"x\",\"columns\":[{\"name\":\"j\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"SYMBOL\"}],\"dataset\":[[null,null,null],[\"a\",\"b\",\"b\"]],\"count\":4}\r\n" +
+                "00\r\n" +
+                "\r\n"
+        );
+    }
+
+    @Test
+    public void testTextQueryPageFrames() throws Exception {
+        // record cursor export, single row batches and batches spanning column top
+        for (int batchSize : new int[]{0, 1, 4, 1024}) {
+            assertTextQueryPageFrames(batchSize, "GET /exp?query=x HTTP/1.1\r\n\r\n",
+                    "HTTP/1.1 200 OK\r\n" +
+                            "Server: questDB/1.0\r\n" +
+                            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                            "Transfer-Encoding: chunked\r\n" +
+                            "Content-Type: text/csv; charset=utf-8\r\n" +
+                            "Content-Disposition: attachment; filename=\"questdb-query-0.csv\"\r\n" +
+                            "Keep-Alive: timeout=5, max=10000\r\n" +
+                            "\r\n" +
+                            "0482\r\n" +
+                            "\"s\",\"i\",\"l\",\"d\",\"f\",\"sh\",\"b\",\"bo\",\"c\",\"dt\",\"ts\",\"j\",\"jb\",\"jy\",\"js\"\r\n" +
+                            "\"a\",72,87,0.299199045961845,0.93446046,-14644,84,false,E,,\"1970-01-01T00:00:00.000000Z\",,false,0,0\r\n" +
+                            "\"a\",85,74,,0.7611029,-21733,101,true,B,,\"1970-01-01T01:00:00.000000Z\",,false,0,0\r\n" +
+                            "\"b\",5,14,0.6778564558839208,0.87567717,5781,120,false,E,\"2020-09-03T21:24:20.751Z\",\"1970-01-01T02:00:00.000000Z\",,false,0,0\r\n" +
+                            "\"b\",7,8,0.6217326707853098,0.81468076,21748,120,true,U,\"2020-02-15T22:10:57.816Z\",\"1970-01-01T03:00:00.000000Z\",,false,0,0\r\n" +
+                            ",,29,0.6700476391801052,,1404,62,true,O,\"2020-12-02T22:34:18.832Z\",\"1970-01-01T04:00:00.000000Z\",,false,0,0\r\n" +
+                            ",94,61,,0.24593449,22298,82,true,F,\"2020-10-29T11:03:50.951Z\",\"1970-01-01T05:00:00.000000Z\",,false,0,0\r\n" +
+                            ",82,21,0.8001121139739173,0.18769705,-24094,125,true,Y,\"2020-03-08T05:20:05.979Z\",\"1970-01-01T06:00:00.000000Z\",,true,3,4\r\n" +
+                            ",39,21,0.04645849844580874,0.68216604,10633,99,false,V,\"2020-08-27T05:50:12.509Z\",\"1970-01-01T07:00:00.000000Z\",15,true,3,4\r\n" +
+                            ",36,98,0.910141759290032,0.43717694,-14377,67,true,W,,\"1970-01-01T08:00:00.000000Z\",96,true,3,4\r\n" +
+                            "\"b\",,75,0.4971342426836798,0.48558682,8010,73,false,L,,\"1970-01-01T09:00:00.000000Z\",8,true,3,4\r\n" +
+                            "\r\n" +
+                            "00\r\n" +
+                            "\r\n"
+            );
+        }
+    }
+
+    @Test
+    public void testTextQueryPageFramesLimit() throws Exception {
+        assertTextQueryPageFrames(4, "GET /exp?query=select+s%2C+ts%2C+j+from+x&limit=3 HTTP/1.1\r\n\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: text/csv; charset=utf-8\r\n" +
+                        "Content-Disposition: attachment; filename=\"questdb-query-0.csv\"\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n" +
+                        "7a\r\n" +
+                        "\"s\",\"ts\",\"j\"\r\n" +
+                        "\"a\",\"1970-01-01T00:00:00.000000Z\",\r\n" +
+                        "\"a\",\"1970-01-01T01:00:00.000000Z\",\r\n" +
+                        "\"b\",\"1970-01-01T02:00:00.000000Z\",\r\n" +
+                        "\r\n" +
+                        "00\r\n" +
+                        "\r\n"
+        );
+    }
+
     @Test
     public void testTextQueryPseudoRandomStability() throws Exception {
         testJsonQuery(
@@ -6550,6 +6880,120 @@ public class IODispatcherTest {
         return httpConfiguration;
     }
 
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            Assert.assertTrue(c > -1);
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String sendAndReceiveChunked(InputStream in, OutputStream out, String request, StringSink headers) throws IOException {
+        out.write(request.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        String line;
+        boolean gzip = false;
+        while ((line = readLine(in)).length() > 0) {
+            headers.put(line).put('\n');
+            gzip |= line.equals("Content-Encoding: gzip");
+        }
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int size;
+        while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+            for (int i = 0; i < size; i++) {
+                body.write(in.read());
+            }
+            Assert.assertEquals("", readLine(in));
+        }
+        Assert.assertEquals("", readLine(in));
+
+        if (gzip) {
+            try (GZIPInputStream unzip = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+                final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+                final byte[] buf = new byte[4096];
+                int n;
+                while ((n = unzip.read(buf)) > 0) {
+                    plain.write(buf, 0, n);
+                }
+                return new String(plain.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void assertJsonQueryPageFrames(int jsonQueryBatchSize, String request, String expectedResponse) throws Exception {
+        assertQueryPageFrames(new HttpServerConfigurationBuilder().withJsonQueryBatchSize(jsonQueryBatchSize), request, expectedResponse);
+    }
+
+    private void assertQueryPageFrames(HttpServerConfigurationBuilder serverConfigBuilder, String request, String expectedResponse) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(2)
+                .withHttpServerConfigBuilder(serverConfigBuilder)
+                .withTelemetry(false)
+                .run((engine) -> {
+                    final SqlExecutionContextImpl sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+                    sqlExecutionContext.setRandom(new Rnd());
+                    try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                        compiler.compile("create table x as (" +
+                                "select" +
+                                " rnd_symbol('a','b',null) s," +
+                                " rnd_int(0, 100, 2) i," +
+                                " rnd_long(0, 100, 2) l," +
+                                " rnd_double(2) d," +
+                                " rnd_float(2) f," +
+                                " rnd_short() sh," +
+                                " rnd_byte() b," +
+                                " rnd_boolean() bo," +
+                                " rnd_char() c," +
+                                " rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 2) dt," +
+                                " timestamp_sequence(0, 3600000000) ts" +
+                                " from long_sequence(6)" +
+                                ") timestamp(ts) partition by DAY", sqlExecutionContext);
+                        compiler.compile("alter table x add column j long", sqlExecutionContext);
+                        compiler.compile("alter table x add column jb boolean", sqlExecutionContext);
+                        compiler.compile("alter table x add column jy byte", sqlExecutionContext);
+                        compiler.compile("alter table x add column js short", sqlExecutionContext);
+                        compiler.compile("insert into x select" +
+                                " rnd_symbol('a','b',null) s," +
+                                " rnd_int(0, 100, 2) i," +
+                                " rnd_long(0, 100, 2) l," +
+                                " rnd_double(2) d," +
+                                " rnd_float(2) f," +
+                                " rnd_short() sh," +
+                                " rnd_byte() b," +
+                                " rnd_boolean() bo," +
+                                " rnd_char() c," +
+                                " rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 2) dt," +
+                                " timestamp_sequence(21600000000, 3600000000) ts," +
+                                " rnd_long(0, 100, 2) j," +
+                                " true jb," +
+                                " cast(3 as byte) jy," +
+                                " cast(4 as short) js" +
+                                " from long_sequence(4)", sqlExecutionContext);
+                        sendAndReceive(
+                                NetworkFacadeImpl.INSTANCE,
+                                request,
+                                expectedResponse,
+                                1,
+                                0,
+                                false
+                        );
+                        compiler.compile("drop table x", sqlExecutionContext);
+                    }
+                });
+    }
+
+    private void assertTextQueryPageFrames(int exportBatchSize, String request, String expectedResponse) throws Exception {
+        assertQueryPageFrames(new HttpServerConfigurationBuilder().withExportBatchSize(exportBatchSize), request, expectedResponse);
+    }
+
     private void testJsonQuery(int recordCount, String request, String expectedResponse, int requestCount, boolean telemetry) throws Exception {
         testJsonQuery0(2, engine -> {
             // create table with all column types
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LineHttpProcessorTest {
+    private static final String NO_CONTENT_RESPONSE = "HTTP/1.1 204 No Content\r\n" +
+            "Server: questDB/1.0\r\n" +
+            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+            "Content-Type: text/html; charset=utf-8\r\n" +
+            "\r\n";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            request("/write",
+                                    "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                                            "weather,location=us-eastcoast temperature=81,humidity=0.5 1465839830100500200\n" +
+                                            "weather,location=us-midwest temperature=83 1465839830100600200"
+                            ),
+                            NO_CONTENT_RESPONSE
+                    );
+                    assertTable(
+                            engine,
+                            "location\ttemperature\ttimestamp\thumidity\n" +
+                                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\tNaN\n" +
+                                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.100500Z\t0.5\n" +
+                                    "us-midwest\t83.0\t2016-06-13T17:43:50.100600Z\tNaN\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testWriteErrorsLargerThanSendBuffer() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withSendBufferSize(256))
+                .withTelemetry(false)
+                .run(engine -> {
+                    final StringBuilder body = new StringBuilder();
+                    body.append("weather,location=us-midwest temperature=82 1465839830100400200\n");
+                    for (int i = 0; i < 10; i++) {
+                        body.append("weather,location=us-midwest temperature=\"hot\" 1465839830100400200\n");
+                    }
+                    new SendAndReceiveRequestBuilder().execute(
+                            request("/write", body.toString()),
+                            "HTTP/1.1 400 Bad request\r\n" +
+                                    "Server: questDB/1.0\r\n" +
+                                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                    "Transfer-Encoding: chunked\r\n" +
+                                    "Content-Type: application/json; charset=utf-8\r\n" +
+                                    "\r\n" +
+                                    "c7\r\n" +
+                                    "{\"status\":\"partial\",\"rowsCommitted\":1,\"rowsRejected\":10,\"errors\":[" +
+                                    "{\"line\":2,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":3,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"}\r\n" +
+                                    "c9\r\n" +
+                                    ",{\"line\":4,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":5,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":6,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"}\r\n" +
+                                    "c9\r\n" +
+                                    ",{\"line\":7,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":8,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":9,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"}\r\n" +
+                                    "8a\r\n" +
+                                    ",{\"line\":10,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"},{\"line\":11,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"}]}\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    assertTable(
+                            engine,
+                            "location\ttemperature\ttimestamp\n" +
+                                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testWriteInvalidPrecision() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> new SendAndReceiveRequestBuilder().execute(
+                        request("/write?precision=x", "weather,location=us-midwest temperature=82 1465839830\n"),
+                        "HTTP/1.1 400 Bad request\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "\r\n" +
+                                "1e\r\n" +
+                                "{\"status\":\"invalid precision\"}\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                ));
+    }
+
+    @Test
+    public void testWriteLineErrors() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            request("/write",
+                                    "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                                            "weather,location=us-eastcoast temperature=\n" +
+                                            "\n" +
+                                            "weather,location=us-eastcoast temperature=\"hot\" 1465839830100500200\n" +
+                                            "weather,location=us-midwest temperature=83 1465839830100600200\n"
+                            ),
+                            "HTTP/1.1 400 Bad request\r\n" +
+                                    "Server: questDB/1.0\r\n" +
+                                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                    "Transfer-Encoding: chunked\r\n" +
+                                    "Content-Type: application/json; charset=utf-8\r\n" +
+                                    "\r\n" +
+                                    "ae\r\n" +
+                                    "{\"status\":\"partial\",\"rowsCommitted\":2,\"rowsRejected\":2,\"errors\":[" +
+                                    "{\"line\":2,\"error\":\"INVALID_FIELD_VALUE\"}," +
+                                    "{\"line\":3,\"error\":\"cast error [columnIndex=1, columnType=DOUBLE]\"}]}\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    assertTable(
+                            engine,
+                            "location\ttemperature\ttimestamp\n" +
+                                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                                    "us-midwest\t83.0\t2016-06-13T17:43:50.100600Z\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testWriteMeasurementTooLarge() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withReceiveBufferSize(64)
+                        .withIlpMaxMeasurementSize(80))
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            request("/write",
+                                    "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                                            "weather,location=us-eastcoast,description=way-too-long-to-fit-measurement-buffer temperature=81 1465839830100500200\n" +
+                                            "weather,location=us-midwest temperature=83 1465839830100600200\n"
+                            ),
+                            "HTTP/1.1 400 Bad request\r\n" +
+                                    "Server: questDB/1.0\r\n" +
+                                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                    "Transfer-Encoding: chunked\r\n" +
+                                    "Content-Type: application/json; charset=utf-8\r\n" +
+                                    "\r\n" +
+                                    "70\r\n" +
+                                    "{\"status\":\"partial\",\"rowsCommitted\":2,\"rowsRejected\":1,\"errors\":[" +
+                                    "{\"line\":2,\"error\":\"measurement is too large\"}]}\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    assertTable(
+                            engine,
+                            "location\ttemperature\ttimestamp\n" +
+                                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                                    "us-midwest\t83.0\t2016-06-13T17:43:50.100600Z\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testWritePrecisionSmallRecvBuffer() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withReceiveBufferSize(32))
+                .withTelemetry(false)
+                .run(engine -> {
+                    final StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < 10; i++) {
+                        body.append("cpu,host=server").append(i % 3).append(" usage=").append(i).append("i,idle=t ").append(1465839830 + i).append('\n');
+                    }
+                    new SendAndReceiveRequestBuilder().execute(request("/write?precision=s", body.toString()), NO_CONTENT_RESPONSE);
+                    assertTable(
+                            engine,
+                            "cpu",
+                            "host\tusage\tidle\ttimestamp\n" +
+                                    "server0\t0\ttrue\t2016-06-13T17:43:50.000000Z\n" +
+                                    "server1\t1\ttrue\t2016-06-13T17:43:51.000000Z\n" +
+                                    "server2\t2\ttrue\t2016-06-13T17:43:52.000000Z\n" +
+                                    "server0\t3\ttrue\t2016-06-13T17:43:53.000000Z\n" +
+                                    "server1\t4\ttrue\t2016-06-13T17:43:54.000000Z\n" +
+                                    "server2\t5\ttrue\t2016-06-13T17:43:55.000000Z\n" +
+                                    "server0\t6\ttrue\t2016-06-13T17:43:56.000000Z\n" +
+                                    "server1\t7\ttrue\t2016-06-13T17:43:57.000000Z\n" +
+                                    "server2\t8\ttrue\t2016-06-13T17:43:58.000000Z\n" +
+                                    "server0\t9\ttrue\t2016-06-13T17:43:59.000000Z\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testWriteWaitsWhenWriterLocked() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            request("/write", "weather,location=us-midwest temperature=82 1465839830100400200\n"),
+                            NO_CONTENT_RESPONSE
+                    );
+
+                    // writer is busy, e.g. held by line protocol TCP receiver
+                    final TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "weather", "testing");
+                    final CountDownLatch done = new CountDownLatch(1);
+                    final AtomicReference<Throwable> error = new AtomicReference<>();
+                    new Thread(() -> {
+                        try {
+                            new SendAndReceiveRequestBuilder().execute(
+                                    request("/write", "weather,location=us-midwest temperature=83 1465839830100600200\n"),
+                                    NO_CONTENT_RESPONSE
+                            );
+                        } catch (Throwable e) {
+                            error.set(e);
+                        } finally {
+                            done.countDown();
+                        }
+                    }).start();
+
+                    // request is parked until writer is released
+                    Assert.assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+                    writer.close();
+                    done.await();
+                    Assert.assertNull(error.get());
+
+                    assertTable(
+                            engine,
+                            "location\ttemperature\ttimestamp\n" +
+                                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                                    "us-midwest\t83.0\t2016-06-13T17:43:50.100600Z\n"
+                    );
+                });
+    }
+
+    private static void assertTable(CairoEngine engine, CharSequence expected) throws SqlException {
+        assertTable(engine, "weather", expected);
+    }
+
+    private static void assertTable(CairoEngine engine, CharSequence tableName, CharSequence expected) throws SqlException {
+        try (SqlCompiler compiler = new SqlCompiler(engine)) {
+            TestUtils.assertSql(
+                    compiler,
+                    new SqlExecutionContextImpl(engine, 1).with(AllowAllCairoSecurityContext.INSTANCE, null, null),
+                    tableName,
+                    new StringSink(),
+                    expected
+            );
+        }
+    }
+
+    private static String request(String url, String body) {
+        return "POST " + url + " HTTP/1.1\r\n" +
+                "Host: localhost:9001\r\n" +
+                "User-Agent: curl/7.64.0\r\n" +
+                "Content-Length: " + body.length() + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "\r\n" +
+                body;
+    }
+}
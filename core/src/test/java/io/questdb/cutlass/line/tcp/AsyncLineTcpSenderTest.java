@@ -0,0 +1,314 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.datetime.millitime.MillisecondClockImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncLineTcpSenderTest {
+    private static final int ADDRESS = 0x7f000001;
+    private static final int PORT = 9009;
+
+    @Test
+    public void testAuthentication() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final PrivateKey privateKey = AuthDb.importPrivateKey("5UjEMuA0Pj5pjK8a-fa24dyIf-Es5mYny3oE_Wmus48");
+            final PublicKey publicKey = AuthDb.importPublicKey(
+                    "fLKYEaoEb9lrn3nkwLDA-M_xnuFOdSt9y0Z7_vWSHLU",
+                    "Dt5tbS1dEDMSYfym3fgMv0B99szno-dFc1rYF9t0aac"
+            );
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            nf.challenge = "0123456789abcdef\n";
+            try (AsyncLineTcpSender sender = createSender(nf, 1024, Integer.MAX_VALUE, "testUser1", privateKey)) {
+                sender.metric("weather").field("temp", 82L).atNanos(1000);
+            }
+
+            final String sent = nf.getSent();
+            Assert.assertTrue(sent.startsWith("testUser1\n"));
+            final int signatureEnd = sent.indexOf('\n', "testUser1\n".length());
+            final byte[] signature = Base64.getDecoder().decode(sent.substring("testUser1\n".length(), signatureEnd));
+            final Signature sig = Signature.getInstance(AuthDb.SIGNATURE_TYPE_DER);
+            sig.initVerify(publicKey);
+            sig.update("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+            Assert.assertTrue(sig.verify(signature));
+            Assert.assertEquals("weather temp=82i 1000\n", sent.substring(signatureEnd + 1));
+        });
+    }
+
+    @Test
+    public void testAutoFlushInterval() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            final AtomicLong ticks = new AtomicLong();
+            final MillisecondClock clock = ticks::get;
+            try (AsyncLineTcpSender sender = new AsyncLineTcpSender(nf, ADDRESS, PORT, 1024, Integer.MAX_VALUE, 100, clock, 0, 0, null, null)) {
+                sender.metric("weather").tag("location", "london").field("temp", 82.5).atMicros(1);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                Assert.assertEquals("", nf.getSent());
+
+                ticks.set(100);
+                sender.metric("weather").tag("location", "paris").field("temp", 83.5).atMicros(2);
+                final String expected = "weather,location=london temp=82.5 1000\n" +
+                        "weather,location=paris temp=83.5 2000\n";
+                awaitSent(nf, expected);
+            }
+        });
+    }
+
+    @Test
+    public void testAutoFlushIntervalIdleProducer() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            final AtomicLong ticks = new AtomicLong();
+            final MillisecondClock clock = ticks::get;
+            try (AsyncLineTcpSender sender = new AsyncLineTcpSender(nf, ADDRESS, PORT, 1024, Integer.MAX_VALUE, 100, clock, 0, 0, null, null)) {
+                sender.metric("weather").tag("location", "london").field("temp", 82.5).atMicros(1);
+                // incomplete line must stay behind
+                sender.metric("weather").tag("location", "paris");
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                Assert.assertEquals("", nf.getSent());
+
+                // producer is quiet, background thread sends completed line once interval passes
+                ticks.set(100);
+                awaitSent(nf, "weather,location=london temp=82.5 1000\n");
+
+                sender.field("temp", 83.5).atMicros(2);
+                sender.flush();
+                Assert.assertEquals(
+                        "weather,location=london temp=82.5 1000\n" +
+                                "weather,location=paris temp=83.5 2000\n",
+                        nf.getSent()
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testAutoFlushSize() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            try (AsyncLineTcpSender sender = createSender(nf, 1024, 1, null, null)) {
+                sender.metric("weather").tag("location", "london").field("ok", true).$();
+                awaitSent(nf, "weather,location=london ok=t\n");
+                sender.metric("weather").tag("location", "paris").field("ok", false).$();
+                awaitSent(nf, "weather,location=london ok=t\nweather,location=paris ok=f\n");
+            }
+        });
+    }
+
+    @Test
+    public void testLinesAreSentInOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            final StringBuilder expected = new StringBuilder();
+            // small buffer makes lines span buffer swaps
+            try (AsyncLineTcpSender sender = createSender(nf, 64, Integer.MAX_VALUE, null, null)) {
+                for (int i = 0; i < 1000; i++) {
+                    sender.metric("t").tag("s", i % 2 == 0 ? "a b" : "c").field("v", (long) i).field("str", "x" + i).atNanos(i);
+                    expected.append("t,s=").append(i % 2 == 0 ? "a\\ b" : "c").append(" v=").append(i).append("i,str=\"x").append(i).append("\" ").append(i).append('\n');
+                }
+            }
+            Assert.assertEquals(expected.toString(), nf.getSent());
+        });
+    }
+
+    @Test
+    public void testLineTooLong() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            try (AsyncLineTcpSender sender = createSender(nf, 32, Integer.MAX_VALUE, null, null)) {
+                sender.metric("weather").field("ok", true).$();
+                try {
+                    sender.metric("weather").field("str", "this value does not fit in the buffer").$();
+                    Assert.fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "too long");
+                }
+            }
+            Assert.assertEquals("weather ok=t\n", nf.getSent());
+        });
+    }
+
+    @Test
+    public void testMetricExpected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            try (AsyncLineTcpSender sender = createSender(nf, 1024, Integer.MAX_VALUE, null, null)) {
+                try {
+                    sender.tag("location", "london");
+                    Assert.fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "metric expected");
+                }
+            }
+            Assert.assertEquals("", nf.getSent());
+        });
+    }
+
+    @Test
+    public void testReconnectAttemptsExhausted() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            try (AsyncLineTcpSender sender = createSender(nf, 1024, Integer.MAX_VALUE, null, null)) {
+                nf.failSends = 1;
+                nf.failConnects = 5;
+                sender.metric("weather").field("temp", 82L).$();
+                try {
+                    sender.flush();
+                    Assert.fail();
+                } catch (NetworkError e) {
+                    TestUtils.assertContains(e.getMessage(), "connection lost");
+                }
+                Assert.assertEquals(6, nf.connectCount);
+            }
+            Assert.assertEquals("", nf.getSent());
+        });
+    }
+
+    @Test
+    public void testReconnectReplaysBatch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final FakeNetworkFacade nf = new FakeNetworkFacade();
+            try (AsyncLineTcpSender sender = createSender(nf, 1024, Integer.MAX_VALUE, null, null)) {
+                sender.metric("weather").field("temp", 82L).$();
+                sender.flush();
+                nf.failSends = 1;
+                nf.failConnects = 1;
+                sender.metric("weather").field("temp", 83L).$();
+                sender.metric("weather").field("temp", 84L).$();
+                sender.flush();
+                Assert.assertEquals(3, nf.connectCount);
+            }
+            Assert.assertEquals(
+                    "weather temp=82i\n" +
+                            "weather temp=83i\n" +
+                            "weather temp=84i\n",
+                    nf.getSent()
+            );
+        });
+    }
+
+    private static void awaitSent(FakeNetworkFacade nf, String expected) {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!expected.equals(nf.getSent()) && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assert.assertEquals(expected, nf.getSent());
+    }
+
+    private static AsyncLineTcpSender createSender(FakeNetworkFacade nf, int capacity, int autoFlushSize, String authKeyId, PrivateKey authKey) {
+        return new AsyncLineTcpSender(
+                nf,
+                ADDRESS,
+                PORT,
+                capacity,
+                autoFlushSize,
+                Long.MAX_VALUE,
+                MillisecondClockImpl.INSTANCE,
+                5,
+                1,
+                authKeyId,
+                authKey
+        );
+    }
+
+    private static class FakeNetworkFacade extends NetworkFacadeImpl {
+        private final StringBuilder sent = new StringBuilder();
+        private volatile int failSends;
+        private volatile int failConnects;
+        private volatile int connectCount;
+        private String challenge;
+
+        @Override
+        public long socketTcp(boolean blocking) {
+            return 1;
+        }
+
+        @Override
+        public long connect(long fd, long sockaddr) {
+            connectCount++;
+            if (failConnects > 0) {
+                failConnects--;
+                return -1;
+            }
+            return 0;
+        }
+
+        @Override
+        public int close(long fd) {
+            return 0;
+        }
+
+        @Override
+        public int errno() {
+            return 0;
+        }
+
+        @Override
+        public int recv(long fd, long buffer, int bufferLen) {
+            int n = 0;
+            while (n < bufferLen && challenge.length() > 0) {
+                Unsafe.getUnsafe().putByte(buffer + n++, (byte) challenge.charAt(0));
+                challenge = challenge.substring(1);
+            }
+            return n;
+        }
+
+        @Override
+        public int send(long fd, long buffer, int bufferLen) {
+            if (failSends > 0) {
+                failSends--;
+                return -1;
+            }
+            synchronized (sent) {
+                for (int i = 0; i < bufferLen; i++) {
+                    sent.append((char) Unsafe.getUnsafe().getByte(buffer + i));
+                }
+            }
+            return bufferLen;
+        }
+
+        String getSent() {
+            synchronized (sent) {
+                return sent.toString();
+            }
+        }
+    }
+}
@@ -24,6 +24,9 @@
 
 package io.questdb.cutlass.line.tcp;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Random;
@@ -76,6 +79,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private LineTcpMeasurementScheduler scheduler;
     private boolean disconnected;
     private String recvBuffer;
+    private Charset recvBufferCharset;
     private int nWriterThreads;
     private WorkerPool workerPool;
     private int[] rebalanceLoadByThread;
@@ -93,17 +97,18 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
                     return -1;
                 }
 
-                byte[] bytes = recvBuffer.getBytes(StandardCharsets.UTF_8);
+                byte[] bytes = recvBuffer.getBytes(recvBufferCharset);
                 int n = 0;
                 while (n < bufferLen && n < bytes.length) {
                     Unsafe.getUnsafe().putByte(buffer++, bytes[n++]);
                 }
-                recvBuffer = new String(bytes, n, bytes.length - n);
+                recvBuffer = new String(bytes, n, bytes.length - n, recvBufferCharset);
                 return n;
             }
         };
         nWriterThreads = 2;
         microSecondTicks = -1;
+        recvBufferCharset = StandardCharsets.UTF_8;
         lineTcpConfiguration = new DefaultLineTcpReceiverConfiguration() {
             @Override
             public int getNetMsgBufferSize() {
@@ -474,6 +479,79 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBinary() throws Exception {
+        runInContext(() -> {
+            recvBufferCharset = StandardCharsets.ISO_8859_1;
+            recvBuffer = binaryWeather();
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            closeContext();
+            assertTable(BINARY_WEATHER_EXPECTED, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryBadFrames() throws Exception {
+        runInContext(() -> {
+            recvBufferCharset = StandardCharsets.ISO_8859_1;
+            recvBuffer = new BinaryFrames()
+                    .magic()
+                    .table(0, "weather", "location", "temperature")
+                    .row(0, 1465839830100400L).tag(0, "us-midwest").floatField(1, 82).end()
+                    // unknown table
+                    .row(1, 1465839830100500L).tag(0, "us-midwest").floatField(1, 83).end()
+                    // unknown column
+                    .row(0, 1465839830101400L).tag(0, "us-eastcoast").floatField(2, 81).end()
+                    // unknown entity type
+                    .row(0, 1465839830102300L).tag(0, "us-midwest").entity(1, (byte) 100).end()
+                    // unknown frame type
+                    .frame((byte) 100).end()
+                    .row(0, 1465839830102500L).tag(0, "us-westcost").floatField(1, 82).end()
+                    .toString();
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\ttimestamp\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-westcost\t82.0\t2016-06-13T17:43:50.102500Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryFragmentation1() throws Exception {
+        testBinaryFragmentation(3);
+    }
+
+    @Test
+    public void testBinaryFragmentation2() throws Exception {
+        testBinaryFragmentation(40);
+    }
+
+    @Test
+    public void testBinaryFragmentation3() throws Exception {
+        testBinaryFragmentation(93);
+    }
+
+    @Test
+    public void testBinaryInvalidFrameLength() throws Exception {
+        runInContext(() -> {
+            recvBufferCharset = StandardCharsets.ISO_8859_1;
+            recvBuffer = new BinaryFrames()
+                    .magic()
+                    .table(0, "weather", "location", "temperature")
+                    .invalidFrameLength()
+                    .toString();
+            handleContextIO();
+            Assert.assertTrue(disconnected);
+        });
+    }
+
     @Test
     public void testCairoExceptionOnAddColumn() throws Exception {
         runInContext(
@@ -1346,6 +1424,40 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         workerPool.start(LOG);
     }
 
+    private static final String BINARY_WEATHER_EXPECTED = "location\ttemperature\thumidity\tok\ttimestamp\tnote\n" +
+            "us-midwest\t82.0\t23\ttrue\t2016-06-13T17:43:50.100400Z\t\n" +
+            "us-midwest\t83.0\tNaN\tfalse\t2016-06-13T17:43:50.100500Z\t\n" +
+            "us-eastcoast\t81.0\t25\ttrue\t2016-06-13T17:43:50.101400Z\tsunny\n" +
+            "us-westcost\t82.0\tNaN\tfalse\t2016-06-13T17:43:50.102500Z\t\n";
+
+    private static String binaryWeather() {
+        return new BinaryFrames()
+                .magic()
+                .table(0, "weather", "location", "temperature", "humidity", "ok", "note")
+                .row(0, 1465839830100400L).tag(0, "us-midwest").floatField(1, 82).longField(2, 23).boolField(3, true).end()
+                .row(0, 1465839830100500L).tag(0, "us-midwest").floatField(1, 83).boolField(3, false).end()
+                // columns do not have to be in the same order as in the table
+                .row(0, 1465839830101400L).strField(4, "sunny").longField(2, 25).tag(0, "us-eastcoast").boolField(3, true).floatField(1, 81).end()
+                .row(0, 1465839830102500L).tag(0, "us-westcost").floatField(1, 82).end()
+                .toString();
+    }
+
+    private void testBinaryFragmentation(int breakPos) throws Exception {
+        runInContext(() -> {
+            recvBufferCharset = StandardCharsets.ISO_8859_1;
+            final String allFrames = binaryWeather();
+            recvBuffer = allFrames.substring(0, breakPos);
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            recvBuffer = allFrames.substring(breakPos);
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            assertTable(BINARY_WEATHER_EXPECTED, "weather");
+        });
+    }
+
     private void testFragmentation(int breakPos) throws Exception {
         runInContext(() -> {
             String allMsgs = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
@@ -1514,4 +1626,116 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         public void close() {
         }
     };
+
+    /**
+     * Builds binary line protocol stream, bytes are returned as ISO-8859-1 string.
+     */
+    private static class BinaryFrames {
+        private final ByteBuffer buf = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        private int frameStart;
+        private int entityCountPos;
+        private short entityCount;
+
+        BinaryFrames boolField(int columnId, boolean value) {
+            entity(columnId, NewLineProtoParser.ENTITY_TYPE_BOOLEAN);
+            buf.put((byte) (value ? 1 : 0));
+            return this;
+        }
+
+        BinaryFrames end() {
+            if (entityCountPos > 0) {
+                buf.putShort(entityCountPos, entityCount);
+                entityCountPos = 0;
+            }
+            buf.putInt(frameStart, buf.position() - frameStart);
+            return this;
+        }
+
+        BinaryFrames entity(int columnId, byte type) {
+            buf.putShort((short) columnId);
+            buf.put(type);
+            entityCount++;
+            return this;
+        }
+
+        BinaryFrames floatField(int columnId, double value) {
+            entity(columnId, NewLineProtoParser.ENTITY_TYPE_FLOAT);
+            buf.putDouble(value);
+            return this;
+        }
+
+        BinaryFrames frame(byte type) {
+            frameStart = buf.position();
+            buf.putInt(0);
+            buf.put(type);
+            return this;
+        }
+
+        BinaryFrames invalidFrameLength() {
+            buf.putInt(NewLineProtoParser.BINARY_FRAME_HEADER_SIZE - 1);
+            buf.put(NewLineProtoParser.BINARY_FRAME_ROW);
+            return this;
+        }
+
+        BinaryFrames longField(int columnId, long value) {
+            entity(columnId, NewLineProtoParser.ENTITY_TYPE_INTEGER);
+            buf.putLong(value);
+            return this;
+        }
+
+        BinaryFrames magic() {
+            buf.putInt(NewLineProtoParser.BINARY_MAGIC);
+            return this;
+        }
+
+        BinaryFrames row(int tableId, long timestamp) {
+            frame(NewLineProtoParser.BINARY_FRAME_ROW);
+            buf.putShort((short) tableId);
+            buf.putLong(timestamp);
+            entityCountPos = buf.position();
+            entityCount = 0;
+            buf.putShort((short) 0);
+            return this;
+        }
+
+        BinaryFrames strField(int columnId, String value) {
+            entity(columnId, NewLineProtoParser.ENTITY_TYPE_STRING);
+            putValue(value);
+            return this;
+        }
+
+        BinaryFrames table(int tableId, String tableName, String... columnNames) {
+            frame(NewLineProtoParser.BINARY_FRAME_TABLE);
+            buf.putShort((short) tableId);
+            putName(tableName);
+            buf.putShort((short) columnNames.length);
+            for (String columnName : columnNames) {
+                putName(columnName);
+            }
+            return end();
+        }
+
+        BinaryFrames tag(int columnId, String value) {
+            entity(columnId, NewLineProtoParser.ENTITY_TYPE_TAG);
+            putValue(value);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf.array(), 0, buf.position(), StandardCharsets.ISO_8859_1);
+        }
+
+        private void putName(String name) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            buf.putShort((short) bytes.length);
+            buf.put(bytes);
+        }
+
+        private void putValue(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buf.putInt(bytes.length);
+            buf.put(bytes);
+        }
+    }
 }
@@ -31,11 +31,17 @@ import io.questdb.cutlass.json.JsonLexer;
 import io.questdb.griffin.AbstractGriffinTest;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.Os;
+import io.questdb.std.Rnd;
 import io.questdb.std.Unsafe;
 import io.questdb.std.datetime.DateLocale;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.datetime.millitime.DateFormatUtils;
 import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestUtils;
@@ -51,6 +57,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TextLoaderTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(TextLoaderTest.class);
 
     private static final ByteManipulator ENTITY_MANIPULATOR = (index, len, b) -> b;
 
@@ -1907,6 +1914,95 @@ public class TextLoaderTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testParallelImport() throws Exception {
+        // timestamps are a permutation of minutes over a few days, every tenth string is quoted and
+        // spans lines, includes delimiter and escaped quotes; some values do not parse
+        final StringBuilder csv = new StringBuilder("ts,sym,str,val\n");
+        final Rnd rnd = new Rnd();
+        final int rowCount = 5000;
+        for (int i = 0; i < rowCount; i++) {
+            csv.append((i * 7919L) % rowCount * Timestamps.MINUTE_MICROS).append(',');
+            csv.append("s").append(rnd.nextInt(16)).append(',');
+            if (i % 10 == 0) {
+                csv.append("\"a,").append(i).append("\n\"\"b\"\"\",");
+            } else {
+                csv.append("c").append(rnd.nextLong()).append(',');
+            }
+            if (i % 1000 == 999) {
+                csv.append("abc\n");
+            } else {
+                csv.append(rnd.nextDouble()).append('\n');
+            }
+        }
+        final byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        final WorkerPool pool = new WorkerPool(new WorkerPoolConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                return new int[]{-1, -1, -1};
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return 3;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+        });
+        pool.assign(new TextImportJob(engine.getMessageBus()));
+        pool.assignCleaner(Path.CLEANER);
+        pool.start(LOG);
+
+        final CairoConfiguration sequentialConfiguration = new DefaultCairoConfiguration(root) {
+            @Override
+            public TextConfiguration getTextConfiguration() {
+                return new DefaultTextConfiguration() {
+                    @Override
+                    public int getParallelImportChunkCount() {
+                        return 1;
+                    }
+                };
+            }
+        };
+
+        try {
+            assertNoLeak(textLoader -> {
+                compiler.compile("create table test (ts timestamp, sym symbol, str string, val double) timestamp(ts) partition by DAY", sqlExecutionContext);
+                compiler.compile("create table expected (ts timestamp, sym symbol, str string, val double) timestamp(ts) partition by DAY", sqlExecutionContext);
+                engine.releaseAllWriters();
+
+                try (
+                        CairoEngine sequentialEngine = new CairoEngine(sequentialConfiguration);
+                        TextLoader sequentialLoader = new TextLoader(sequentialEngine)
+                ) {
+                    sequentialLoader.setState(TextLoader.ANALYZE_STRUCTURE);
+                    sequentialLoader.configureDestination("expected", false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+                    sequentialLoader.configureColumnDelimiter((byte) ',');
+                    importBytes(sequentialLoader, bytes, 4096);
+
+                    configureLoaderDefaults(textLoader, (byte) ',', Atomicity.SKIP_ROW);
+                    importBytes(textLoader, bytes, 4096);
+
+                    Assert.assertEquals(rowCount, textLoader.getParsedLineCount());
+                    Assert.assertEquals(rowCount - 5, textLoader.getWrittenLineCount());
+                    Assert.assertEquals(sequentialLoader.getParsedLineCount(), textLoader.getParsedLineCount());
+                    Assert.assertEquals(sequentialLoader.getErrorLineCount(), textLoader.getErrorLineCount());
+                    Assert.assertEquals(sequentialLoader.getWrittenLineCount(), textLoader.getWrittenLineCount());
+                    Assert.assertEquals(sequentialLoader.getColumnErrorCounts(), textLoader.getColumnErrorCounts());
+                    sequentialLoader.clear();
+                    textLoader.clear();
+                }
+                TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "expected", "test", LOG);
+            });
+        } finally {
+            pool.halt();
+        }
+    }
+
     @Test
     public void testReduceLinesForStats() throws Exception {
         final TextConfiguration textConfiguration = new DefaultTextConfiguration() {
@@ -3190,6 +3286,24 @@ public class TextLoaderTest extends AbstractGriffinTest {
         }
     }
 
+    private void importBytes(TextLoader textLoader, byte[] bytes, int bufSize) throws TextException {
+        final int len = bytes.length;
+        final long buf = Unsafe.malloc(len);
+        try {
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(buf + i, bytes[i]);
+            }
+            textLoader.parse(buf, buf + bufSize, AllowAllCairoSecurityContext.INSTANCE);
+            textLoader.setState(TextLoader.LOAD_DATA);
+            for (int lo = bufSize; lo < len; lo += bufSize) {
+                textLoader.parse(buf + lo, buf + Math.min(lo + bufSize, len), AllowAllCairoSecurityContext.INSTANCE);
+            }
+            textLoader.wrapUp();
+        } finally {
+            Unsafe.free(buf, len);
+        }
+    }
+
     private void playJson(TextLoader textLoader, String jsonStr) throws TextException {
         byte[] json = jsonStr.getBytes(StandardCharsets.UTF_8);
         textLoader.setState(TextLoader.LOAD_JSON_METADATA);
@@ -53,6 +53,18 @@ public class TextUtilTest {
         Assert.assertEquals(text, query.toString());
     }
 
+    @Test
+    public void testFindLineEnd() {
+        // line ends inside quoted fields do not count, quote in the middle of a field does not open quoted field
+        assertLineEnd("a,\"b\nc\",d\ne,f\n", 0, 10);
+        assertLineEnd("a,\"b\"\"\nc\",d\ne,f\n", 0, 12);
+        assertLineEnd("a,b\"c\nd,\"e\nf\"\n", 0, 6);
+        assertLineEnd("a,b\"c\nd,\"e\nf\"\n", 7, 14);
+        // last complete line is returned when there is no line end past minHi
+        assertLineEnd("a,b\nc,d\ne,\"f\n", 7, 8);
+        assertLineEnd("a,\"b\nc,d", 0, -1);
+    }
+
     @Test
     public void testDoubleQuotedTextParsing() throws Utf8Exception {
         StringSink query = new StringSink();
@@ -63,6 +75,20 @@ public class TextUtilTest {
         Assert.assertEquals(text.replace("\"\"", "\""), query.toString());
     }
 
+    private static void assertLineEnd(String text, int minHi, int expected) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        long ptr = Unsafe.malloc(bytes.length);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(ptr + i, bytes[i]);
+            }
+            final long lineEnd = TextUtil.findLineEnd(ptr, ptr + bytes.length, ptr + minHi, (byte) ',');
+            Assert.assertEquals(expected, lineEnd == -1 ? -1 : lineEnd - ptr);
+        } finally {
+            Unsafe.free(ptr, bytes.length);
+        }
+    }
+
     private void copyToSinkWithTextUtil(StringSink query, String text, boolean doubleQuoteParse) throws Utf8Exception {
         byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
         long ptr = Unsafe.malloc(bytes.length);
@@ -29,6 +29,8 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
 import io.questdb.std.Rnd;
@@ -39,6 +41,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 public class JoinTest extends AbstractGriffinTest {
+    private final static Log LOG = LogFactory.getLog(JoinTest.class);
+
     @Before
     public void setUp3() {
         SharedRandom.RANDOM.set(new Rnd());
@@ -132,11 +136,51 @@ public class JoinTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testAsOfJoinIndexed() throws Exception {
+        testAsOfJoinIndexed("select * from x asof join y on (s)", "select * from x asof join z on (s)");
+    }
+
+    @Test
+    public void testAsOfJoinIndexedOnStr() throws Exception {
+        testAsOfJoinIndexed("select * from x asof join y on y.s = x.c", "select * from x asof join z on z.s = x.c");
+    }
+
     @Test
     public void testAsOfFullFat() throws Exception {
         testFullFat(this::testAsOfJoin);
     }
 
+    private void testAsOfJoinIndexed(String indexedQuery, String referenceQuery) throws Exception {
+        assertMemoryLeak(() -> {
+            // master starts before slave and has keys slave does not have
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_symbol('a','b','c','d','e',null) s," +
+                            " rnd_str('a','b','c','d','e',null) c," +
+                            " timestamp_sequence(0, 3600000000) ts" +
+                            " from long_sequence(100)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_symbol('a','b','c','d',null) s," +
+                            " rnd_double() price," +
+                            " timestamp_sequence(7200000000, 10000000) ts" +
+                            " from long_sequence(40000)" +
+                            "), index(s) timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            // same data without index takes lockstep path
+            compiler.compile("create table z as (select * from y) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, referenceQuery, indexedQuery, LOG);
+        });
+    }
+
     @Test
     public void testJoinAliasBug() throws Exception {
         assertMemoryLeak(() -> {
@@ -2180,6 +2224,54 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testJoinInnerAllTypes);
     }
 
+    @Test
+    public void testJoinInnerBuildSide() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_symbol('a','b','c') s," +
+                            " x i," +
+                            " timestamp_sequence(0, 1000000) k" +
+                            " from long_sequence(10)" +
+                            ") timestamp(k)",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_symbol('a','b','c','d') s," +
+                            " x j," +
+                            " timestamp_sequence(0, 1000000000) ts" +
+                            " from long_sequence(1000)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+
+            // large slave is probed by small master, result loses master timestamp order
+            assertJoinTimestampIndex("select * from x join y on (s)", -1);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select x.i, y.j from y join x on (s)",
+                    "select x.i, y.j from x join y on (s)",
+                    LOG
+            );
+
+            // filter on timestamp keeps only first partition of the slave
+            assertJoinTimestampIndex("select * from x join y on (s) where y.ts < '1970-01-01T12'", 2);
+            // filter on timestamp keeps most of the slave
+            assertJoinTimestampIndex("select * from x join y on (s) where y.ts > '1970-01-01T12'", -1);
+            // small slave
+            assertJoinTimestampIndex("select * from y join x on (s)", 2);
+        });
+    }
+
+    @Test
+    public void testJoinInnerBuildSideFF() throws Exception {
+        testFullFat(this::testJoinInnerBuildSide);
+    }
+
     @Test
     public void testJoinInnerDifferentColumnNames() throws Exception {
         assertMemoryLeak(() -> {
@@ -2588,6 +2680,68 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testJoinInnerOnSymbol);
     }
 
+    @Test
+    public void testJoinInnerOnSymbolKeyFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            // master has symbols slave does not have, symbol keys of the same values differ between tables
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_symbol('a','b','c','d','e','f','g',null) s," +
+                            " x i" +
+                            " from long_sequence(2000)" +
+                            ")",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_symbol('g','c','a',null) s," +
+                            " x j" +
+                            " from long_sequence(20)" +
+                            ")",
+                    sqlExecutionContext
+            );
+
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select x.i, x.s, y.j from (select i, cast(s as string) s from x) x join (select j, cast(s as string) s from y) y on (s)",
+                    "select x.i, cast(x.s as string) s, y.j from x join y on (s)",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testJoinInnerOnSymbolKeyFilterFF() throws Exception {
+        testFullFat(this::testJoinInnerOnSymbolKeyFilter);
+    }
+
+    @Test
+    public void testJoinInnerOnSymbolKeyFilterUnionAllMaster() throws Exception {
+        assertMemoryLeak(() -> {
+            // union all branches resolve symbol key 0 through different symbol tables
+            compiler.compile("create table t1 as (select cast('a' as symbol) s, x i from long_sequence(2))", sqlExecutionContext);
+            compiler.compile("create table t2 as (select cast('b' as symbol) s, x i from long_sequence(2))", sqlExecutionContext);
+            compiler.compile("create table t3 as (select cast('a' as symbol) s from long_sequence(1))", sqlExecutionContext);
+
+            assertQuery(
+                    "s\ti\ts1\n" +
+                            "a\t1\ta\n" +
+                            "a\t2\ta\n",
+                    "select * from (select s, i from t1 union all select s, i from t2) m join t3 on (s)",
+                    null,
+                    false
+            );
+        });
+    }
+
+    @Test
+    public void testJoinInnerOnSymbolKeyFilterUnionAllMasterFF() throws Exception {
+        testFullFat(this::testJoinInnerOnSymbolKeyFilterUnionAllMaster);
+    }
+
     @Test
     public void testJoinInnerPostJoinFilter() throws Exception {
         assertMemoryLeak(() -> {
@@ -3603,6 +3757,12 @@ public class JoinTest extends AbstractGriffinTest {
         testFullFat(this::testTypeMismatch);
     }
 
+    private void assertJoinTimestampIndex(String query, int expectedTimestampIndex) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedTimestampIndex, factory.getMetadata().getTimestampIndex());
+        }
+    }
+
     private void testFullFat(TestMethod method) throws Exception {
         compiler.setFullSatJoins(true);
         try {
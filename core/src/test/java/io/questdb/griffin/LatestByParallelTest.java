@@ -32,6 +32,7 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.LatestBySymbolScanJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.WorkerPool;
@@ -118,6 +119,41 @@ public class LatestByParallelTest {
         executeVanilla(LatestByParallelTest::testLatestByFiltered);
     }
 
+    @Test
+    public void testLatestByAllNonIndexedParallel1() throws Exception {
+        executeWithPool(4, 8, LatestByParallelTest::testLatestByAllNonIndexed);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedParallel2() throws Exception {
+        executeWithPool(8, 4, LatestByParallelTest::testLatestByAllNonIndexed);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedParallel3() throws Exception {
+        executeWithPool(4, 0, LatestByParallelTest::testLatestByAllNonIndexed);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedVanilla() throws Exception {
+        executeVanilla(LatestByParallelTest::testLatestByAllNonIndexed);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedColumnTopParallel1() throws Exception {
+        executeWithPool(4, 8, LatestByParallelTest::testLatestByAllNonIndexedColumnTop);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedColumnTopParallel2() throws Exception {
+        executeWithPool(8, 4, LatestByParallelTest::testLatestByAllNonIndexedColumnTop);
+    }
+
+    @Test
+    public void testLatestByAllNonIndexedColumnTopVanilla() throws Exception {
+        executeVanilla(LatestByParallelTest::testLatestByAllNonIndexedColumnTop);
+    }
+
     @Test
     public void testLatestByTimestampParallel1() throws Exception {
         executeWithPool(4, 8, LatestByParallelTest::testLatestByTimestamp);
@@ -195,6 +231,81 @@ public class LatestByParallelTest {
         assertQuery(compiler, sqlExecutionContext, expected, ddl, query);
     }
 
+    private static void testLatestByAllNonIndexed(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+
+        final String expected = "a\tb\tk\n" +
+                "23.90529010846525\tRXGZ\t1970-01-03T07:33:20.000000Z\n" +
+                "12.026122412833129\tHYRX\t1970-01-11T10:00:00.000000Z\n" +
+                "48.820511018586934\tVTJW\t1970-01-12T13:46:40.000000Z\n" +
+                "49.00510449885239\tPEHN\t1970-01-18T08:40:00.000000Z\n" +
+                "40.455469747939254\t\t1970-01-22T23:46:40.000000Z\n";
+
+        final String ddl = "create table x as " +
+                "(" +
+                "select" +
+                " rnd_double(0)*100 a," +
+                " rnd_symbol(5,4,4,1) b," +
+                " timestamp_sequence(0, 100000000000) k" +
+                " from" +
+                " long_sequence(20)" +
+                ") timestamp(k) partition by DAY";
+
+        final String query = "select * from x latest by b";
+
+        assertQuery(compiler, sqlExecutionContext, expected, ddl, query);
+    }
+
+    private static void testLatestByAllNonIndexedColumnTop(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        compiler.compile(
+                "create table x as " +
+                        "(" +
+                        "select" +
+                        " rnd_double(0)*100 a," +
+                        " rnd_symbol(20,4,4,1) b," +
+                        " timestamp_sequence(0, 100000000) k" +
+                        " from" +
+                        " long_sequence(10000)" +
+                        ") timestamp(k) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("alter table x add column c symbol", sqlExecutionContext);
+        compiler.compile(
+                "insert into x " +
+                        "select" +
+                        " rnd_double(0)*100," +
+                        " rnd_symbol(20,4,4,1)," +
+                        " timestamp_sequence(1000000000000, 100000000)," +
+                        " rnd_symbol(3,4,4,1)" +
+                        " from" +
+                        " long_sequence(2000)",
+                sqlExecutionContext
+        );
+
+        // filtered queries take single-threaded path, which serves as the reference
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select * from x latest by b where a > -1",
+                "select * from x latest by b",
+                LOG
+        );
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select * from x latest by c where a > -1",
+                "select * from x latest by c",
+                LOG
+        );
+    }
+
     private static void testLatestByTimestamp(
             CairoEngine engine,
             SqlCompiler compiler,
@@ -320,6 +431,7 @@ public class LatestByParallelTest {
                     if (pool != null) {
                         pool.assignCleaner(Path.CLEANER);
                         pool.assign(new LatestByAllIndexedJob(engine.getMessageBus()));
+                        pool.assign(new LatestBySymbolScanJob(engine.getMessageBus()));
                         pool.start(LOG);
                     }
 
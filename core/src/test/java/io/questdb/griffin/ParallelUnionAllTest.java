@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.griffin.engine.ExchangeJob;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+public class ParallelUnionAllTest {
+    private final static Log LOG = LogFactory.getLog(ParallelUnionAllTest.class);
+    private static final StringSink sink = new StringSink();
+    private static final StringSink expected = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    @Test
+    public void testJoinOfAggregatesParallel() throws Exception {
+        executeWithPool(4, 32, ParallelUnionAllTest::testJoinOfAggregates);
+    }
+
+    @Test
+    public void testJoinOfAggregatesVanilla() throws Exception {
+        executeWithPool(0, 32, ParallelUnionAllTest::testJoinOfAggregates);
+    }
+
+    @Test
+    public void testUnionAllOfAggregatesParallel() throws Exception {
+        executeWithPool(4, 32, ParallelUnionAllTest::testUnionAllOfAggregates);
+    }
+
+    @Test
+    public void testUnionAllOfAggregatesQueueFull() throws Exception {
+        executeWithPool(4, 2, ParallelUnionAllTest::testUnionAllOfAggregates);
+    }
+
+    @Test
+    public void testUnionAllOfAggregatesVanilla() throws Exception {
+        executeWithPool(0, 32, ParallelUnionAllTest::testUnionAllOfAggregates);
+    }
+
+    @Test
+    public void testUnionAllOverflowParallel() throws Exception {
+        executeWithPool(4, 32, ParallelUnionAllTest::testUnionAllOverflow);
+    }
+
+    @Test
+    public void testUnionAllOverflowVanilla() throws Exception {
+        executeWithPool(0, 32, ParallelUnionAllTest::testUnionAllOverflow);
+    }
+
+    private static void assertUnionAll(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String... branches) throws SqlException {
+        // output of union all is output of its branches in the order they are written
+        expected.clear();
+        final StringBuilder query = new StringBuilder();
+        for (int i = 0, n = branches.length; i < n; i++) {
+            TestUtils.printSql(compiler, sqlExecutionContext, branches[i], sink);
+            if (i == 0) {
+                expected.put(sink);
+            } else {
+                expected.put(sink.subSequence(Chars.indexOf(sink, '\n') + 1, sink.length()));
+                query.append(" union all ");
+            }
+            query.append('(').append(branches[i]).append(')');
+        }
+
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table t as (" +
+                        "select" +
+                        " rnd_symbol('a','b','c','d') sym," +
+                        " rnd_double() price," +
+                        " rnd_str(5,16,2) note," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static void executeWithPool(int workerCount, int queueCapacity, UnionAllRunnable runnable) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getExchangeQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return FilesFacadeImpl.INSTANCE;
+                }
+
+                @Override
+                public int getSqlExchangeMaxPages() {
+                    return 2;
+                }
+
+                @Override
+                public int getSqlExchangePageSize() {
+                    return 4096;
+                }
+            };
+
+            WorkerPool pool = null;
+            if (workerCount > 0) {
+                final int[] affinity = new int[workerCount];
+                for (int i = 0; i < workerCount; i++) {
+                    affinity[i] = -1;
+                }
+
+                pool = new WorkerPool(
+                        new WorkerPoolAwareConfiguration() {
+                            @Override
+                            public int[] getWorkerAffinity() {
+                                return affinity;
+                            }
+
+                            @Override
+                            public int getWorkerCount() {
+                                return workerCount;
+                            }
+
+                            @Override
+                            public boolean haltOnError() {
+                                return false;
+                            }
+
+                            @Override
+                            public boolean isEnabled() {
+                                return true;
+                            }
+                        }
+                );
+            }
+            execute(pool, runnable, configuration);
+        });
+    }
+
+    private static void execute(
+            @Nullable WorkerPool pool,
+            UnionAllRunnable runnable,
+            CairoConfiguration configuration
+    ) throws Exception {
+        final int workerCount = pool == null ? 1 : pool.getWorkerCount();
+        try (
+                final CairoEngine engine = new CairoEngine(configuration);
+                final SqlCompiler compiler = new SqlCompiler(engine);
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+        ) {
+            try {
+                if (pool != null) {
+                    pool.assignCleaner(Path.CLEANER);
+                    pool.assign(new ExchangeJob(engine.getMessageBus()));
+                    pool.start(LOG);
+                }
+
+                runnable.run(compiler, sqlExecutionContext);
+                Assert.assertEquals(0, engine.getBusyWriterCount());
+                Assert.assertEquals(0, engine.getBusyReaderCount());
+            } finally {
+                if (pool != null) {
+                    pool.halt();
+                }
+            }
+        }
+    }
+
+    private static void testJoinOfAggregates(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        createTable(compiler, sqlExecutionContext);
+        compiler.compile("create table a as (select sym, max(price) s from t where ts < '1970-01-04')", sqlExecutionContext);
+        compiler.compile("create table b as (select sym, count() c from t where ts >= '1970-01-04')", sqlExecutionContext);
+
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select a.sym, a.s, b.c from a join b on (sym) order by sym",
+                "select a.sym, a.s, b.c from " +
+                        "(select sym, max(price) s from t where ts < '1970-01-04') a " +
+                        "join (select sym, count() c from t where ts >= '1970-01-04') b on (sym) order by sym",
+                LOG
+        );
+    }
+
+    private static void testUnionAllOfAggregates(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        createTable(compiler, sqlExecutionContext);
+        assertUnionAll(
+                compiler,
+                sqlExecutionContext,
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-01'",
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-02'",
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-03'",
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-04'",
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-05'",
+                "select min(ts), max(price * 2), count() from t where ts in '1970-01-06'"
+        );
+    }
+
+    private static void testUnionAllOverflow(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        createTable(compiler, sqlExecutionContext);
+        // each branch is larger than the prefetch buffer
+        assertUnionAll(
+                compiler,
+                sqlExecutionContext,
+                "select sym, note, ts from t where ts in '1970-01-02'",
+                "select sym, note, ts from t where ts in '1970-01-05'",
+                "select sym, note, ts from t where ts in '1970-01-03'"
+        );
+    }
+
+    @FunctionalInterface
+    interface UnionAllRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
@@ -348,11 +348,16 @@ public class SecurityTest extends AbstractGriffinTest {
                     "select distinct sym1, sym2 from tb1 where d < 0.07",
                     null,
                     true, readOnlyExecutionContext);
+            // symbol pairs are keyed by 8 bytes each, it takes more of them to exceed the limit
+            compiler.compile("create table tb2 as (select" +
+                    " rnd_symbol(20,4,4,20000) sym1," +
+                    " rnd_symbol(20,4,4,20000) sym2" +
+                    " from long_sequence(200))", sqlExecutionContext);
             try {
                 assertQuery(
                         memoryRestrictedCompiler,
                         "sym1\tsym2\nHYRX\tGPGW\nVTJW\tIBBT\nVTJW\tGPGW\n",
-                        "select distinct sym1, sym2 from tb1",
+                        "select distinct sym1, sym2 from tb2",
                         null,
                         true, readOnlyExecutionContext);
                 Assert.fail();
@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.griffin.engine.functions.test.TestMatchFunctionFactory;
+import io.questdb.griffin.engine.groupby.DistinctSymbolKeyRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Sequence;
@@ -39,6 +40,7 @@ import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -688,6 +690,62 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testDistinctTwoSymbolColumnsWithFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table prices as " +
+                            "(" +
+                            " select" +
+                            " x id," +
+                            " rnd_symbol(20, 3, 5, 2) s1," +
+                            " rnd_symbol(10, 3, 5, 3) s2" +
+                            " from long_sequence(100000)" +
+                            ")",
+                    sqlExecutionContext
+            );
+
+            final String query = "select distinct s1, s2 from prices where id % 3 <> 0";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof DistinctSymbolKeyRecordCursorFactory);
+            }
+
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "select distinct cast(s1 as string) s1, cast(s2 as string) s2 from prices where id % 3 <> 0",
+                    expected
+            );
+            TestUtils.assertEquals(expected, sink);
+
+            TestUtils.printSql(compiler, sqlExecutionContext, "select distinct s2 from prices where id % 3 <> 0", sink);
+            TestUtils.printSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "select distinct cast(s2 as string) s2 from prices where id % 3 <> 0",
+                    expected
+            );
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    @Test
+    public void testDistinctSymbolColumnUnionAll() throws Exception {
+        assertMemoryLeak(() -> {
+            // union all branches resolve symbol key 0 through different symbol tables
+            compiler.compile("create table t1 as (select cast('a' as symbol) s from long_sequence(2))", sqlExecutionContext);
+            compiler.compile("create table t2 as (select cast('b' as symbol) s from long_sequence(2))", sqlExecutionContext);
+
+            final String query = "select distinct s from (select s from t1 union all select s from t2)";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof DistinctSymbolKeyRecordCursorFactory);
+            }
+            assertSql(query, "s\na\nb\n");
+        });
+    }
+
     @Test
     public void testDynamicTimestamp() throws Exception {
         TestMatchFunctionFactory.clear();
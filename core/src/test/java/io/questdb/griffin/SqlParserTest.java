@@ -173,6 +173,46 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
     }
 
+    @Test
+    public void testAnalyticFrameRange() throws Exception {
+        assertQuery(
+                "select-analytic a, b, avg(c) my over (partition by b order by ts range between 90000000 microseconds preceding and current row) from (select [a, b, c, ts] from xyz timestamp (ts))",
+                "select a,b, avg(c) over (partition by b order by ts range between 90 seconds preceding and current row) my from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRows() throws Exception {
+        assertQuery(
+                "select-analytic a, b, avg(c) my over (partition by b order by ts rows between 10 preceding and current row), sum(c) sum over () from (select [a, b, c, ts] from xyz timestamp (ts))",
+                "select a,b, avg(c) over (partition by b order by ts rows 10 preceding) my, sum(c) over (rows between unbounded preceding and current row) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRowsMissingPreceding() throws Exception {
+        assertSyntaxError(
+                "select a,b, avg(c) over (partition by b order by ts rows 10) from xyz",
+                59,
+                "'preceding' expected",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
     @Test
     public void testAnalyticPartitionByMultiple() throws Exception {
         assertQuery(
@@ -32,6 +32,7 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Rnd;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -493,6 +494,46 @@ public class TruncateTest extends AbstractGriffinTest {
         });
     }
     
+    @Test
+    public void testTruncateFrom() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table t as (" +
+                            "select timestamp_sequence(0, 6 * 3600000000L) ts, x from long_sequence(20)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "t", "testing")) {
+                // nothing to remove
+                Assert.assertEquals(0, writer.truncateFrom(TimestampFormatUtils.parseTimestamp("1970-01-05T18:00:00.000001Z")));
+                // removes partial partition 1970-01-03 and two partitions after it
+                Assert.assertEquals(10, writer.truncateFrom(TimestampFormatUtils.parseTimestamp("1970-01-03T07:00:00.000000Z")));
+                Assert.assertEquals(10, writer.size());
+                Assert.assertEquals(TimestampFormatUtils.parseTimestamp("1970-01-03T06:00:00.000000Z"), writer.getMaxTimestamp());
+
+                TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp("1970-01-03T08:00:00.000000Z"));
+                row.putLong(1, 100);
+                row.append();
+                writer.commit();
+            }
+
+            assertSql(
+                    "select min(ts), max(ts), sum(x) from t",
+                    "min\tmax\tsum\n" +
+                            "1970-01-01T00:00:00.000000Z\t1970-01-03T08:00:00.000000Z\t155\n"
+            );
+            assertSql("select count() from t", "count\n11\n");
+
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "t", "testing")) {
+                Assert.assertEquals(11, writer.truncateFrom(0));
+                Assert.assertEquals(0, writer.size());
+            }
+
+            assertSql("select count() from t", "count\n0\n");
+        });
+    }
+
     private void createX() throws SqlException {
         createX(10);
     }
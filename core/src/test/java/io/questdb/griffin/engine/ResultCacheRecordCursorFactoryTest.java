@@ -0,0 +1,267 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheRecordCursorFactoryTest extends AbstractGriffinTest {
+    private static final BytecodeAssembler asm = new BytecodeAssembler();
+    private static final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testCacheable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(10);
+            assertCacheable(true, "x");
+            assertCacheable(true, "select sym, count() from x where i > 0");
+            assertCacheable(true, "select x.i from x join x y on (sym)");
+            assertCacheable(false, "select i, rnd_int() from x");
+            assertCacheable(false, "select i, now() from x");
+            assertCacheable(false, "select * from long_sequence(10)");
+            assertCacheable(false, "select i from x union all select cast(x as int) from long_sequence(1)");
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(10);
+            // each result takes single 64K page, cache can hold only one of them
+            try (
+                    ResultCache resultCache = new ResultCache(100 * 1024);
+                    RecordCursorFactory factoryA = newFactory(resultCache, configuration, "x");
+                    RecordCursorFactory factoryB = newFactory(resultCache, configuration, "select sym, i from x")
+            ) {
+                assertResult("x", factoryA);
+                try (RecordCursor cursor = factoryA.getCursor(sqlExecutionContext)) {
+                    assertResult("select sym, i from x", factoryB);
+                    Assert.assertEquals(1, resultCache.getEvictionCount());
+                    Assert.assertEquals(1, resultCache.getEntryCount());
+
+                    // evicted result is still readable by cursor that acquired it
+                    final StringSink actual = new StringSink();
+                    TestUtils.printCursor(cursor, factoryA.getMetadata(), true, actual, printer);
+                    TestUtils.assertEquals(expectedResult("x"), actual);
+                }
+
+                assertResult("x", factoryA);
+                Assert.assertEquals(2, resultCache.getEvictionCount());
+                Assert.assertEquals(1, resultCache.getHitCount());
+                Assert.assertEquals(3, resultCache.getMissCount());
+            }
+        });
+    }
+
+    @Test
+    public void testHitAndInvalidation() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(100);
+            try (
+                    ResultCache resultCache = new ResultCache(1024 * 1024);
+                    RecordCursorFactory factoryA = newFactory(resultCache, configuration, "x");
+                    RecordCursorFactory factoryB = newFactory(resultCache, configuration, "x")
+            ) {
+                assertResult("x", factoryA);
+                Assert.assertEquals(0, resultCache.getHitCount());
+                Assert.assertEquals(1, resultCache.getMissCount());
+
+                // result is shared between factories and can be read concurrently
+                try (RecordCursor cursor = factoryA.getCursor(sqlExecutionContext)) {
+                    assertResult("x", factoryB);
+                    final StringSink actual = new StringSink();
+                    TestUtils.printCursor(cursor, factoryA.getMetadata(), true, actual, printer);
+                    TestUtils.assertEquals(expectedResult("x"), actual);
+                }
+                Assert.assertEquals(2, resultCache.getHitCount());
+                Assert.assertEquals(1, resultCache.getMissCount());
+
+                compiler.compile("insert into x select rnd_int() i, rnd_symbol('a','b',null) sym, rnd_str(3,5,2) s," +
+                        " rnd_bin(2,10,2) b, rnd_long256() l256, rnd_double(2) d," +
+                        " timestamp_sequence(1000000000, 1000000) ts from long_sequence(10)", sqlExecutionContext);
+
+                assertResult("x", factoryB);
+                Assert.assertEquals(2, resultCache.getHitCount());
+                Assert.assertEquals(2, resultCache.getMissCount());
+                Assert.assertEquals(1, resultCache.getEntryCount());
+
+                assertResult("x", factoryA);
+                Assert.assertEquals(3, resultCache.getHitCount());
+            }
+        });
+    }
+
+    @Test
+    public void testHitWithoutTableReader() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(10);
+            final String expected = expectedResult("x");
+            // writer in pool publishes table txn
+            engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing").close();
+            try (
+                    ResultCache resultCache = new ResultCache(1024 * 1024);
+                    RecordCursorFactory factory = newFactory(resultCache, configuration, "x")
+            ) {
+                assertResult("x", factory);
+
+                Assert.assertTrue(engine.lockReaders("x"));
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+                } finally {
+                    engine.unlockReaders("x");
+                }
+                TestUtils.assertEquals(expected, sink);
+                Assert.assertEquals(1, resultCache.getHitCount());
+                Assert.assertEquals(1, resultCache.getMissCount());
+            }
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testPartiallyReadResultNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(10);
+            try (
+                    ResultCache resultCache = new ResultCache(1024 * 1024);
+                    RecordCursorFactory factory = newFactory(resultCache, configuration, "x")
+            ) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertTrue(cursor.hasNext());
+                }
+                Assert.assertEquals(0, resultCache.getEntryCount());
+
+                assertResult("x", factory);
+                Assert.assertEquals(1, resultCache.getEntryCount());
+                assertResult("x", factory);
+                Assert.assertEquals(1, resultCache.getHitCount());
+                Assert.assertEquals(2, resultCache.getMissCount());
+            }
+        });
+    }
+
+    @Test
+    public void testResultTooLarge() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(1000);
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getResultCacheMaxPages() {
+                    return 2;
+                }
+
+                @Override
+                public int getResultCachePageSize() {
+                    return 1024;
+                }
+            };
+            try (
+                    ResultCache resultCache = new ResultCache(1024 * 1024);
+                    RecordCursorFactory factory = newFactory(resultCache, configuration, "x")
+            ) {
+                assertResult("x", factory);
+                // result is not copied again until table changes
+                assertResult("x", factory);
+                Assert.assertEquals(0, resultCache.getEntryCount());
+                Assert.assertEquals(0, resultCache.getHitCount());
+                Assert.assertEquals(1, resultCache.getMissCount());
+
+                // result is cached again once it fits
+                compiler.compile("truncate table x", sqlExecutionContext);
+                assertResult("x", factory);
+                assertResult("x", factory);
+                Assert.assertEquals(1, resultCache.getEntryCount());
+                Assert.assertEquals(1, resultCache.getHitCount());
+                Assert.assertEquals(2, resultCache.getMissCount());
+            }
+        });
+    }
+
+    private static void assertCacheable(boolean expected, String query) throws SqlException {
+        try (RecordCursorFactory ignored = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(query, expected, compiler.isResultCacheable());
+        }
+    }
+
+    private static void assertResult(String query, RecordCursorFactory factory) throws SqlException {
+        final String expected = expectedResult(query);
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            sink.clear();
+            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void createTable(int rowCount) throws SqlException {
+        compiler.compile("create table x as (select rnd_int() i, rnd_symbol('a','b',null) sym, rnd_str(3,5,2) s," +
+                " rnd_bin(2,10,2) b, rnd_long256() l256, rnd_double(2) d," +
+                " timestamp_sequence(0, 1000000) ts from long_sequence(" + rowCount + ")) timestamp(ts)", sqlExecutionContext);
+    }
+
+    private static String expectedResult(String query) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            sink.clear();
+            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+            return sink.toString();
+        }
+    }
+
+    private static RecordCursorFactory newFactory(ResultCache resultCache, CairoConfiguration configuration, String query) throws SqlException {
+        final RecordCursorFactory base = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+        Assert.assertTrue(compiler.isResultCacheable());
+        entityColumnFilter.of(base.getMetadata().getColumnCount());
+        return new ResultCacheRecordCursorFactory(
+                configuration,
+                resultCache,
+                base,
+                query,
+                compiler.getReadTableNames(),
+                RecordSinkFactory.getInstance(asm, base.getMetadata(), entityColumnFilter, true)
+        );
+    }
+}
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import org.junit.Test;
+
+public class AnalyticFunctionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCumulativeSumPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, k, sum(v) over (partition by k order by ts) s from t",
+                    "x\tk\ts\n" +
+                            "1\t1\t1.0\n" +
+                            "2\t0\t2.0\n" +
+                            "3\t1\t4.0\n" +
+                            "4\t0\t6.0\n" +
+                            "5\t1\t9.0\n" +
+                            "6\t0\t12.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLagLead() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, lag(v) over (order by ts) lg, lead(x, 2) over (order by ts) ld from t",
+                    "x\tlg\tld\n" +
+                            "1\tNaN\t3\n" +
+                            "2\t1.0\t4\n" +
+                            "3\t2.0\t5\n" +
+                            "4\t3.0\t6\n" +
+                            "5\t4.0\tNaN\n" +
+                            "6\t5.0\tNaN\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLagOrderedByNonTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, lag(v) over (order by w, x) lg from t",
+                    "x\tlg\n" +
+                            "1\t3.0\n" +
+                            "2\t5.0\n" +
+                            "3\t6.0\n" +
+                            "4\t1.0\n" +
+                            "5\tNaN\n" +
+                            "6\t2.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLagPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, lag(x) over (partition by k) lg from t",
+                    "x\tlg\n" +
+                            "1\tNaN\n" +
+                            "2\tNaN\n" +
+                            "3\t1\n" +
+                            "4\t2\n" +
+                            "5\t3\n" +
+                            "6\t4\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLagNonConstantOffset() throws Exception {
+        assertFailure(
+                "select lag(x, x) over () from long_sequence(3)",
+                null,
+                14,
+                "constant"
+        );
+    }
+
+    @Test
+    public void testLagTooManyArguments() throws Exception {
+        assertFailure(
+                "select lag(x, 1, 2) over () from long_sequence(3)",
+                null,
+                7,
+                "Too many arguments"
+        );
+    }
+
+    @Test
+    public void testMinMaxRangeFrame() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, min(w) over (order by ts range 2 seconds preceding) mn, max(w) over (order by ts range 2 seconds preceding) mx from t",
+                    "x\tmn\tmx\n" +
+                            "1\t5.0\t5.0\n" +
+                            "2\t2.0\t5.0\n" +
+                            "3\t2.0\t5.0\n" +
+                            "4\t2.0\t7.0\n" +
+                            "5\t1.0\t7.0\n" +
+                            "6\t1.0\t7.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testMinMaxUnbounded() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, min(w) over (partition by k) mn, max(w) over (partition by k rows unbounded preceding) mx from t",
+                    "x\tmn\tmx\n" +
+                            "1\t5.0\t5.0\n" +
+                            "2\t2.0\t2.0\n" +
+                            "3\t3.0\t5.0\n" +
+                            "4\t2.0\t7.0\n" +
+                            "5\t1.0\t5.0\n" +
+                            "6\t2.0\t7.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testMovingAverageRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, avg(v) over (order by ts rows between 1 preceding and current row) a from t",
+                    "x\ta\n" +
+                            "1\t1.0\n" +
+                            "2\t1.5\n" +
+                            "3\t2.5\n" +
+                            "4\t3.5\n" +
+                            "5\t4.5\n" +
+                            "6\t5.5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testNegativeFrameStart() throws Exception {
+        assertFailure(
+                "select avg(x) over (rows -1 preceding) from long_sequence(3)",
+                null,
+                25,
+                "'unbounded', 'current' or non-negative number expected"
+        );
+    }
+
+    @Test
+    public void testRangeFrameDescendingOrder() throws Exception {
+        assertFailure(
+                "select avg(x) over (order by ts desc range 1 second preceding) from (select x, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts)",
+                null,
+                37,
+                "RANGE frame requires ORDER BY timestamp column"
+        );
+    }
+
+    @Test
+    public void testRangeFramePeers() throws Exception {
+        assertMemoryLeak(() -> {
+            createTableWithPeers();
+            // rows with equal timestamps are peers and share frame, which ends with the last of them
+            assertSql(
+                    "select x, sum(v) over (order by ts range 1 second preceding) s, min(v) over (order by ts range 1 second preceding) mn, max(v) over (order by ts range 1 second preceding) mx from t",
+                    "x\ts\tmn\tmx\n" +
+                            "1\t3.0\t1.0\t2.0\n" +
+                            "2\t3.0\t1.0\t2.0\n" +
+                            "3\t15.0\t1.0\t5.0\n" +
+                            "4\t15.0\t1.0\t5.0\n" +
+                            "5\t15.0\t1.0\t5.0\n" +
+                            "6\t6.0\t6.0\t6.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRangeFramePeersPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            createTableWithPeers();
+            assertSql(
+                    "select x, sum(v) over (partition by k order by ts range unbounded preceding) s, max(v) over (partition by k order by ts range unbounded preceding) mx from t",
+                    "x\ts\tmx\n" +
+                            "1\t1.0\t1.0\n" +
+                            "2\t2.0\t2.0\n" +
+                            "3\t9.0\t5.0\n" +
+                            "4\t6.0\t4.0\n" +
+                            "5\t9.0\t5.0\n" +
+                            "6\t12.0\t6.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRangeFrameWithoutTimestampOrder() throws Exception {
+        assertFailure(
+                "select avg(x) over (order by x range 1 second preceding) from long_sequence(3)",
+                null,
+                31,
+                "RANGE frame requires ORDER BY timestamp column"
+        );
+    }
+
+    @Test
+    public void testRangeFrameWithoutUnit() throws Exception {
+        assertFailure(
+                "select avg(x) over (order by x range 1 preceding) from long_sequence(3)",
+                null,
+                39,
+                "time unit expected"
+        );
+    }
+
+    @Test
+    public void testRank() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select x, rank() over (order by k) r, dense_rank() over (order by k) dr from t",
+                    "x\tr\tdr\n" +
+                            "1\t4\t2\n" +
+                            "2\t1\t1\n" +
+                            "3\t4\t2\n" +
+                            "4\t1\t1\n" +
+                            "5\t4\t2\n" +
+                            "6\t1\t1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRankWithArgument() throws Exception {
+        assertFailure(
+                "select rank(x) over (order by x) from long_sequence(3)",
+                null,
+                7,
+                "unexpected argument for function: rank"
+        );
+    }
+
+    @Test
+    public void testRowNumberWithArgument() throws Exception {
+        assertFailure(
+                "select row_number(x) over () from long_sequence(3)",
+                null,
+                7,
+                "unexpected argument for function: row_number"
+        );
+    }
+
+    @Test
+    public void testSumTooManyArguments() throws Exception {
+        assertFailure(
+                "select sum(x, x) over () from long_sequence(3)",
+                null,
+                7,
+                "Too many arguments"
+        );
+    }
+
+    @Test
+    public void testUnsupportedFrameEnd() throws Exception {
+        assertFailure(
+                "select avg(x) over (rows between 2 preceding and 1 preceding) from long_sequence(3)",
+                null,
+                49,
+                "only 'current row' is supported as frame end"
+        );
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile(
+                "create table t as (" +
+                        "select x, cast(x % 2 as int) k, cast(x as double) v, cast(case x when 1 then 5 when 2 then 2 when 3 then 3 when 4 then 7 when 5 then 1 else 2 end as double) w, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts)",
+                sqlExecutionContext
+        );
+    }
+
+    private void createTableWithPeers() throws SqlException {
+        compiler.compile(
+                "create table t as (" +
+                        "select x, cast(x % 2 as int) k, cast(x as double) v, cast(case x when 1 then 0 when 2 then 0 when 6 then 3000000 else 1000000 end as timestamp) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproxCountDistinctGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testGroupKeyedStr() throws Exception {
+        assertQuery(
+                "a\tapprox_count_distinct\n" +
+                        "a\t6\n" +
+                        "b\t6\n" +
+                        "c\t6\n",
+                "select a, approx_count_distinct(s) from x order by a",
+                "create table x as (select rnd_symbol('a','b','c') a, rnd_str('344', 'xx2', '00s', '544', 'rraa', '0llp', null) s from long_sequence(100))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "c\tc10\tc14\tc4\n" +
+                        "96670\t10\t99324\t91057\n",
+                "select approx_count_distinct(x) c, approx_count_distinct(x % 10) c10, approx_count_distinct(x, 14) c14, approx_count_distinct(x, 4) c4 from x",
+                "create table x as (select x from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedSymbol() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "101\n",
+                "select approx_count_distinct(s) from x",
+                "create table x as (select rnd_symbol(100, 4, 8, 0) s from long_sequence(10000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testPrecisionOutOfRange() throws Exception {
+        assertFailure(
+                "select approx_count_distinct(x, 20) from long_sequence(10)",
+                null,
+                32,
+                "precision must be between 4 and 14"
+        );
+    }
+
+    @Test
+    public void testSampleBy() throws Exception {
+        assertQuery(
+                "ts\tapprox_count_distinct\n" +
+                        "1970-01-01T00:00:00.000000Z\t5\n" +
+                        "1970-01-01T00:00:01.000000Z\t5\n" +
+                        "1970-01-01T00:00:02.000000Z\t6\n" +
+                        "1970-01-01T00:00:03.000000Z\t5\n",
+                "select ts, approx_count_distinct(s) from x sample by 1s",
+                "create table x as (select * from (select rnd_str('344', 'xx2', '00s', '544', 'rraa', '0llp') s, timestamp_sequence(0, 100000) ts from long_sequence(40)) timestamp(ts))",
+                "ts",
+                false
+        );
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproxPercentileDoubleGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "a\tmedian\tp99\n" +
+                        "a\t50.92460238724122\t98.95442091907064\n" +
+                        "b\t44.7431325333616\t98.52516093980705\n" +
+                        "c\t52.09780770672326\t98.49893062716637\n",
+                "select a, median(d), approx_percentile(d, 0.99) p99 from x order by a",
+                "create table x as (select rnd_symbol('a','b','c') a, rnd_double(2) * 100 d from long_sequence(3000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "p0\tp25\tp50\tp99\tp100\n" +
+                        "1.0\t25000.5\t50000.5\t99000.5\t100000.0\n",
+                "select approx_percentile(x, 0) p0, approx_percentile(x, 0.25) p25, median(x) p50, approx_percentile(x, 0.99) p99, approx_percentile(x, 1) p100 from x",
+                "create table x as (select cast(x as double) x from long_sequence(100000))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedExactForSmallGroups() throws Exception {
+        assertQuery(
+                "p50\tp90\n" +
+                        "5.5\t9.5\n",
+                "select median(x) p50, approx_percentile(x, 0.9) p90 from long_sequence(10)",
+                null,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testPercentileOutOfRange() throws Exception {
+        assertFailure(
+                "select approx_percentile(x, 1.5) from long_sequence(10)",
+                null,
+                28,
+                "percentile must be between 0 and 1"
+        );
+    }
+}
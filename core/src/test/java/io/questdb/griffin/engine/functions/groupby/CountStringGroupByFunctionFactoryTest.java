@@ -84,6 +84,24 @@ public class CountStringGroupByFunctionFactoryTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testGroupKeyedManyValues() throws Exception {
+        // sets outgrow initial capacity and get rehashed while interleaved in memory
+        assertQuery(
+                "a\tcount_distinct\n" +
+                        "0\t126\n" +
+                        "1\t250\n" +
+                        "2\t250\n" +
+                        "3\t250\n",
+                "select a, count_distinct(s) from x order by a",
+                "create table x as (select x % 4 a, case when x % 8 = 0 then null else cast(x % 1000 as string) end s from long_sequence(10000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
     @Test
     public void testSampleFillLinear() throws Exception {
         assertQuery(
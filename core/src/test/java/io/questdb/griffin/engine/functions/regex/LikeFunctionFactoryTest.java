@@ -250,6 +250,56 @@ public class LikeFunctionFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLikeSymbolBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('ABC','ABD','XYZ',null) s from long_sequence(2000))", sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile("select count() from x where s like $1", sqlExecutionContext).getRecordCursorFactory()) {
+                bindVariableService.setStr(0, "AB%");
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals("count\n1025\n", sink);
+                }
+
+                // keys matched for previous pattern must not leak into new one
+                bindVariableService.setStr(0, "%Z");
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals("count\n435\n", sink);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLikeSymbolColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('ABC','ABD','XYZ',null) s from long_sequence(20))", sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile("select * from x where s like 'AB_'", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals("s\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABD\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABD\n", sink);
+                }
+            }
+        });
+    }
+
     @Test
     public void testNotLikeCharacterMatch() throws Exception {
 
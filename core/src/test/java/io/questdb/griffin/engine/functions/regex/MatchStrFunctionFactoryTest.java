@@ -101,4 +101,47 @@ public class MatchStrFunctionFactoryTest extends AbstractGriffinTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSymbolColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('ABC','ABD','XYZ',null) s from long_sequence(20))", sqlExecutionContext);
+
+            try (RecordCursorFactory factory = compiler.compile("select * from x where s ~ 'B[CD]'", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals("s\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABD\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABC\n" +
+                            "ABC\n" +
+                            "ABD\n" +
+                            "ABD\n", sink);
+                }
+            }
+
+            try (RecordCursorFactory factory = compiler.compile("select * from x where s !~ 'B[CD]'", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals("s\n" +
+                            "XYZ\n" +
+                            "\n" +
+                            "\n" +
+                            "XYZ\n" +
+                            "\n" +
+                            "XYZ\n" +
+                            "XYZ\n" +
+                            "\n" +
+                            "XYZ\n", sink);
+                }
+            }
+        });
+    }
+}
@@ -33,6 +33,7 @@ import io.questdb.griffin.EmptyRecordMetadata;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.SampleByFillNoneNotKeyedVectorRecordCursorFactory;
 import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.griffin.model.QueryColumn;
 import io.questdb.log.Log;
@@ -4037,6 +4038,47 @@ public class SampleByTest extends AbstractGriffinTest {
                 false);
     }
 
+    @Test
+    public void testSampleFillNoneNotKeyedVectorized() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as " +
+                    "(" +
+                    "select" +
+                    " rnd_double(2) a," +
+                    " rnd_long(0, 1000, 2) l," +
+                    " rnd_symbol(5,4,4,1) b," +
+                    " timestamp_sequence(172800000000, 1800000000) k" +
+                    " from" +
+                    " long_sequence(200)" +
+                    ") timestamp(k) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column i int", sqlExecutionContext);
+            compiler.compile("insert into x select * from (" +
+                    "select" +
+                    " rnd_double(2) a," +
+                    " rnd_long(0, 1000, 2) l," +
+                    " rnd_symbol(5,4,4,1) b," +
+                    " timestamp_sequence(532800000000, 1800000000) k," +
+                    " rnd_int(0, 100, 2) i" +
+                    " from" +
+                    " long_sequence(100)" +
+                    ") timestamp(k)", sqlExecutionContext);
+
+            final String query = "select k, count(), min(a), max(a), sum(l), min(l), max(l), sum(i), min(i) from x";
+            try (RecordCursorFactory factory = compiler.compile(query + " sample by 7h", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof SampleByFillNoneNotKeyedVectorRecordCursorFactory);
+            }
+
+            // filter disables page frames and makes sample by aggregate row by row
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    query + " where length(b) < 10 sample by 7h",
+                    query + " sample by 7h",
+                    LOG
+            );
+        });
+    }
+
     @Test
     public void testSampleFillNoneNotKeyedEmpty() throws Exception {
         assertQuery("sum\tk\n",
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsOfJoinIndexedRecordCursorFactoryTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(AsOfJoinIndexedRecordCursorFactoryTest.class);
+
+    @Test
+    public void testFilteredMasterUsesIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(100);
+            // filtered master size is unknown, few rows match
+            assertLookupPath(
+                    "select * from (x where s = 'a') asof join y on (s)",
+                    "select * from (x where s = 'a') asof join z on (s)",
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testLargeFilteredMasterSwitchesToLockstep() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(5000);
+            // more master rows match than index lookups can afford
+            assertLookupPath(
+                    "select * from (x where s <> 'a') asof join y on (s)",
+                    "select * from (x where s <> 'a') asof join z on (s)",
+                    false
+            );
+        });
+    }
+
+    private void assertLookupPath(String query, String referenceQuery, boolean expectedIndexLookup) throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, referenceQuery, query, LOG);
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof SelectedRecordCursorFactory);
+            final RecordCursorFactory joinFactory = ((SelectedRecordCursorFactory) factory).getBaseFactory();
+            Assert.assertTrue(joinFactory instanceof AsOfJoinIndexedRecordCursorFactory);
+            try (RecordCursor cursor = joinFactory.getCursor(sqlExecutionContext)) {
+                Assert.assertTrue(cursor instanceof AsOfJoinIndexedRecordCursorFactory.AsOfIndexedJoinRecordCursor);
+                long count = 0;
+                while (cursor.hasNext()) {
+                    count++;
+                }
+                Assert.assertTrue(count > 0);
+                Assert.assertEquals(
+                        expectedIndexLookup,
+                        ((AsOfJoinIndexedRecordCursorFactory.AsOfIndexedJoinRecordCursor) cursor).isIndexLookup()
+                );
+            }
+        }
+    }
+
+    private void createTables(int masterRowCount) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('a','b','c','d','e',null) s," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(" + masterRowCount + ")" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " rnd_symbol('a','b','c','d',null) s," +
+                        " rnd_double() price," +
+                        " timestamp_sequence(7200000000, 10000000) ts" +
+                        " from long_sequence(40000)" +
+                        "), index(s) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        // same data without index takes lockstep path
+        compiler.compile("create table z as (select * from y) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(MatViewTest.class);
+    private static final String VIEW_QUERY = "select ts, k, sum(v) s, min(v) mn, count() c from x sample by 1h align to calendar with offset '00:00'";
+
+    @Test
+    public void testCreateFailsFill() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(v) from x sample by 1h fill(prev) align to calendar with offset '00:00') timestamp(ts) partition by DAY",
+                "create table x (ts timestamp, v long) timestamp(ts) partition by DAY",
+                74,
+                "fill is not supported"
+        );
+    }
+
+    @Test
+    public void testCreateFailsFirstObservation() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(v) from x sample by 1h) timestamp(ts) partition by DAY",
+                "create table x (ts timestamp, v long) timestamp(ts) partition by DAY",
+                66,
+                "materialized view query must use 'align to calendar'"
+        );
+    }
+
+    @Test
+    public void testCreateFailsNotPartitioned() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(v) from x sample by 1h align to calendar with offset '00:00') timestamp(ts)",
+                "create table x (ts timestamp, v long) timestamp(ts) partition by DAY",
+                25,
+                "materialized view must have designated timestamp and be partitioned"
+        );
+    }
+
+    @Test
+    public void testCreateFailsNotSampleBy() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, v from x) timestamp(ts) partition by DAY",
+                "create table x (ts timestamp, v long) timestamp(ts) partition by DAY",
+                31,
+                "materialized view query must use 'sample by'"
+        );
+    }
+
+    @Test
+    public void testCreateFailsTimeZone() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(v) from x sample by 1h align to calendar time zone 'Europe/London' with offset '00:00') timestamp(ts) partition by DAY",
+                "create table x (ts timestamp, v long) timestamp(ts) partition by DAY",
+                97,
+                "time zone is not supported"
+        );
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseAndView();
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                // view is populated on creation
+                Assert.assertFalse(job.run(0));
+                assertView();
+
+                // append to the last partition and add new partitions
+                compiler.compile("insert into x select timestamp_sequence('1970-01-03T10:10', 7 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(500)", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertView();
+
+                // out-of-order data
+                compiler.compile("insert into x select timestamp_sequence('1970-01-02T05:17', 13 * 60000000L) ts, rnd_symbol('a','b','d') k, rnd_long(0, 100, 0) v from long_sequence(50)", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertView();
+
+                // dropped partition
+                compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertView();
+
+                // no changes
+                Assert.assertFalse(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshAfterRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseAndView();
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                compiler.compile("insert into x select timestamp_sequence('1970-01-03T10:10', 7 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(100)", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+            }
+            assertView();
+
+            // view is consistent with base table, there is nothing to refresh
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertFalse(job.run(0));
+                compiler.compile("insert into x select timestamp_sequence('1970-01-01T10:10', 17 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(100)", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshPostponedWhenViewInUse() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseAndView();
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertFalse(job.run(0));
+                compiler.compile("insert into x select timestamp_sequence('1970-01-03T10:10', 7 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(100)", sqlExecutionContext);
+
+                try (TableReader ignored = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "v")) {
+                    Assert.assertFalse(job.run(0));
+                }
+                Assert.assertTrue(job.run(0));
+                assertView();
+            }
+        });
+    }
+
+    @Test
+    public void testDroppedView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseAndView();
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertFalse(job.run(0));
+                compiler.compile("drop table v", sqlExecutionContext);
+                compiler.compile("insert into x select timestamp_sequence('1970-01-03T10:10', 7 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(100)", sqlExecutionContext);
+                Assert.assertFalse(job.run(0));
+            }
+        });
+    }
+
+    private static void assertView() throws SqlException {
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select * from (" + VIEW_QUERY + ") order by ts, k",
+                "select * from v order by ts, k",
+                LOG
+        );
+    }
+
+    private static void createBaseAndView() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select timestamp_sequence(0, 11 * 60000000L) ts, rnd_symbol('a','b','c') k, rnd_long(0, 100, 0) v from long_sequence(300)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create materialized view v as (" + VIEW_QUERY + ") timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DirectBitSetsTest {
+
+    private static final Log LOG = LogFactory.getLog(DirectBitSetsTest.class);
+
+    @Test
+    public void testSet() {
+        LOG.info().$("testSet").$();
+        long expected = Unsafe.getMemUsed();
+        try (DirectBitSets sets = new DirectBitSets(64, 64)) {
+            long a = sets.newSet();
+            long a2 = sets.newSet();
+            for (int i = 0; i < 1000; i += 2) {
+                a = sets.set(a, i);
+                Assert.assertTrue(a > -1);
+                a2 = sets.set(a2, i + 1);
+                Assert.assertTrue(a2 > -1);
+            }
+            Assert.assertEquals(-a - 1, sets.set(a, 998));
+            Assert.assertEquals(500, sets.cardinality(a));
+            Assert.assertEquals(500, sets.cardinality(a2));
+            Assert.assertEquals(-a2 - 1, sets.set(a2, 999));
+        }
+        Assert.assertEquals(expected, Unsafe.getMemUsed());
+    }
+}
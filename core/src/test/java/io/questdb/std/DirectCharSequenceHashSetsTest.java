@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.str.StringSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DirectCharSequenceHashSetsTest {
+
+    private static final Log LOG = LogFactory.getLog(DirectCharSequenceHashSetsTest.class);
+
+    @Test
+    public void testAddAndRehash() {
+        LOG.info().$("testAddAndRehash").$();
+        long expected = Unsafe.getMemUsed();
+        final StringSink sink = new StringSink();
+        try (DirectCharSequenceHashSets sets = new DirectCharSequenceHashSets(4, 64)) {
+            long a = sets.newSet();
+            long b = sets.newSet();
+            for (int i = 0; i < 10_000; i++) {
+                sink.clear();
+                sink.put("v").put(i);
+                a = sets.add(a, sink);
+                Assert.assertTrue(a > -1);
+                // every other value goes to second set, interleaving both in memory
+                if ((i & 1) == 0) {
+                    b = sets.add(b, sink);
+                    Assert.assertTrue(b > -1);
+                }
+            }
+            Assert.assertEquals(10_000, sets.size(a));
+            Assert.assertEquals(5_000, sets.size(b));
+
+            for (int i = 0; i < 10_000; i++) {
+                sink.clear();
+                sink.put("v").put(i);
+                Assert.assertEquals(-a - 1, sets.add(a, sink));
+            }
+
+            Assert.assertTrue(sets.add(a, null) > -1);
+            Assert.assertEquals(-a - 1, sets.add(a, null));
+            Assert.assertTrue(sets.add(a, "") > -1);
+            Assert.assertEquals(10_002, sets.size(a));
+
+            sets.clear();
+            a = sets.newSet();
+            Assert.assertEquals(0, sets.size(a));
+            Assert.assertTrue(sets.add(a, "v0") > -1);
+        }
+        Assert.assertEquals(expected, Unsafe.getMemUsed());
+    }
+}
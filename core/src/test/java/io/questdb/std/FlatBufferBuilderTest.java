@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class FlatBufferBuilderTest {
+
+    @Test
+    public void testTableWithStringsAndVectors() {
+        // small initial capacity makes buffer grow several times
+        try (FlatBufferBuilder builder = new FlatBufferBuilder(16)) {
+            for (int iteration = 0; iteration < 2; iteration++) {
+                builder.clear();
+                final int name = builder.createString("привет, flatbuffers");
+                builder.startVector(2 * Long.BYTES, 3, Long.BYTES);
+                for (int i = 2; i > -1; i--) {
+                    builder.prep(Long.BYTES, 2 * Long.BYTES);
+                    builder.addLong(i * 10 + 1);
+                    builder.addLong(i * 10);
+                }
+                final int structs = builder.endVector();
+
+                builder.startTable(5);
+                builder.addFieldOffset(0, name);
+                builder.addFieldByte(1, (byte) 7);
+                builder.addFieldLong(2, Long.MAX_VALUE);
+                // slot 3 is absent
+                builder.addFieldOffset(4, structs);
+                builder.finish(builder.endTable());
+
+                Assert.assertEquals(0, builder.getBufferSize() % Long.BYTES);
+                final byte[] bytes = new byte[builder.getBufferSize()];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = Unsafe.getUnsafe().getByte(builder.getBufferAddress() + i);
+                }
+                final ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                final int table = buf.getInt(0);
+                final int vtable = table - buf.getInt(table);
+                Assert.assertEquals(4 + 2 * 5, buf.getShort(vtable));
+                Assert.assertEquals(0, buf.getShort(vtable + 4 + 2 * 3));
+
+                final int nameField = table + buf.getShort(vtable + 4);
+                final int str = nameField + buf.getInt(nameField);
+                final byte[] utf8 = new byte[buf.getInt(str)];
+                for (int i = 0; i < utf8.length; i++) {
+                    utf8[i] = buf.get(str + 4 + i);
+                }
+                Assert.assertEquals("привет, flatbuffers", new String(utf8, StandardCharsets.UTF_8));
+                Assert.assertEquals(0, buf.get(str + 4 + utf8.length));
+
+                Assert.assertEquals(7, buf.get(table + buf.getShort(vtable + 6)));
+                Assert.assertEquals(Long.MAX_VALUE, buf.getLong(table + buf.getShort(vtable + 8)));
+
+                final int structField = table + buf.getShort(vtable + 12);
+                final int vector = structField + buf.getInt(structField);
+                Assert.assertEquals(3, buf.getInt(vector));
+                Assert.assertEquals(0, (vector + 4) % Long.BYTES);
+                for (int i = 0; i < 3; i++) {
+                    Assert.assertEquals(i * 10, buf.getLong(vector + 4 + 16 * i));
+                    Assert.assertEquals(i * 10 + 1, buf.getLong(vector + 4 + 16 * i + 8));
+                }
+            }
+        }
+    }
+}
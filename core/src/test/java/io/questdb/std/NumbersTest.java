@@ -175,7 +175,7 @@ public class NumbersTest {
     public void testFormatDoubleFast() {
         sink.clear();
         Numbers.append(sink, -5.9522650387500933e18);
-        TestUtils.assertEquals("-5.9522650387500933E18", sink);
+        TestUtils.assertEquals("-5.952265038750093E18", sink);
     }
 
     @Test
@@ -256,6 +256,19 @@ public class NumbersTest {
         TestUtils.assertEquals("4.4556303333333335E27", sink);
     }
 
+    @Test
+    public void testFormatDoubleShortest() {
+        // shortest digits that round trip, older JDKs render these with an extra digit
+        assertShortest("1.0E23", 1.0E23);
+        assertShortest("2.82879384806159E17", 2.82879384806159E17);
+        assertShortest("4.8726570057E288", 4.8726570057E288);
+        assertShortest("1.9400994884341945E25", 1.9400994884341945E25);
+        assertShortest("9.9E-324", 9.9E-324);
+        assertShortest("4.9E-324", Double.MIN_VALUE);
+        assertShortest("1.7976931348623157E308", Double.MAX_VALUE);
+        assertShortest("0.30000000000000004", 0.1 + 0.2);
+    }
+
     @Test
     public void testFormatDoubleSlowInteractive() {
         sink.clear();
@@ -794,4 +807,11 @@ public class NumbersTest {
         int x = Numbers.bswap(expected);
         Assert.assertEquals(expected, Numbers.bswap(x));
     }
+
+    private void assertShortest(String expected, double value) {
+        sink.clear();
+        Numbers.append(sink, value);
+        TestUtils.assertEquals(expected, sink);
+        Assert.assertEquals(value, Double.parseDouble(sink.toString()), 0);
+    }
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.tasks;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LatestBySymbolScanTaskTest {
+    private static final int ROW_COUNT = 1_000_000;
+    // null and keys 0, 1, 2
+    private static final long KEY_COUNT = 4;
+    private final AtomicLong foundKeyCount = new AtomicLong();
+    private long columnAddress;
+    private long winnersAddress;
+    private long seenKeysAddress;
+
+    @Before
+    public void setUp() {
+        columnAddress = Unsafe.malloc((long) ROW_COUNT * Integer.BYTES);
+        winnersAddress = Unsafe.malloc(KEY_COUNT * Long.BYTES);
+        seenKeysAddress = Unsafe.malloc(Long.BYTES);
+        Vect.setMemoryLong(winnersAddress, -1, KEY_COUNT);
+        foundKeyCount.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        Unsafe.free(columnAddress, (long) ROW_COUNT * Integer.BYTES);
+        Unsafe.free(winnersAddress, KEY_COUNT * Long.BYTES);
+        Unsafe.free(seenKeysAddress, Long.BYTES);
+    }
+
+    @Test
+    public void testMissingKeyScansWholeSlice() {
+        for (int i = 0; i < ROW_COUNT; i++) {
+            putKey(i, i % 3);
+        }
+        Assert.assertEquals(ROW_COUNT, scan(0, ROW_COUNT - 1));
+        Assert.assertEquals(3, foundKeyCount.get());
+        assertWinner(-1, SymbolTable.VALUE_IS_NULL);
+        assertWinner(ROW_COUNT - 1, 0);
+        assertWinner(ROW_COUNT - 3, 1);
+        assertWinner(ROW_COUNT - 2, 2);
+    }
+
+    @Test
+    public void testStopsWhenSliceHasSeenAllKeys() {
+        for (int i = 0; i < ROW_COUNT; i++) {
+            putKey(i, (i & 3) - 1);
+        }
+        Assert.assertEquals(KEY_COUNT, scan(0, ROW_COUNT - 1));
+        Assert.assertEquals(KEY_COUNT, foundKeyCount.get());
+        assertWinner(ROW_COUNT - 4, SymbolTable.VALUE_IS_NULL);
+        assertWinner(ROW_COUNT - 3, 0);
+        assertWinner(ROW_COUNT - 2, 1);
+        assertWinner(ROW_COUNT - 1, 2);
+    }
+
+    @Test
+    public void testStopsWhenNewerSliceHasFoundAllKeys() {
+        // older half has only key 1, newer half has all keys
+        final int half = ROW_COUNT / 2;
+        for (int i = 0; i < half; i++) {
+            putKey(i, 1);
+        }
+        for (int i = half; i < ROW_COUNT; i++) {
+            putKey(i, (i & 3) - 1);
+        }
+
+        Assert.assertEquals(KEY_COUNT, scan(half, ROW_COUNT - 1));
+        // older slice cannot improve any winner and gives up at the first check
+        final long scanned = scan(0, half - 1);
+        Assert.assertTrue(scanned < half / 100);
+        Assert.assertEquals(KEY_COUNT, foundKeyCount.get());
+        assertWinner(ROW_COUNT - 2, 1);
+    }
+
+    private void assertWinner(long expectedRow, int key) {
+        final long slot = key == SymbolTable.VALUE_IS_NULL ? 0 : key + 1;
+        final long winner = Unsafe.getUnsafe().getLong(winnersAddress + (slot << 3));
+        Assert.assertEquals(expectedRow == -1 ? -1 : Rows.toRowID(0, expectedRow), winner);
+    }
+
+    private void putKey(int row, int key) {
+        Unsafe.getUnsafe().putInt(columnAddress + ((long) row << 2), key);
+    }
+
+    private long scan(long rowLo, long rowHi) {
+        Unsafe.getUnsafe().putLong(seenKeysAddress, 0);
+        return LatestBySymbolScanTask.scan(columnAddress, 0, rowLo, rowHi, 0, winnersAddress, KEY_COUNT, seenKeysAddress, foundKeyCount);
+    }
+}